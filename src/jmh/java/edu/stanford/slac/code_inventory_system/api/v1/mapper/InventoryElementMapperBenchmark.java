@@ -0,0 +1,122 @@
+package edu.stanford.slac.code_inventory_system.api.v1.mapper;
+
+import edu.stanford.slac.code_inventory_system.api.v1.dto.InventoryClassSummaryDTO;
+import edu.stanford.slac.code_inventory_system.api.v1.dto.InventoryElementAttributeValueDTO;
+import edu.stanford.slac.code_inventory_system.api.v1.dto.InventoryElementSummaryDTO;
+import edu.stanford.slac.code_inventory_system.benchmark.InMemoryRepository;
+import edu.stanford.slac.code_inventory_system.model.*;
+import edu.stanford.slac.code_inventory_system.model.value.AbstractValue;
+import edu.stanford.slac.code_inventory_system.repository.InventoryClassRepository;
+import edu.stanford.slac.code_inventory_system.repository.InventoryDomainRepository;
+import edu.stanford.slac.code_inventory_system.repository.RequestIdentityMap;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measure the conversion of the element between model and dto
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class InventoryElementMapperBenchmark {
+    private static final InventoryClassAttributeType[] ATTRIBUTE_TYPES = InventoryClassAttributeType.values();
+
+    @Param({"10", "100"})
+    int attributeCount;
+    @Param({"5", "50"})
+    int tagCount;
+
+    InventoryElementMapperImpl inventoryElementMapper;
+    InventoryElement element;
+    InventoryDomain domain;
+    InventoryClassSummaryDTO classSummary;
+    List<InventoryElementAttributeValueDTO> attributeValues;
+
+    @Setup
+    public void setup() {
+        List<InventoryClassAttribute> classAttributes = new ArrayList<>();
+        attributeValues = new ArrayList<>();
+        for (int idx = 0; idx < attributeCount; idx++) {
+            var type = ATTRIBUTE_TYPES[idx % ATTRIBUTE_TYPES.length];
+            classAttributes.add(
+                    InventoryClassAttribute.builder().name("attribute-%d".formatted(idx)).type(type).mandatory(false).build()
+            );
+            attributeValues.add(
+                    InventoryElementAttributeValueDTO.builder().name("attribute-%d".formatted(idx)).value(sampleValue(type, idx)).build()
+            );
+        }
+        List<Tag> tags = new ArrayList<>();
+        for (int idx = 0; idx < tagCount; idx++) {
+            tags.add(Tag.builder().id("tag-%d".formatted(idx)).name("tag-%d".formatted(idx)).build());
+        }
+        var inventoryClass = InventoryClass.builder().id("class-id").name("class").attributes(classAttributes).build();
+        domain = InventoryDomain.builder().id("domain-id").name("domain").tags(tags).build();
+
+        inventoryElementMapper = new InventoryElementMapperImpl();
+        inventoryElementMapper.inventoryClassMapper = new InventoryClassMapperImpl();
+        inventoryElementMapper.requestIdentityMap = new RequestIdentityMap(new MongoMappingContext());
+        inventoryElementMapper.inventoryClassRepository = InMemoryRepository.of(
+                InventoryClassRepository.class,
+                Map.of(inventoryClass.getId(), inventoryClass)
+        );
+        inventoryElementMapper.inventoryDomainRepository = InMemoryRepository.of(
+                InventoryDomainRepository.class,
+                Map.of(domain.getId(), domain)
+        );
+        classSummary = inventoryElementMapper.inventoryClassMapper.toSummaryDTO(inventoryClass);
+
+        element = InventoryElement.builder()
+                .id("element-id")
+                .name("element")
+                .domainId(domain.getId())
+                .classId(inventoryClass.getId())
+                .attributes(inventoryElementMapper.toElementAttributeWithClass(inventoryClass.getId(), attributeValues))
+                .tags(tags.stream().map(Tag::getId).toList())
+                .build();
+    }
+
+    /**
+     * The conversion used by the paged api, domain and class are loaded for each element
+     */
+    @Benchmark
+    public InventoryElementSummaryDTO toSummaryDTO() {
+        return inventoryElementMapper.toSummaryDTO(element);
+    }
+
+    /**
+     * The conversion used by the streaming api, domain and class are already loaded
+     */
+    @Benchmark
+    public InventoryElementSummaryDTO toSummaryDTOWithLoadedDomainAndClass() {
+        return inventoryElementMapper.toSummaryDTO(element, domain, classSummary);
+    }
+
+    @Benchmark
+    public List<AbstractValue> toElementAttributeWithClass() {
+        return inventoryElementMapper.toElementAttributeWithClass(element.getClassId(), attributeValues);
+    }
+
+    @Benchmark
+    public void getInventoryElementAttributeValueDTO(Blackhole blackhole) {
+        for (AbstractValue value : element.getAttributes()) {
+            blackhole.consume(inventoryElementMapper.getInventoryElementAttributeValueDTO(value));
+        }
+    }
+
+    private static String sampleValue(InventoryClassAttributeType type, int idx) {
+        return switch (type) {
+            case String -> "value-%d".formatted(idx);
+            case Number -> Integer.toString(idx);
+            case Double -> Double.toString(idx * 1.5);
+            case Boolean -> Boolean.toString(idx % 2 == 0);
+            case Date -> "2023-11-%02d".formatted(1 + idx % 28);
+            case DateTime -> "2023-11-%02dT10:15:30".formatted(1 + idx % 28);
+        };
+    }
+}
@@ -0,0 +1,35 @@
+package edu.stanford.slac.code_inventory_system.benchmark;
+
+import java.lang.reflect.Proxy;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Build a repository that answer the lookup by id from a map, so the benchmark
+ * measure only the code that use the repository and not the database
+ */
+public class InMemoryRepository {
+    /**
+     * Create the repository proxy
+     *
+     * @param repositoryType the repository interface
+     * @param entities       the entities indexed by id
+     * @return the repository that serve findById and existsById from the map
+     */
+    static public <R> R of(Class<R> repositoryType, Map<String, ?> entities) {
+        return repositoryType.cast(
+                Proxy.newProxyInstance(
+                        repositoryType.getClassLoader(),
+                        new Class<?>[]{repositoryType},
+                        (proxy, method, args) -> switch (method.getName()) {
+                            case "findById" -> Optional.ofNullable(entities.get((String) args[0]));
+                            case "existsById" -> entities.containsKey((String) args[0]);
+                            case "hashCode" -> System.identityHashCode(proxy);
+                            case "equals" -> proxy == args[0];
+                            case "toString" -> "InMemoryRepository(%s)".formatted(repositoryType.getSimpleName());
+                            default -> throw new UnsupportedOperationException(method.getName());
+                        }
+                )
+        );
+    }
+}
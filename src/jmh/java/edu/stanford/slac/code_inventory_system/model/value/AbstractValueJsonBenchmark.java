@@ -0,0 +1,68 @@
+package edu.stanford.slac.code_inventory_system.model.value;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measure the polymorphic json serialization of the attribute values
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class AbstractValueJsonBenchmark {
+    private static final TypeReference<List<AbstractValue>> VALUE_LIST = new TypeReference<>() {
+    };
+
+    @Param({"10", "100"})
+    int valueCount;
+
+    ObjectWriter writer;
+    ObjectReader reader;
+    List<AbstractValue> values;
+    List<AbstractValue> readableValues;
+    String readableJson;
+
+    @Setup
+    public void setup() throws JsonProcessingException {
+        var objectMapper = JsonMapper.builder().findAndAddModules().build();
+        writer = objectMapper.writerFor(VALUE_LIST);
+        reader = objectMapper.readerFor(VALUE_LIST);
+        values = new ArrayList<>();
+        readableValues = new ArrayList<>();
+        for (int idx = 0; idx < valueCount; idx++) {
+            AbstractValue value = switch (idx % 6) {
+                case 0 -> StringValue.builder().name("string-%d".formatted(idx)).value("value %d".formatted(idx)).build();
+                case 1 -> NumberValue.builder().name("number-%d".formatted(idx)).value((long) idx).build();
+                case 2 -> DoubleValue.builder().name("double-%d".formatted(idx)).value(idx * 1.5).build();
+                case 3 -> BooleanValue.builder().name("bool-%d".formatted(idx)).value(idx % 2 == 0).build();
+                case 4 -> DateValue.builder().name("date-%d".formatted(idx)).value(LocalDate.of(2023, 11, 1 + idx % 28)).build();
+                default -> DateTimeValue.builder().name("date-time-%d".formatted(idx)).value(LocalDateTime.of(2023, 11, 1 + idx % 28, 10, 15, 30)).build();
+            };
+            values.add(value);
+            // the 'string-value' type id is also registered for java.lang.String, so the
+            // string values are not read back
+            if (!(value instanceof StringValue)) readableValues.add(value);
+        }
+        readableJson = writer.writeValueAsString(readableValues);
+    }
+
+    @Benchmark
+    public String serialize() throws JsonProcessingException {
+        return writer.writeValueAsString(values);
+    }
+
+    @Benchmark
+    public List<AbstractValue> deserialize() throws JsonProcessingException {
+        return reader.readValue(readableJson);
+    }
+}
@@ -0,0 +1,108 @@
+package edu.stanford.slac.code_inventory_system.service;
+
+import edu.stanford.slac.code_inventory_system.api.v1.dto.InventoryClassDTO;
+import edu.stanford.slac.code_inventory_system.api.v1.mapper.InventoryClassMapperImpl;
+import edu.stanford.slac.code_inventory_system.benchmark.InMemoryRepository;
+import edu.stanford.slac.code_inventory_system.model.InventoryClass;
+import edu.stanford.slac.code_inventory_system.model.InventoryClassAttribute;
+import edu.stanford.slac.code_inventory_system.model.InventoryClassAttributeType;
+import edu.stanford.slac.code_inventory_system.repository.InventoryClassRepository;
+import edu.stanford.slac.code_inventory_system.repository.RequestIdentityMap;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static java.util.Collections.emptyList;
+
+/**
+ * Measure the resolution of the class inheritance, the hierarchy is a tree where
+ * every class extends a number of parent equal to the fan out
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class InventoryClassServiceBenchmark {
+    @Param({"1", "4", "8"})
+    int depth;
+    @Param({"1", "2"})
+    int fanOut;
+    @Param({"5", "20"})
+    int attributePerClass;
+
+    InventoryClassService inventoryClassService;
+    RequestIdentityMap requestIdentityMap;
+    String leafClassId;
+
+    @Setup
+    public void setup() {
+        Map<String, InventoryClass> classes = new HashMap<>();
+        leafClassId = createClass(classes, 0, "leaf");
+        requestIdentityMap = new RequestIdentityMap(new MongoMappingContext());
+        // the resolution of the inheritance doesn't use mongodb, the auditor and the jobs
+        inventoryClassService = new InventoryClassService(
+                null,
+                null,
+                new InventoryClassMapperImpl(),
+                InMemoryRepository.of(InventoryClassRepository.class, classes),
+                null,
+                requestIdentityMap
+        );
+    }
+
+    /**
+     * Resolve the inheritance without any request scope, every class is loaded each time it is found
+     */
+    @Benchmark
+    public InventoryClassDTO findByIdResolveInheritance() {
+        return inventoryClassService.findById(leafClassId, true);
+    }
+
+    /**
+     * Resolve the inheritance as done in a request, the shared parent are loaded only once
+     */
+    @Benchmark
+    public InventoryClassDTO findByIdResolveInheritanceInScope() {
+        return requestIdentityMap.runInScope(() -> inventoryClassService.findById(leafClassId, true));
+    }
+
+    private String createClass(Map<String, InventoryClass> classes, int level, String id) {
+        List<String> extendsClass = new ArrayList<>();
+        if (level < depth) {
+            for (int idx = 0; idx < fanOut; idx++) {
+                // the parents of the same level are shared between the branches
+                String parentId = "class-%d-%d".formatted(level + 1, idx);
+                if (!classes.containsKey(parentId)) {
+                    createClass(classes, level + 1, parentId);
+                }
+                extendsClass.add(parentId);
+            }
+        }
+        List<InventoryClassAttribute> attributes = new ArrayList<>();
+        for (int idx = 0; idx < attributePerClass; idx++) {
+            attributes.add(
+                    InventoryClassAttribute.builder()
+                            .name("%s-attribute-%d".formatted(id, idx))
+                            .type(InventoryClassAttributeType.String)
+                            .mandatory(false)
+                            .build()
+            );
+        }
+        classes.put(
+                id,
+                InventoryClass.builder()
+                        .id(id)
+                        .name(id)
+                        .extendsClass(extendsClass)
+                        .permittedChildClass(emptyList())
+                        .implementedByClass(emptyList())
+                        .attributes(attributes)
+                        .build()
+        );
+        return id;
+    }
+}
@@ -0,0 +1,61 @@
+package edu.stanford.slac.code_inventory_system.service.utility;
+
+import edu.stanford.slac.code_inventory_system.exception.TagInUse;
+import edu.stanford.slac.code_inventory_system.exception.TagNotFound;
+import edu.stanford.slac.code_inventory_system.model.Tag;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measure the reconciliation of the domain tags done on each domain update
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class IdValueObjectUtilBenchmark {
+    @Param({"10", "100", "1000"})
+    int tagCount;
+
+    List<Tag> storedTags;
+
+    @Setup
+    public void setup() {
+        storedTags = new ArrayList<>();
+        for (int idx = 0; idx < tagCount; idx++) {
+            storedTags.add(Tag.builder().id("tag-id-%d".formatted(idx)).name("tag-%d".formatted(idx)).build());
+        }
+    }
+
+    /**
+     * Update where one tag every ten is removed and the same number of tags is added,
+     * the updated list is rebuilt every time because it is modified by the update
+     */
+    @Benchmark
+    public List<? extends IdNameInterface> updateResource() {
+        List<Tag> updatedTags = new ArrayList<>(storedTags.size());
+        for (int idx = 0; idx < storedTags.size(); idx++) {
+            if (idx % 10 == 0) {
+                updatedTags.add(Tag.builder().name("new tag %d".formatted(idx)).build());
+            } else {
+                updatedTags.add(storedTags.get(idx).toBuilder().build());
+            }
+        }
+        return IdValueObjectUtil.updateResource(
+                updatedTags,
+                storedTags,
+                tagIds -> Set.of(),
+                notFoundTag -> TagNotFound.tagNotFound()
+                        .errorCode(-3)
+                        .tag((Tag) notFoundTag)
+                        .build(),
+                inUseTag -> TagInUse.tagInUse()
+                        .errorCode(-3)
+                        .tag((Tag) inUseTag)
+                        .build()
+        );
+    }
+}
@@ -0,0 +1,117 @@
+package edu.stanford.slac.code_inventory_system.loadtest;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.Executors;
+
+/**
+ * Closed loop load generator for the tree and search endpoints.
+ * <p>
+ * A fixed number of concurrent clients send the requests back to back for the
+ * configured duration, after a warmup, and the throughput and the latency percentiles
+ * of each endpoint are printed and appended to a csv report, so the same run can be
+ * repeated against the application started with and without the virtual threads.
+ * <p>
+ * The configuration is read from the system properties:
+ * <ul>
+ *     <li>benchmark.url the application base url, default http://localhost:8080</li>
+ *     <li>benchmark.token the jwt to use, when missing the first mock user is used (demo mode only)</li>
+ *     <li>benchmark.mode the label of the run, for example platform or virtual</li>
+ *     <li>benchmark.concurrency the number of concurrent clients, default 200</li>
+ *     <li>benchmark.warmup-seconds the warmup duration, default 15</li>
+ *     <li>benchmark.duration-seconds the measured duration, default 60</li>
+ *     <li>benchmark.report the csv report file, default build/benchmark/endpoint-load.csv</li>
+ * </ul>
+ */
+public class EndpointLoadBenchmark {
+    private final LoadTestClient client;
+
+    record Endpoint(String name, String path) {
+    }
+
+    public EndpointLoadBenchmark(LoadTestClient client) {
+        this.client = client;
+    }
+
+    public static void main(String[] args) throws Exception {
+        String mode = System.getProperty("benchmark.mode", "default");
+        int concurrency = Integer.getInteger("benchmark.concurrency", 200);
+        int warmupSeconds = Integer.getInteger("benchmark.warmup-seconds", 15);
+        int durationSeconds = Integer.getInteger("benchmark.duration-seconds", 60);
+        Path report = Path.of(System.getProperty("benchmark.report", "build/benchmark/endpoint-load.csv"));
+
+        var benchmark = new EndpointLoadBenchmark(LoadTestClient.fromSystemProperties());
+        List<Endpoint> endpoints = benchmark.discoverEndpoints();
+        System.out.printf("Running '%s' with %d clients on %s%n", mode, concurrency, endpoints);
+
+        benchmark.run(endpoints, concurrency, Duration.ofSeconds(warmupSeconds));
+        Duration duration = Duration.ofSeconds(durationSeconds);
+        var recorder = benchmark.run(endpoints, concurrency, duration);
+        LatencyRecorder.report(
+                mode,
+                concurrency,
+                recorder.results(endpoints.stream().map(Endpoint::name).toList(), duration),
+                report
+        );
+        System.exit(0);
+    }
+
+    /**
+     * Find the domain with the biggest tree and build the tree and search endpoints on it
+     */
+    private List<Endpoint> discoverEndpoints() throws IOException, InterruptedException {
+        String domainId = System.getProperty("benchmark.domain-id");
+        if (domainId == null) {
+            var domains = client.get("/v1/inventory/domain").path("payload");
+            if (domains.isEmpty()) throw new IllegalStateException("No domain found, load some data before the benchmark");
+            domainId = domains.get(0).path("id").asText();
+        }
+        var roots = client.get("/v1/inventory/domain/%s/roots".formatted(domainId)).path("payload");
+        if (roots.isEmpty()) throw new IllegalStateException("The domain %s has no element".formatted(domainId));
+        String rootId = roots.get(0).path("id").asText();
+        // go down to a leaf following the first child
+        String leafId = rootId;
+        for (int depth = 0; depth < 32; depth++) {
+            var children = client.get("/v1/inventory/domain/%s/element/%s/children".formatted(domainId, leafId)).path("payload");
+            if (children.isEmpty()) break;
+            leafId = children.get(0).path("id").asText();
+        }
+        return List.of(
+                new Endpoint("subtree", "/v1/inventory/domain/%s/element/%s/path?pathType=Downward".formatted(domainId, rootId)),
+                new Endpoint("path", "/v1/inventory/domain/%s/element/%s/path?pathType=Upward".formatted(domainId, leafId)),
+                new Endpoint("children", "/v1/inventory/domain/%s/element/%s/children".formatted(domainId, rootId)),
+                new Endpoint("search", "/v1/inventory/domain/%s/element?limit=50".formatted(domainId))
+        );
+    }
+
+    /**
+     * Run the clients for the given duration, each client loops over all the endpoints
+     */
+    private LatencyRecorder run(List<Endpoint> endpoints, int concurrency, Duration duration) {
+        LatencyRecorder recorder = new LatencyRecorder();
+        long deadline = System.nanoTime() + duration.toNanos();
+        try (var clients = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int c = 0; c < concurrency; c++) {
+                int offset = c;
+                clients.submit(() -> {
+                    int idx = offset;
+                    while (System.nanoTime() < deadline) {
+                        Endpoint endpoint = endpoints.get(idx++ % endpoints.size());
+                        long start = System.nanoTime();
+                        boolean success;
+                        try {
+                            success = client.send(client.getRequest(endpoint.path())) == 200;
+                        } catch (Exception e) {
+                            success = false;
+                        }
+                        recorder.record(endpoint.name(), System.nanoTime() - start, success);
+                    }
+                    return null;
+                });
+            }
+        }
+        return recorder;
+    }
+}
@@ -0,0 +1,92 @@
+package edu.stanford.slac.code_inventory_system.loadtest;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Collect the latency of the requests grouped by endpoint and compute throughput
+ * and percentiles at the end of the run
+ */
+public class LatencyRecorder {
+    private final Map<String, ConcurrentLinkedQueue<Long>> latencies = new ConcurrentHashMap<>();
+    private final Map<String, AtomicLong> errors = new ConcurrentHashMap<>();
+
+    record Result(String endpoint, long requests, long errors, double throughput, double p50, double p90, double p99, double max) {
+    }
+
+    /**
+     * Record a completed request
+     *
+     * @param endpoint the endpoint name
+     * @param nanos    the latency
+     * @param success  false if the request failed
+     */
+    public void record(String endpoint, long nanos, boolean success) {
+        latencies.computeIfAbsent(endpoint, k -> new ConcurrentLinkedQueue<>()).add(nanos);
+        var endpointErrors = errors.computeIfAbsent(endpoint, k -> new AtomicLong());
+        if (!success) endpointErrors.incrementAndGet();
+    }
+
+    /**
+     * Compute the result of each endpoint, in the given order
+     *
+     * @param endpoints the endpoint names
+     * @param duration  the duration of the run
+     */
+    public List<Result> results(List<String> endpoints, Duration duration) {
+        double seconds = duration.toNanos() / 1e9;
+        List<Result> results = new ArrayList<>();
+        for (String endpoint : endpoints) {
+            long[] sorted = latencies.getOrDefault(endpoint, new ConcurrentLinkedQueue<>()).stream().mapToLong(Long::longValue).sorted().toArray();
+            results.add(
+                    new Result(
+                            endpoint,
+                            sorted.length,
+                            errors.getOrDefault(endpoint, new AtomicLong()).get(),
+                            sorted.length / seconds,
+                            percentile(sorted, 50),
+                            percentile(sorted, 90),
+                            percentile(sorted, 99),
+                            sorted.length == 0 ? 0 : sorted[sorted.length - 1] / 1e6
+                    )
+            );
+        }
+        return results;
+    }
+
+    /**
+     * Print the results and append them to the csv report
+     *
+     * @param mode        the label of the run
+     * @param concurrency the number of concurrent clients
+     * @param results     the results to report
+     * @param report      the csv file
+     */
+    public static void report(String mode, int concurrency, List<Result> results, Path report) throws IOException {
+        boolean newReport = !Files.exists(report);
+        if (report.getParent() != null) Files.createDirectories(report.getParent());
+        StringBuilder csv = new StringBuilder();
+        if (newReport) csv.append("mode,endpoint,concurrency,requests,errors,throughput_rps,p50_ms,p90_ms,p99_ms,max_ms\n");
+        System.out.printf("%-10s %-20s %10s %8s %12s %9s %9s %9s %9s%n", "mode", "endpoint", "requests", "errors", "rps", "p50", "p90", "p99", "max");
+        for (Result r : results) {
+            System.out.printf("%-10s %-20s %10d %8d %12.1f %9.2f %9.2f %9.2f %9.2f%n", mode, r.endpoint(), r.requests(), r.errors(), r.throughput(), r.p50(), r.p90(), r.p99(), r.max());
+            csv.append("%s,%s,%d,%d,%d,%.1f,%.2f,%.2f,%.2f,%.2f%n".formatted(mode, r.endpoint(), concurrency, r.requests(), r.errors(), r.throughput(), r.p50(), r.p90(), r.p99(), r.max()));
+        }
+        Files.writeString(report, csv, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+    }
+
+    private static double percentile(long[] sorted, double percentile) {
+        if (sorted.length == 0) return 0;
+        int index = (int) Math.ceil(percentile / 100.0 * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(index, sorted.length - 1))] / 1e6;
+    }
+}
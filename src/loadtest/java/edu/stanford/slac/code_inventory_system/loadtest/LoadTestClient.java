@@ -0,0 +1,103 @@
+package edu.stanford.slac.code_inventory_system.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.TreeMap;
+import java.util.concurrent.Executors;
+
+/**
+ * Http client shared by the load generators, all the requests are authenticated
+ * with the same token
+ */
+public class LoadTestClient {
+    private static final String AUTH_HEADER = System.getProperty("benchmark.auth-header", "x-vouch-idp-accesstoken");
+    static final ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+    private final HttpClient httpClient = HttpClient.newBuilder()
+            .executor(Executors.newVirtualThreadPerTaskExecutor())
+            .connectTimeout(Duration.ofSeconds(10))
+            .build();
+    private final String baseUrl;
+    private final String token;
+
+    public LoadTestClient(String baseUrl, String token) {
+        this.baseUrl = baseUrl;
+        this.token = token;
+    }
+
+    /**
+     * Create the client from the benchmark.url and benchmark.token system properties, when
+     * the token is missing the first mock user is used (demo mode only)
+     */
+    public static LoadTestClient fromSystemProperties() throws IOException, InterruptedException {
+        String baseUrl = System.getProperty("benchmark.url", "http://localhost:8080");
+        String token = System.getProperty("benchmark.token");
+        if (token == null || token.isBlank()) {
+            token = new LoadTestClient(baseUrl, null).fetchMockUserToken();
+        }
+        return new LoadTestClient(baseUrl, token);
+    }
+
+    /**
+     * Return the token of the first mock user, available when the application run in demo mode
+     */
+    private String fetchMockUserToken() throws IOException, InterruptedException {
+        JsonNode payload = get("/v1/mock/users-auth").path("payload");
+        var tokens = new TreeMap<String, String>();
+        payload.fields().forEachRemaining(e -> tokens.put(e.getKey(), e.getValue().asText()));
+        if (tokens.isEmpty()) throw new IllegalStateException("No mock user found, set benchmark.token");
+        return tokens.firstEntry().getValue();
+    }
+
+    /**
+     * Send the request discarding the body
+     *
+     * @return the http status
+     */
+    public int send(HttpRequest request) throws IOException, InterruptedException {
+        return httpClient.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+    }
+
+    /**
+     * Execute a get and return the parsed body, fails if the status is not 200
+     */
+    public JsonNode get(String path) throws IOException, InterruptedException {
+        var response = httpClient.send(request(path).GET().build(), HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() != 200) {
+            throw new IllegalStateException("GET %s returned %d".formatted(path, response.statusCode()));
+        }
+        return objectMapper.readTree(response.body());
+    }
+
+    public HttpRequest getRequest(String path) {
+        return request(path).GET().build();
+    }
+
+    public HttpRequest postRequest(String path, Object body) throws IOException {
+        return request(path)
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofByteArray(objectMapper.writeValueAsBytes(body)))
+                .build();
+    }
+
+    public HttpRequest putRequest(String path, Object body) throws IOException {
+        return request(path)
+                .header("Content-Type", "application/json")
+                .PUT(HttpRequest.BodyPublishers.ofByteArray(objectMapper.writeValueAsBytes(body)))
+                .build();
+    }
+
+    private HttpRequest.Builder request(String path) {
+        var builder = HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .timeout(Duration.ofSeconds(30));
+        if (token != null) builder.header(AUTH_HEADER, token);
+        return builder;
+    }
+}
@@ -0,0 +1,228 @@
+package edu.stanford.slac.code_inventory_system.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import edu.stanford.slac.code_inventory_system.api.v1.dto.InventoryMaintenanceTypeDTO;
+import edu.stanford.slac.code_inventory_system.api.v1.dto.NewInventoryElementDTO;
+import edu.stanford.slac.code_inventory_system.api.v1.dto.NewInventoryMaintenanceDTO;
+import edu.stanford.slac.code_inventory_system.api.v1.dto.UpdateInventoryElementDTO;
+
+import java.io.IOException;
+import java.net.URLEncoder;
+import java.net.http.HttpRequest;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Closed loop mixed read and write workload over a domain, usually one created by the
+ * {@link FacilityDataGenerator}.
+ * <p>
+ * Before the run a sample of the elements is collected with random walks from the roots,
+ * then every client picks, for each request, a read or a write operation on a random
+ * element of the sample. The throughput and the latency percentiles of each operation are
+ * printed and appended to a csv report.
+ * <p>
+ * The configuration is read from the system properties, in addition to the ones of the
+ * {@link EndpointLoadBenchmark}:
+ * <ul>
+ *     <li>benchmark.domain-id the domain to use, default the first one</li>
+ *     <li>benchmark.write-ratio the fraction of write operations, default 0.1</li>
+ *     <li>benchmark.sample-walks the number of random walks used to sample the elements, default 200</li>
+ *     <li>benchmark.report the csv report file, default build/benchmark/mixed-workload.csv</li>
+ * </ul>
+ */
+public class MixedWorkloadBenchmark {
+    private final LoadTestClient client;
+    private final String domainId;
+    private final List<SampledElement> sample = new ArrayList<>();
+
+    /**
+     * An element found during the sampling
+     */
+    record SampledElement(String id, String name, String classId, String parentId) {
+    }
+
+    /**
+     * An operation of the workload, the weight is relative to the other operations of the same kind
+     */
+    record Operation(String name, boolean write, int weight, RequestFactory factory) {
+    }
+
+    @FunctionalInterface
+    interface RequestFactory {
+        HttpRequest create(SampledElement element) throws IOException;
+    }
+
+    public MixedWorkloadBenchmark(LoadTestClient client, String domainId) {
+        this.client = client;
+        this.domainId = domainId;
+    }
+
+    public static void main(String[] args) throws Exception {
+        String mode = System.getProperty("benchmark.mode", "default");
+        int concurrency = Integer.getInteger("benchmark.concurrency", 200);
+        int warmupSeconds = Integer.getInteger("benchmark.warmup-seconds", 15);
+        int durationSeconds = Integer.getInteger("benchmark.duration-seconds", 60);
+        double writeRatio = Double.parseDouble(System.getProperty("benchmark.write-ratio", "0.1"));
+        Path report = Path.of(System.getProperty("benchmark.report", "build/benchmark/mixed-workload.csv"));
+
+        var client = LoadTestClient.fromSystemProperties();
+        String domainId = System.getProperty("benchmark.domain-id");
+        if (domainId == null) {
+            var domains = client.get("/v1/inventory/domain").path("payload");
+            if (domains.isEmpty()) throw new IllegalStateException("No domain found, generate the data before the benchmark");
+            domainId = domains.get(0).path("id").asText();
+        }
+        var benchmark = new MixedWorkloadBenchmark(client, domainId);
+        benchmark.sampleElements(Integer.getInteger("benchmark.sample-walks", 200));
+        List<Operation> operations = benchmark.operations();
+        System.out.printf(
+                "Running '%s' with %d clients, write ratio %.2f, on %d sampled elements of the domain %s%n",
+                mode, concurrency, writeRatio, benchmark.sample.size(), domainId
+        );
+
+        benchmark.run(operations, writeRatio, concurrency, Duration.ofSeconds(warmupSeconds));
+        Duration duration = Duration.ofSeconds(durationSeconds);
+        var recorder = benchmark.run(operations, writeRatio, concurrency, duration);
+        LatencyRecorder.report(
+                mode,
+                concurrency,
+                recorder.results(operations.stream().map(Operation::name).toList(), duration),
+                report
+        );
+        System.exit(0);
+    }
+
+    /**
+     * Collect the elements visited by random walks from the roots to the leaves
+     */
+    private void sampleElements(int walks) throws IOException, InterruptedException {
+        var roots = client.get("/v1/inventory/domain/%s/roots".formatted(domainId)).path("payload");
+        if (roots.isEmpty()) throw new IllegalStateException("The domain %s has no element".formatted(domainId));
+        Set<String> visited = new HashSet<>();
+        var random = new Random(42);
+        for (int walk = 0; walk < walks; walk++) {
+            JsonNode current = roots.get(random.nextInt(roots.size()));
+            for (int depth = 0; depth < 32 && current != null; depth++) {
+                String id = current.path("id").asText();
+                if (visited.add(id)) {
+                    sample.add(
+                            new SampledElement(
+                                    id,
+                                    current.path("name").asText(),
+                                    current.path("classDTO").path("id").asText(null),
+                                    current.path("parentId").asText(null)
+                            )
+                    );
+                }
+                var children = client.get("/v1/inventory/domain/%s/element/%s/children".formatted(domainId, id)).path("payload");
+                current = children.isEmpty() ? null : children.get(random.nextInt(children.size()));
+            }
+        }
+    }
+
+    /**
+     * The read and write operations of the workload
+     */
+    private List<Operation> operations() {
+        String base = "/v1/inventory/domain/%s".formatted(domainId);
+        return List.of(
+                new Operation("get-element", false, 30, e -> client.getRequest("%s/element/%s".formatted(base, e.id()))),
+                new Operation("children", false, 20, e -> client.getRequest("%s/element/%s/children".formatted(base, e.id()))),
+                new Operation("path-upward", false, 15, e -> client.getRequest("%s/element/%s/path?pathType=Upward".formatted(base, e.id()))),
+                new Operation("search", false, 15, e -> client.getRequest("%s/element?limit=50&search=%s".formatted(base, URLEncoder.encode(e.name(), StandardCharsets.UTF_8)))),
+                new Operation("capacity", false, 10, e -> client.getRequest("%s/element/%s/capacity".formatted(base, e.id()))),
+                new Operation("maintenance-list", false, 10, e -> client.getRequest("%s/element/%s/maintenance?limit=20".formatted(base, e.id()))),
+                new Operation(
+                        "create-element",
+                        true,
+                        40,
+                        e -> client.postRequest(
+                                "%s/element".formatted(base),
+                                NewInventoryElementDTO
+                                        .builder()
+                                        .name("loadtest-%s".formatted(UUID.randomUUID()))
+                                        .description("created by the load test")
+                                        .classId(e.classId())
+                                        .parentId(e.parentId())
+                                        .build()
+                        )
+                ),
+                new Operation(
+                        "update-element",
+                        true,
+                        40,
+                        e -> client.putRequest(
+                                "%s/element/%s".formatted(base, e.id()),
+                                UpdateInventoryElementDTO
+                                        .builder()
+                                        .description("updated by the load test at %s".formatted(LocalDateTime.now()))
+                                        .build()
+                        )
+                ),
+                new Operation(
+                        "add-maintenance",
+                        true,
+                        20,
+                        e -> client.postRequest(
+                                "%s/element/%s/maintenance".formatted(base, e.id()),
+                                NewInventoryMaintenanceDTO
+                                        .builder()
+                                        .timestamp(LocalDateTime.now())
+                                        .type(InventoryMaintenanceTypeDTO.Local)
+                                        .action("load test check")
+                                        .build()
+                        )
+                )
+        );
+    }
+
+    /**
+     * Run the clients for the given duration
+     */
+    private LatencyRecorder run(List<Operation> operations, double writeRatio, int concurrency, Duration duration) {
+        List<Operation> reads = operations.stream().filter(o -> !o.write()).toList();
+        List<Operation> writes = operations.stream().filter(Operation::write).toList();
+        // only the elements with a parent can get a new sibling
+        List<SampledElement> withParent = sample.stream().filter(e -> e.parentId() != null).toList();
+        LatencyRecorder recorder = new LatencyRecorder();
+        long deadline = System.nanoTime() + duration.toNanos();
+        try (var clients = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int c = 0; c < concurrency; c++) {
+                clients.submit(() -> {
+                    var random = ThreadLocalRandom.current();
+                    while (System.nanoTime() < deadline) {
+                        Operation operation = pick(random.nextDouble() < writeRatio ? writes : reads, random);
+                        List<SampledElement> candidates = operation.name().equals("create-element") && !withParent.isEmpty() ? withParent : sample;
+                        SampledElement element = candidates.get(random.nextInt(candidates.size()));
+                        long start = System.nanoTime();
+                        boolean success;
+                        try {
+                            int status = client.send(operation.factory().create(element));
+                            success = status >= 200 && status < 300;
+                        } catch (Exception e) {
+                            success = false;
+                        }
+                        recorder.record(operation.name(), System.nanoTime() - start, success);
+                    }
+                    return null;
+                });
+            }
+        }
+        return recorder;
+    }
+
+    private static Operation pick(List<Operation> operations, Random random) {
+        int total = operations.stream().mapToInt(Operation::weight).sum();
+        int value = random.nextInt(total);
+        for (Operation operation : operations) {
+            value -= operation.weight();
+            if (value < 0) return operation;
+        }
+        return operations.get(operations.size() - 1);
+    }
+}
@@ -8,6 +8,7 @@ import edu.stanford.slac.code_inventory_system.api.v1.dto.InventoryClassSummaryD
 import edu.stanford.slac.code_inventory_system.api.v1.dto.InventoryElementAttributeHistoryDTO;
 import edu.stanford.slac.code_inventory_system.api.v1.dto.NewInventoryClassDTO;
 import edu.stanford.slac.code_inventory_system.service.InventoryClassService;
+import edu.stanford.slac.code_inventory_system.service.utility.AuthorizationDecisionCache;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.media.Schema;
@@ -15,9 +16,12 @@ import jakarta.validation.Valid;
 import lombok.AllArgsConstructor;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
+import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
 
@@ -29,6 +33,7 @@ import static edu.stanford.slac.ad.eed.baselib.exception.Utility.assertion;
 @Schema(description = "Set of api for the inventory class management")
 public class InventoryClassController {
     private final AuthService authService;
+    private final AuthorizationDecisionCache authorizationDecisionCache;
     private final InventoryClassService inventoryClassService;
 
     @PostMapping(
@@ -50,7 +55,7 @@ public class InventoryClassController {
                 // should be authenticated
                 () -> authService.checkAuthentication(authentication),
                 // should be root
-                () -> authService.checkForRoot(authentication)
+                () -> authorizationDecisionCache.checkForRoot(authentication)
         );
         return ApiResultResponse.of(
                 inventoryClassService.createNew(inventoryClassDTO)
@@ -62,9 +67,9 @@ public class InventoryClassController {
             produces = {MediaType.APPLICATION_JSON_VALUE}
     )
     @Operation(summary = "Return found inventory class")
-    @ResponseStatus(HttpStatus.OK)
-    public ApiResultResponse<InventoryClassDTO> finById(
+    public ResponseEntity<ApiResultResponse<InventoryClassDTO>> finById(
             Authentication authentication,
+            WebRequest webRequest,
             @PathVariable String id,
             @Parameter(name = "resolveInheritance", description = "Resolve the inheritance filling filed from the extended class")
             @RequestParam(value = "resolveInheritance", defaultValue = "false") Optional<Boolean> resolveInheritance
@@ -78,8 +83,49 @@ public class InventoryClassController {
                 // should be authenticated
                 () -> authService.checkAuthentication(authentication)
         );
+        if (resolveInheritance.orElse(false)) {
+            // the resolved class depends also on the extended classes
+            return ResponseEntity.ok(
+                    ApiResultResponse.of(
+                            inventoryClassService.findById(id, true)
+                    )
+            );
+        }
+        // the class is loaded only if the client has not the current version
+        String eTag = inventoryClassService.getETag(id);
+        if (webRequest.checkNotModified(eTag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(eTag).build();
+        }
+        return ResponseEntity.ok().eTag(eTag).body(
+                ApiResultResponse.of(
+                        inventoryClassService.findById(id, false)
+                )
+        );
+    }
+
+    @PostMapping(
+            path = "/{id}/revalidate",
+            produces = {MediaType.APPLICATION_JSON_VALUE}
+    )
+    @Operation(summary = "Start the revalidation of the elements of the class, and of his subclasses, against the current attributes, return the id of the background job")
+    @ResponseStatus(HttpStatus.ACCEPTED)
+    public ApiResultResponse<String> revalidateElements(
+            Authentication authentication,
+            @PathVariable String id
+    ) {
+        // check for auth
+        assertion(
+                NotAuthorized.notAuthorizedBuilder()
+                        .errorCode(-1)
+                        .errorDomain("InventoryClassController::revalidateElements")
+                        .build(),
+                // should be authenticated
+                () -> authService.checkAuthentication(authentication),
+                // should be root
+                () -> authorizationDecisionCache.checkForRoot(authentication)
+        );
         return ApiResultResponse.of(
-                inventoryClassService.findById(id, resolveInheritance.orElse(false))
+                inventoryClassService.revalidateElements(id, Collections.emptyMap(), authentication.getName())
         );
     }
 
@@ -2,25 +2,43 @@ package edu.stanford.slac.code_inventory_system.api.v1.controller;
 
 import edu.stanford.slac.ad.eed.baselib.api.v1.dto.ApiResultResponse;
 import edu.stanford.slac.ad.eed.baselib.api.v1.dto.AuthorizationTypeDTO;
+import edu.stanford.slac.ad.eed.baselib.exception.ControllerLogicException;
 import edu.stanford.slac.ad.eed.baselib.exception.NotAuthorized;
 import edu.stanford.slac.ad.eed.baselib.service.AuthService;
 import edu.stanford.slac.code_inventory_system.api.v1.dto.*;
 import edu.stanford.slac.code_inventory_system.model.InventoryElement;
+import edu.stanford.slac.code_inventory_system.service.IdempotencyKeyService;
+import edu.stanford.slac.code_inventory_system.service.InventoryCloneService;
+import edu.stanford.slac.code_inventory_system.service.InventoryDeleteService;
+import edu.stanford.slac.code_inventory_system.service.InventoryDomainStatisticsService;
+import edu.stanford.slac.code_inventory_system.service.InventoryElementBulkUpdateService;
+import edu.stanford.slac.code_inventory_system.service.InventoryElementCapacityService;
 import edu.stanford.slac.code_inventory_system.service.InventoryElementService;
+import edu.stanford.slac.code_inventory_system.service.InventoryElementSyncService;
+import edu.stanford.slac.code_inventory_system.service.InventoryJobService;
+import edu.stanford.slac.code_inventory_system.service.utility.AuthorizationDecisionCache;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.media.Schema;
 import jakarta.validation.Valid;
 import lombok.AllArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
+import java.time.LocalDateTime;
 import java.util.Collections;
+import java.util.EnumSet;
 import java.util.List;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 import static edu.stanford.slac.ad.eed.baselib.exception.Utility.any;
 import static edu.stanford.slac.ad.eed.baselib.exception.Utility.assertion;
@@ -32,7 +50,16 @@ import static edu.stanford.slac.ad.eed.baselib.exception.Utility.assertion;
 @Schema(description = "Set of api for the inventory element management")
 public class InventoryElementController {
     private final AuthService authService;
+    private final AuthorizationDecisionCache authorizationDecisionCache;
     private final InventoryElementService inventoryElementService;
+    private final InventoryElementCapacityService inventoryElementCapacityService;
+    private final InventoryElementSyncService inventoryElementSyncService;
+    private final InventoryDomainStatisticsService inventoryDomainStatisticsService;
+    private final InventoryDeleteService inventoryDeleteService;
+    private final InventoryCloneService inventoryCloneService;
+    private final IdempotencyKeyService idempotencyKeyService;
+    private final InventoryJobService inventoryJobService;
+    private final InventoryElementBulkUpdateService inventoryElementBulkUpdateService;
 
     @PostMapping(
             path = "/domain",
@@ -43,6 +70,8 @@ public class InventoryElementController {
     @ResponseStatus(HttpStatus.CREATED)
     public ApiResultResponse<String> createNewDomain(
             Authentication authentication,
+            @Parameter(description = "When set the retries of the request with the same key return the result of the first one")
+            @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey,
             @Valid @RequestBody NewInventoryDomainDTO inventoryDomainDTO
     ) {
         // check for auth
@@ -54,10 +83,16 @@ public class InventoryElementController {
                 // should be authenticated
                 () -> authService.checkAuthentication(authentication),
                 // should be root for create new domain
-                () -> authService.checkForRoot(authentication)
+                () -> authorizationDecisionCache.checkForRoot(authentication)
         );
         return ApiResultResponse.of(
-                inventoryElementService.createNew(inventoryDomainDTO)
+                idempotencyKeyService.execute(
+                        authentication.getName(),
+                        "POST /domain",
+                        idempotencyKey,
+                        inventoryDomainDTO,
+                        () -> inventoryElementService.createNew(inventoryDomainDTO)
+                )
         );
     }
 
@@ -66,9 +101,9 @@ public class InventoryElementController {
             produces = {MediaType.APPLICATION_JSON_VALUE}
     )
     @Operation(summary = "Create a new inventory domain")
-    @ResponseStatus(HttpStatus.OK)
-    public ApiResultResponse<InventoryDomainDTO> findDomainById(
+    public ResponseEntity<ApiResultResponse<InventoryDomainDTO>> findDomainById(
             Authentication authentication,
+            WebRequest webRequest,
             @PathVariable(name = "domainId") String domainId
     ) {
         // check for auth
@@ -80,13 +115,20 @@ public class InventoryElementController {
                 // should be authenticated
                 () -> authService.checkAuthentication(authentication),
                 // should be a reader to get the domain information
-                () -> authService.checkAuthorizationForOwnerAuthTypeAndResourcePrefix(
+                () -> authorizationDecisionCache.checkAuthorizationForOwnerAuthTypeAndResourcePrefix(
                         authentication,
                         AuthorizationTypeDTO.Read,
                         "/cis/domain/%s".formatted(domainId))
         );
-        return ApiResultResponse.of(
-                inventoryElementService.getInventoryDomainById(domainId)
+        // the domain is loaded only if the client has not the current version
+        String eTag = inventoryElementService.getInventoryDomainETag(domainId);
+        if (webRequest.checkNotModified(eTag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(eTag).build();
+        }
+        return ResponseEntity.ok().eTag(eTag).body(
+                ApiResultResponse.of(
+                        inventoryElementService.getInventoryDomainById(domainId)
+                )
         );
     }
 
@@ -135,9 +177,9 @@ public class InventoryElementController {
                 () -> authService.checkAuthentication(authentication),
                 () -> any(
                         // should be root  for update the domain
-                        () -> authService.checkForRoot(authentication),
+                        () -> authorizationDecisionCache.checkForRoot(authentication),
                         // or an admin  for update the domain
-                        () -> authService.checkAuthorizationForOwnerAuthTypeAndResourcePrefix(
+                        () -> authorizationDecisionCache.checkAuthorizationForOwnerAuthTypeAndResourcePrefix(
                                 authentication,
                                 // only admin can update the domain
                                 AuthorizationTypeDTO.Admin,
@@ -152,6 +194,39 @@ public class InventoryElementController {
         );
     }
 
+    @DeleteMapping(
+            path = "/domain/{domainId}",
+            produces = {MediaType.APPLICATION_JSON_VALUE}
+    )
+    @Operation(summary = "Start the delete of the domain with all his elements, return the id of the background job")
+    @ResponseStatus(HttpStatus.ACCEPTED)
+    public ApiResultResponse<String> deleteDomain(
+            Authentication authentication,
+            @PathVariable(name = "domainId") String domainId
+    ) {
+        // check for auth
+        assertion(
+                NotAuthorized.notAuthorizedBuilder()
+                        .errorCode(-1)
+                        .errorDomain("InventoryElementController::deleteDomain")
+                        .build(),
+                // should be authenticated
+                () -> authService.checkAuthentication(authentication),
+                () -> any(
+                        // should be root for delete the domain
+                        () -> authorizationDecisionCache.checkForRoot(authentication),
+                        // or an admin of the domain
+                        () -> authorizationDecisionCache.checkAuthorizationForOwnerAuthTypeAndResourcePrefix(
+                                authentication,
+                                AuthorizationTypeDTO.Admin,
+                                "/cis/domain/%s".formatted(domainId))
+                )
+        );
+        return ApiResultResponse.of(
+                inventoryDeleteService.deleteDomain(domainId, authentication.getName())
+        );
+    }
+
     @PostMapping(
             path = "/domain/{domainId}/element",
             produces = {MediaType.APPLICATION_JSON_VALUE}
@@ -161,6 +236,8 @@ public class InventoryElementController {
     public ApiResultResponse<String> createNewElement(
             Authentication authentication,
             @PathVariable(name = "domainId") String domainId,
+            @Parameter(description = "When set the retries of the request with the same key return the result of the first one")
+            @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey,
             @Valid @RequestBody NewInventoryElementDTO newInventoryElementDTO
     ) {
         // check for auth
@@ -173,9 +250,9 @@ public class InventoryElementController {
                 () -> authService.checkAuthentication(authentication),
                 () -> any(
                         // should be root  for update the domain
-                        () -> authService.checkForRoot(authentication),
+                        () -> authorizationDecisionCache.checkForRoot(authentication),
                         // or a writer for update the domain
-                        () -> authService.checkAuthorizationForOwnerAuthTypeAndResourcePrefix(
+                        () -> authorizationDecisionCache.checkAuthorizationForOwnerAuthTypeAndResourcePrefix(
                                 authentication,
                                 // only admin can update the domain
                                 AuthorizationTypeDTO.Write,
@@ -183,7 +260,13 @@ public class InventoryElementController {
                 )
         );
         return ApiResultResponse.of(
-                inventoryElementService.createNew(domainId, newInventoryElementDTO)
+                idempotencyKeyService.execute(
+                        authentication.getName(),
+                        "POST /domain/%s/element".formatted(domainId),
+                        idempotencyKey,
+                        newInventoryElementDTO,
+                        () -> inventoryElementService.createNew(domainId, newInventoryElementDTO)
+                )
         );
     }
 
@@ -197,6 +280,8 @@ public class InventoryElementController {
             Authentication authentication,
             @PathVariable(name = "domainId") String domainId,
             @PathVariable(name = "elementId") String elementId,
+            @Parameter(description = "When set the retries of the request with the same key return the result of the first one")
+            @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey,
             @Valid @RequestBody NewInventoryElementDTO newInventoryElementDTO
     ) {
         // check for auth
@@ -209,9 +294,9 @@ public class InventoryElementController {
                 () -> authService.checkAuthentication(authentication),
                 () -> any(
                         // should be root  for update the domain
-                        () -> authService.checkForRoot(authentication),
+                        () -> authorizationDecisionCache.checkForRoot(authentication),
                         // or a writer for update the domain
-                        () -> authService.checkAuthorizationForOwnerAuthTypeAndResourcePrefix(
+                        () -> authorizationDecisionCache.checkAuthorizationForOwnerAuthTypeAndResourcePrefix(
                                 authentication,
                                 // only admin can update the domain
                                 AuthorizationTypeDTO.Write,
@@ -219,7 +304,56 @@ public class InventoryElementController {
                 )
         );
         return ApiResultResponse.of(
-                inventoryElementService.createNewImplementation(domainId, elementId, newInventoryElementDTO)
+                idempotencyKeyService.execute(
+                        authentication.getName(),
+                        "POST /domain/%s/element/%s/implementation".formatted(domainId, elementId),
+                        idempotencyKey,
+                        newInventoryElementDTO,
+                        () -> inventoryElementService.createNewImplementation(domainId, elementId, newInventoryElementDTO)
+                )
+        );
+    }
+
+    @PostMapping(
+            path = "/domain/{domainId}/element/{elementId}/clone",
+            produces = {MediaType.APPLICATION_JSON_VALUE}
+    )
+    @Operation(summary = "Copy an inventory element with all his descendants, return the id of the copy")
+    @ResponseStatus(HttpStatus.CREATED)
+    public ApiResultResponse<String> cloneElement(
+            Authentication authentication,
+            @PathVariable(name = "domainId") String domainId,
+            @PathVariable(name = "elementId") String elementId,
+            @Parameter(description = "When set the retries of the request with the same key return the result of the first one")
+            @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey,
+            @Valid @RequestBody CloneInventoryElementDTO cloneInventoryElementDTO
+    ) {
+        // check for auth
+        assertion(
+                NotAuthorized.notAuthorizedBuilder()
+                        .errorCode(-1)
+                        .errorDomain("InventoryElementController::cloneElement")
+                        .build(),
+                // should be authenticated
+                () -> authService.checkAuthentication(authentication),
+                () -> any(
+                        // should be root
+                        () -> authorizationDecisionCache.checkForRoot(authentication),
+                        // or a writer of the domain
+                        () -> authorizationDecisionCache.checkAuthorizationForOwnerAuthTypeAndResourcePrefix(
+                                authentication,
+                                AuthorizationTypeDTO.Write,
+                                "/cis/domain/%s".formatted(domainId))
+                )
+        );
+        return ApiResultResponse.of(
+                idempotencyKeyService.execute(
+                        authentication.getName(),
+                        "POST /domain/%s/element/%s/clone".formatted(domainId, elementId),
+                        idempotencyKey,
+                        cloneInventoryElementDTO,
+                        () -> inventoryCloneService.cloneSubtree(domainId, elementId, cloneInventoryElementDTO)
+                )
         );
     }
 
@@ -245,9 +379,9 @@ public class InventoryElementController {
                 () -> authService.checkAuthentication(authentication),
                 () -> any(
                         // should be root  for update the domain
-                        () -> authService.checkForRoot(authentication),
+                        () -> authorizationDecisionCache.checkForRoot(authentication),
                         // or a writer for update the domain
-                        () -> authService.checkAuthorizationForOwnerAuthTypeAndResourcePrefix(
+                        () -> authorizationDecisionCache.checkAuthorizationForOwnerAuthTypeAndResourcePrefix(
                                 authentication,
                                 // only admin can update the domain
                                 AuthorizationTypeDTO.Write,
@@ -263,16 +397,55 @@ public class InventoryElementController {
         return ApiResultResponse.of(true);
     }
 
+    @PutMapping(
+            path = "/domain/{domainId}/element/attributes/bulk",
+            consumes = {MediaType.APPLICATION_JSON_VALUE},
+            produces = {MediaType.APPLICATION_JSON_VALUE}
+    )
+    @Operation(summary = "Set the attribute values on all the elements of a class that match the query, return the number of changed elements")
+    @ResponseStatus(HttpStatus.OK)
+    public ApiResultResponse<Long> bulkUpdateElementAttributes(
+            Authentication authentication,
+            @PathVariable(name = "domainId") String domainId,
+            @Valid @RequestBody BulkUpdateInventoryElementAttributesDTO bulkUpdateInventoryElementAttributesDTO
+    ) {
+        // check for auth
+        assertion(
+                NotAuthorized.notAuthorizedBuilder()
+                        .errorCode(-1)
+                        .errorDomain("InventoryElementController::bulkUpdateElementAttributes")
+                        .build(),
+                // should be authenticated
+                () -> authService.checkAuthentication(authentication),
+                () -> any(
+                        // should be root
+                        () -> authorizationDecisionCache.checkForRoot(authentication),
+                        // or a writer of the domain
+                        () -> authorizationDecisionCache.checkAuthorizationForOwnerAuthTypeAndResourcePrefix(
+                                authentication,
+                                AuthorizationTypeDTO.Write,
+                                "/cis/domain/%s".formatted(domainId))
+                )
+        );
+        return ApiResultResponse.of(
+                inventoryElementBulkUpdateService.updateAttributesByQuery(domainId, bulkUpdateInventoryElementAttributesDTO, authentication.getName())
+        );
+    }
+
     @GetMapping(
             path = "/domain/{domainId}/element/{elementId}",
             produces = {MediaType.APPLICATION_JSON_VALUE}
     )
     @Operation(summary = "Find an element by his ids")
-    @ResponseStatus(HttpStatus.OK)
-    public ApiResultResponse<InventoryElementDTO> findElementById(
+    public ResponseEntity<ApiResultResponse<InventoryElementDTO>> findElementById(
             Authentication authentication,
+            WebRequest webRequest,
             @PathVariable(name = "domainId") String domainId,
-            @PathVariable(name = "elementId") String elementId
+            @PathVariable(name = "elementId") String elementId,
+            @Parameter(name = "expand", description = "The related data to embed in the element: children, path, history, implementations")
+            @RequestParam(value = "expand") Optional<List<String>> expand,
+            @Parameter(name = "pathType", description = "The type of the path embedded when the path is expanded")
+            @RequestParam(value = "pathType", defaultValue = "Full") Optional<ThreePathType> threePathType
     ) {
         // check for auth
         assertion(
@@ -284,20 +457,129 @@ public class InventoryElementController {
                 () -> authService.checkAuthentication(authentication),
                 () -> any(
                         // should be root  for update the domain
-                        () -> authService.checkForRoot(authentication),
+                        () -> authorizationDecisionCache.checkForRoot(authentication),
                         // or a writer for update the domain
-                        () -> authService.checkAuthorizationForOwnerAuthTypeAndResourcePrefix(
+                        () -> authorizationDecisionCache.checkAuthorizationForOwnerAuthTypeAndResourcePrefix(
                                 authentication,
                                 // only admin can update the domain
                                 AuthorizationTypeDTO.Read,
                                 "/cis/domain/%s".formatted(domainId))
                 )
         );
+        Set<InventoryElementExpandDTO> expandedParts = expand.orElse(Collections.emptyList())
+                .stream()
+                .filter(name -> !name.isBlank())
+                .map(InventoryElementExpandDTO::fromName)
+                .collect(Collectors.toCollection(() -> EnumSet.noneOf(InventoryElementExpandDTO.class)));
+        if (expandedParts.contains(InventoryElementExpandDTO.Implementations)) {
+            // the implementation history requires the same authorization of his own api
+            assertion(
+                    NotAuthorized.notAuthorizedBuilder()
+                            .errorCode(-2)
+                            .errorDomain("InventoryElementController::getElement")
+                            .build(),
+                    () -> any(
+                            () -> authorizationDecisionCache.checkForRoot(authentication),
+                            () -> authorizationDecisionCache.checkAuthorizationForOwnerAuthTypeAndResourcePrefix(
+                                    authentication,
+                                    AuthorizationTypeDTO.Write,
+                                    "/cis/domain/%s".formatted(domainId))
+                    )
+            );
+        }
+        if (!expandedParts.isEmpty()) {
+            // the expanded parts are not covered by the entity tag of the element
+            return ResponseEntity.ok(
+                    ApiResultResponse.of(
+                            inventoryElementService.getInventoryElementByDomainIdAndElementId(
+                                    domainId,
+                                    elementId,
+                                    expandedParts,
+                                    threePathType.orElse(ThreePathType.Full)
+                            )
+                    )
+            );
+        }
+        // the element is loaded only if the client has not the current version
+        String eTag = inventoryElementService.getInventoryElementETag(domainId, elementId);
+        if (webRequest.checkNotModified(eTag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(eTag).build();
+        }
+        return ResponseEntity.ok().eTag(eTag).body(
+                ApiResultResponse.of(
+                        inventoryElementService.getInventoryElementByDomainIdAndElementId(domainId, elementId)
+                )
+        );
+    }
+
+
+    @DeleteMapping(
+            path = "/domain/{domainId}/element/{elementId}",
+            produces = {MediaType.APPLICATION_JSON_VALUE}
+    )
+    @Operation(summary = "Start the delete of the element with all his descendants, return the id of the background job")
+    @ResponseStatus(HttpStatus.ACCEPTED)
+    public ApiResultResponse<String> deleteElement(
+            Authentication authentication,
+            @PathVariable(name = "domainId") String domainId,
+            @PathVariable(name = "elementId") String elementId
+    ) {
+        // check for auth
+        assertion(
+                NotAuthorized.notAuthorizedBuilder()
+                        .errorCode(-1)
+                        .errorDomain("InventoryElementController::deleteElement")
+                        .build(),
+                // should be authenticated
+                () -> authService.checkAuthentication(authentication),
+                () -> any(
+                        // should be root
+                        () -> authorizationDecisionCache.checkForRoot(authentication),
+                        // or a writer of the domain
+                        () -> authorizationDecisionCache.checkAuthorizationForOwnerAuthTypeAndResourcePrefix(
+                                authentication,
+                                AuthorizationTypeDTO.Write,
+                                "/cis/domain/%s".formatted(domainId))
+                )
+        );
         return ApiResultResponse.of(
-                inventoryElementService.getInventoryElementByDomainIdAndElementId(domainId, elementId)
+                inventoryDeleteService.deleteElement(domainId, elementId, authentication.getName())
         );
     }
 
+    @GetMapping(
+            path = "/job/{jobId}",
+            produces = {MediaType.APPLICATION_JSON_VALUE}
+    )
+    @Operation(summary = "Return the progress of a background job")
+    @ResponseStatus(HttpStatus.OK)
+    public ApiResultResponse<InventoryJobDTO> findJobById(
+            Authentication authentication,
+            @PathVariable(name = "jobId") String jobId
+    ) {
+        // check for auth
+        assertion(
+                NotAuthorized.notAuthorizedBuilder()
+                        .errorCode(-1)
+                        .errorDomain("InventoryElementController::findJobById")
+                        .build(),
+                // should be authenticated
+                () -> authService.checkAuthentication(authentication)
+        );
+        InventoryJobDTO job = inventoryJobService.findById(jobId);
+        // only the user that has started the job, or root, can follow it
+        assertion(
+                NotAuthorized.notAuthorizedBuilder()
+                        .errorCode(-2)
+                        .errorDomain("InventoryElementController::findJobById")
+                        .build(),
+                () -> any(
+                        () -> authorizationDecisionCache.checkForRoot(authentication),
+                        () -> Objects.equals(job.createdBy(), authentication.getName())
+                )
+        );
+        return ApiResultResponse.of(job);
+    }
 
     @GetMapping(
             path = "/domain/{domainId}/element/{elementId}/attributes/history",
@@ -322,9 +604,9 @@ public class InventoryElementController {
                 () -> authService.checkAuthentication(authentication),
                 () -> any(
                         // should be root  for update the domain
-                        () -> authService.checkForRoot(authentication),
+                        () -> authorizationDecisionCache.checkForRoot(authentication),
                         // or a writer for update the domain
-                        () -> authService.checkAuthorizationForOwnerAuthTypeAndResourcePrefix(
+                        () -> authorizationDecisionCache.checkAuthorizationForOwnerAuthTypeAndResourcePrefix(
                                 authentication,
                                 // only admin can update the domain
                                 AuthorizationTypeDTO.Read,
@@ -336,6 +618,120 @@ public class InventoryElementController {
         );
     }
 
+    @PostMapping(
+            path = "/domain/{domainId}/element/{elementId}/maintenance",
+            consumes = {MediaType.APPLICATION_JSON_VALUE},
+            produces = {MediaType.APPLICATION_JSON_VALUE}
+    )
+    @Operation(summary = "Append a new maintenance record to the element")
+    @ResponseStatus(HttpStatus.CREATED)
+    public ApiResultResponse<String> appendMaintenance(
+            Authentication authentication,
+            @Parameter(name = "domainId", description = "The domain id that own the element")
+            @PathVariable(value = "domainId") String domainId,
+            @Parameter(name = "elementId", description = "The element id that own the record")
+            @PathVariable(value = "elementId") String elementId,
+            @Valid @RequestBody NewInventoryMaintenanceDTO newInventoryMaintenanceDTO
+    ) {
+        // check for auth
+        assertion(
+                NotAuthorized.notAuthorizedBuilder()
+                        .errorCode(-1)
+                        .errorDomain("InventoryElementController::appendMaintenance")
+                        .build(),
+                // should be authenticated
+                () -> authService.checkAuthentication(authentication),
+                () -> any(
+                        // should be root
+                        () -> authorizationDecisionCache.checkForRoot(authentication),
+                        // or a writer of the domain
+                        () -> authorizationDecisionCache.checkAuthorizationForOwnerAuthTypeAndResourcePrefix(
+                                authentication,
+                                AuthorizationTypeDTO.Write,
+                                "/cis/domain/%s".formatted(domainId))
+                )
+        );
+        return ApiResultResponse.of(
+                inventoryElementService.appendMaintenance(domainId, elementId, newInventoryMaintenanceDTO)
+        );
+    }
+
+    @GetMapping(
+            path = "/domain/{domainId}/element/{elementId}/maintenance",
+            produces = {MediaType.APPLICATION_JSON_VALUE}
+    )
+    @Operation(summary = "Return the maintenance records of the element from the most recent one")
+    @ResponseStatus(HttpStatus.OK)
+    public ApiResultResponse<List<InventoryMaintenanceDTO>> findAllMaintenance(
+            Authentication authentication,
+            @Parameter(name = "domainId", description = "The domain id that own the element")
+            @PathVariable(value = "domainId") String domainId,
+            @Parameter(name = "elementId", description = "The element id that own the records")
+            @PathVariable(value = "elementId") String elementId,
+            @Parameter(name = "anchorId", description = "Is the id of the last record of the previous page")
+            @RequestParam("anchorId") Optional<String> anchorId,
+            @Parameter(name = "limit", description = "Limit the number of records returned")
+            @RequestParam(value = "limit") Optional<Integer> limit
+    ) {
+        // check for auth
+        assertion(
+                NotAuthorized.notAuthorizedBuilder()
+                        .errorCode(-1)
+                        .errorDomain("InventoryElementController::findAllMaintenance")
+                        .build(),
+                // should be authenticated
+                () -> authService.checkAuthentication(authentication),
+                () -> any(
+                        // should be root
+                        () -> authorizationDecisionCache.checkForRoot(authentication),
+                        // or a reader of the domain
+                        () -> authorizationDecisionCache.checkAuthorizationForOwnerAuthTypeAndResourcePrefix(
+                                authentication,
+                                AuthorizationTypeDTO.Read,
+                                "/cis/domain/%s".formatted(domainId))
+                )
+        );
+        return ApiResultResponse.of(
+                inventoryElementService.findAllMaintenance(domainId, elementId, anchorId.orElse(null), limit.orElse(null))
+        );
+    }
+
+    @GetMapping(
+            path = "/domain/{domainId}/element/{elementId}/capacity",
+            produces = {MediaType.APPLICATION_JSON_VALUE}
+    )
+    @Operation(summary = "Return the connector capacity of the element and of all his subtree")
+    @ResponseStatus(HttpStatus.OK)
+    public ApiResultResponse<InventoryElementCapacityDTO> findCapacityByElementId(
+            Authentication authentication,
+            @Parameter(name = "domainId", description = "The domain id that own the element")
+            @PathVariable(value = "domainId") String domainId,
+            @Parameter(name = "elementId", description = "The element id")
+            @PathVariable(value = "elementId") String elementId
+    ) {
+        // check for auth
+        assertion(
+                NotAuthorized.notAuthorizedBuilder()
+                        .errorCode(-1)
+                        .errorDomain("InventoryElementController::findCapacityByElementId")
+                        .build(),
+                // should be authenticated
+                () -> authService.checkAuthentication(authentication),
+                () -> any(
+                        // should be root
+                        () -> authorizationDecisionCache.checkForRoot(authentication),
+                        // or a reader of the domain
+                        () -> authorizationDecisionCache.checkAuthorizationForOwnerAuthTypeAndResourcePrefix(
+                                authentication,
+                                AuthorizationTypeDTO.Read,
+                                "/cis/domain/%s".formatted(domainId))
+                )
+        );
+        return ApiResultResponse.of(
+                inventoryElementCapacityService.findByElementId(domainId, elementId)
+        );
+    }
+
     @GetMapping(
             path = "/domain/{domainId}/element/{elementId}/implementation",
             produces = {MediaType.APPLICATION_JSON_VALUE}
@@ -357,9 +753,9 @@ public class InventoryElementController {
                 () -> authService.checkAuthentication(authentication),
                 () -> any(
                         // should be root  for update the domain
-                        () -> authService.checkForRoot(authentication),
+                        () -> authorizationDecisionCache.checkForRoot(authentication),
                         // or a writer for update the domain
-                        () -> authService.checkAuthorizationForOwnerAuthTypeAndResourcePrefix(
+                        () -> authorizationDecisionCache.checkAuthorizationForOwnerAuthTypeAndResourcePrefix(
                                 authentication,
                                 // only admin can update the domain
                                 AuthorizationTypeDTO.Write,
@@ -391,9 +787,9 @@ public class InventoryElementController {
                 () -> authService.checkAuthentication(authentication),
                 () -> any(
                         // should be root  for update the domain
-                        () -> authService.checkForRoot(authentication),
+                        () -> authorizationDecisionCache.checkForRoot(authentication),
                         // or a writer for update the domain
-                        () -> authService.checkAuthorizationForOwnerAuthTypeAndResourcePrefix(
+                        () -> authorizationDecisionCache.checkAuthorizationForOwnerAuthTypeAndResourcePrefix(
                                 authentication,
                                 // only admin can update the domain
                                 AuthorizationTypeDTO.Read,
@@ -426,9 +822,9 @@ public class InventoryElementController {
                 () -> authService.checkAuthentication(authentication),
                 () -> any(
                         // should be root  for update the domain
-                        () -> authService.checkForRoot(authentication),
+                        () -> authorizationDecisionCache.checkForRoot(authentication),
                         // or a writer for update the domain
-                        () -> authService.checkAuthorizationForOwnerAuthTypeAndResourcePrefix(
+                        () -> authorizationDecisionCache.checkAuthorizationForOwnerAuthTypeAndResourcePrefix(
                                 authentication,
                                 // only admin can update the domain
                                 AuthorizationTypeDTO.Read,
@@ -473,9 +869,9 @@ public class InventoryElementController {
                 () -> authService.checkAuthentication(authentication),
                 () -> any(
                         // should be root  for update the domain
-                        () -> authService.checkForRoot(authentication),
+                        () -> authorizationDecisionCache.checkForRoot(authentication),
                         // or a writer for update the domain
-                        () -> authService.checkAuthorizationForOwnerAuthTypeAndResourcePrefix(
+                        () -> authorizationDecisionCache.checkAuthorizationForOwnerAuthTypeAndResourcePrefix(
                                 authentication,
                                 // only admin can update the domain
                                 AuthorizationTypeDTO.Read,
@@ -498,6 +894,147 @@ public class InventoryElementController {
         );
     }
 
+    @GetMapping(
+            path = "/element",
+            produces = {MediaType.APPLICATION_JSON_VALUE}
+    )
+    @Operation(summary = "find the element that respect the criteria in all the domains readable by the user")
+    @ResponseStatus(HttpStatus.OK)
+    public ApiResultResponse<List<InventoryElementSummaryDTO>> findAllElementsInReadableDomains(
+            Authentication authentication,
+            @Parameter(name = "domainId", description = "Restrict the search to these domains, the domains not readable by the user are ignored")
+            @RequestParam("domainId") Optional<List<String>> domainId,
+            @Parameter(name = "anchorId", description = "Is the id of an entry from where start the search")
+            @RequestParam("anchorId") Optional<String> anchorId,
+            @Parameter(name = "contextSize", description = "Include this number of entries before the startDate (used for highlighting entries)")
+            @RequestParam("contextSize") Optional<Integer> contextSize,
+            @Parameter(name = "limit", description = "Limit the number of entries after the anchor, from 1 to 1000")
+            @RequestParam(value = "limit", defaultValue = "100") Optional<Integer> limit,
+            @Parameter(name = "search", description = "Typical search functionality")
+            @RequestParam("search") Optional<String> search,
+            @Parameter(name = "tags", description = "Only include entries that use one of these tags")
+            @RequestParam("tags") Optional<List<String>> tags,
+            @Parameter(name = "requireAllTags", description = "Require that all entries found includes all the tags")
+            @RequestParam(value = "requireAllTags", defaultValue = "false") Optional<Boolean> requireAllTags
+    ) {
+        // check for auth, the domains are filtered by the service
+        assertion(
+                NotAuthorized.notAuthorizedBuilder()
+                        .errorCode(-1)
+                        .errorDomain("InventoryElementController::findAllElementsInReadableDomains")
+                        .build(),
+                // should be authenticated
+                () -> authService.checkAuthentication(authentication)
+        );
+        int pageSize = limit.orElse(100);
+        assertion(
+                ControllerLogicException.builder()
+                        .errorCode(-2)
+                        .errorMessage("The limit should be between 1 and 1000")
+                        .errorDomain("InventoryElementController::findAllElementsInReadableDomains")
+                        .build(),
+                () -> pageSize >= 1 && pageSize <= 1000
+        );
+        return ApiResultResponse.of(
+                inventoryElementService.findAllElementsInReadableDomains(
+                        authentication,
+                        QueryParameterDTO
+                                .builder()
+                                .domainId(domainId.orElse(Collections.emptyList()))
+                                .anchorID(anchorId.orElse(null))
+                                .contextSize(contextSize.orElse(0))
+                                .limit(pageSize)
+                                .search(search.orElse(null))
+                                .tags(tags.orElse(Collections.emptyList()))
+                                .requireAllTags(requireAllTags.orElse(false))
+                                .build()
+                )
+        );
+    }
+
+    @GetMapping(
+            path = "/domain/{domainId}/stats",
+            produces = {MediaType.APPLICATION_JSON_VALUE}
+    )
+    @Operation(summary = "Return the last computed statistics of the elements of the domain, a stale document is recomputed in background")
+    @ResponseStatus(HttpStatus.OK)
+    public ApiResultResponse<InventoryDomainStatisticsDTO> findDomainStatistics(
+            Authentication authentication,
+            @Parameter(name = "domainId", description = "Is the domain id")
+            @PathVariable(name = "domainId") String domainId
+    ) {
+        // check for auth
+        assertion(
+                NotAuthorized.notAuthorizedBuilder()
+                        .errorCode(-1)
+                        .errorDomain("InventoryElementController::findDomainStatistics")
+                        .build(),
+                // should be authenticated
+                () -> authService.checkAuthentication(authentication),
+                () -> any(
+                        // should be root
+                        () -> authorizationDecisionCache.checkForRoot(authentication),
+                        // or a reader of the domain
+                        () -> authorizationDecisionCache.checkAuthorizationForOwnerAuthTypeAndResourcePrefix(
+                                authentication,
+                                AuthorizationTypeDTO.Read,
+                                "/cis/domain/%s".formatted(domainId))
+                )
+        );
+        return ApiResultResponse.of(
+                inventoryDomainStatisticsService.getStatistics(domainId)
+        );
+    }
+
+    @GetMapping(
+            path = "/domain/{domainId}/sync",
+            produces = {MediaType.APPLICATION_JSON_VALUE}
+    )
+    @Operation(summary = "Return the elements created, modified or deleted after the watermark, ordered by time")
+    @ResponseStatus(HttpStatus.OK)
+    public ApiResultResponse<InventoryElementSyncPageDTO> findChanges(
+            Authentication authentication,
+            @Parameter(name = "domainId", description = "Is the domain id to synchronize")
+            @PathVariable(name = "domainId") String domainId,
+            @Parameter(name = "watermark", description = "The watermark returned by the previous page")
+            @RequestParam("watermark") Optional<String> watermark,
+            @Parameter(name = "since", description = "Used without watermark, return the changes from this date (ISO local date time)")
+            @RequestParam("since") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Optional<LocalDateTime> since,
+            @Parameter(name = "limit", description = "The maximum number of changes of the page, from 1 to 1000")
+            @RequestParam(value = "limit", defaultValue = "500") Optional<Integer> limit
+    ) {
+        // check for auth
+        assertion(
+                NotAuthorized.notAuthorizedBuilder()
+                        .errorCode(-1)
+                        .errorDomain("InventoryElementController::findChanges")
+                        .build(),
+                // should be authenticated
+                () -> authService.checkAuthentication(authentication),
+                () -> any(
+                        // should be root
+                        () -> authorizationDecisionCache.checkForRoot(authentication),
+                        // or a reader of the domain
+                        () -> authorizationDecisionCache.checkAuthorizationForOwnerAuthTypeAndResourcePrefix(
+                                authentication,
+                                AuthorizationTypeDTO.Read,
+                                "/cis/domain/%s".formatted(domainId))
+                )
+        );
+        int pageSize = limit.orElse(500);
+        assertion(
+                ControllerLogicException.builder()
+                        .errorCode(-2)
+                        .errorMessage("The limit should be between 1 and 1000")
+                        .errorDomain("InventoryElementController::findChanges")
+                        .build(),
+                () -> pageSize >= 1 && pageSize <= 1000
+        );
+        return ApiResultResponse.of(
+                inventoryElementSyncService.findChanges(domainId, watermark, since, pageSize)
+        );
+    }
+
     @GetMapping(
             path = "/domain/{domainId}/element/{elementId}/path",
             produces = {MediaType.APPLICATION_JSON_VALUE}
@@ -528,9 +1065,9 @@ public class InventoryElementController {
                 () -> authService.checkAuthentication(authentication),
                 () -> any(
                         // should be root  for update the domain
-                        () -> authService.checkForRoot(authentication),
+                        () -> authorizationDecisionCache.checkForRoot(authentication),
                         // or a writer for update the domain
-                        () -> authService.checkAuthorizationForOwnerAuthTypeAndResourcePrefix(
+                        () -> authorizationDecisionCache.checkAuthorizationForOwnerAuthTypeAndResourcePrefix(
                                 authentication,
                                 // only admin can update the domain
                                 AuthorizationTypeDTO.Read,
@@ -0,0 +1,182 @@
+package edu.stanford.slac.code_inventory_system.api.v1.controller;
+
+import edu.stanford.slac.ad.eed.baselib.api.v1.dto.AuthorizationTypeDTO;
+import edu.stanford.slac.ad.eed.baselib.exception.NotAuthorized;
+import edu.stanford.slac.ad.eed.baselib.service.AuthService;
+import edu.stanford.slac.code_inventory_system.api.v1.dto.InventoryChangeEventDTO;
+import edu.stanford.slac.code_inventory_system.api.v1.dto.InventoryElementAttributeHistoryDTO;
+import edu.stanford.slac.code_inventory_system.api.v1.dto.InventoryElementDTO;
+import edu.stanford.slac.code_inventory_system.api.v1.dto.InventoryElementSummaryDTO;
+import edu.stanford.slac.code_inventory_system.model.QueryParameter;
+import edu.stanford.slac.code_inventory_system.service.InventoryChangeFeedService;
+import edu.stanford.slac.code_inventory_system.service.InventoryElementStreamService;
+import edu.stanford.slac.code_inventory_system.service.utility.AuthorizationDecisionCache;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.security.core.Authentication;
+import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+
+import static edu.stanford.slac.ad.eed.baselib.exception.Utility.any;
+import static edu.stanford.slac.ad.eed.baselib.exception.Utility.assertion;
+
+/**
+ * Streaming version of the read api, the result is sent as newline delimited json
+ * while it is read from the database. The changes of a domain are pushed as server
+ * sent events
+ */
+@Validated
+@RestController()
+@RequestMapping("/v1/inventory/stream")
+@AllArgsConstructor
+@Schema(description = "Set of api for streaming the inventory elements")
+public class InventoryElementStreamController {
+    private static final Duration HEARTBEAT_INTERVAL = Duration.ofSeconds(15);
+    private final AuthService authService;
+    private final AuthorizationDecisionCache authorizationDecisionCache;
+    private final InventoryChangeFeedService inventoryChangeFeedService;
+    private final InventoryElementStreamService inventoryElementStreamService;
+
+    @GetMapping(
+            path = "/domain/{domainId}/element",
+            produces = {MediaType.APPLICATION_NDJSON_VALUE}
+    )
+    @Operation(summary = "Stream all element that respect the criteria")
+    @ResponseStatus(HttpStatus.OK)
+    public Flux<InventoryElementSummaryDTO> streamAllElements(
+            Authentication authentication,
+            @Parameter(name = "domainId", description = "Is the domain id where  the search is applied")
+            @PathVariable(name = "domainId") String domainId,
+            @Parameter(name = "search", description = "Typical search functionality")
+            @RequestParam("search") Optional<String> search,
+            @Parameter(name = "tags", description = "Only include entries that use one of these tags")
+            @RequestParam("tags") Optional<List<String>> tags,
+            @Parameter(name = "requireAllTags", description = "Require that all entries found includes all the tags")
+            @RequestParam(value = "requireAllTags", defaultValue = "false") Optional<Boolean> requireAllTags
+    ) {
+        assertReadOnDomain(authentication, domainId, "streamAllElements");
+        return inventoryElementStreamService.searchAll(
+                QueryParameter
+                        .builder()
+                        .domainId(List.of(domainId))
+                        .search(search.orElse(null))
+                        .tags(tags.orElse(Collections.emptyList()))
+                        .requireAllTags(requireAllTags.orElse(false))
+                        .build()
+        );
+    }
+
+    @GetMapping(
+            path = "/domain/{domainId}/element/{elementId}/subtree",
+            produces = {MediaType.APPLICATION_NDJSON_VALUE}
+    )
+    @Operation(summary = "Stream all the descendant of an element")
+    @ResponseStatus(HttpStatus.OK)
+    public Flux<InventoryElementSummaryDTO> streamSubtree(
+            Authentication authentication,
+            @Parameter(name = "domainId", description = "The domain id that own the element")
+            @PathVariable(value = "domainId") String domainId,
+            @Parameter(name = "elementId", description = "The element id root of the subtree")
+            @PathVariable(value = "elementId") String elementId
+    ) {
+        assertReadOnDomain(authentication, domainId, "streamSubtree");
+        return inventoryElementStreamService.findSubtree(domainId, elementId);
+    }
+
+    @GetMapping(
+            path = "/domain/{domainId}/element/{elementId}/attributes/history",
+            produces = {MediaType.APPLICATION_NDJSON_VALUE}
+    )
+    @Operation(summary = "Stream all history for the element attributes")
+    @ResponseStatus(HttpStatus.OK)
+    public Flux<InventoryElementAttributeHistoryDTO> streamAttributeHistory(
+            Authentication authentication,
+            @Parameter(name = "domainId", description = "The domain id that own the element")
+            @PathVariable(value = "domainId") String domainId,
+            @Parameter(name = "elementId", description = "The element id that own the attribute")
+            @PathVariable(value = "elementId") String elementId
+    ) {
+        assertReadOnDomain(authentication, domainId, "streamAttributeHistory");
+        return inventoryElementStreamService.findAllAttributeHistory(domainId, elementId);
+    }
+
+    @GetMapping(
+            path = "/domain/{domainId}/export",
+            produces = {MediaType.APPLICATION_NDJSON_VALUE}
+    )
+    @Operation(summary = "Export all the elements of the domain, the parents are sent before their children")
+    @ResponseStatus(HttpStatus.OK)
+    public Flux<InventoryElementDTO> exportDomain(
+            Authentication authentication,
+            @Parameter(name = "domainId", description = "The domain id to export")
+            @PathVariable(value = "domainId") String domainId
+    ) {
+        assertReadOnDomain(authentication, domainId, "exportDomain");
+        return inventoryElementStreamService.exportDomain(domainId);
+    }
+
+    @GetMapping(
+            path = "/domain/{domainId}/changes",
+            produces = {MediaType.TEXT_EVENT_STREAM_VALUE}
+    )
+    @Operation(summary = "Send the changes of the domain, of his elements and of the classes as server sent events")
+    @ResponseStatus(HttpStatus.OK)
+    public Flux<ServerSentEvent<InventoryChangeEventDTO>> streamChanges(
+            Authentication authentication,
+            @Parameter(name = "domainId", description = "The domain id to watch")
+            @PathVariable(value = "domainId") String domainId,
+            @Parameter(name = "Last-Event-ID", description = "The id of the last event received, the changes are sent from the next one")
+            @RequestHeader(value = "Last-Event-ID", required = false) Optional<String> lastEventId
+    ) {
+        assertReadOnDomain(authentication, domainId, "streamChanges");
+        Flux<ServerSentEvent<InventoryChangeEventDTO>> changes = inventoryChangeFeedService
+                .watchDomain(domainId, lastEventId.filter(id -> !id.isBlank()))
+                .map(
+                        change -> ServerSentEvent.<InventoryChangeEventDTO>builder()
+                                .id(change.resumeToken())
+                                .event("change")
+                                .data(change.event())
+                                .build()
+                )
+                .share();
+        // the comments keep the connection open through the proxies when the domain is idle
+        Flux<ServerSentEvent<InventoryChangeEventDTO>> heartbeat = Flux
+                .interval(HEARTBEAT_INTERVAL)
+                .map(tick -> ServerSentEvent.<InventoryChangeEventDTO>builder().comment("heartbeat").build());
+        return Flux.merge(changes, heartbeat.takeUntilOther(changes.then()));
+    }
+
+    /**
+     * Check that the user can read the domain, the check is done before the stream is opened
+     */
+    private void assertReadOnDomain(Authentication authentication, String domainId, String method) {
+        assertion(
+                NotAuthorized.notAuthorizedBuilder()
+                        .errorCode(-1)
+                        .errorDomain("InventoryElementStreamController::%s".formatted(method))
+                        .build(),
+                // should be authenticated
+                () -> authService.checkAuthentication(authentication),
+                () -> any(
+                        // should be root
+                        () -> authorizationDecisionCache.checkForRoot(authentication),
+                        // or a reader of the domain
+                        () -> authorizationDecisionCache.checkAuthorizationForOwnerAuthTypeAndResourcePrefix(
+                                authentication,
+                                AuthorizationTypeDTO.Read,
+                                "/cis/domain/%s".formatted(domainId))
+                )
+        );
+    }
+}
@@ -0,0 +1,30 @@
+package edu.stanford.slac.code_inventory_system.api.v1.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import lombok.Builder;
+import org.springframework.validation.annotation.Validated;
+
+import java.util.List;
+
+@Validated
+@Builder(toBuilder = true)
+@JsonInclude(JsonInclude.Include.NON_NULL)
+@JsonIgnoreProperties(ignoreUnknown = true)
+@Schema(description = "Set the same attribute values on all the elements of a class that match the query")
+public record BulkUpdateInventoryElementAttributesDTO(
+        @NotEmpty(message = "the class id should not be empty")
+        @Schema(description = "The class of the elements to update, the values are checked against its attributes")
+        String classId,
+        @Schema(description = "When set only the descendants of this element are updated")
+        String ancestorId,
+        @Schema(description = "When set only the elements with all these tag ids are updated")
+        List<String> tags,
+        @Valid
+        @NotEmpty(message = "the attribute list should not be empty")
+        @Schema(description = "The values to set, the other attributes of the elements are not changed")
+        List<InventoryElementAttributeValueDTO> attributes) {
+}
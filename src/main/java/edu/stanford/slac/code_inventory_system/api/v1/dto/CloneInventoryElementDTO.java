@@ -0,0 +1,25 @@
+package edu.stanford.slac.code_inventory_system.api.v1.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import edu.stanford.slac.code_inventory_system.api.v1.validator.NullOrRegex;
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.constraints.NotEmpty;
+import lombok.Builder;
+import org.springframework.validation.annotation.Validated;
+
+@Validated
+@Builder(toBuilder = true)
+@JsonInclude(JsonInclude.Include.NON_NULL)
+@JsonIgnoreProperties(ignoreUnknown = true)
+@Schema(description = "Is the request to copy an element with all his descendants")
+public record CloneInventoryElementDTO(
+        @NotEmpty(message = "the name of the copy should not be empty")
+        @Schema(description = "Is the name of the copy of the element")
+        String name,
+        @NullOrRegex(regexp = "[0-9a-zA-Z\\-]+", message = "parentID should null or an alphanumeric value")
+        @Schema(description = "Is the id of the element used as parent of the copy, when null the copy is a root element")
+        String parentId,
+        @Schema(description = "Is appended to the names of the copied descendants, when null the name of the copy is used")
+        String nameSuffix) {
+}
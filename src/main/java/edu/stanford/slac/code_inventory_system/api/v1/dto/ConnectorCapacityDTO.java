@@ -0,0 +1,22 @@
+package edu.stanford.slac.code_inventory_system.api.v1.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Builder;
+
+@Builder(toBuilder = true)
+@JsonInclude(JsonInclude.Include.NON_NULL)
+@JsonIgnoreProperties(ignoreUnknown = true)
+@Schema(description = "The capacity and the occupancy of a connector class")
+public record ConnectorCapacityDTO(
+        @Schema(description = "The id of the connector class")
+        String classId,
+        @Schema(description = "The total number of connector")
+        Long total,
+        @Schema(description = "The number of connector in use")
+        Long used,
+        @Schema(description = "The number of connector still free")
+        Long free
+) {
+}
@@ -0,0 +1,24 @@
+package edu.stanford.slac.code_inventory_system.api.v1.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.PositiveOrZero;
+import lombok.Builder;
+
+@Builder(toBuilder = true)
+@JsonInclude(JsonInclude.Include.NON_NULL)
+@JsonIgnoreProperties(ignoreUnknown = true)
+@Schema(description = "Define the connectors that an element expose for a specific class")
+public record ConnectorClassDTO(
+        @NotNull
+        @PositiveOrZero
+        @Schema(description = "The maximum number of connector of the class")
+        Integer count,
+        @NotEmpty
+        @Schema(description = "The id of the class that can be connected to the element")
+        String classId
+) {
+}
@@ -0,0 +1,10 @@
+package edu.stanford.slac.code_inventory_system.api.v1.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+@Schema(description = "Define the type of the entity changed")
+public enum InventoryChangeEntityTypeDTO {
+    Domain,
+    Element,
+    Class
+}
@@ -0,0 +1,30 @@
+package edu.stanford.slac.code_inventory_system.api.v1.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Builder;
+
+import java.util.List;
+
+@Builder(toBuilder = true)
+@JsonInclude(JsonInclude.Include.NON_NULL)
+@JsonIgnoreProperties(ignoreUnknown = true)
+@Schema(description = "Is a change of a domain, of one of his elements or of a class")
+public record InventoryChangeEventDTO(
+        @Schema(description = "The type of the changed entity")
+        InventoryChangeEntityTypeDTO entityType,
+        @Schema(description = "The operation that has changed the entity")
+        InventoryChangeOperationDTO operation,
+        @Schema(description = "The id of the changed entity")
+        String id,
+        @Schema(description = "The domain of the changed entity, null for the classes")
+        String domainId,
+        @Schema(description = "The version of the entity after the change, null for the delete")
+        Long version,
+        @Schema(description = "The fields updated, null when the whole entity has been replaced")
+        List<String> updatedFields,
+        @Schema(description = "The element after the change, only for create and update of the elements")
+        InventoryElementSummaryDTO element
+) {
+}
@@ -12,6 +12,7 @@ import lombok.Builder;
 
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
 
 @Builder(toBuilder = true)
 @JsonInclude(JsonInclude.Include.NON_NULL)
@@ -26,6 +27,8 @@ public record InventoryDomainDTO(
         String description,
         @Schema(description = "The list of the tags that can be used for all inventory elements of this domain")
         List<TagDTO> tags,
+        @Schema(description = "The number of elements that use each tag, by tag id")
+        Map<String, Long> tagUsage,
         @Schema(description = "The list of all the authorization for the domain")
         List<AuthorizationDTO> authorizations,
         @JsonDeserialize(using = LocalDateTimeDeserializer.class)
@@ -0,0 +1,35 @@
+package edu.stanford.slac.code_inventory_system.api.v1.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.datatype.jsr310.deser.LocalDateTimeDeserializer;
+import com.fasterxml.jackson.datatype.jsr310.ser.LocalDateTimeSerializer;
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Builder;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+
+@Builder(toBuilder = true)
+@JsonInclude(JsonInclude.Include.NON_NULL)
+@JsonIgnoreProperties(ignoreUnknown = true)
+@Schema(description = "The statistics of the elements of a domain")
+public record InventoryDomainStatisticsDTO(
+        @Schema(description = "The domain id")
+        String domainId,
+        @Schema(description = "The number of elements of the domain")
+        Long totalElements,
+        @Schema(description = "The number of elements for each class id")
+        Map<String, Long> elementsByClass,
+        @Schema(description = "The number of elements for each tag id")
+        Map<String, Long> elementsByTag,
+        @Schema(description = "The number of elements for each level of the tree, the root elements are at level 0")
+        Map<String, Long> elementsByLevel,
+        @JsonDeserialize(using = LocalDateTimeDeserializer.class)
+        @JsonSerialize(using = LocalDateTimeSerializer.class)
+        @Schema(description = "The time when the statistics have been computed, absent when they are still to be computed")
+        LocalDateTime computedDate
+) {
+}
@@ -0,0 +1,24 @@
+package edu.stanford.slac.code_inventory_system.api.v1.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Builder;
+
+import java.util.List;
+
+@Builder(toBuilder = true)
+@JsonInclude(JsonInclude.Include.NON_NULL)
+@JsonIgnoreProperties(ignoreUnknown = true)
+@Schema(description = "The precomputed connector capacity of an element and of all his subtree")
+public record InventoryElementCapacityDTO(
+        @Schema(description = "The id of the element")
+        String elementId,
+        @Schema(description = "The id of the domain which the element belong")
+        String domainId,
+        @Schema(description = "The capacity of the connectors exposed by the element itself")
+        List<ConnectorCapacityDTO> own,
+        @Schema(description = "The capacity of the connectors exposed by the element and all his descendants")
+        List<ConnectorCapacityDTO> subtree
+) {
+}
@@ -37,6 +37,8 @@ public record InventoryElementDTO(
         List<InventoryElementAttributeValueDTO> attributes,
         @Schema(description = "The list of tag that describe the element")
         List<TagDTO> tags,
+        @Schema(description = "The connectors exposed by the element")
+        List<ConnectorClassDTO> connectorClasses,
         @JsonDeserialize(using = LocalDateTimeDeserializer.class)
         @JsonSerialize(using = LocalDateTimeSerializer.class)
         @Schema(description = "The creation time")
@@ -48,6 +50,14 @@ public record InventoryElementDTO(
         @Schema(description = "The modification time")
         LocalDateTime lastModifiedDate,
         @Schema(description = "The user that modify the element")
-        String lastModifiedBy
+        String lastModifiedBy,
+        @Schema(description = "The children of the element, present only when expanded")
+        List<InventoryElementSummaryDTO> children,
+        @Schema(description = "The path of the element, present only when expanded")
+        List<InventoryElementSummaryDTO> path,
+        @Schema(description = "The history of the element attributes, present only when expanded")
+        List<InventoryElementAttributeHistoryDTO> attributeHistory,
+        @Schema(description = "The implementation history of the element, present only when expanded")
+        List<InventoryElementSummaryDTO> implementations
 ) {
 }
@@ -0,0 +1,32 @@
+package edu.stanford.slac.code_inventory_system.api.v1.dto;
+
+import edu.stanford.slac.ad.eed.baselib.exception.ControllerLogicException;
+import io.swagger.v3.oas.annotations.media.Schema;
+
+@Schema(description = "Define the related data that can be embedded in the representation of an element")
+public enum InventoryElementExpandDTO {
+    Children,
+    Path,
+    History,
+    Implementations;
+
+    /**
+     * Return the part to expand from his name, case-insensitive
+     *
+     * @param name the name of the part
+     * @return the part to expand
+     * @throws ControllerLogicException if the name is not valid
+     */
+    public static InventoryElementExpandDTO fromName(String name) {
+        for (InventoryElementExpandDTO e : InventoryElementExpandDTO.values()) {
+            if (e.name().equalsIgnoreCase(name.trim())) {
+                return e;
+            }
+        }
+        throw ControllerLogicException.builder()
+                .errorCode(-1)
+                .errorMessage("Invalid expand value '%s'".formatted(name))
+                .errorDomain("InventoryElementExpandDTO::fromName")
+                .build();
+    }
+}
@@ -0,0 +1,30 @@
+package edu.stanford.slac.code_inventory_system.api.v1.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.datatype.jsr310.deser.LocalDateTimeDeserializer;
+import com.fasterxml.jackson.datatype.jsr310.ser.LocalDateTimeSerializer;
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Builder;
+
+import java.time.LocalDateTime;
+
+@Builder(toBuilder = true)
+@JsonInclude(JsonInclude.Include.NON_NULL)
+@JsonIgnoreProperties(ignoreUnknown = true)
+@Schema(description = "Is an element created, modified or deleted after the watermark")
+public record InventoryElementSyncEntryDTO(
+        @Schema(description = "The operation, create and update are distinguished by the creation date of the element")
+        InventoryChangeOperationDTO operation,
+        @Schema(description = "The id of the element")
+        String id,
+        @JsonDeserialize(using = LocalDateTimeDeserializer.class)
+        @JsonSerialize(using = LocalDateTimeSerializer.class)
+        @Schema(description = "The modification time, or the deletion time for the deleted elements")
+        LocalDateTime timestamp,
+        @Schema(description = "The element, null for the deleted elements")
+        InventoryElementDTO element
+) {
+}
@@ -0,0 +1,22 @@
+package edu.stanford.slac.code_inventory_system.api.v1.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Builder;
+
+import java.util.List;
+
+@Builder(toBuilder = true)
+@JsonInclude(JsonInclude.Include.NON_NULL)
+@JsonIgnoreProperties(ignoreUnknown = true)
+@Schema(description = "Is a page of the changes of a domain ordered by time")
+public record InventoryElementSyncPageDTO(
+        @Schema(description = "The changes of the page")
+        List<InventoryElementSyncEntryDTO> changes,
+        @Schema(description = "The watermark to use for the next request")
+        String watermark,
+        @Schema(description = "True if there are other changes after this page")
+        boolean hasMore
+) {
+}
@@ -0,0 +1,56 @@
+package edu.stanford.slac.code_inventory_system.api.v1.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.datatype.jsr310.deser.LocalDateTimeDeserializer;
+import com.fasterxml.jackson.datatype.jsr310.ser.LocalDateTimeSerializer;
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Builder;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+@Builder(toBuilder = true)
+@JsonInclude(JsonInclude.Include.NON_NULL)
+@JsonIgnoreProperties(ignoreUnknown = true)
+@Schema(description = "Describe the progress of a background job")
+public record InventoryJobDTO(
+        @Schema(description = "The unique job id")
+        String id,
+        @Schema(description = "The kind of the job")
+        InventoryJobTypeDTO type,
+        @Schema(description = "The state of the job")
+        InventoryJobStateDTO state,
+        @Schema(description = "The domain where the job works")
+        String domainId,
+        @Schema(description = "The element where the job works, if any")
+        String elementId,
+        @Schema(description = "The number of items to process, estimated at the start of the job")
+        Long total,
+        @Schema(description = "The number of items processed")
+        Long processed,
+        @Schema(description = "The counters reported by the job, their meaning depend on the kind of the job")
+        Map<String, Long> counters,
+        @Schema(description = "The problems found by the job, only the first ones are reported")
+        List<String> issues,
+        @Schema(description = "The error message of a failed job")
+        String errorMessage,
+        @Schema(description = "The user that has started the job")
+        String createdBy,
+        @JsonDeserialize(using = LocalDateTimeDeserializer.class)
+        @JsonSerialize(using = LocalDateTimeSerializer.class)
+        @Schema(description = "The submission time")
+        LocalDateTime createdDate,
+        @JsonDeserialize(using = LocalDateTimeDeserializer.class)
+        @JsonSerialize(using = LocalDateTimeSerializer.class)
+        @Schema(description = "The start time of the last execution")
+        LocalDateTime startedDate,
+        @JsonDeserialize(using = LocalDateTimeDeserializer.class)
+        @JsonSerialize(using = LocalDateTimeSerializer.class)
+        @Schema(description = "The completion time")
+        LocalDateTime completedDate
+) {
+}
@@ -0,0 +1,11 @@
+package edu.stanford.slac.code_inventory_system.api.v1.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+@Schema(description = "Define the state of a background job")
+public enum InventoryJobStateDTO {
+    Pending,
+    Running,
+    Completed,
+    Failed
+}
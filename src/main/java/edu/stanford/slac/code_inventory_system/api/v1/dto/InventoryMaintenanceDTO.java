@@ -0,0 +1,42 @@
+package edu.stanford.slac.code_inventory_system.api.v1.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.datatype.jsr310.deser.LocalDateTimeDeserializer;
+import com.fasterxml.jackson.datatype.jsr310.ser.LocalDateTimeSerializer;
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Builder;
+
+import java.time.LocalDateTime;
+
+@Builder(toBuilder = true)
+@JsonInclude(JsonInclude.Include.NON_NULL)
+@JsonIgnoreProperties(ignoreUnknown = true)
+@Schema(description = "Is a maintenance record of an element")
+public record InventoryMaintenanceDTO(
+        @Schema(description = "The unique id of the record")
+        String id,
+        @Schema(description = "The domain id which the element belong")
+        String inventoryDomainId,
+        @Schema(description = "The element id which the record belong")
+        String inventoryElementId,
+        @JsonDeserialize(using = LocalDateTimeDeserializer.class)
+        @JsonSerialize(using = LocalDateTimeSerializer.class)
+        @Schema(description = "The time stamp when the event is occurred")
+        LocalDateTime timestamp,
+        @Schema(description = "The type of the record")
+        InventoryMaintenanceTypeDTO type,
+        @Schema(description = "The action that has been performed")
+        String action,
+        @Schema(description = "The description of the event")
+        String description,
+        @JsonDeserialize(using = LocalDateTimeDeserializer.class)
+        @JsonSerialize(using = LocalDateTimeSerializer.class)
+        @Schema(description = "The date when the record has been stored")
+        LocalDateTime createdDate,
+        @Schema(description = "The user that stored the record")
+        String createdBy
+) {
+}
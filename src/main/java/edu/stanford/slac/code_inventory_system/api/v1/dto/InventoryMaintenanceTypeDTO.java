@@ -0,0 +1,9 @@
+package edu.stanford.slac.code_inventory_system.api.v1.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+@Schema(description = "Define the type of a maintenance record")
+public enum InventoryMaintenanceTypeDTO {
+    Local,
+    Remote
+}
@@ -4,6 +4,7 @@ import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import com.fasterxml.jackson.annotation.JsonInclude;
 import edu.stanford.slac.code_inventory_system.api.v1.validator.NullOrRegex;
 import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.Valid;
 import jakarta.validation.constraints.NotEmpty;
 import jakarta.validation.constraints.NotNull;
 import lombok.Builder;
@@ -34,4 +35,7 @@ public record NewInventoryElementDTO(
         List<String> tags,
         @NullOrRegex(regexp = "[0-9a-zA-Z\\-]+", message = "the attribute list can be empty or contain non null string")
         @Schema(description = "The values for the element attributes(will be checked against those defined in the class)")
-        List<InventoryElementAttributeValueDTO> attributes){}
\ No newline at end of file
+        List<InventoryElementAttributeValueDTO> attributes,
+        @Valid
+        @Schema(description = "The connectors exposed by the element")
+        List<ConnectorClassDTO> connectorClasses){}
\ No newline at end of file
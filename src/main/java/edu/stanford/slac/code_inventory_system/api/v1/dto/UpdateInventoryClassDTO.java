@@ -7,6 +7,7 @@ import jakarta.validation.constraints.NotNull;
 import lombok.Builder;
 
 import java.util.List;
+import java.util.Map;
 
 @Builder(toBuilder = true)
 @JsonInclude(JsonInclude.Include.NON_NULL)
@@ -23,6 +24,8 @@ public record UpdateInventoryClassDTO(
         @Schema(description = "The list of class id that can be child of this one")
         List<String> permittedChildClass,
         @Schema(description = "The list of attributes that can be used to specialize the inventory class")
-        List<InventoryClassAttributeDTO> attributes
+        List<InventoryClassAttributeDTO> attributes,
+        @Schema(description = "The attributes renamed by this update, from the old name to the new one; the values of the elements are renamed accordingly")
+        Map<String, String> renamedAttributes
 ) {
 }
@@ -3,6 +3,7 @@ package edu.stanford.slac.code_inventory_system.api.v1.dto;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import com.fasterxml.jackson.annotation.JsonInclude;
 import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.Valid;
 import lombok.Builder;
 
 import java.util.List;
@@ -17,4 +18,7 @@ public record UpdateInventoryElementDTO(
         @Schema(description = "The list of tag id that describe the element")
         List<String> tags,
         @Schema(description = "The values for the element attributes(will be checked against those defined in the class)")
-        List<InventoryElementAttributeValueDTO> attributes){}
\ No newline at end of file
+        List<InventoryElementAttributeValueDTO> attributes,
+        @Valid
+        @Schema(description = "The connectors exposed by the element")
+        List<ConnectorClassDTO> connectorClasses){}
\ No newline at end of file
@@ -14,6 +14,9 @@ import edu.stanford.slac.code_inventory_system.model.*;
 import edu.stanford.slac.code_inventory_system.model.value.*;
 import edu.stanford.slac.code_inventory_system.repository.InventoryClassRepository;
 import edu.stanford.slac.code_inventory_system.repository.InventoryDomainRepository;
+import edu.stanford.slac.code_inventory_system.repository.RequestIdentityMap;
+import edu.stanford.slac.code_inventory_system.service.utility.AuthorizationDecisionCache;
+import org.mapstruct.Context;
 import org.mapstruct.Mapper;
 import org.mapstruct.Mapping;
 import org.mapstruct.MappingTarget;
@@ -25,6 +28,7 @@ import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 
 import static edu.stanford.slac.code_inventory_system.config.AppProperties.CIS_DOMAIN_AUTH_FORMAT;
 import static edu.stanford.slac.code_inventory_system.exception.Utility.wrapCatch;
@@ -43,11 +47,15 @@ public abstract class InventoryElementMapper {
     @Autowired
     AuthService authService;
     @Autowired
+    AuthorizationDecisionCache authorizationDecisionCache;
+    @Autowired
     InventoryClassMapper inventoryClassMapper;
     @Autowired
     InventoryClassRepository inventoryClassRepository;
     @Autowired
     InventoryDomainRepository inventoryDomainRepository;
+    @Autowired
+    RequestIdentityMap requestIdentityMap;
     public abstract Tag toModel(TagDTO tagDTO);
     @Mapping(target = "tags", source = "newInventoryDomainDTO.tags", conditionExpression = "java(newInventoryDomainDTO.tags() != null)", nullValuePropertyMappingStrategy = IGNORE)
     public abstract InventoryDomain toModel(NewInventoryDomainDTO newInventoryDomainDTO);
@@ -60,8 +68,15 @@ public abstract class InventoryElementMapper {
     @Mapping(target = "tags", source = "updateInventoryElementDTO.tags", conditionExpression = "java(updateInventoryElementDTO.tags() != null)", nullValuePropertyMappingStrategy = IGNORE)
     @Mapping(target = "description", source = "updateInventoryElementDTO.description", conditionExpression = "java(updateInventoryElementDTO.description() != null)", nullValuePropertyMappingStrategy = IGNORE)
     @Mapping(target = "attributes", expression = "java(toElementAttributeWithClass(inventoryElement.getClassId(), updateInventoryElementDTO.attributes()))")
+    @Mapping(target = "connectorClasses", source = "updateInventoryElementDTO.connectorClasses", conditionExpression = "java(updateInventoryElementDTO.connectorClasses() != null)", nullValuePropertyMappingStrategy = IGNORE)
     public abstract void updateModel(@MappingTarget InventoryElement inventoryElement, UpdateInventoryElementDTO updateInventoryElementDTO);
 
+    @Mapping(target = "classID", source = "classId")
+    public abstract ConnectorClass toModel(ConnectorClassDTO connectorClassDTO);
+
+    @Mapping(target = "classId", source = "classID")
+    public abstract ConnectorClassDTO toDTO(ConnectorClass connectorClass);
+
     public abstract InventoryDomain toModel(InventoryDomainDTO inventoryDomainDTO);
     @Mapping(target = "authorizations", expression = "java(fillAuthorizationField(domain.getId()))")
     public abstract InventoryDomainDTO toDTO(InventoryDomain domain);
@@ -70,6 +85,11 @@ public abstract class InventoryElementMapper {
 
     public abstract InventoryDomainMinimalDTO toMinimalDTO(InventoryDomain domain);
 
+    @Mapping(target = "domainId", source = "id")
+    public abstract InventoryDomainStatisticsDTO toDTO(InventoryDomainStatistics statistics);
+
+    public abstract InventoryJobDTO toDTO(InventoryJob job);
+
     public abstract TagDTO toDTO(Tag tag);
 
     @Mapping(target = "attributes", expression = "java(toElementAttributeWithClass(newInventoryElementDTO.classId(),newInventoryElementDTO.attributes()))")
@@ -87,13 +107,73 @@ public abstract class InventoryElementMapper {
     @Mapping(target = "attributes", expression = "java(toElementAttributeWithString(inventoryElement.getAttributes()))")
     public abstract InventoryElementSummaryDTO toSummaryDTO(InventoryElement inventoryElement);
 
+    /**
+     * Convert an element using a domain and a class already loaded, used by the
+     * streaming api where the lookup by id cannot be executed for each element
+     */
+    @Mapping(target = "attributes", expression = "java(toElementAttributeWithString(inventoryElement.getAttributes()))")
+    @Mapping(target = "tags", expression = "java(toDTOTags(domain, inventoryElement.getTags()))")
+    @Mapping(target = "domainDTO", expression = "java(toMinimalDTO(domain))")
+    @Mapping(target = "classDTO", expression = "java(classSummary)")
+    public abstract InventoryElementDTO toDTO(InventoryElement inventoryElement, @Context InventoryDomain domain, @Context InventoryClassSummaryDTO classSummary);
+
+    @Mapping(target = "attributes", expression = "java(toElementAttributeWithString(inventoryElement.getAttributes()))")
+    @Mapping(target = "tags", expression = "java(toDTOTags(domain, inventoryElement.getTags()))")
+    @Mapping(target = "domainDTO", expression = "java(toMinimalDTO(domain))")
+    @Mapping(target = "classDTO", expression = "java(classSummary)")
+    public abstract InventoryElementSummaryDTO toSummaryDTO(InventoryElement inventoryElement, @Context InventoryDomain domain, @Context InventoryClassSummaryDTO classSummary);
+
     @Mapping(target = "value", expression = "java(getInventoryElementAttributeValueDTO(inventoryElementAttributeHistory.getValue()))")
     public abstract InventoryElementAttributeHistoryDTO toDTO(InventoryElementAttributeHistory inventoryElementAttributeHistory);
 
+    public abstract InventoryMaintenance toModel(String inventoryDomainId, String inventoryElementId, NewInventoryMaintenanceDTO newInventoryMaintenanceDTO);
+
+    public abstract InventoryMaintenanceDTO toDTO(InventoryMaintenance inventoryMaintenance);
+
+    /**
+     * Convert the precomputed capacity of an element
+     *
+     * @param capacity the capacity of the element
+     * @return the capacity dto with the free connectors computed
+     */
+    public InventoryElementCapacityDTO toDTO(InventoryElementCapacity capacity) {
+        if (capacity == null) return null;
+        return InventoryElementCapacityDTO
+                .builder()
+                .elementId(capacity.getId())
+                .domainId(capacity.getDomainId())
+                .own(toConnectorCapacityDTO(capacity.getOwn()))
+                .subtree(toConnectorCapacityDTO(capacity.getSubtree()))
+                .build();
+    }
+
+    /**
+     * Convert the connector counters, keyed by connector class id, to a list of dto
+     *
+     * @param counters the counters for each connector class
+     * @return the list of the dto ordered by class id
+     */
+    public List<ConnectorCapacityDTO> toConnectorCapacityDTO(Map<String, ConnectorCapacity> counters) {
+        if (counters == null) return emptyList();
+        return counters.entrySet()
+                .stream()
+                .sorted(Map.Entry.comparingByKey())
+                .map(
+                        entry -> ConnectorCapacityDTO
+                        .builder()
+                                .classId(entry.getKey())
+                                .total(entry.getValue().getTotal())
+                                .used(entry.getValue().getUsed())
+                                .free(Math.max(0, entry.getValue().getTotal() - entry.getValue().getUsed()))
+                                .build()
+                )
+                .toList();
+    }
+
     public InventoryDomainMinimalDTO toInventoryDomainMinimalFromId(String domainId) {
         if(domainId == null) return null;
         var inventoryDomainFound = wrapCatch(
-                ()->inventoryDomainRepository.findById(domainId),
+                ()->requestIdentityMap.findById(InventoryDomain.class, domainId, () -> inventoryDomainRepository.findById(domainId)),
                 -1
         );
         return inventoryDomainFound.map(this::toMinimalDTO).orElse(null);
@@ -102,7 +182,7 @@ public abstract class InventoryElementMapper {
     public InventoryClassSummaryDTO toInventoryClassSummaryFromId(String classId) {
         if(classId == null) return null;
         var inventoryClassFound = wrapCatch(
-                ()->inventoryClassRepository.findById(classId),
+                ()->requestIdentityMap.findById(InventoryClass.class, classId, () -> inventoryClassRepository.findById(classId)),
                 -1
         );
         return inventoryClassFound.map(inventoryClassMapper::toSummaryDTO).orElse(null);
@@ -115,7 +195,7 @@ public abstract class InventoryElementMapper {
      */
     public List<AuthorizationDTO> fillAuthorizationField(String domainId) {
         if(domainId == null) return emptyList();
-        return authService.findByResourceIs(CIS_DOMAIN_AUTH_FORMAT.formatted(domainId));
+        return authorizationDecisionCache.findByResourceIs(CIS_DOMAIN_AUTH_FORMAT.formatted(domainId));
     }
 
     /**
@@ -143,11 +223,35 @@ public abstract class InventoryElementMapper {
      * @throws TagNotFound if any of the tag IDs cannot be found in the inventoryDomainRepository
      */
     public List<TagDTO> toDTOTagsFromId(String domainId, List<String> tagsId) {
+        if (tagsId == null || tagsId.isEmpty()) return new ArrayList<>();
+        // all the tags are resolved using the same domain instance
+        return toDTOTags(
+                wrapCatch(
+                        () -> requestIdentityMap.findById(InventoryDomain.class, domainId, () -> inventoryDomainRepository.findById(domainId)),
+                        -1
+                ).orElse(null),
+                tagsId
+        );
+    }
+
+    /**
+     * Converts a list of tag IDs to a list of TagDTO objects using the tags of an already loaded domain.
+     *
+     * @param domain the domain that own the tags
+     * @param tagsId the list of tag IDs
+     * @return the list of TagDTO objects
+     * @throws TagNotFound if any of the tag IDs cannot be found in the domain
+     */
+    public List<TagDTO> toDTOTags(InventoryDomain domain, List<String> tagsId) {
         List<TagDTO> result = new ArrayList<>();
+        if (tagsId == null || tagsId.isEmpty()) return result;
+        List<Tag> domainTags = domain == null || domain.getTags() == null ? emptyList() : domain.getTags();
         for (String id :
                 tagsId) {
             result.add(
-                    inventoryDomainRepository.findTagById(domainId, id)
+                    domainTags.stream()
+                            .filter(tag -> id.equals(tag.getId()))
+                            .findFirst()
                             .map(
                                     this::toDTO
                             )
@@ -177,7 +281,7 @@ public abstract class InventoryElementMapper {
         List<AbstractValue> abstractAttributeList = new ArrayList<>();
         if (inventoryElementAttributeValueDTOS == null) return abstractAttributeList;
         InventoryClass ic = wrapCatch(
-                () -> inventoryClassRepository.findById(classId),
+                () -> requestIdentityMap.findById(InventoryClass.class, classId, () -> inventoryClassRepository.findById(classId)),
                 -1
         ).orElseThrow(
                 () -> InventoryClassNotFound
@@ -199,66 +303,69 @@ public abstract class InventoryElementMapper {
                             .build()
             );
 
-            Class<? extends AbstractValue> valueType = attributeFound.getType().toClassType();
-            if (valueType.isAssignableFrom(StringValue.class)) {
-                abstractAttributeList.add(
-                        StringValue
-                                .builder()
-                                .name(attributeValue.name())
-                                .value(attributeValue.value())
-                                .build()
-                );
-            } else if (valueType.isAssignableFrom(BooleanValue.class)) {
-                abstractAttributeList.add(
-                        BooleanValue
-                                .builder()
-                                .name(attributeValue.name())
-                                .value(Boolean.valueOf(attributeValue.value()))
-                                .build()
-                );
-            } else if (valueType.isAssignableFrom(NumberValue.class)) {
-                abstractAttributeList.add(
-                        NumberValue
-                                .builder()
-                                .name(attributeValue.name())
-                                .value(Long.valueOf(attributeValue.value()))
-                                .build()
-                );
-            } else if (valueType.isAssignableFrom(DoubleValue.class)) {
-                abstractAttributeList.add(
-                        DoubleValue
-                                .builder()
-                                .name(attributeValue.name())
-                                .value(Double.valueOf(attributeValue.value()))
-                                .build()
-                );
-            } else if (valueType.isAssignableFrom(DateValue.class)) {
-                abstractAttributeList.add(
-                        DateValue
-                                .builder()
-                                .name(attributeValue.name())
-                                .value(LocalDate.parse(attributeValue.value(), DateTimeFormatter.ISO_LOCAL_DATE))
-                                .build()
-                );
-            } else if (valueType.isAssignableFrom(DateTimeValue.class)) {
-                abstractAttributeList.add(
-                        DateTimeValue
-                                .builder()
-                                .name(attributeValue.name())
-                                .value(LocalDateTime.parse(attributeValue.value(), DateTimeFormatter.ISO_LOCAL_DATE_TIME))
-                                .build()
-                );
-            } else {
-                throw ControllerLogicException.builder()
-                        .errorCode(-4)
-                        .errorMessage("Invalid attribute type")
-                        .errorDomain("InventoryElementMapper::toElementAttributeWithClass")
-                        .build();
-            }
+            abstractAttributeList.add(
+                    toAttributeValue(attributeValue.name(), attributeValue.value(), attributeFound.getType())
+            );
         }
         return abstractAttributeList;
     }
 
+    /**
+     * Convert the string representation of an attribute value to the value of the given type
+     *
+     * @param name  the name of the attribute
+     * @param value the string representation of the value
+     * @param type  the type of the attribute
+     * @return the typed value
+     * @throws ControllerLogicException if an invalid attribute type is encountered
+     */
+    public AbstractValue toAttributeValue(String name, String value, InventoryClassAttributeType type) {
+        Class<? extends AbstractValue> valueType = type.toClassType();
+        if (valueType.isAssignableFrom(StringValue.class)) {
+            return StringValue
+                    .builder()
+                    .name(name)
+                    .value(value)
+                    .build();
+        } else if (valueType.isAssignableFrom(BooleanValue.class)) {
+            return BooleanValue
+                    .builder()
+                    .name(name)
+                    .value(Boolean.valueOf(value))
+                    .build();
+        } else if (valueType.isAssignableFrom(NumberValue.class)) {
+            return NumberValue
+                    .builder()
+                    .name(name)
+                    .value(Long.valueOf(value))
+                    .build();
+        } else if (valueType.isAssignableFrom(DoubleValue.class)) {
+            return DoubleValue
+                    .builder()
+                    .name(name)
+                    .value(Double.valueOf(value))
+                    .build();
+        } else if (valueType.isAssignableFrom(DateValue.class)) {
+            return DateValue
+                    .builder()
+                    .name(name)
+                    .value(LocalDate.parse(value, DateTimeFormatter.ISO_LOCAL_DATE))
+                    .build();
+        } else if (valueType.isAssignableFrom(DateTimeValue.class)) {
+            return DateTimeValue
+                    .builder()
+                    .name(name)
+                    .value(LocalDateTime.parse(value, DateTimeFormatter.ISO_LOCAL_DATE_TIME))
+                    .build();
+        } else {
+            throw ControllerLogicException.builder()
+                    .errorCode(-4)
+                    .errorMessage("Invalid attribute type")
+                    .errorDomain("InventoryElementMapper::toElementAttributeWithClass")
+                    .build();
+        }
+    }
+
     /**
      * Converts a list of AbstractValue objects to a list of InventoryElementAttributeValue objects with string values.
      *
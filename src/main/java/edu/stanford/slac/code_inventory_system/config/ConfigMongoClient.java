@@ -0,0 +1,45 @@
+package edu.stanford.slac.code_inventory_system.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.mongo.MongoClientSettingsBuilderCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tune the connection pool of the mongodb client.
+ * <p>
+ * With the virtual threads the number of concurrent requests is no longer bounded by the
+ * tomcat thread pool, so the pool size and the wait queue time are what limit the load
+ * sent to the database.
+ */
+@Configuration
+public class ConfigMongoClient {
+    @Bean
+    public MongoClientSettingsBuilderCustomizer connectionPoolCustomizer(
+            @Value("${cis.mongodb.pool.max-size:200}") int maxSize,
+            @Value("${cis.mongodb.pool.min-size:10}") int minSize,
+            @Value("${cis.mongodb.pool.max-connecting:8}") int maxConnecting,
+            @Value("${cis.mongodb.pool.max-wait-time-ms:5000}") long maxWaitTimeMs,
+            @Value("${cis.mongodb.pool.max-idle-time-ms:300000}") long maxIdleTimeMs
+    ) {
+        return builder -> builder.applyToConnectionPoolSettings(
+                pool -> pool
+                        .maxSize(maxSize)
+                        .minSize(minSize)
+                        .maxConnecting(maxConnecting)
+                        .maxWaitTime(maxWaitTimeMs, TimeUnit.MILLISECONDS)
+                        .maxConnectionIdleTime(maxIdleTimeMs, TimeUnit.MILLISECONDS)
+        );
+    }
+
+    /**
+     * Count the commands of each request, the command and connection pool metrics are
+     * published by the spring boot mongo metrics listeners
+     */
+    @Bean
+    public MongoClientSettingsBuilderCustomizer commandCounterCustomizer(MongoCommandCounter mongoCommandCounter) {
+        return builder -> builder.addCommandListener(mongoCommandCounter);
+    }
+}
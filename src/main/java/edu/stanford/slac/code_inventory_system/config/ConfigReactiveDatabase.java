@@ -0,0 +1,10 @@
+package edu.stanford.slac.code_inventory_system.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.mongodb.repository.config.EnableReactiveMongoRepositories;
+
+@Configuration
+@EnableReactiveMongoRepositories(basePackages = "edu.stanford.slac.code_inventory_system.repository.reactive")
+public class ConfigReactiveDatabase {
+
+}
@@ -0,0 +1,86 @@
+package edu.stanford.slac.code_inventory_system.config;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+
+/**
+ * Count the mongodb commands sent by each http request.
+ * <p>
+ * The count is published in the {@code cis.http.server.mongo.commands} distribution
+ * tagged with the method and the uri template of the request, the requests that exceed
+ * the budget are tagged and logged with the most used commands.
+ * <p>
+ * The count covers only the commands sent while the filter chain runs: for the streaming
+ * and the server-sent events endpoints, whose body is written by another thread after the
+ * handler returns, only the synchronous part of the request is counted.
+ */
+@Log4j2
+@Component
+public class MongoCommandBudgetFilter extends OncePerRequestFilter {
+    private final MongoCommandCounter mongoCommandCounter;
+    private final MeterRegistry meterRegistry;
+    private final int commandBudget;
+
+    public MongoCommandBudgetFilter(
+            MongoCommandCounter mongoCommandCounter,
+            MeterRegistry meterRegistry,
+            @Value("${cis.mongodb.command-budget:25}") int commandBudget) {
+        this.mongoCommandCounter = mongoCommandCounter;
+        this.meterRegistry = meterRegistry;
+        this.commandBudget = commandBudget;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain) throws ServletException, IOException {
+        var scope = mongoCommandCounter.open();
+        if (scope == null) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            mongoCommandCounter.close();
+            record(request, scope);
+        }
+    }
+
+    private void record(HttpServletRequest request, MongoCommandCounter.Scope scope) {
+        int commands = scope.total();
+        boolean overBudget = commands > commandBudget;
+        Object uriTemplate = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        String uri = uriTemplate != null ? uriTemplate.toString() : "UNKNOWN";
+        DistributionSummary
+                .builder("cis.http.server.mongo.commands")
+                .description("Number of mongodb commands sent by a http request")
+                .baseUnit("commands")
+                .tag("method", request.getMethod())
+                .tag("uri", uri)
+                .tag("over_budget", Boolean.toString(overBudget))
+                .register(meterRegistry)
+                .record(commands);
+        if (overBudget) {
+            log.warn(
+                    "{} {} sent {} mongodb commands, over the budget of {}, most used: {}",
+                    request.getMethod(),
+                    uri,
+                    commands,
+                    commandBudget,
+                    scope.top(5)
+            );
+        } else {
+            log.debug("{} {} sent {} mongodb commands", request.getMethod(), uri, commands);
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package edu.stanford.slac.code_inventory_system.config;
+
+import com.mongodb.event.CommandListener;
+import com.mongodb.event.CommandStartedEvent;
+import org.bson.BsonValue;
+import org.springframework.stereotype.Component;
+
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+/**
+ * Count the mongodb commands sent by the current request.
+ * <p>
+ * The counter is bound to the thread that serves the request and is propagated to the
+ * lookups forked by the request, the commands are grouped by name and collection so
+ * the repeated lookup of the same collection (the N+1 pattern) is easy to spot.
+ * When no scope is open the commands are not counted.
+ */
+@Component
+public class MongoCommandCounter implements CommandListener {
+    private static final ThreadLocal<Scope> CURRENT_SCOPE = new ThreadLocal<>();
+
+    /**
+     * The commands counted for a request
+     */
+    public static class Scope {
+        private final AtomicInteger total = new AtomicInteger();
+        private final Map<String, AtomicInteger> byCommand = new ConcurrentHashMap<>();
+
+        /**
+         * @return the number of commands sent
+         */
+        public int total() {
+            return total.get();
+        }
+
+        /**
+         * Return the most used commands
+         *
+         * @param limit the maximum number of entries
+         * @return the commands, as "name collection", with their count ordered by count
+         */
+        public Map<String, Integer> top(int limit) {
+            return byCommand.entrySet()
+                    .stream()
+                    .sorted(Comparator.comparingInt((Map.Entry<String, AtomicInteger> e) -> e.getValue().get()).reversed())
+                    .limit(limit)
+                    .collect(Collectors.toMap(Map.Entry::getKey, e -> e.getValue().get(), (a, b) -> a, LinkedHashMap::new));
+        }
+
+        private void increment(String command) {
+            total.incrementAndGet();
+            byCommand.computeIfAbsent(command, k -> new AtomicInteger()).incrementAndGet();
+        }
+    }
+
+    /**
+     * Open a new scope for the current thread
+     *
+     * @return the new scope, or null if a scope was already open
+     */
+    public Scope open() {
+        if (CURRENT_SCOPE.get() != null) return null;
+        Scope scope = new Scope();
+        CURRENT_SCOPE.set(scope);
+        return scope;
+    }
+
+    /**
+     * Close the scope of the current thread
+     */
+    public void close() {
+        CURRENT_SCOPE.remove();
+    }
+
+    /**
+     * Make the scope of the current thread available to a task executed by another thread
+     *
+     * @param task the task to execute
+     * @return the task that count his commands in the scope of the caller
+     */
+    public <T> Callable<T> propagate(Callable<T> task) {
+        var scope = CURRENT_SCOPE.get();
+        if (scope == null) return task;
+        return () -> {
+            CURRENT_SCOPE.set(scope);
+            try {
+                return task.call();
+            } finally {
+                CURRENT_SCOPE.remove();
+            }
+        };
+    }
+
+    @Override
+    public void commandStarted(CommandStartedEvent event) {
+        var scope = CURRENT_SCOPE.get();
+        if (scope == null) return;
+        // for the crud commands the collection is the value of the command name field
+        BsonValue collection = event.getCommand().get(event.getCommandName());
+        scope.increment(
+                collection != null && collection.isString() ?
+                        "%s %s".formatted(event.getCommandName(), collection.asString().getValue()) :
+                        event.getCommandName()
+        );
+    }
+}
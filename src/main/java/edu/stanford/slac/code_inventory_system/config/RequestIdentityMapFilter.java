@@ -0,0 +1,31 @@
+package edu.stanford.slac.code_inventory_system.config;
+
+import edu.stanford.slac.code_inventory_system.repository.RequestIdentityMap;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.AllArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+/**
+ * Open the {@link RequestIdentityMap} scope for each http request
+ */
+@Component
+@AllArgsConstructor
+public class RequestIdentityMapFilter extends OncePerRequestFilter {
+    private final RequestIdentityMap requestIdentityMap;
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain) throws ServletException, IOException {
+        boolean opened = requestIdentityMap.open();
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            if (opened) requestIdentityMap.close();
+        }
+    }
+}
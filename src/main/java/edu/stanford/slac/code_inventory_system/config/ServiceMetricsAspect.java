@@ -0,0 +1,65 @@
+package edu.stanford.slac.code_inventory_system.config;
+
+import edu.stanford.slac.ad.eed.baselib.exception.ControllerLogicException;
+import edu.stanford.slac.code_inventory_system.service.utility.ServiceOperation;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.AllArgsConstructor;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+
+/**
+ * Measure the methods annotated with {@link ServiceOperation}.
+ * <p>
+ * The duration is published in the {@code cis.service.operation} timer tagged with the
+ * operation, the outcome and the exception. The outcome is {@code success}, {@code failure}
+ * for the application errors (not found, wrong parameter, ...) and {@code error} for all the
+ * others. The size of the returned collections is published in the
+ * {@code cis.service.result.size} distribution. The histograms and the slo buckets are
+ * configured in the management.metrics.distribution properties.
+ */
+@Aspect
+@Component
+@AllArgsConstructor
+public class ServiceMetricsAspect {
+    private final MeterRegistry meterRegistry;
+
+    @Around("@annotation(serviceOperation)")
+    public Object measure(ProceedingJoinPoint joinPoint, ServiceOperation serviceOperation) throws Throwable {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String outcome = "success";
+        String exception = "none";
+        try {
+            Object result = joinPoint.proceed();
+            if (result instanceof Collection<?> collection) {
+                DistributionSummary
+                        .builder("cis.service.result.size")
+                        .description("Number of entries returned by a service operation")
+                        .baseUnit("entries")
+                        .tag("operation", serviceOperation.value())
+                        .register(meterRegistry)
+                        .record(collection.size());
+            }
+            return result;
+        } catch (Throwable e) {
+            outcome = e instanceof ControllerLogicException ? "failure" : "error";
+            exception = e.getClass().getSimpleName();
+            throw e;
+        } finally {
+            sample.stop(
+                    Timer
+                            .builder("cis.service.operation")
+                            .description("Duration of a service operation")
+                            .tag("operation", serviceOperation.value())
+                            .tag("outcome", outcome)
+                            .tag("exception", exception)
+                            .register(meterRegistry)
+            );
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package edu.stanford.slac.code_inventory_system.migration;
+
+
+import edu.stanford.slac.ad.eed.base_mongodb_lib.utility.MongoDDLOps;
+import edu.stanford.slac.code_inventory_system.model.IdempotencyKey;
+import io.mongock.api.annotations.ChangeUnit;
+import io.mongock.api.annotations.Execution;
+import io.mongock.api.annotations.RollbackExecution;
+import lombok.AllArgsConstructor;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
+
+import java.time.Duration;
+
+@AllArgsConstructor
+@ChangeUnit(id = "idempotency-key-index", order = "1011", author = "bisegni")
+public class IdempotencyKeyIndex {
+    /**
+     * The idempotency keys are removed after this period, a retry sent later
+     * is executed as a new request
+     */
+    public static final Duration IDEMPOTENCY_KEY_RETENTION = Duration.ofHours(24);
+    private final MongoTemplate mongoTemplate;
+
+    @Execution
+    public void changeSet() {
+        MongoDDLOps.createIndex(
+                IdempotencyKey.class,
+                mongoTemplate,
+                new Index().on(
+                                "createdDate",
+                                Sort.Direction.ASC
+                        )
+                        .expire(IDEMPOTENCY_KEY_RETENTION)
+                        .named("created-date-ttl")
+        );
+    }
+
+
+    @RollbackExecution
+    public void rollback() {
+
+    }
+}
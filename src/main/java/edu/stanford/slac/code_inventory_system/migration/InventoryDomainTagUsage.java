@@ -0,0 +1,92 @@
+package edu.stanford.slac.code_inventory_system.migration;
+
+
+import edu.stanford.slac.ad.eed.base_mongodb_lib.utility.MongoDDLOps;
+import edu.stanford.slac.code_inventory_system.model.InventoryDomain;
+import edu.stanford.slac.code_inventory_system.model.InventoryElement;
+import io.mongock.api.annotations.ChangeUnit;
+import io.mongock.api.annotations.Execution;
+import io.mongock.api.annotations.RollbackExecution;
+import lombok.AllArgsConstructor;
+import lombok.extern.log4j.Log4j2;
+import org.bson.Document;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Compute the tag usage counters of the existing domains, from now on
+ * they are maintained by the element operations
+ */
+@Log4j2
+@AllArgsConstructor
+@ChangeUnit(id = "inventory-domain-tag-usage", order = "1010", author = "bisegni")
+public class InventoryDomainTagUsage {
+    private final MongoTemplate mongoTemplate;
+
+    @Execution
+    public void changeSet() {
+        ensureIndex();
+        computeTagUsage();
+    }
+
+
+    @RollbackExecution
+    public void rollback() {
+
+    }
+
+    /**
+     * The tags of the element are plain ids, the old index on tags.id is never used
+     */
+    private void ensureIndex() {
+        MongoDDLOps.createIndex(
+                InventoryElement.class,
+                mongoTemplate,
+                new Index().on(
+                                "domainId",
+                                Sort.Direction.ASC
+                        )
+                        .on(
+                                "tags",
+                                Sort.Direction.ASC
+                        )
+                        .named("domain-id-tags")
+        );
+    }
+
+    private void computeTagUsage() {
+        Aggregation aggregation = Aggregation.newAggregation(
+                Aggregation.match(Criteria.where("tags.0").exists(true)),
+                Aggregation.project("domainId", "tags"),
+                Aggregation.unwind("tags"),
+                Aggregation.group("domainId", "tags").count().as("count")
+        );
+        Map<String, Map<String, Long>> usageByDomain = new HashMap<>();
+        mongoTemplate.aggregate(aggregation, InventoryElement.class, Document.class)
+                .getMappedResults()
+                .forEach(
+                        result -> {
+                            Document id = result.get("_id", Document.class);
+                            usageByDomain
+                                    .computeIfAbsent(id.getString("domainId"), k -> new HashMap<>())
+                                    .put(id.getString("tags"), ((Number) result.get("count")).longValue());
+                        }
+                );
+        usageByDomain.forEach(
+                (domainId, usage) -> mongoTemplate.updateFirst(
+                        new Query(Criteria.where("id").is(domainId)),
+                        new Update().set("tagUsage", usage),
+                        InventoryDomain.class
+                )
+        );
+        log.info("Computed the tag usage of {} domains", usageByDomain.size());
+    }
+}
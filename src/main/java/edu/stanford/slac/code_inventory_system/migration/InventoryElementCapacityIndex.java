@@ -0,0 +1,48 @@
+package edu.stanford.slac.code_inventory_system.migration;
+
+
+import edu.stanford.slac.ad.eed.base_mongodb_lib.utility.MongoDDLOps;
+import edu.stanford.slac.code_inventory_system.model.InventoryElementCapacity;
+import edu.stanford.slac.code_inventory_system.service.InventoryElementCapacityService;
+import io.mongock.api.annotations.ChangeUnit;
+import io.mongock.api.annotations.Execution;
+import io.mongock.api.annotations.RollbackExecution;
+import lombok.AllArgsConstructor;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
+
+@AllArgsConstructor
+@ChangeUnit(id = "inventory-element-capacity-index", order = "1005", author = "bisegni")
+public class InventoryElementCapacityIndex {
+    private final MongoTemplate mongoTemplate;
+    private final InventoryElementCapacityService inventoryElementCapacityService;
+
+    @Execution
+    public void changeSet() {
+        ensureIndex();
+        // compute the capacity for the already existing elements
+        inventoryElementCapacityService.rebuildAll();
+    }
+
+
+    @RollbackExecution
+    public void rollback() {
+
+    }
+
+    /**
+     * Ensure base index
+     */
+    private void ensureIndex() {
+        MongoDDLOps.createIndex(
+                InventoryElementCapacity.class,
+                mongoTemplate,
+                new Index().on(
+                                "domainId",
+                                Sort.Direction.ASC
+                        )
+                        .named("domainId")
+        );
+    }
+}
@@ -0,0 +1,42 @@
+package edu.stanford.slac.code_inventory_system.migration;
+
+
+import edu.stanford.slac.code_inventory_system.model.InventoryElement;
+import io.mongock.api.annotations.ChangeUnit;
+import io.mongock.api.annotations.Execution;
+import io.mongock.api.annotations.RollbackExecution;
+import lombok.AllArgsConstructor;
+import org.bson.Document;
+import org.springframework.data.mongodb.core.MongoTemplate;
+
+@AllArgsConstructor
+@ChangeUnit(id = "inventory-element-change-stream-pre-image", order = "1008", author = "bisegni")
+public class InventoryElementChangeStreamPreImage {
+    private final MongoTemplate mongoTemplate;
+
+    @Execution
+    public void changeSet() {
+        enablePreImage(true);
+    }
+
+
+    @RollbackExecution
+    public void rollback() {
+        enablePreImage(false);
+    }
+
+    /**
+     * Store the pre-image of the changed elements, the change feed use it to find
+     * the domain of the deleted elements
+     */
+    private void enablePreImage(boolean enabled) {
+        String collectionName = mongoTemplate.getCollectionName(InventoryElement.class);
+        if (!mongoTemplate.collectionExists(collectionName)) {
+            mongoTemplate.createCollection(collectionName);
+        }
+        mongoTemplate.executeCommand(
+                new Document("collMod", collectionName)
+                        .append("changeStreamPreAndPostImages", new Document("enabled", enabled))
+        );
+    }
+}
@@ -0,0 +1,88 @@
+package edu.stanford.slac.code_inventory_system.migration;
+
+
+import edu.stanford.slac.ad.eed.base_mongodb_lib.utility.MongoDDLOps;
+import edu.stanford.slac.code_inventory_system.model.InventoryElement;
+import edu.stanford.slac.code_inventory_system.model.InventoryElementTombstone;
+import io.mongock.api.annotations.ChangeUnit;
+import io.mongock.api.annotations.Execution;
+import io.mongock.api.annotations.RollbackExecution;
+import lombok.AllArgsConstructor;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
+
+import java.time.Duration;
+
+@AllArgsConstructor
+@ChangeUnit(id = "inventory-element-sync-index", order = "1009", author = "bisegni")
+public class InventoryElementSyncIndex {
+    /**
+     * The tombstones are removed after this period, the mirrors that are older
+     * need to be fully resynchronized
+     */
+    public static final Duration TOMBSTONE_RETENTION = Duration.ofDays(90);
+    private final MongoTemplate mongoTemplate;
+
+    @Execution
+    public void changeSet() {
+        ensureIndex();
+    }
+
+
+    @RollbackExecution
+    public void rollback() {
+
+    }
+
+    /**
+     * Ensure the index used by the incremental sync, both the elements and the
+     * tombstones are read ordered by date and id
+     */
+    private void ensureIndex() {
+        MongoDDLOps.createIndex(
+                InventoryElement.class,
+                mongoTemplate,
+                new Index().on(
+                                "domainId",
+                                Sort.Direction.ASC
+                        )
+                        .on(
+                                "lastModifiedDate",
+                                Sort.Direction.ASC
+                        )
+                        .on(
+                                "_id",
+                                Sort.Direction.ASC
+                        )
+                        .named("domain-id-last-modified-date")
+        );
+        MongoDDLOps.createIndex(
+                InventoryElementTombstone.class,
+                mongoTemplate,
+                new Index().on(
+                                "domainId",
+                                Sort.Direction.ASC
+                        )
+                        .on(
+                                "deletedDate",
+                                Sort.Direction.ASC
+                        )
+                        .on(
+                                "_id",
+                                Sort.Direction.ASC
+                        )
+                        .named("domain-id-deleted-date")
+        );
+        MongoDDLOps.createIndex(
+                InventoryElementTombstone.class,
+                mongoTemplate,
+                new Index().on(
+                                "deletedDate",
+                                Sort.Direction.ASC
+                        )
+                        .expire(TOMBSTONE_RETENTION)
+                        .named("deleted-date-ttl")
+        );
+    }
+}
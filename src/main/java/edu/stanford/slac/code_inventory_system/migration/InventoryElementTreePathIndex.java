@@ -0,0 +1,52 @@
+package edu.stanford.slac.code_inventory_system.migration;
+
+
+import edu.stanford.slac.ad.eed.base_mongodb_lib.utility.MongoDDLOps;
+import edu.stanford.slac.code_inventory_system.model.InventoryElement;
+import io.mongock.api.annotations.ChangeUnit;
+import io.mongock.api.annotations.Execution;
+import io.mongock.api.annotations.RollbackExecution;
+import lombok.AllArgsConstructor;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
+
+@AllArgsConstructor
+@ChangeUnit(id = "inventory-element-tree-path-index", order = "1007", author = "bisegni")
+public class InventoryElementTreePathIndex {
+    private final MongoTemplate mongoTemplate;
+
+    @Execution
+    public void changeSet() {
+        ensureIndex();
+    }
+
+
+    @RollbackExecution
+    public void rollback() {
+
+    }
+
+    /**
+     * Ensure the index used by the subtree and export stream
+     */
+    private void ensureIndex() {
+        MongoDDLOps.createIndex(
+                InventoryElement.class,
+                mongoTemplate,
+                new Index().on(
+                                "domainId",
+                                Sort.Direction.ASC
+                        )
+                        .on(
+                                "fullTreePath",
+                                Sort.Direction.ASC
+                        )
+                        .on(
+                                "name",
+                                Sort.Direction.ASC
+                        )
+                        .named("domain-id-full-tree-path")
+        );
+    }
+}
@@ -0,0 +1,65 @@
+package edu.stanford.slac.code_inventory_system.migration;
+
+
+import edu.stanford.slac.ad.eed.base_mongodb_lib.utility.MongoDDLOps;
+import edu.stanford.slac.code_inventory_system.model.InventoryJob;
+import io.mongock.api.annotations.ChangeUnit;
+import io.mongock.api.annotations.Execution;
+import io.mongock.api.annotations.RollbackExecution;
+import lombok.AllArgsConstructor;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
+
+import java.time.Duration;
+
+@AllArgsConstructor
+@ChangeUnit(id = "inventory-job-index", order = "1012", author = "bisegni")
+public class InventoryJobIndex {
+    /**
+     * The terminated jobs are removed after this period
+     */
+    public static final Duration JOB_RETENTION = Duration.ofDays(7);
+    private final MongoTemplate mongoTemplate;
+
+    @Execution
+    public void changeSet() {
+        ensureIndex();
+    }
+
+
+    @RollbackExecution
+    public void rollback() {
+
+    }
+
+    /**
+     * Ensure the index used by the nodes to take the jobs in submission order
+     * and the one that remove the terminated jobs
+     */
+    private void ensureIndex() {
+        MongoDDLOps.createIndex(
+                InventoryJob.class,
+                mongoTemplate,
+                new Index().on(
+                                "state",
+                                Sort.Direction.ASC
+                        )
+                        .on(
+                                "createdDate",
+                                Sort.Direction.ASC
+                        )
+                        .named("state-created-date")
+        );
+        MongoDDLOps.createIndex(
+                InventoryJob.class,
+                mongoTemplate,
+                new Index().on(
+                                "completedDate",
+                                Sort.Direction.ASC
+                        )
+                        .expire(JOB_RETENTION)
+                        .named("completed-date-ttl")
+        );
+    }
+}
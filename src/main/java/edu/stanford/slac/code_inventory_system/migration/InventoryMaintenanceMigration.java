@@ -0,0 +1,126 @@
+package edu.stanford.slac.code_inventory_system.migration;
+
+
+import edu.stanford.slac.ad.eed.base_mongodb_lib.utility.MongoDDLOps;
+import edu.stanford.slac.code_inventory_system.model.InventoryElement;
+import edu.stanford.slac.code_inventory_system.model.InventoryMaintenance;
+import io.mongock.api.annotations.ChangeUnit;
+import io.mongock.api.annotations.Execution;
+import io.mongock.api.annotations.RollbackExecution;
+import lombok.AllArgsConstructor;
+import lombok.extern.log4j.Log4j2;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Move the maintenance history embedded into the element documents
+ * into the dedicated collection
+ */
+@Log4j2
+@AllArgsConstructor
+@ChangeUnit(id = "inventory-maintenance-migration", order = "1006", author = "bisegni")
+public class InventoryMaintenanceMigration {
+    private final MongoTemplate mongoTemplate;
+
+    @Execution
+    public void changeSet() {
+        ensureIndex();
+        moveEmbeddedHistory();
+    }
+
+
+    @RollbackExecution
+    public void rollback() {
+
+    }
+
+    /**
+     * Ensure base index
+     */
+    private void ensureIndex() {
+        MongoDDLOps.createIndex(
+                InventoryMaintenance.class,
+                mongoTemplate,
+                new Index()
+                        .on("inventoryDomainId", Sort.Direction.ASC)
+                        .on("inventoryElementId", Sort.Direction.ASC)
+                        .on("timestamp", Sort.Direction.DESC)
+                        .on("_id", Sort.Direction.DESC)
+                        .named("elementTimestamp")
+        );
+    }
+
+    /**
+     * Copy all the embedded record in the new collection and remove them from the element.
+     * The elements are moved in batches, each batch removes the records left by a previous
+     * interrupted execution, inserts the records and removes them from his elements; so a
+     * rerun skips the elements already moved and moves again only the interrupted batch
+     */
+    private void moveEmbeddedHistory() {
+        String elementCollection = mongoTemplate.getCollectionName(InventoryElement.class);
+        String maintenanceCollection = mongoTemplate.getCollectionName(InventoryMaintenance.class);
+        Query withHistory = new Query(Criteria.where("maintenanceHistory").exists(true));
+        withHistory.fields().include("_id", "domainId", "maintenanceHistory");
+        List<String> batchElementIds = new ArrayList<>();
+        List<Document> batch = new ArrayList<>();
+        long moved = 0;
+        try (var elements = mongoTemplate.stream(withHistory, Document.class, elementCollection)) {
+            for (var iterator = elements.iterator(); iterator.hasNext(); ) {
+                Document element = iterator.next();
+                String elementId = element.getObjectId("_id").toHexString();
+                List<Document> history = element.getList("maintenanceHistory", Document.class);
+                batchElementIds.add(elementId);
+                for (Document record : history == null ? List.<Document>of() : history) {
+                    batch.add(
+                            new Document()
+                                    .append("_id", new ObjectId())
+                                    .append("inventoryDomainId", element.getString("domainId"))
+                                    .append("inventoryElementId", elementId)
+                                    .append("timestamp", record.get("timestamp"))
+                                    .append("type", record.get("type"))
+                                    .append("action", record.get("action"))
+                                    .append("description", record.get("description"))
+                    );
+                }
+                // the records of an element are never split between two batches
+                if (batch.size() >= 1000) {
+                    moved += moveBatch(elementCollection, maintenanceCollection, batchElementIds, batch);
+                }
+            }
+        }
+        if (!batchElementIds.isEmpty()) {
+            moved += moveBatch(elementCollection, maintenanceCollection, batchElementIds, batch);
+        }
+        log.info("Moved {} maintenance records to the '{}' collection", moved, maintenanceCollection);
+    }
+
+    /**
+     * Move the records of a batch of elements, the batch is cleared
+     */
+    private long moveBatch(String elementCollection, String maintenanceCollection, List<String> elementIds, List<Document> records) {
+        long moved = records.size();
+        // the application doesn't write maintenance records while the migration runs, so the
+        // records already present for these elements come from an interrupted execution
+        mongoTemplate.remove(new Query(Criteria.where("inventoryElementId").in(elementIds)), maintenanceCollection);
+        if (!records.isEmpty()) {
+            mongoTemplate.insert(records, maintenanceCollection);
+        }
+        mongoTemplate.updateMulti(
+                new Query(Criteria.where("_id").in(elementIds.stream().map(ObjectId::new).toList())),
+                new Update().unset("maintenanceHistory"),
+                elementCollection
+        );
+        elementIds.clear();
+        records.clear();
+        return moved;
+    }
+}
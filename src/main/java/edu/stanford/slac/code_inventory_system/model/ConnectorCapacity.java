@@ -0,0 +1,26 @@
+package edu.stanford.slac.code_inventory_system.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Define the counters of a connector class
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ConnectorCapacity {
+    /**
+     * The total number of connector
+     */
+    @Builder.Default
+    private Long total = 0L;
+    /**
+     * The number of connector in use
+     */
+    @Builder.Default
+    private Long used = 0L;
+}
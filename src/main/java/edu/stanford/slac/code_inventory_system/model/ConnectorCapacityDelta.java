@@ -0,0 +1,39 @@
+package edu.stanford.slac.code_inventory_system.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Describe an increment to apply to the counters of a {@link InventoryElementCapacity}
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ConnectorCapacityDelta {
+    /**
+     * The id of the element to update
+     */
+    private String elementId;
+    /**
+     * if true the delta is applied to the {@link InventoryElementCapacity#own} counters
+     * otherwise to the {@link InventoryElementCapacity#subtree} ones
+     */
+    private boolean own;
+    /**
+     * the id of the connector class
+     */
+    private String connectorClassId;
+    /**
+     * the increment for the total connector count
+     */
+    @Builder.Default
+    private long total = 0;
+    /**
+     * the increment for the used connector count
+     */
+    @Builder.Default
+    private long used = 0;
+}
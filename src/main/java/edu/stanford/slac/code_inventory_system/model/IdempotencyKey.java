@@ -0,0 +1,40 @@
+package edu.stanford.slac.code_inventory_system.model;
+
+import jakarta.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.ToString;
+import org.springframework.data.annotation.Id;
+
+import java.time.LocalDateTime;
+
+/**
+ * Record the result of a create request sent with an idempotency key, the retries
+ * of the same request get the stored result without executing the request again.
+ * The id is composed by the user, the operation and the key sent by the client.
+ */
+@Data
+@Builder
+@ToString
+@AllArgsConstructor
+public class IdempotencyKey {
+    @Id
+    String id;
+    /**
+     * The hash of the request body, a key cannot be reused for a different request
+     */
+    @NotNull
+    String requestHash;
+    /**
+     * The result of the request, null while the request is in progress
+     */
+    String result;
+    @Builder.Default
+    boolean completed = false;
+    /**
+     * The records are removed by a TTL index after the retention period
+     */
+    @NotNull
+    LocalDateTime createdDate;
+}
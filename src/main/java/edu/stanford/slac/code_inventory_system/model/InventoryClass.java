@@ -33,7 +33,7 @@ import java.util.List;
  * }
  */
 @Data
-@Builder
+@Builder(toBuilder = true)
 @ToString
 @NoArgsConstructor
 @AllArgsConstructor
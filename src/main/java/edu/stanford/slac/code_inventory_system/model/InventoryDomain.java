@@ -10,7 +10,9 @@ import org.springframework.data.annotation.*;
 
 import java.time.LocalDateTime;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 import static java.util.Collections.emptyList;
 
@@ -39,6 +41,13 @@ public class InventoryDomain {
      */
     @Builder.Default
     private List<Tag> tags = emptyList();
+    /**
+     * The number of elements that use each tag, by tag id. The counters
+     * are maintained with atomic increments when the elements are created,
+     * updated or deleted
+     */
+    @Builder.Default
+    private Map<String, Long> tagUsage = new HashMap<>();
     @CreatedDate
     private LocalDateTime createdDate;
     @CreatedBy
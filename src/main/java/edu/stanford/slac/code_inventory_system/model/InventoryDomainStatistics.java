@@ -0,0 +1,64 @@
+package edu.stanford.slac.code_inventory_system.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.ToString;
+import org.springframework.data.annotation.Id;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+
+/**
+ * The materialized statistics of the elements of a domain.
+ * The id is the id of the domain, the document is computed by an aggregation
+ * merged into the collection and is recomputed in background when the elements
+ * have been changed after the last computation, at most once for each refresh interval
+ */
+@Data
+@Builder
+@ToString
+@AllArgsConstructor
+public class InventoryDomainStatistics {
+    @Id
+    private String id;
+    /**
+     * The number of writes on the elements of the domain
+     */
+    private long changes;
+    /**
+     * The number of writes seen by the last computation
+     */
+    private long refreshedChanges;
+    /**
+     * The number of elements of the domain
+     */
+    private long totalElements;
+    /**
+     * The number of elements for each class id
+     */
+    private Map<String, Long> elementsByClass;
+    /**
+     * The number of elements for each tag id
+     */
+    private Map<String, Long> elementsByTag;
+    /**
+     * The number of elements for each level of the tree, the root elements are at level 0
+     */
+    private Map<String, Long> elementsByLevel;
+    /**
+     * The time of the last computation
+     */
+    private LocalDateTime computedDate;
+    /**
+     * The time of the last claim of a computation, the computations are throttled on it
+     */
+    private LocalDateTime refreshClaimedDate;
+
+    /**
+     * @return true if the elements have been changed after the last computation
+     */
+    public boolean isStale() {
+        return computedDate == null || changes != refreshedChanges;
+    }
+}
@@ -92,11 +92,6 @@ public class InventoryElement {
      */
     @Builder.Default
     private List<ConnectorClass> connectorClasses = emptyList();
-    /**
-     * IS the history of that element
-     */
-    @Builder.Default
-    private List<InventoryMaintenance> maintenanceHistory = emptyList();
     /**
      * Define the ids of the tag associated with the element
      */
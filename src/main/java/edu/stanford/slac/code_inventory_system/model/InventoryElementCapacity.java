@@ -0,0 +1,44 @@
+package edu.stanford.slac.code_inventory_system.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Precomputed connector capacity for an {@link InventoryElement}. The counters are
+ * maintained incrementally on every element write so the capacity of a rack, a room or a building
+ * can be read without aggregating the whole subtree.
+ * <p>
+ * A connector is considered in use when a child element belongs to the class
+ * declared by one of the {@link InventoryElement#connectorClasses} of the parent.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class InventoryElementCapacity {
+    /**
+     * Is the id of the {@link InventoryElement}
+     */
+    @Id
+    private String id;
+    /**
+     * The domain which the element belong
+     */
+    private String domainId;
+    /**
+     * The counters for the connectors of the element itself, keyed by connector class id
+     */
+    @Builder.Default
+    private Map<String, ConnectorCapacity> own = new HashMap<>();
+    /**
+     * The counters for the connectors of the element and all the descendants, keyed by connector class id
+     */
+    @Builder.Default
+    private Map<String, ConnectorCapacity> subtree = new HashMap<>();
+}
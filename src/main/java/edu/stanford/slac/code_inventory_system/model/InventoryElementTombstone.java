@@ -0,0 +1,29 @@
+package edu.stanford.slac.code_inventory_system.model;
+
+import jakarta.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.ToString;
+import org.springframework.data.annotation.Id;
+
+import java.time.LocalDateTime;
+
+/**
+ * Record the deletion of an inventory element, used by the incremental sync
+ * to notify the deletion to the downstream systems.
+ * The id is the id of the deleted element.
+ */
+@Data
+@Builder
+@ToString
+@AllArgsConstructor
+public class InventoryElementTombstone {
+    @Id
+    String id;
+    @NotNull
+    String domainId;
+    @NotNull
+    LocalDateTime deletedDate;
+    String deletedBy;
+}
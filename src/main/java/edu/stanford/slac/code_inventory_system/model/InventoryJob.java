@@ -0,0 +1,85 @@
+package edu.stanford.slac.code_inventory_system.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.ToString;
+import org.springframework.data.annotation.Id;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A long-running operation executed in background.
+ * <p>
+ * A job is executed by the node that own his lease, the node renew the lease while the job
+ * is running and when the job save a checkpoint. A job with an expired lease, because the
+ * node has been stopped, is taken by another node that resume it from the last checkpoint.
+ */
+@Data
+@Builder(toBuilder = true)
+@ToString
+@AllArgsConstructor
+public class InventoryJob {
+    @Id
+    private String id;
+    private InventoryJobType type;
+    private InventoryJobState state;
+    /**
+     * The domain where the job works
+     */
+    private String domainId;
+    /**
+     * The element where the job works, if any
+     */
+    private String elementId;
+    /**
+     * The parameters of the job, their meaning depend on the type
+     */
+    @Builder.Default
+    private Map<String, Object> parameters = new HashMap<>();
+    /**
+     * The position saved by the job, a resumed job continue from here
+     */
+    private String checkpoint;
+    /**
+     * The number of items to process, estimated at the submission
+     */
+    private Long total;
+    /**
+     * The number of items processed
+     */
+    @Builder.Default
+    private Long processed = 0L;
+    /**
+     * The counters reported by the job, their meaning depend on the type
+     */
+    @Builder.Default
+    private Map<String, Long> counters = new HashMap<>();
+    /**
+     * The problems found by the job, only the first ones are kept
+     */
+    @Builder.Default
+    private List<String> issues = new ArrayList<>();
+    private String errorMessage;
+    /**
+     * The number of times the job has been taken by a node
+     */
+    @Builder.Default
+    private int attempts = 0;
+    /**
+     * The node that own the lease
+     */
+    private String owner;
+    /**
+     * The lease is valid until this time, then the job can be taken by another node
+     */
+    private LocalDateTime leaseUntil;
+    private String createdBy;
+    private LocalDateTime createdDate;
+    private LocalDateTime startedDate;
+    private LocalDateTime completedDate;
+}
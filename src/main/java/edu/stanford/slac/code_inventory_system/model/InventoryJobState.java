@@ -0,0 +1,17 @@
+package edu.stanford.slac.code_inventory_system.model;
+
+/**
+ * The state of a background job
+ */
+public enum InventoryJobState {
+    /**
+     * The job is waiting for a free worker
+     */
+    Pending,
+    /**
+     * The job is executed by the node that own the lease
+     */
+    Running,
+    Completed,
+    Failed
+}
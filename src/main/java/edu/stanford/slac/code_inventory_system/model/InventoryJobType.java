@@ -0,0 +1,20 @@
+package edu.stanford.slac.code_inventory_system.model;
+
+/**
+ * The kind of a background job, each kind is executed by an
+ * {@link edu.stanford.slac.code_inventory_system.service.utility.InventoryJobHandler}
+ */
+public enum InventoryJobType {
+    /**
+     * Delete an element with all his descendants
+     */
+    DeleteElement,
+    /**
+     * Delete a domain with all his elements and authorizations
+     */
+    DeleteDomain,
+    /**
+     * Check the elements of a class, and of his subclasses, against the current attributes
+     */
+    RevalidateClass
+}
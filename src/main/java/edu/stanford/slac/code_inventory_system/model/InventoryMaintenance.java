@@ -1,20 +1,37 @@
 package edu.stanford.slac.code_inventory_system.model;
 
+import jakarta.validation.constraints.NotNull;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.CreatedBy;
+import org.springframework.data.annotation.CreatedDate;
+import org.springframework.data.annotation.Id;
 
 import java.time.LocalDateTime;
 
 /**
- * Define a history record for an inventory element
+ * Define a history record for an inventory element, the records are
+ * stored in their own append-only collection
  */
 @Data
 @Builder
 @NoArgsConstructor
 @AllArgsConstructor
 public class InventoryMaintenance {
+    @Id
+    private String id;
+    /**
+     * The domain of the element
+     */
+    @NotNull
+    private String inventoryDomainId;
+    /**
+     * The element which the record belong
+     */
+    @NotNull
+    private String inventoryElementId;
     /**
      * The time stamp when the event is occurred
      */
@@ -36,4 +53,8 @@ public class InventoryMaintenance {
      * the record remotely
      */
     private String description;
+    @CreatedDate
+    private LocalDateTime createdDate;
+    @CreatedBy
+    private String createdBy;
 }
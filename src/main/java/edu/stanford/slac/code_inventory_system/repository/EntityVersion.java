@@ -0,0 +1,18 @@
+package edu.stanford.slac.code_inventory_system.repository;
+
+/**
+ * Closed projection that load only the identity and the version of a document,
+ * used to compute the entity tag without loading the full document
+ */
+public interface EntityVersion {
+    String getId();
+
+    Long getVersion();
+
+    /**
+     * @return the version, zero for the documents created before the versioning
+     */
+    default long versionOrZero() {
+        return getVersion() == null ? 0 : getVersion();
+    }
+}
@@ -4,7 +4,9 @@ import edu.stanford.slac.code_inventory_system.model.InventoryClass;
 import org.springframework.data.mongodb.repository.Aggregation;
 import org.springframework.data.mongodb.repository.MongoRepository;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 public interface InventoryClassRepository  extends MongoRepository<InventoryClass, String> {
     /**
@@ -14,4 +16,20 @@ public interface InventoryClassRepository  extends MongoRepository<InventoryClas
      * @return a List of InventoryClass objects whose name contains the search string
      */
     List<InventoryClass> findAllByNameContainsIgnoreCase(String search);
+
+    /**
+     * Return only the version of a class
+     *
+     * @param id the class id
+     * @return the version of the class if found
+     */
+    Optional<EntityVersion> findVersionById(String id);
+
+    /**
+     * Return the classes that directly extend one of the given classes
+     *
+     * @param extendedClassIds the ids of the extended classes
+     * @return the list of the classes that extend them
+     */
+    List<InventoryClass> findAllByExtendsClassIn(Collection<String> extendedClassIds);
 }
\ No newline at end of file
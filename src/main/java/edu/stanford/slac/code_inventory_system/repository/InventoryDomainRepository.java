@@ -45,6 +45,20 @@ public interface InventoryDomainRepository extends MongoRepository<InventoryDoma
      */
     boolean existsByNameIs(String domainName);
 
+    /**
+     * Return only the version of a domain
+     * @param id the domain id
+     * @return the version of the domain if found
+     */
+    Optional<EntityVersion> findVersionById(String id);
+
+    /**
+     * Return all the domains with only the id loaded
+     * @return the domains
+     */
+    @Query(value = "{}", fields = "{ '_id': 1 }")
+    List<InventoryDomain> findAllIdOnly();
+
     @Query(value = "{ 'id':?0, 'tags._id': { $all: ?1 } }", exists = true)
     boolean existsByIdAndAllTags(String id, List<String> tags);
 }
\ No newline at end of file
@@ -2,6 +2,8 @@ package edu.stanford.slac.code_inventory_system.repository;
 
 import edu.stanford.slac.code_inventory_system.model.Tag;
 
+import java.util.Map;
+
 public interface InventoryDomainRepositoryCustom {
     /**
      * Ensure the creation of the tag for a domain, in an atomic way
@@ -12,4 +14,11 @@ public interface InventoryDomainRepositoryCustom {
      * @return the id of the new created tag
      */
     String ensureTag(String id, Tag newTag);
+
+    /**
+     * Atomically apply the increments to the tag usage counters of a domain
+     * @param id the id of the domain
+     * @param increments the increment for each tag id, can be negative
+     */
+    void incrementTagUsage(String id, Map<String, Long> increments);
 }
\ No newline at end of file
@@ -11,6 +11,7 @@ import org.springframework.data.mongodb.core.query.Query;
 import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.stereotype.Repository;
 
+import java.util.Map;
 import java.util.UUID;
 
 import static edu.stanford.slac.ad.eed.baselib.utility.StringUtilities.normalizeStringWithReplace;
@@ -23,6 +24,7 @@ import static edu.stanford.slac.ad.eed.baselib.utility.StringUtilities.normalize
 @AllArgsConstructor
 public class InventoryDomainRepositoryImpl implements InventoryDomainRepositoryCustom{
     MongoTemplate mongoTemplate;
+    RequestIdentityMap requestIdentityMap;
     @Override
     public String ensureTag(@NotNull String id, @NonNull Tag newTag) {
         String newID = UUID.randomUUID().toString();
@@ -39,14 +41,18 @@ public class InventoryDomainRepositoryImpl implements InventoryDomainRepositoryC
                         .and("tags.name").ne(newTag.getName())
         );
 
+        // the version is incremented because the tags are part of the domain and element representation
         Update update = new Update()
-                .addToSet("tags", newTag);
+                .addToSet("tags", newTag)
+                .inc("version", 1);
 
         InventoryDomain lb = mongoTemplate.findAndModify(
                 query,
                 update,
                 InventoryDomain.class
         );
+        // the tags of the domain could be changed
+        requestIdentityMap.evict(InventoryDomain.class, id);
         if(lb==null || lb.getTags()==null) {
             Query queryForTagID = new Query(
                     Criteria.where("id").is(id)
@@ -74,4 +80,23 @@ public class InventoryDomainRepositoryImpl implements InventoryDomainRepositoryC
         }
         return newID;
     }
+
+    @Override
+    public void incrementTagUsage(@NotNull String id, @NonNull Map<String, Long> increments) {
+        Update update = new Update();
+        increments.forEach(
+                (tagId, increment) -> {
+                    if (increment != 0) update.inc("tagUsage.%s".formatted(tagId), increment);
+                }
+        );
+        if (update.getUpdateObject().isEmpty()) return;
+        // the counters are part of the domain representation
+        update.inc("version", 1);
+        mongoTemplate.updateFirst(
+                new Query(Criteria.where("id").is(id)),
+                update,
+                InventoryDomain.class
+        );
+        requestIdentityMap.evict(InventoryDomain.class, id);
+    }
 }
@@ -0,0 +1,7 @@
+package edu.stanford.slac.code_inventory_system.repository;
+
+import edu.stanford.slac.code_inventory_system.model.InventoryDomainStatistics;
+import org.springframework.data.mongodb.repository.MongoRepository;
+
+public interface InventoryDomainStatisticsRepository extends MongoRepository<InventoryDomainStatistics, String> {
+}
@@ -0,0 +1,7 @@
+package edu.stanford.slac.code_inventory_system.repository;
+
+import edu.stanford.slac.code_inventory_system.model.InventoryElementCapacity;
+import org.springframework.data.mongodb.repository.MongoRepository;
+
+public interface InventoryElementCapacityRepository extends MongoRepository<InventoryElementCapacity, String>, InventoryElementCapacityRepositoryCustom {
+}
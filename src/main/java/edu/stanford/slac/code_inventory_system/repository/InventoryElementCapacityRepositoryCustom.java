@@ -0,0 +1,16 @@
+package edu.stanford.slac.code_inventory_system.repository;
+
+import edu.stanford.slac.code_inventory_system.model.ConnectorCapacityDelta;
+
+import java.util.List;
+
+public interface InventoryElementCapacityRepositoryCustom {
+    /**
+     * Apply, in a single bulk operation, all the increments to the capacity counters.
+     * The capacity documents that do not exist are created
+     *
+     * @param domainId the domain of the elements
+     * @param deltas   the increments to apply
+     */
+    void applyDeltas(String domainId, List<ConnectorCapacityDelta> deltas);
+}
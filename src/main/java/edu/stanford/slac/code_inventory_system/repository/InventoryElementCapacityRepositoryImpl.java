@@ -0,0 +1,56 @@
+package edu.stanford.slac.code_inventory_system.repository;
+
+import edu.stanford.slac.code_inventory_system.model.ConnectorCapacityDelta;
+import edu.stanford.slac.code_inventory_system.model.InventoryElementCapacity;
+import lombok.AllArgsConstructor;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Repository;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Implementation for the inventory element capacity repository
+ * customization
+ */
+@Repository
+@AllArgsConstructor
+public class InventoryElementCapacityRepositoryImpl implements InventoryElementCapacityRepositoryCustom {
+    MongoTemplate mongoTemplate;
+
+    @Override
+    public void applyDeltas(String domainId, List<ConnectorCapacityDelta> deltas) {
+        // merge all the increments for the same counter because the same field cannot be
+        // used twice in the same update
+        Map<String, Map<String, Long>> incrementsByElement = new LinkedHashMap<>();
+        for (ConnectorCapacityDelta delta : deltas) {
+            var increments = incrementsByElement.computeIfAbsent(delta.getElementId(), k -> new LinkedHashMap<>());
+            String counterPrefix = "%s.%s".formatted(delta.isOwn() ? "own" : "subtree", delta.getConnectorClassId());
+            if (delta.getTotal() != 0) {
+                increments.merge("%s.total".formatted(counterPrefix), delta.getTotal(), Long::sum);
+            }
+            if (delta.getUsed() != 0) {
+                increments.merge("%s.used".formatted(counterPrefix), delta.getUsed(), Long::sum);
+            }
+        }
+        if (incrementsByElement.isEmpty()) return;
+
+        BulkOperations bulkOperations = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, InventoryElementCapacity.class);
+        incrementsByElement.forEach(
+                (elementId, increments) -> {
+                    Update update = new Update().setOnInsert("domainId", domainId);
+                    increments.forEach(update::inc);
+                    bulkOperations.upsert(
+                            new Query(Criteria.where("id").is(elementId)),
+                            update
+                    );
+                }
+        );
+        bulkOperations.execute();
+    }
+}
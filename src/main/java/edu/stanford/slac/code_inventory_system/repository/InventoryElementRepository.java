@@ -5,15 +5,15 @@ import org.springframework.data.mongodb.repository.Aggregation;
 import org.springframework.data.mongodb.repository.MongoRepository;
 
 import java.util.List;
+import java.util.Optional;
 
 public interface InventoryElementRepository extends MongoRepository<InventoryElement, String>, InventoryElementRepositoryCustom {
     /**
-     * Check if a tag is used by any elements of a specific domainId
-     * @param domainId the domain id
-     * @param tagId the tag id to find
-     * @return true if the tag is used
+     * Return only the version, the domain and the class of an element
+     * @param id the element id
+     * @return the version of the element if found
      */
-    boolean existsByDomainIdIsAndTagsContains(String domainId, String tagId);
+    Optional<InventoryElementVersion> findVersionById(String id);
 
     /**
      * return all the children for a specific element id
@@ -48,7 +48,7 @@ public interface InventoryElementRepository extends MongoRepository<InventoryEle
             "{ $unwind: '$pathToRoot' }",
             "{ $project: { 'pathToRoot': 1, '_id': '0' } }",
             "{ $replaceRoot: { newRoot: '$pathToRoot' } }",
-            "{ $project: { 'attributes': 0, 'connectorClasses': 0, maintenanceHistory: 0 } }",
+            "{ $project: { 'attributes': 0, 'connectorClasses': 0 } }",
             "{ $sort: { 'depth': 1 } }" // Sort the results by depth in ascending order
     })
     List<InventoryElement> findPathToRoot(String domainId, String startingElementId);
@@ -60,7 +60,7 @@ public interface InventoryElementRepository extends MongoRepository<InventoryEle
             "{ $unwind: '$pathToLeaf' }",
             "{ $project: { 'pathToLeaf': 1, '_id': '0' } }",
             "{ $replaceRoot: { newRoot: '$pathToLeaf' } }",
-            "{ $project: { 'attributes': 0, 'connectorClasses': 0, maintenanceHistory: 0 } }",
+            "{ $project: { 'attributes': 0, 'connectorClasses': 0 } }",
             "{ $sort: { 'depth': 1, 'name': 1 } }" // Sort the results by depth and name in descending order
     })
     List<InventoryElement> findIdPathToLeaf(String domainId, String startingElementId);
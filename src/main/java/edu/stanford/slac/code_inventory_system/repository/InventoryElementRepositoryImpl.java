@@ -145,6 +145,30 @@ public class InventoryElementRepositoryImpl implements InventoryElementRepositor
         return elementsBeforeAnchor;
     }
 
+    /**
+     * Return the query that apply the search, tags and domain filter of the query parameter
+     * without any pagination, used by the streaming api
+     *
+     * @param queryParameter is the query parameter class
+     * @return return the mongodb query
+     */
+    public static Query getFilterQuery(QueryParameter queryParameter) {
+        Query query = getQuery(queryParameter);
+        if (queryParameter.getTags() != null && !queryParameter.getTags().isEmpty()) {
+            query.addCriteria(
+                    queryParameter.getRequireAllTags() ?
+                            Criteria.where("tags").all(queryParameter.getTags()) :
+                            Criteria.where("tags").in(queryParameter.getTags())
+            );
+        }
+        if (queryParameter.getDomainId() != null && !queryParameter.getDomainId().isEmpty()) {
+            query.addCriteria(
+                    Criteria.where("domainId").in(queryParameter.getDomainId())
+            );
+        }
+        return query;
+    }
+
     /**
      * Get the default query
      *
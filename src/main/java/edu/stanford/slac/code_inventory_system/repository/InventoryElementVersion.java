@@ -0,0 +1,12 @@
+package edu.stanford.slac.code_inventory_system.repository;
+
+/**
+ * Closed projection of the element version, the class id is included because the
+ * class summary is part of the element representation, the domain id to check that
+ * the element belongs to the requested domain
+ */
+public interface InventoryElementVersion extends EntityVersion {
+    String getClassId();
+
+    String getDomainId();
+}
@@ -0,0 +1,18 @@
+package edu.stanford.slac.code_inventory_system.repository;
+
+import edu.stanford.slac.code_inventory_system.model.InventoryMaintenance;
+
+import java.util.List;
+
+public interface InventoryMaintenanceRepositoryCustom {
+    /**
+     * Return a page of the maintenance records of an element, from the most recent one
+     *
+     * @param inventoryDomainId  the domain id
+     * @param inventoryElementId the element id
+     * @param anchorId           the id of the last record of the previous page, can be null
+     * @param limit              the maximum number of record to return
+     * @return the records that are older than the anchor
+     */
+    List<InventoryMaintenance> findPageByElement(String inventoryDomainId, String inventoryElementId, String anchorId, int limit);
+}
@@ -0,0 +1,51 @@
+package edu.stanford.slac.code_inventory_system.repository;
+
+import edu.stanford.slac.ad.eed.baselib.exception.ControllerLogicException;
+import edu.stanford.slac.code_inventory_system.model.InventoryMaintenance;
+import lombok.AllArgsConstructor;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+import static edu.stanford.slac.ad.eed.baselib.exception.Utility.assertion;
+
+@Repository
+@AllArgsConstructor
+public class InventoryMaintenanceRepositoryImpl implements InventoryMaintenanceRepositoryCustom {
+    MongoTemplate mongoTemplate;
+
+    @Override
+    public List<InventoryMaintenance> findPageByElement(String inventoryDomainId, String inventoryElementId, String anchorId, int limit) {
+        Criteria criteria = Criteria
+                .where("inventoryDomainId").is(inventoryDomainId)
+                .and("inventoryElementId").is(inventoryElementId);
+        if (anchorId != null) {
+            InventoryMaintenance anchor = mongoTemplate.findById(anchorId, InventoryMaintenance.class);
+            assertion(
+                    ControllerLogicException
+                            .builder()
+                            .errorCode(-1)
+                            .errorMessage("The anchor record has not been found")
+                            .errorDomain("InventoryMaintenanceRepositoryImpl::findPageByElement")
+                            .build(),
+                    () -> anchor != null
+            );
+            // the records are ordered by timestamp and id so the page continue right after the anchor
+            criteria = criteria.orOperator(
+                    Criteria.where("timestamp").lt(anchor.getTimestamp()),
+                    new Criteria().andOperator(
+                            Criteria.where("timestamp").is(anchor.getTimestamp()),
+                            Criteria.where("id").lt(anchor.getId())
+                    )
+            );
+        }
+        Query query = new Query(criteria)
+                .with(Sort.by(Sort.Direction.DESC, "timestamp", "id"))
+                .limit(limit);
+        return mongoTemplate.find(query, InventoryMaintenance.class);
+    }
+}
@@ -0,0 +1,178 @@
+package edu.stanford.slac.code_inventory_system.repository;
+
+import lombok.AllArgsConstructor;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+import org.springframework.data.mongodb.core.mapping.MongoPersistentEntity;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Unit of work cache shared by services and mappers during a single request.
+ * <p>
+ * Each entity is loaded at most once for each scope, the saved entities replace
+ * the cached copy when their {@link org.springframework.data.annotation.Version version}
+ * is not older than the cached one and the deleted entities are evicted.
+ * When no scope is open, for example in the migration or in the background jobs,
+ * all the calls are forwarded to the loader.
+ * <p>
+ * The cached entities are shared, so they should be only read; the
+ * read-modify-write flows need to load the entity directly from the repository.
+ */
+@Component
+@AllArgsConstructor
+public class RequestIdentityMap {
+    private static final ThreadLocal<Map<EntityKey, Object>> CURRENT_SCOPE = new ThreadLocal<>();
+    private final MongoMappingContext mongoMappingContext;
+
+    /**
+     * Identify an entity of a specific type
+     */
+    private record EntityKey(Class<?> type, String id) {
+    }
+
+    /**
+     * Open a new scope for the current thread
+     *
+     * @return true if the scope has been opened, false if a scope was already open
+     */
+    public boolean open() {
+        if (CURRENT_SCOPE.get() != null) return false;
+        CURRENT_SCOPE.set(new ConcurrentHashMap<>());
+        return true;
+    }
+
+    /**
+     * Close the scope of the current thread discarding all the cached entities
+     */
+    public void close() {
+        CURRENT_SCOPE.remove();
+    }
+
+    /**
+     * Execute the supplier within a scope, if a scope is already open it is reused
+     *
+     * @param supplier the code to execute
+     * @return the result of the supplier
+     */
+    public <T> T runInScope(Supplier<T> supplier) {
+        boolean opened = open();
+        try {
+            return supplier.get();
+        } finally {
+            if (opened) close();
+        }
+    }
+
+    /**
+     * Make the scope of the current thread available to a task executed by another thread
+     *
+     * @param task the task to execute
+     * @return the task that run within the scope of the caller
+     */
+    public <T> Callable<T> propagate(Callable<T> task) {
+        var scope = CURRENT_SCOPE.get();
+        if (scope == null) return task;
+        return () -> {
+            CURRENT_SCOPE.set(scope);
+            try {
+                return task.call();
+            } finally {
+                CURRENT_SCOPE.remove();
+            }
+        };
+    }
+
+    /**
+     * Return the cached entity or load it using the loader
+     *
+     * @param type   the type of the entity
+     * @param id     the id of the entity
+     * @param loader the loader used when the entity is not cached
+     * @return the found entity
+     */
+    public <T> Optional<T> findById(Class<T> type, String id, Supplier<Optional<T>> loader) {
+        var scope = CURRENT_SCOPE.get();
+        if (scope == null || id == null) return loader.get();
+        EntityKey key = new EntityKey(type, id);
+        Object cached = scope.get(key);
+        if (cached != null) return Optional.of(type.cast(cached));
+        Optional<T> loaded = loader.get();
+        loaded.ifPresent(entity -> scope.putIfAbsent(key, entity));
+        return loaded;
+    }
+
+    /**
+     * Check if an entity exists, the cached entities are not reloaded
+     *
+     * @param type   the type of the entity
+     * @param id     the id of the entity
+     * @param loader the check used when the entity is not cached
+     * @return true if the entity exists
+     */
+    public boolean existsById(Class<?> type, String id, Supplier<Boolean> loader) {
+        var scope = CURRENT_SCOPE.get();
+        if (scope != null && id != null && scope.containsKey(new EntityKey(type, id))) return true;
+        return Boolean.TRUE.equals(loader.get());
+    }
+
+    /**
+     * Replace the cached copy of a saved entity, an entity with a version older
+     * than the cached one is ignored
+     *
+     * @param entity the saved entity
+     */
+    public void onSaved(Object entity) {
+        var scope = CURRENT_SCOPE.get();
+        if (scope == null || entity == null) return;
+        var persistentEntity = mongoMappingContext.getPersistentEntity(entity.getClass());
+        if (persistentEntity == null || persistentEntity.getIdProperty() == null) return;
+        Object id = persistentEntity.getIdentifierAccessor(entity).getIdentifier();
+        if (id == null) return;
+        EntityKey key = new EntityKey(entity.getClass(), id.toString());
+        scope.compute(
+                key,
+                (k, cached) -> cached == null || !isOlder(persistentEntity, entity, cached) ? entity : cached
+        );
+    }
+
+    /**
+     * Remove an entity from the cache
+     *
+     * @param type the type of the entity
+     * @param id   the id of the entity
+     */
+    public void evict(Class<?> type, String id) {
+        var scope = CURRENT_SCOPE.get();
+        if (scope == null || id == null) return;
+        scope.remove(new EntityKey(type, id));
+    }
+
+    /**
+     * Remove all the entities of a type from the cache
+     *
+     * @param type the type of the entities
+     */
+    public void evictAll(Class<?> type) {
+        var scope = CURRENT_SCOPE.get();
+        if (scope == null) return;
+        scope.keySet().removeIf(key -> key.type().equals(type));
+    }
+
+    /**
+     * Check if the saved entity has a version older than the cached one
+     */
+    private boolean isOlder(MongoPersistentEntity<?> persistentEntity, Object saved, Object cached) {
+        var versionProperty = persistentEntity.getVersionProperty();
+        if (versionProperty == null) return false;
+        Object savedVersion = persistentEntity.getPropertyAccessor(saved).getProperty(versionProperty);
+        Object cachedVersion = persistentEntity.getPropertyAccessor(cached).getProperty(versionProperty);
+        if (savedVersion == null || cachedVersion == null || Objects.equals(savedVersion, cachedVersion)) return false;
+        return ((Number) savedVersion).longValue() < ((Number) cachedVersion).longValue();
+    }
+}
@@ -0,0 +1,35 @@
+package edu.stanford.slac.code_inventory_system.repository;
+
+import lombok.AllArgsConstructor;
+import org.bson.types.ObjectId;
+import org.springframework.data.mongodb.core.mapping.event.AbstractMongoEventListener;
+import org.springframework.data.mongodb.core.mapping.event.AfterDeleteEvent;
+import org.springframework.data.mongodb.core.mapping.event.AfterSaveEvent;
+import org.springframework.stereotype.Component;
+
+/**
+ * Keep the {@link RequestIdentityMap} aligned with the writes executed through
+ * the repositories and the template
+ */
+@Component
+@AllArgsConstructor
+public class RequestIdentityMapEventListener extends AbstractMongoEventListener<Object> {
+    private final RequestIdentityMap requestIdentityMap;
+
+    @Override
+    public void onAfterSave(AfterSaveEvent<Object> event) {
+        requestIdentityMap.onSaved(event.getSource());
+    }
+
+    @Override
+    public void onAfterDelete(AfterDeleteEvent<Object> event) {
+        if (event.getType() == null) return;
+        Object id = event.getSource().get("_id");
+        if (id instanceof ObjectId || id instanceof String) {
+            requestIdentityMap.evict(event.getType(), id.toString());
+        } else {
+            // the delete has been executed by query so we don't know which entity has been removed
+            requestIdentityMap.evictAll(event.getType());
+        }
+    }
+}
@@ -0,0 +1,13 @@
+package edu.stanford.slac.code_inventory_system.repository.reactive;
+
+import edu.stanford.slac.code_inventory_system.model.InventoryElementAttributeHistory;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
+import reactor.core.publisher.Flux;
+
+/**
+ * Reactive access to the attribute history used by the streaming api
+ */
+public interface ReactiveInventoryElementAttributeHistoryRepository extends ReactiveMongoRepository<InventoryElementAttributeHistory, String> {
+    Flux<InventoryElementAttributeHistory> findAllByInventoryDomainIdIsAndInventoryElementIdIs(String inventoryDomainId, String inventoryElementId, Sort sort);
+}
@@ -0,0 +1,32 @@
+package edu.stanford.slac.code_inventory_system.repository.reactive;
+
+import edu.stanford.slac.code_inventory_system.model.InventoryElement;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.repository.Query;
+import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
+import reactor.core.publisher.Flux;
+
+/**
+ * Reactive access to the inventory elements used by the streaming api
+ */
+public interface ReactiveInventoryElementRepository extends ReactiveMongoRepository<InventoryElement, String> {
+    /**
+     * Stream all the elements of a domain
+     *
+     * @param domainId the domain id
+     * @param sort     the order of the elements
+     * @return the elements of the domain
+     */
+    Flux<InventoryElement> findAllByDomainIdIs(String domainId, Sort sort);
+
+    /**
+     * Stream all the elements that have a full tree path matching the regex
+     *
+     * @param domainId         the domain id
+     * @param fullTreePathRegex the regex that the full tree path should match
+     * @param sort             the order of the elements
+     * @return the elements found
+     */
+    @Query("{ 'domainId': ?0, 'fullTreePath': { $regex: ?1 } }")
+    Flux<InventoryElement> findAllByDomainIdAndFullTreePathMatches(String domainId, String fullTreePathRegex, Sort sort);
+}
@@ -0,0 +1,171 @@
+package edu.stanford.slac.code_inventory_system.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import edu.stanford.slac.ad.eed.baselib.exception.ControllerLogicException;
+import edu.stanford.slac.code_inventory_system.model.IdempotencyKey;
+import lombok.AllArgsConstructor;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.HexFormat;
+import java.util.Objects;
+import java.util.function.Supplier;
+
+import static edu.stanford.slac.ad.eed.baselib.exception.Utility.assertion;
+import static edu.stanford.slac.code_inventory_system.exception.Utility.wrapCatch;
+
+/**
+ * Execute the create requests at most once for each idempotency key.
+ * <p>
+ * The key is reserved inserting a document with the key as id, so only one of the concurrent
+ * requests with the same key is executed. When the request ends the result is saved on the
+ * document, and the retries get it back without running the validation or the writes again.
+ * A failed request releases the key so it can be retried. The documents are removed by a
+ * TTL index after {@link edu.stanford.slac.code_inventory_system.migration.IdempotencyKeyIndex#IDEMPOTENCY_KEY_RETENTION}.
+ */
+@Log4j2
+@Service
+@AllArgsConstructor
+public class IdempotencyKeyService {
+    /**
+     * The maximum length of a key sent by the client
+     */
+    static final int MAX_KEY_LENGTH = 255;
+    /**
+     * A key reserved for more than this period by a request that never completed, for example
+     * because the instance has been stopped, can be taken by a retry
+     */
+    static final Duration PENDING_TIMEOUT = Duration.ofMinutes(5);
+    MongoTemplate mongoTemplate;
+    ObjectMapper objectMapper;
+
+    /**
+     * Execute the operation once for the key, or return the result of the previous execution
+     *
+     * @param owner          the user that send the request, the keys of different users never collide
+     * @param scope          the operation, for example the method and the path of the request
+     * @param idempotencyKey the key sent by the client, when null the operation is always executed
+     * @param request        the body of the request, the same key cannot be used for a different body
+     * @param operation      the operation to execute
+     * @return the result of the operation
+     */
+    public String execute(String owner, String scope, String idempotencyKey, Object request, Supplier<String> operation) {
+        if (idempotencyKey == null || idempotencyKey.isBlank()) return operation.get();
+        assertion(
+                ControllerLogicException.builder()
+                        .errorCode(-1)
+                        .errorMessage("The idempotency key should not be longer than %d characters".formatted(MAX_KEY_LENGTH))
+                        .errorDomain("IdempotencyKeyService::execute")
+                        .build(),
+                () -> idempotencyKey.length() <= MAX_KEY_LENGTH
+        );
+        String id = "%s:%s:%s".formatted(owner, scope, idempotencyKey);
+        String requestHash = hash(request);
+        // the dates are truncated to the precision stored by mongodb so they can be compared
+        LocalDateTime now = LocalDateTime.now().truncatedTo(ChronoUnit.MILLIS);
+        try {
+            mongoTemplate.insert(
+                    IdempotencyKey.builder()
+                            .id(id)
+                            .requestHash(requestHash)
+                            .createdDate(now)
+                            .build()
+            );
+        } catch (DuplicateKeyException e) {
+            IdempotencyKey found = wrapCatch(
+                    () -> mongoTemplate.findById(id, IdempotencyKey.class),
+                    -2
+            );
+            if (found != null) {
+                return replay(found, requestHash, now, operation);
+            }
+            // the key expired in the meantime
+            return execute(owner, scope, idempotencyKey, request, operation);
+        }
+        return executeReserved(id, operation);
+    }
+
+    /**
+     * Return the result of the previous request with the same key
+     */
+    private String replay(IdempotencyKey found, String requestHash, LocalDateTime now, Supplier<String> operation) {
+        assertion(
+                ControllerLogicException.builder()
+                        .errorCode(-3)
+                        .errorMessage("The idempotency key has already been used for a different request")
+                        .errorDomain("IdempotencyKeyService::execute")
+                        .build(),
+                () -> Objects.equals(found.getRequestHash(), requestHash)
+        );
+        if (found.isCompleted()) {
+            log.debug("Request with idempotency key '{}' replayed", found.getId());
+            return found.getResult();
+        }
+        // take the key of a request that never completed, only one retry can succeed
+        boolean taken = found.getCreatedDate().isBefore(now.minus(PENDING_TIMEOUT)) && wrapCatch(
+                () -> mongoTemplate.updateFirst(
+                        new Query(
+                                Criteria.where("id").is(found.getId())
+                                        .and("completed").is(false)
+                                        .and("createdDate").is(found.getCreatedDate())
+                        ),
+                        new Update().set("createdDate", now),
+                        IdempotencyKey.class
+                ).getModifiedCount() == 1,
+                -4
+        );
+        assertion(
+                ControllerLogicException.builder()
+                        .errorCode(-5)
+                        .errorMessage("A request with the same idempotency key is still in progress")
+                        .errorDomain("IdempotencyKeyService::execute")
+                        .build(),
+                () -> taken
+        );
+        return executeReserved(found.getId(), operation);
+    }
+
+    /**
+     * Execute the operation for a reserved key and save the result, the key is released
+     * when the operation fails
+     */
+    private String executeReserved(String id, Supplier<String> operation) {
+        String result;
+        try {
+            result = operation.get();
+        } catch (RuntimeException e) {
+            mongoTemplate.remove(new Query(Criteria.where("id").is(id)), IdempotencyKey.class);
+            throw e;
+        }
+        wrapCatch(
+                () -> mongoTemplate.updateFirst(
+                        new Query(Criteria.where("id").is(id)),
+                        new Update().set("result", result).set("completed", true),
+                        IdempotencyKey.class
+                ),
+                -6
+        );
+        return result;
+    }
+
+    /**
+     * Compute the hash of the json representation of the request
+     */
+    private String hash(Object request) {
+        return wrapCatch(
+                () -> HexFormat.of().formatHex(
+                        MessageDigest.getInstance("SHA-256").digest(objectMapper.writeValueAsBytes(request))
+                ),
+                -7
+        );
+    }
+}
@@ -0,0 +1,174 @@
+package edu.stanford.slac.code_inventory_system.service;
+
+import com.mongodb.client.model.changestream.ChangeStreamDocument;
+import com.mongodb.client.model.changestream.FullDocument;
+import com.mongodb.client.model.changestream.FullDocumentBeforeChange;
+import com.mongodb.client.model.changestream.UpdateDescription;
+import edu.stanford.slac.code_inventory_system.api.v1.dto.InventoryChangeEntityTypeDTO;
+import edu.stanford.slac.code_inventory_system.api.v1.dto.InventoryChangeEventDTO;
+import edu.stanford.slac.code_inventory_system.api.v1.dto.InventoryChangeOperationDTO;
+import edu.stanford.slac.code_inventory_system.model.InventoryClass;
+import edu.stanford.slac.code_inventory_system.model.InventoryDomain;
+import edu.stanford.slac.code_inventory_system.model.InventoryElement;
+import lombok.AllArgsConstructor;
+import lombok.extern.log4j.Log4j2;
+import org.bson.BsonDocument;
+import org.bson.BsonString;
+import org.bson.BsonValue;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.springframework.data.mongodb.core.ChangeStreamEvent;
+import org.springframework.data.mongodb.core.ChangeStreamOptions;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Feed of the changes of a domain driven by the mongodb change stream.
+ * <p>
+ * A single change stream is opened on the database for each subscriber, filtered by the
+ * server on the elements and the domain of the requested domain and on all the classes.
+ * Every change carries the resume token of the stream so a client that lost the
+ * connection can restart from the last change received. The deleted elements are matched
+ * to their domain using the pre-image, enabled on the element collection by the migration.
+ */
+@Log4j2
+@Service
+@AllArgsConstructor
+public class InventoryChangeFeedService {
+    ReactiveMongoTemplate reactiveMongoTemplate;
+    InventoryElementStreamService inventoryElementStreamService;
+
+    /**
+     * A change with the token to use for resume the feed after it
+     *
+     * @param resumeToken the resume token of the change
+     * @param event       the change
+     */
+    public record Change(String resumeToken, InventoryChangeEventDTO event) {
+    }
+
+    /**
+     * Watch the changes of a domain, of his elements and of the classes
+     *
+     * @param domainId    the domain to watch
+     * @param resumeToken the token of the last change received, if present the feed restart after it
+     * @return the changes, the flux terminates only if the stream is invalidated or on error
+     */
+    public Flux<Change> watchDomain(String domainId, Optional<String> resumeToken) {
+        String elementCollection = reactiveMongoTemplate.getCollectionName(InventoryElement.class);
+        String domainCollection = reactiveMongoTemplate.getCollectionName(InventoryDomain.class);
+        String classCollection = reactiveMongoTemplate.getCollectionName(InventoryClass.class);
+        // the filter is given as raw document because the typed filter would prefix the pre-image field
+        Document match = new Document(
+                "$match",
+                new Document(
+                        "$or",
+                        List.of(
+                                new Document("ns.coll", elementCollection)
+                                        .append(
+                                                "$or",
+                                                List.of(
+                                                        new Document("fullDocument.domainId", domainId),
+                                                        new Document("fullDocumentBeforeChange.domainId", domainId)
+                                                )
+                                        ),
+                                new Document("ns.coll", domainCollection)
+                                        .append("documentKey._id", ObjectId.isValid(domainId) ? new ObjectId(domainId) : domainId),
+                                new Document("ns.coll", classCollection)
+                        )
+                )
+        );
+        var options = ChangeStreamOptions.builder()
+                .filter(match)
+                .fullDocumentLookup(FullDocument.UPDATE_LOOKUP)
+                .fullDocumentBeforeChangeLookup(FullDocumentBeforeChange.WHEN_AVAILABLE);
+        resumeToken.ifPresent(token -> options.resumeAfter(new BsonDocument("_data", new BsonString(token))));
+        return reactiveMongoTemplate
+                .changeStream(null, options.build(), Document.class)
+                .concatMap(
+                        event -> toChange(event, domainId, elementCollection, domainCollection)
+                );
+    }
+
+    /**
+     * Convert the change stream event, the events that are not a create, update or delete are skipped
+     */
+    private Mono<Change> toChange(
+            ChangeStreamEvent<Document> event,
+            String domainId,
+            String elementCollection,
+            String domainCollection
+    ) {
+        ChangeStreamDocument<Document> raw = event.getRaw();
+        if (raw == null || raw.getOperationType() == null || raw.getNamespace() == null) return Mono.empty();
+        InventoryChangeOperationDTO operation = switch (raw.getOperationType()) {
+            case INSERT -> InventoryChangeOperationDTO.Create;
+            case UPDATE, REPLACE -> InventoryChangeOperationDTO.Update;
+            case DELETE -> InventoryChangeOperationDTO.Delete;
+            default -> null;
+        };
+        if (operation == null) {
+            log.debug("Skip change stream event of type {}", raw.getOperationType());
+            return Mono.empty();
+        }
+        String collection = raw.getNamespace().getCollectionName();
+        InventoryChangeEntityTypeDTO entityType = collection.equals(elementCollection) ?
+                InventoryChangeEntityTypeDTO.Element :
+                collection.equals(domainCollection) ? InventoryChangeEntityTypeDTO.Domain : InventoryChangeEntityTypeDTO.Class;
+        Document fullDocument = raw.getFullDocument();
+        var changeEvent = InventoryChangeEventDTO.builder()
+                .entityType(entityType)
+                .operation(operation)
+                .id(toId(raw.getDocumentKey() != null ? raw.getDocumentKey().get("_id") : null))
+                .domainId(entityType == InventoryChangeEntityTypeDTO.Class ? null : domainId)
+                .version(versionOf(fullDocument))
+                .updatedFields(updatedFields(raw.getUpdateDescription()))
+                .build();
+        String token = toResumeToken(event.getResumeToken());
+        if (entityType != InventoryChangeEntityTypeDTO.Element || fullDocument == null) {
+            return Mono.just(new Change(token, changeEvent));
+        }
+        // the element is sent with the change so the client doesn't need to read it
+        InventoryElement element = reactiveMongoTemplate.getConverter().read(InventoryElement.class, fullDocument);
+        return inventoryElementStreamService.toSummaryDTO(element)
+                .map(summary -> new Change(token, changeEvent.toBuilder().element(summary).build()))
+                .defaultIfEmpty(new Change(token, changeEvent));
+    }
+
+    /**
+     * Return the name of the updated and removed fields, null if the document has been replaced
+     */
+    private static List<String> updatedFields(UpdateDescription updateDescription) {
+        if (updateDescription == null) return null;
+        List<String> fields = new ArrayList<>();
+        if (updateDescription.getUpdatedFields() != null) fields.addAll(updateDescription.getUpdatedFields().keySet());
+        if (updateDescription.getRemovedFields() != null) fields.addAll(updateDescription.getRemovedFields());
+        return fields;
+    }
+
+    private static Long versionOf(Document fullDocument) {
+        if (fullDocument == null) return null;
+        Number version = fullDocument.get("version", Number.class);
+        return version != null ? version.longValue() : null;
+    }
+
+    private static String toId(BsonValue id) {
+        if (id == null) return null;
+        if (id.isObjectId()) return id.asObjectId().getValue().toHexString();
+        if (id.isString()) return id.asString().getValue();
+        return id.toString();
+    }
+
+    private static String toResumeToken(BsonValue resumeToken) {
+        if (resumeToken instanceof BsonDocument token && token.isString("_data")) {
+            return token.getString("_data").getValue();
+        }
+        return null;
+    }
+}
@@ -0,0 +1,223 @@
+package edu.stanford.slac.code_inventory_system.service;
+
+import edu.stanford.slac.code_inventory_system.api.v1.dto.InventoryClassAttributeDTO;
+import edu.stanford.slac.code_inventory_system.api.v1.mapper.InventoryElementMapper;
+import edu.stanford.slac.code_inventory_system.model.*;
+import edu.stanford.slac.code_inventory_system.model.value.AbstractValue;
+import edu.stanford.slac.code_inventory_system.repository.RequestIdentityMap;
+import edu.stanford.slac.code_inventory_system.service.utility.InventoryJobContext;
+import edu.stanford.slac.code_inventory_system.service.utility.InventoryJobHandler;
+import lombok.AllArgsConstructor;
+import lombok.extern.log4j.Log4j2;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.*;
+
+/**
+ * Revalidate the elements of a class after his attributes have been changed.
+ * <p>
+ * The elements of the class and of his subclasses are read in pages ordered by id, the id
+ * of the last element of each page is the checkpoint of the job. The values of the renamed
+ * attributes are renamed, the values with the old type are converted to the new one when
+ * their string representation is valid for it. Each element is updated only if it has not been
+ * changed meanwhile, the replaced values of the updated elements are saved in the attribute
+ * history and counted in the job. The values that cannot be converted, the values of removed attributes and the
+ * missing mandatory attributes are left untouched and reported in the job.
+ */
+@Log4j2
+@Service
+@AllArgsConstructor
+public class InventoryClassRevalidationService implements InventoryJobHandler {
+    /**
+     * The maximum number of elements revalidated by a single batch
+     */
+    static final int BATCH_SIZE = 500;
+    MongoTemplate mongoTemplate;
+    RequestIdentityMap requestIdentityMap;
+    InventoryClassService inventoryClassService;
+    InventoryElementMapper inventoryElementMapper;
+
+    @Override
+    public Set<InventoryJobType> handledTypes() {
+        return EnumSet.of(InventoryJobType.RevalidateClass);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public void execute(InventoryJob job, InventoryJobContext context) {
+        String classId = (String) job.getParameters().get("classId");
+        Map<String, String> renamedAttributes = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+        renamedAttributes.putAll((Map<String, String>) job.getParameters().getOrDefault("renamedAttributes", Collections.emptyMap()));
+        // the attributes of each class are resolved with the inheritance only once
+        Map<String, List<InventoryClassAttributeDTO>> attributesByClass = new HashMap<>();
+        for (String id : inventoryClassService.findAllSubclassIds(classId)) {
+            attributesByClass.put(id, Objects.requireNonNullElse(inventoryClassService.findById(id, true).attributes(), Collections.emptyList()));
+        }
+
+        String lastId = job.getCheckpoint();
+        List<InventoryElement> page;
+        do {
+            Criteria criteria = Criteria.where("classId").in(attributesByClass.keySet());
+            if (lastId != null) {
+                criteria = criteria.and("id").gt(new ObjectId(lastId));
+            }
+            Query pageQuery = new Query(criteria)
+                    .with(Sort.by(Sort.Direction.ASC, "id"))
+                    .limit(BATCH_SIZE);
+            pageQuery.fields().include("id", "domainId", "classId", "attributes", "version");
+            page = mongoTemplate.find(pageQuery, InventoryElement.class);
+            if (page.isEmpty()) break;
+            lastId = page.get(page.size() - 1).getId();
+
+            Report report = new Report();
+            List<InventoryElementAttributeHistory> history = new ArrayList<>();
+            for (InventoryElement element : page) {
+                Report elementReport = new Report();
+                List<InventoryElementAttributeHistory> elementHistory = new ArrayList<>();
+                List<AbstractValue> attributes = revalidate(element, attributesByClass.get(element.getClassId()), renamedAttributes, elementHistory, elementReport);
+                if (attributes != null) {
+                    // an element updated meanwhile has been already validated against the new attributes
+                    var result = mongoTemplate.updateFirst(
+                            new Query(Criteria.where("id").is(element.getId()).and("version").is(element.getVersion())),
+                            new Update()
+                                    .set("attributes", attributes.stream().map(this::toDocument).toList())
+                                    .set("lastModifiedDate", LocalDateTime.now())
+                                    .set("lastModifiedBy", job.getCreatedBy())
+                                    .inc("version", 1),
+                            InventoryElement.class
+                    );
+                    requestIdentityMap.evict(InventoryElement.class, element.getId());
+                    if (result.getMatchedCount() == 0) {
+                        report.count("skipped", 1);
+                        continue;
+                    }
+                    history.addAll(elementHistory);
+                }
+                report.merge(elementReport);
+            }
+            // only the replaced values of the updated elements are archived
+            if (!history.isEmpty()) {
+                mongoTemplate.insert(history, InventoryElementAttributeHistory.class);
+            }
+            context.checkpoint(lastId, page.size(), report.counters, report.issues);
+        } while (page.size() == BATCH_SIZE);
+        log.info("Revalidated the elements of the class '{}' and of his subclasses", classId);
+    }
+
+    /**
+     * Check the values of an element against the attributes of his class
+     *
+     * @return the new values of the element, or null if they are not changed
+     */
+    private List<AbstractValue> revalidate(
+            InventoryElement element,
+            List<InventoryClassAttributeDTO> classAttributes,
+            Map<String, String> renamedAttributes,
+            List<InventoryElementAttributeHistory> history,
+            Report report) {
+        boolean changed = false;
+        List<AbstractValue> attributes = new ArrayList<>();
+        for (AbstractValue value : Objects.requireNonNullElse(element.getAttributes(), Collections.<AbstractValue>emptyList())) {
+            AbstractValue newValue = value;
+            String newName = value.getName() == null ? null : renamedAttributes.get(value.getName());
+            if (newName != null) {
+                Document renamed = toDocument(value);
+                renamed.put("name", newName);
+                newValue = mongoTemplate.getConverter().read(AbstractValue.class, renamed);
+                report.count("renamed", 1);
+            }
+            String name = newValue.getName();
+            var classAttribute = classAttributes.stream()
+                    .filter(a -> a.name() != null && a.name().equalsIgnoreCase(name))
+                    .findFirst();
+            if (classAttribute.isEmpty()) {
+                report.issue(element, name, "the attribute is not defined by the class");
+                report.count("notInClass", 1);
+            } else {
+                InventoryClassAttributeType type = InventoryClassAttributeType.fromName(classAttribute.get().type().name());
+                if (!type.toClassType().equals(newValue.getClass())) {
+                    String stringValue = toStringValue(newValue);
+                    try {
+                        // the boolean conversion is permissive, only true and false are accepted
+                        if (type == InventoryClassAttributeType.Boolean && !"true".equalsIgnoreCase(stringValue) && !"false".equalsIgnoreCase(stringValue)) {
+                            throw new IllegalArgumentException("not a boolean");
+                        }
+                        newValue = inventoryElementMapper.toAttributeValue(name, stringValue, type);
+                        report.count("converted", 1);
+                    } catch (Exception e) {
+                        report.issue(element, name, "the value '%s' cannot be converted to %s".formatted(stringValue, type));
+                        report.count("invalid", 1);
+                    }
+                }
+            }
+            if (newValue != value) {
+                // the replaced value is archived
+                history.add(
+                        InventoryElementAttributeHistory.builder()
+                                .inventoryDomainId(element.getDomainId())
+                                .inventoryElementId(element.getId())
+                                .value(value)
+                                .build()
+                );
+                changed = true;
+            }
+            attributes.add(newValue);
+        }
+        classAttributes.stream()
+                .filter(a -> Boolean.TRUE.equals(a.mandatory()))
+                .filter(a -> attributes.stream().noneMatch(v -> a.name().equalsIgnoreCase(v.getName())))
+                .forEach(a -> {
+                    report.issue(element, a.name(), "the mandatory attribute is missing");
+                    report.count("missingMandatory", 1);
+                });
+        return changed ? attributes : null;
+    }
+
+    /**
+     * Return the string representation of a value, as returned to the client
+     */
+    private String toStringValue(AbstractValue value) {
+        // a value without content has no representation
+        if (toDocument(value).get("value") == null) return null;
+        return inventoryElementMapper.toElementAttributeWithString(List.of(value)).get(0).value();
+    }
+
+    /**
+     * Convert a value as it is saved into the element, with the type information
+     */
+    private Document toDocument(AbstractValue value) {
+        Document document = new Document();
+        mongoTemplate.getConverter().write(value, document);
+        return document;
+    }
+
+    /**
+     * The counters and the issues found in a page of elements
+     */
+    private static class Report {
+        private final Map<String, Long> counters = new HashMap<>();
+        private final List<String> issues = new ArrayList<>();
+
+        private void count(String name, long increment) {
+            if (increment == 0) return;
+            counters.merge(name, increment, Long::sum);
+        }
+
+        private void merge(Report other) {
+            other.counters.forEach(this::count);
+            issues.addAll(other.issues);
+        }
+
+        private void issue(InventoryElement element, String attributeName, String description) {
+            issues.add("element '%s' attribute '%s': %s".formatted(element.getId(), attributeName, description));
+        }
+    }
+}
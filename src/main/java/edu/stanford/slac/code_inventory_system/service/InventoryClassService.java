@@ -2,16 +2,27 @@ package edu.stanford.slac.code_inventory_system.service;
 
 import edu.stanford.slac.code_inventory_system.api.v1.dto.*;
 import edu.stanford.slac.code_inventory_system.api.v1.mapper.InventoryClassMapper;
+import edu.stanford.slac.code_inventory_system.config.SecurityAuditorAware;
 import edu.stanford.slac.code_inventory_system.exception.InventoryClassNotFound;
 import edu.stanford.slac.code_inventory_system.model.InventoryClass;
 import edu.stanford.slac.code_inventory_system.model.InventoryClassAttribute;
+import edu.stanford.slac.code_inventory_system.model.InventoryElement;
+import edu.stanford.slac.code_inventory_system.model.InventoryJob;
+import edu.stanford.slac.code_inventory_system.model.InventoryJobType;
 import edu.stanford.slac.code_inventory_system.repository.InventoryClassRepository;
+import edu.stanford.slac.code_inventory_system.repository.RequestIdentityMap;
+import edu.stanford.slac.code_inventory_system.service.utility.ServiceOperation;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.NonNull;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
 import org.springframework.stereotype.Service;
 
 import java.util.*;
+import java.util.stream.Collectors;
 
 import static edu.stanford.slac.code_inventory_system.exception.Utility.wrapCatch;
 
@@ -19,11 +30,16 @@ import static edu.stanford.slac.code_inventory_system.exception.Utility.wrapCatc
 /**
  * Defines high level api for the management of the inventory classes
  */
+@Log4j2
 @Service
 @AllArgsConstructor
 public class InventoryClassService {
+    MongoTemplate mongoTemplate;
+    SecurityAuditorAware securityAuditorAware;
     InventoryClassMapper inventoryClassMapper;
     InventoryClassRepository inventoryClassRepository;
+    InventoryJobService inventoryJobService;
+    RequestIdentityMap requestIdentityMap;
 
     /**
      * Create a new inventory class
@@ -31,6 +47,7 @@ public class InventoryClassService {
      * @param newInventoryClassDTO the new inventory class to create
      * @return the newly create class id
      */
+    @ServiceOperation("class.create")
     public String createNew(NewInventoryClassDTO newInventoryClassDTO) {
         var newInventoryClass = wrapCatch(
                 () -> inventoryClassRepository.save(
@@ -44,8 +61,11 @@ public class InventoryClassService {
     }
 
     /**
-     * Update existing inventory class
+     * Update existing inventory class.
+     * When an attribute changes type, is renamed, removed or becomes mandatory the elements
+     * of the class, and of his subclasses, are revalidated in background
      */
+    @ServiceOperation("class.update")
     public boolean update(String id, UpdateInventoryClassDTO updateInventoryClassDTO) {
         InventoryClass icToUpdate = wrapCatch(
                 () -> inventoryClassRepository.findById(id),
@@ -57,6 +77,9 @@ public class InventoryClassService {
                         .id(id)
                         .build()
         );
+        // the mapper update the lists in place
+        List<InventoryClassAttribute> previousAttributes = new ArrayList<>(Objects.requireNonNullElse(icToUpdate.getAttributes(), Collections.emptyList()));
+        Set<String> previousExtendsClass = new HashSet<>(Objects.requireNonNullElse(icToUpdate.getExtendsClass(), Collections.emptyList()));
         inventoryClassMapper.updateModel(icToUpdate, updateInventoryClassDTO)
         ;
         var updatedInventoryClass = wrapCatch(
@@ -67,9 +90,100 @@ public class InventoryClassService {
                 -1,
                 "InventoryClassService::createNew"
         );
+        Map<String, String> renamedAttributes = Objects.requireNonNullElse(updateInventoryClassDTO.renamedAttributes(), Collections.emptyMap());
+        if (
+                !previousExtendsClass.equals(new HashSet<>(Objects.requireNonNullElse(updatedInventoryClass.getExtendsClass(), Collections.emptyList()))) ||
+                        attributesChanged(previousAttributes, updatedInventoryClass.getAttributes(), renamedAttributes)
+        ) {
+            revalidateElements(id, renamedAttributes, securityAuditorAware.getCurrentAuditor().orElse(null));
+        }
         return updatedInventoryClass != null;
     }
 
+    /**
+     * Start the revalidation of all the elements of the class and of his subclasses against
+     * their current attributes. The values that can be converted to the new type are converted,
+     * the others are reported by the job
+     *
+     * @param classId           the id of the class
+     * @param renamedAttributes the renamed attributes, from the old name to the new one
+     * @param requestedBy       the user that start the revalidation
+     * @return the id of the job
+     * @throws InventoryClassNotFound if the inventory class will not be found
+     */
+    @ServiceOperation("class.revalidate")
+    public String revalidateElements(String classId, Map<String, String> renamedAttributes, String requestedBy) {
+        if (!wrapCatch(() -> inventoryClassRepository.existsById(classId), -1)) {
+            throw InventoryClassNotFound.classNotFoundById()
+                    .errorCode(-2)
+                    .id(classId)
+                    .build();
+        }
+        List<String> classIds = findAllSubclassIds(classId);
+        long total = wrapCatch(
+                () -> mongoTemplate.count(new Query(Criteria.where("classId").in(classIds)), InventoryElement.class),
+                -3
+        );
+        Map<String, Object> parameters = new HashMap<>();
+        parameters.put("classId", classId);
+        parameters.put("renamedAttributes", new HashMap<>(Objects.requireNonNullElse(renamedAttributes, Collections.emptyMap())));
+        String jobId = inventoryJobService.submit(
+                InventoryJob.builder()
+                        .type(InventoryJobType.RevalidateClass)
+                        .parameters(parameters)
+                        .total(total)
+                        .createdBy(requestedBy)
+                        .build()
+        );
+        log.info("Revalidation of the {} elements of the class '{}' started with the job '{}'", total, classId, jobId);
+        return jobId;
+    }
+
+    /**
+     * Return the id of the class and of all the classes that extend it, directly or not
+     *
+     * @param classId the id of the class
+     * @return the ids of the class and of his subclasses
+     */
+    public List<String> findAllSubclassIds(String classId) {
+        Set<String> found = new LinkedHashSet<>(List.of(classId));
+        Set<String> frontier = Set.of(classId);
+        while (!frontier.isEmpty()) {
+            Set<String> toVisit = frontier;
+            frontier = wrapCatch(
+                    () -> inventoryClassRepository.findAllByExtendsClassIn(toVisit),
+                    -1
+            )
+                    .stream()
+                    .map(InventoryClass::getId)
+                    // a class already found is not visited again
+                    .filter(found::add)
+                    .collect(Collectors.toSet());
+        }
+        return new ArrayList<>(found);
+    }
+
+    /**
+     * Check if the elements that was valid with the previous attributes can be not valid anymore
+     */
+    private static boolean attributesChanged(List<InventoryClassAttribute> previousAttributes, List<InventoryClassAttribute> attributes, Map<String, String> renamedAttributes) {
+        List<InventoryClassAttribute> newAttributes = Objects.requireNonNullElse(attributes, Collections.emptyList());
+        if (!renamedAttributes.isEmpty()) return true;
+        for (InventoryClassAttribute previous : previousAttributes) {
+            var updated = newAttributes.stream()
+                    .filter(a -> a.getName().equalsIgnoreCase(previous.getName()))
+                    .findFirst();
+            // removed or with a different type
+            if (updated.isEmpty() || updated.get().getType() != previous.getType()) return true;
+            // became mandatory
+            if (Boolean.TRUE.equals(updated.get().getMandatory()) && !Boolean.TRUE.equals(previous.getMandatory())) return true;
+        }
+        // new mandatory attribute
+        return newAttributes.stream()
+                .filter(a -> Boolean.TRUE.equals(a.getMandatory()))
+                .anyMatch(a -> previousAttributes.stream().noneMatch(p -> p.getName().equalsIgnoreCase(a.getName())));
+    }
+
     /**
      * Return the inventory class dto using the id
      *
@@ -78,10 +192,13 @@ public class InventoryClassService {
      * @throws edu.stanford.slac.ad.eed.baselib.exception.ControllerLogicException in case of error on database
      * @throws InventoryClassNotFound                                              if the inventory class will not be found
      */
+    @ServiceOperation("class.get")
     public InventoryClassDTO findById(String id, boolean resolveInheritance) {
         var inventoryClass = wrapCatch(
-                () -> inventoryClassRepository.findById(
-                        id
+                () -> requestIdentityMap.findById(
+                        InventoryClass.class,
+                        id,
+                        () -> inventoryClassRepository.findById(id)
                 ),
                 -1,
                 "InventoryClassService::findById"
@@ -101,25 +218,56 @@ public class InventoryClassService {
             inheritedClassField.permittedChildClass.addAll(inventoryClass.getPermittedChildClass());
             inheritedClassField.attributes.addAll(inventoryClass.getAttributes());
 
-            // override all found into the original class
-            inventoryClass.setExtendsClass(inheritedClassField.extendsClass.stream().toList());
-            inventoryClass.setPermittedChildClass(inheritedClassField.permittedChildClass.stream().toList());
-            inventoryClass.setAttributes(inheritedClassField.attributes.stream().toList());
+            // override all found into a copy of the original class, the found one can be shared
+            return inventoryClassMapper.toDTO(
+                    inventoryClass.toBuilder()
+                            .extendsClass(inheritedClassField.extendsClass.stream().toList())
+                            .permittedChildClass(inheritedClassField.permittedChildClass.stream().toList())
+                            .attributes(inheritedClassField.attributes.stream().toList())
+                            .build()
+            );
         }
         return inventoryClassMapper.toDTO(inventoryClass);
 
     }
 
+    /**
+     * Return the entity tag of the inventory class, computed from the version only
+     * without loading the full class. The inherited fields are not considered
+     *
+     * @param id the unique identifier of the inventory class
+     * @return the entity tag of the class
+     * @throws InventoryClassNotFound if the inventory class will not be found
+     */
+    @ServiceOperation("class.etag")
+    public String getETag(String id) {
+        var classVersion = wrapCatch(
+                () -> inventoryClassRepository.findVersionById(id),
+                -1,
+                "InventoryClassService::getETag"
+        ).orElseThrow(
+                () -> InventoryClassNotFound
+                        .classNotFoundById()
+                        .errorCode(-2)
+                        .id(id)
+                        .build()
+        );
+        return "c%d".formatted(classVersion.versionOrZero());
+    }
+
     /**
      * Checks if an inventory class exists by its ID.
      *
      * @param classId the ID of the inventory class
      * @return {@code true} if the inventory class exists, {@code false} otherwise
      */
+    @ServiceOperation("class.exists")
     public Boolean existsById(String classId) {
         return wrapCatch(
-                () -> inventoryClassRepository.existsById(
-                        classId
+                () -> requestIdentityMap.existsById(
+                        InventoryClass.class,
+                        classId,
+                        () -> inventoryClassRepository.existsById(classId)
                 ),
                 -1
         );
@@ -150,8 +298,10 @@ public class InventoryClassService {
         if (subclassIds.isEmpty()) return;
         for (String classId : subclassIds) {
             var inventoryClass = wrapCatch(
-                    () -> inventoryClassRepository.findById(
-                            classId
+                    () -> requestIdentityMap.findById(
+                            InventoryClass.class,
+                            classId,
+                            () -> inventoryClassRepository.findById(classId)
                     ),
                     -1
             ).orElseThrow(
@@ -178,6 +328,7 @@ public class InventoryClassService {
      *
      * @return a list of all the class
      */
+    @ServiceOperation("class.find-all")
     public List<InventoryClassSummaryDTO> findAll(Optional<String> search) {
         var allClass = wrapCatch(
                 () -> search.isPresent()? inventoryClassRepository.findAllByNameContainsIgnoreCase(search.get()):inventoryClassRepository.findAll(),
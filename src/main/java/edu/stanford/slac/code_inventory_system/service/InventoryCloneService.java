@@ -0,0 +1,228 @@
+package edu.stanford.slac.code_inventory_system.service;
+
+import edu.stanford.slac.ad.eed.baselib.exception.ControllerLogicException;
+import edu.stanford.slac.code_inventory_system.api.v1.dto.CloneInventoryElementDTO;
+import edu.stanford.slac.code_inventory_system.api.v1.dto.InventoryClassDTO;
+import edu.stanford.slac.code_inventory_system.exception.InventoryElementNotFound;
+import edu.stanford.slac.code_inventory_system.model.InventoryElement;
+import edu.stanford.slac.code_inventory_system.repository.InventoryDomainRepository;
+import edu.stanford.slac.code_inventory_system.service.utility.ServiceOperation;
+import lombok.AllArgsConstructor;
+import lombok.extern.log4j.Log4j2;
+import org.bson.types.ObjectId;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+import java.util.stream.Collectors;
+
+import static edu.stanford.slac.ad.eed.baselib.exception.Utility.any;
+import static edu.stanford.slac.ad.eed.baselib.exception.Utility.assertion;
+import static edu.stanford.slac.ad.eed.baselib.utility.StringUtilities.normalizeStringWithReplace;
+import static edu.stanford.slac.code_inventory_system.exception.Utility.wrapCatch;
+import static edu.stanford.slac.code_inventory_system.service.utility.TreePathUtil.ancestorIds;
+import static edu.stanford.slac.code_inventory_system.service.utility.TreePathUtil.childTreePath;
+
+/**
+ * Deep copy of an element with all his descendants.
+ * <p>
+ * The whole source subtree is read with a single query on the prefix of the
+ * {@link InventoryElement#getFullTreePath() full tree path}, the ids, the names and the tree
+ * paths of the copy are generated in memory and the copy is written with batched inserts. The
+ * connector capacity and the tag counters are updated once for the whole copy.
+ */
+@Log4j2
+@Service
+@AllArgsConstructor
+public class InventoryCloneService {
+    /**
+     * The maximum number of elements inserted by a single batch
+     */
+    static final int BATCH_SIZE = 500;
+    /**
+     * The maximum number of elements that can be copied by a single request
+     */
+    static final int MAX_ELEMENTS = 10000;
+    MongoTemplate mongoTemplate;
+    InventoryClassService inventoryClassService;
+    InventoryDomainRepository inventoryDomainRepository;
+    InventoryElementCapacityService inventoryElementCapacityService;
+    InventoryDomainStatisticsService inventoryDomainStatisticsService;
+
+    /**
+     * Copy an element with all his descendants under a new parent. The copy keeps the class,
+     * the attributes, the tags and the connector classes of the source elements; the
+     * implementation references are kept only when both the elements are copied
+     *
+     * @param domainId                 the domain of the element
+     * @param elementId                the element to copy
+     * @param cloneInventoryElementDTO the name and the parent of the copy
+     * @return the id of the copy of the element
+     */
+    @ServiceOperation("element.clone")
+    public String cloneSubtree(String domainId, String elementId, CloneInventoryElementDTO cloneInventoryElementDTO) {
+        assertion(
+                ControllerLogicException
+                        .builder()
+                        .errorCode(-1)
+                        .errorMessage("The mandatory field are missing")
+                        .errorDomain("InventoryCloneService::cloneSubtree")
+                        .build(),
+                () -> cloneInventoryElementDTO != null,
+                () -> cloneInventoryElementDTO.name() != null,
+                () -> !cloneInventoryElementDTO.name().isEmpty()
+        );
+        InventoryElement sourceRoot = findElementInDomain(domainId, elementId, -2);
+        InventoryElement parentElement = null;
+        if (cloneInventoryElementDTO.parentId() != null) {
+            parentElement = findElementInDomain(domainId, cloneInventoryElementDTO.parentId(), -3);
+            // check if the copy can be a child for the new parent
+            InventoryClassDTO parentClass = inventoryClassService.findById(parentElement.getClassId(), false);
+            assertion(
+                    ControllerLogicException.builder()
+                            .errorCode(-4)
+                            .errorMessage("Parent class cannot permit to have this kind of element as child")
+                            .errorDomain("InventoryCloneService::cloneSubtree")
+                            .build(),
+                    () -> any(
+                            () -> parentClass.permittedChildClass() == null || parentClass.permittedChildClass().isEmpty(),
+                            () -> parentClass.permittedChildClass().stream().anyMatch(c -> c.compareTo(sourceRoot.getClassId()) == 0)
+                    )
+            );
+        }
+
+        // the whole source subtree, ordered so every parent come before his children
+        List<InventoryElement> source = new ArrayList<>();
+        source.add(sourceRoot);
+        source.addAll(
+                wrapCatch(
+                        () -> mongoTemplate.find(
+                                new Query(
+                                        Criteria.where("domainId").is(domainId)
+                                                .and("fullTreePath").regex("^%s(/|$)".formatted(childTreePath(sourceRoot)))
+                                ).limit(MAX_ELEMENTS),
+                                InventoryElement.class
+                        ),
+                        -5
+                )
+        );
+        assertion(
+                ControllerLogicException.builder()
+                        .errorCode(-6)
+                        .errorMessage("The element has more than %d descendants and cannot be copied".formatted(MAX_ELEMENTS - 1))
+                        .errorDomain("InventoryCloneService::cloneSubtree")
+                        .build(),
+                () -> source.size() <= MAX_ELEMENTS
+        );
+        source.sort(Comparator.comparingInt(e -> ancestorIds(e.getFullTreePath()).size()));
+
+        // generate the ids and the names of the copy
+        Map<String, String> sourceToCloneIds = new LinkedHashMap<>();
+        source.forEach(e -> sourceToCloneIds.put(e.getId(), new ObjectId().toHexString()));
+        String rootName = normalizeStringWithReplace(cloneInventoryElementDTO.name(), " ", "-");
+        String nameSuffix = cloneInventoryElementDTO.nameSuffix() == null || cloneInventoryElementDTO.nameSuffix().isBlank() ?
+                rootName :
+                normalizeStringWithReplace(cloneInventoryElementDTO.nameSuffix(), " ", "-");
+        String cloneRootTreePath = parentElement == null ? null : childTreePath(parentElement);
+        int sourceRootDepth = ancestorIds(sourceRoot.getFullTreePath()).size();
+        List<InventoryElement> clones = source.stream()
+                .map(
+                        e -> {
+                            boolean isRoot = e == sourceRoot;
+                            return InventoryElement.builder()
+                                    .id(sourceToCloneIds.get(e.getId()))
+                                    .domainId(domainId)
+                                    .name(isRoot ? rootName : "%s-%s".formatted(e.getName(), nameSuffix))
+                                    .description(e.getDescription())
+                                    .classId(e.getClassId())
+                                    .parentId(isRoot ? cloneInventoryElementDTO.parentId() : sourceToCloneIds.get(e.getParentId()))
+                                    .fullTreePath(isRoot ? cloneRootTreePath : cloneTreePath(cloneRootTreePath, sourceToCloneIds, ancestorIds(e.getFullTreePath()).subList(sourceRootDepth, ancestorIds(e.getFullTreePath()).size())))
+                                    .implementedBy(e.getImplementedBy() == null ? null : sourceToCloneIds.get(e.getImplementedBy()))
+                                    .implementationFor(e.getImplementationFor() == null ? null : sourceToCloneIds.get(e.getImplementationFor()))
+                                    .attributes(e.getAttributes())
+                                    .connectorClasses(e.getConnectorClasses())
+                                    .tags(e.getTags())
+                                    .build();
+                        }
+                )
+                .toList();
+
+        // the names are unique in the domain, all the conflicts are reported before writing
+        List<String> cloneNames = clones.stream().map(InventoryElement::getName).toList();
+        Query conflictQuery = new Query(Criteria.where("domainId").is(domainId).and("name").in(cloneNames)).limit(10);
+        conflictQuery.fields().include("name");
+        List<String> conflictingNames = wrapCatch(
+                () -> mongoTemplate.find(conflictQuery, InventoryElement.class),
+                -7
+        ).stream().map(InventoryElement::getName).toList();
+        assertion(
+                ControllerLogicException.builder()
+                        .errorCode(-8)
+                        .errorMessage("The names %s are already used in the domain".formatted(conflictingNames))
+                        .errorDomain("InventoryCloneService::cloneSubtree")
+                        .build(),
+                conflictingNames::isEmpty
+        );
+
+        try {
+            for (int i = 0; i < clones.size(); i += BATCH_SIZE) {
+                mongoTemplate.insert(clones.subList(i, Math.min(i + BATCH_SIZE, clones.size())), InventoryElement.class);
+            }
+        } catch (RuntimeException e) {
+            // remove the partial copy, the source is untouched
+            mongoTemplate.remove(new Query(Criteria.where("id").in(sourceToCloneIds.values())), InventoryElement.class);
+            throw ControllerLogicException.builder()
+                    .errorCode(-9)
+                    .errorMessage(e.getMessage())
+                    .errorDomain("InventoryCloneService::cloneSubtree")
+                    .build();
+        }
+
+        InventoryElement cloneRoot = clones.get(0);
+        inventoryElementCapacityService.onSubtreeCloned(sourceToCloneIds, cloneRoot, parentElement);
+        // each copied element use his tags
+        Map<String, Long> tagIncrements = clones.stream()
+                .flatMap(e -> Optional.ofNullable(e.getTags()).orElse(Collections.emptyList()).stream().distinct())
+                .collect(Collectors.groupingBy(tagId -> tagId, Collectors.counting()));
+        wrapCatch(
+                () -> {
+                    inventoryDomainRepository.incrementTagUsage(domainId, tagIncrements);
+                    return null;
+                },
+                -10
+        );
+        inventoryDomainStatisticsService.markChanged(domainId);
+        log.info("Element '{}' copied with {} descendants into '{}'", sourceRoot.getId(), clones.size() - 1, cloneRoot.getId());
+        return cloneRoot.getId();
+    }
+
+    /**
+     * Return an element checking that it belongs to the domain
+     */
+    private InventoryElement findElementInDomain(String domainId, String elementId, int errorCode) {
+        return wrapCatch(
+                () -> Optional.ofNullable(mongoTemplate.findById(elementId, InventoryElement.class)),
+                errorCode
+        )
+                .filter(e -> Objects.equals(e.getDomainId(), domainId))
+                .orElseThrow(
+                        () -> InventoryElementNotFound.elementNotFoundById()
+                                .errorCode(errorCode)
+                                .id(elementId)
+                                .build()
+                );
+    }
+
+    /**
+     * Build the tree path of a copied descendant from the path of the copy of the root and
+     * the ancestors of the source element starting from the source root
+     */
+    private static String cloneTreePath(String cloneRootTreePath, Map<String, String> sourceToCloneIds, List<String> sourceAncestorsFromRoot) {
+        String path = sourceAncestorsFromRoot.stream()
+                .map(sourceToCloneIds::get)
+                .collect(Collectors.joining("/", "/", ""));
+        return cloneRootTreePath == null ? path : cloneRootTreePath + path;
+    }
+}
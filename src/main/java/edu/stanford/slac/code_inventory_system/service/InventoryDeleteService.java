@@ -0,0 +1,255 @@
+package edu.stanford.slac.code_inventory_system.service;
+
+import edu.stanford.slac.ad.eed.baselib.service.AuthService;
+import edu.stanford.slac.code_inventory_system.exception.InventoryDomainNotFound;
+import edu.stanford.slac.code_inventory_system.exception.InventoryElementNotFound;
+import edu.stanford.slac.code_inventory_system.model.*;
+import edu.stanford.slac.code_inventory_system.repository.InventoryDomainRepository;
+import edu.stanford.slac.code_inventory_system.repository.RequestIdentityMap;
+import edu.stanford.slac.code_inventory_system.service.utility.AuthorizationDecisionCache;
+import edu.stanford.slac.code_inventory_system.service.utility.InventoryJobContext;
+import edu.stanford.slac.code_inventory_system.service.utility.InventoryJobHandler;
+import edu.stanford.slac.code_inventory_system.service.utility.ServiceOperation;
+import lombok.AllArgsConstructor;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+import java.util.stream.Collectors;
+
+import static edu.stanford.slac.code_inventory_system.config.AppProperties.CIS_DOMAIN_AUTH_FORMAT;
+import static edu.stanford.slac.code_inventory_system.exception.Utility.wrapCatch;
+import static edu.stanford.slac.code_inventory_system.service.utility.TreePathUtil.childTreePath;
+
+/**
+ * Cascading delete of the elements subtrees and of the domains.
+ * <p>
+ * The descendants of an element are found by the prefix of the
+ * {@link InventoryElement#getFullTreePath() full tree path} and are removed, together with
+ * the documents that refer to them, in bounded batches. The root of the subtree is removed
+ * last, so a delete interrupted in the middle is completed when the job is resumed. The
+ * delete runs as a background job of the {@link InventoryJobService}.
+ */
+@Log4j2
+@Service
+@AllArgsConstructor
+public class InventoryDeleteService implements InventoryJobHandler {
+    /**
+     * The maximum number of elements removed by a single batch
+     */
+    static final int BATCH_SIZE = 500;
+    MongoTemplate mongoTemplate;
+    AuthService authService;
+    AuthorizationDecisionCache authorizationDecisionCache;
+    RequestIdentityMap requestIdentityMap;
+    InventoryDomainRepository inventoryDomainRepository;
+    InventoryJobService inventoryJobService;
+    InventoryElementSyncService inventoryElementSyncService;
+    InventoryElementCapacityService inventoryElementCapacityService;
+    InventoryDomainStatisticsService inventoryDomainStatisticsService;
+
+    /**
+     * Start the delete of an element and of all his descendants
+     *
+     * @param domainId  the domain of the element
+     * @param elementId the element to delete
+     * @param deletedBy the user that delete the element
+     * @return the id of the job
+     */
+    @ServiceOperation("element.delete")
+    public String deleteElement(String domainId, String elementId, String deletedBy) {
+        InventoryElement root = wrapCatch(
+                () -> Optional.ofNullable(mongoTemplate.findById(elementId, InventoryElement.class)),
+                -1
+        )
+                .filter(e -> Objects.equals(e.getDomainId(), domainId))
+                .orElseThrow(
+                        () -> InventoryElementNotFound.elementNotFoundById()
+                                .errorCode(-2)
+                                .id(elementId)
+                                .build()
+                );
+        long total = wrapCatch(
+                () -> mongoTemplate.count(new Query(descendantsCriteria(root)), InventoryElement.class),
+                -3
+        ) + 1;
+        return inventoryJobService.submit(
+                InventoryJob.builder()
+                        .type(InventoryJobType.DeleteElement)
+                        .domainId(domainId)
+                        .elementId(elementId)
+                        .total(total)
+                        .createdBy(deletedBy)
+                        .build()
+        );
+    }
+
+    /**
+     * Start the delete of a domain with all his elements and authorizations
+     *
+     * @param domainId  the domain to delete
+     * @param deletedBy the user that delete the domain
+     * @return the id of the job
+     */
+    @ServiceOperation("domain.delete")
+    public String deleteDomain(String domainId, String deletedBy) {
+        boolean exists = wrapCatch(
+                () -> inventoryDomainRepository.existsById(domainId),
+                -1
+        );
+        if (!exists) {
+            throw InventoryDomainNotFound.domainNotFoundById()
+                    .errorCode(-2)
+                    .id(domainId)
+                    .build();
+        }
+        long total = wrapCatch(
+                () -> mongoTemplate.count(new Query(Criteria.where("domainId").is(domainId)), InventoryElement.class),
+                -3
+        );
+        return inventoryJobService.submit(
+                InventoryJob.builder()
+                        .type(InventoryJobType.DeleteDomain)
+                        .domainId(domainId)
+                        .total(total)
+                        .createdBy(deletedBy)
+                        .build()
+        );
+    }
+
+    @Override
+    public Set<InventoryJobType> handledTypes() {
+        return EnumSet.of(InventoryJobType.DeleteElement, InventoryJobType.DeleteDomain);
+    }
+
+    @Override
+    public void execute(InventoryJob job, InventoryJobContext context) {
+        switch (job.getType()) {
+            case DeleteElement -> {
+                InventoryElement root = mongoTemplate.findById(job.getElementId(), InventoryElement.class);
+                if (root == null) {
+                    // a resumed job could have already removed the root, only his references can be left
+                    deleteReferences(List.of(job.getElementId()));
+                    return;
+                }
+                deleteSubtree(root, job.getCreatedBy(), context);
+            }
+            case DeleteDomain -> deleteAllOfDomain(job.getDomainId(), context);
+            default -> throw new IllegalArgumentException("Job type %s not handled".formatted(job.getType()));
+        }
+    }
+
+    /**
+     * Delete the descendants of the root in batches, then the root
+     */
+    private void deleteSubtree(InventoryElement root, String deletedBy, InventoryJobContext context) {
+        Query descendantsQuery = new Query(descendantsCriteria(root)).limit(BATCH_SIZE);
+        descendantsQuery.fields().include("id", "domainId", "tags");
+        List<InventoryElement> batch;
+        while (!(batch = mongoTemplate.find(descendantsQuery, InventoryElement.class)).isEmpty()) {
+            deleteBatch(root.getDomainId(), batch, deletedBy);
+            context.progress(batch.size());
+        }
+        // only the run that removes the root updates the connector counters of the ancestors,
+        // the capacity of the root is needed by the update so his references are removed after
+        InventoryElement parent = root.getParentId() == null ? null : mongoTemplate.findById(root.getParentId(), InventoryElement.class);
+        Query rootQuery = new Query(Criteria.where("id").is(root.getId()));
+        rootQuery.fields().include("id", "domainId", "tags");
+        InventoryElement removedRoot = mongoTemplate.findAndRemove(rootQuery, InventoryElement.class);
+        requestIdentityMap.evict(InventoryElement.class, root.getId());
+        if (removedRoot != null) {
+            inventoryElementCapacityService.onSubtreeDeleted(root, parent);
+            applyRemoved(root.getDomainId(), List.of(removedRoot), deletedBy);
+        }
+        deleteReferences(List.of(root.getId()));
+        context.progress(1);
+        log.info("User '{}' deleted the element '{}' with all the descendants", deletedBy, root.getId());
+    }
+
+    /**
+     * Delete all the elements of the domain in batches, then the domain with his authorizations
+     */
+    private void deleteAllOfDomain(String domainId, InventoryJobContext context) {
+        Query elementsQuery = new Query(Criteria.where("domainId").is(domainId)).limit(BATCH_SIZE);
+        elementsQuery.fields().include("id", "domainId", "tags");
+        List<InventoryElement> batch;
+        while (!(batch = mongoTemplate.find(elementsQuery, InventoryElement.class)).isEmpty()) {
+            deleteBatch(domainId, batch, null);
+            context.progress(batch.size());
+        }
+        mongoTemplate.remove(new Query(Criteria.where("domainId").is(domainId)), InventoryElementTombstone.class);
+        mongoTemplate.remove(new Query(Criteria.where("id").is(domainId)), InventoryDomainStatistics.class);
+        String domainAuthorizationResource = CIS_DOMAIN_AUTH_FORMAT.formatted(domainId);
+        try {
+            authService.findByResourceIs(domainAuthorizationResource)
+                    .forEach(authorization -> authService.deleteAuthorizationById(authorization.id()));
+        } finally {
+            authorizationDecisionCache.evictResource(domainAuthorizationResource);
+        }
+        inventoryDomainRepository.deleteById(domainId);
+        requestIdentityMap.evict(InventoryDomain.class, domainId);
+        log.info("Deleted the domain '{}' with all the elements", domainId);
+    }
+
+    /**
+     * Delete a batch of elements with all the documents that refer to them. The referring
+     * documents are removed first so a failed batch is found again by the next run, then the
+     * elements are removed and the tombstones and the counters are updated only for the
+     * elements removed by this call, so a retried batch is never counted twice
+     *
+     * @param deletedBy the user that delete the elements, null when the whole domain is deleted
+     *                  and the tombstones and the counters are not needed
+     */
+    private void deleteBatch(String domainId, List<InventoryElement> elements, String deletedBy) {
+        List<String> ids = elements.stream().map(InventoryElement::getId).toList();
+        deleteReferences(ids);
+        Query removeQuery = new Query(Criteria.where("id").in(ids));
+        removeQuery.fields().include("id", "domainId", "tags");
+        List<InventoryElement> removed = mongoTemplate.findAllAndRemove(removeQuery, InventoryElement.class);
+        ids.forEach(id -> requestIdentityMap.evict(InventoryElement.class, id));
+        applyRemoved(domainId, removed, deletedBy);
+    }
+
+    /**
+     * Write the tombstones and update the counters for the elements removed by the caller
+     *
+     * @param deletedBy the user that delete the elements, null when the whole domain is deleted
+     */
+    private void applyRemoved(String domainId, List<InventoryElement> removed, String deletedBy) {
+        if (deletedBy == null || removed.isEmpty()) return;
+        inventoryElementSyncService.recordDeletions(domainId, removed.stream().map(InventoryElement::getId).toList(), deletedBy);
+        // each element release his tags
+        Map<String, Long> tagIncrements = removed.stream()
+                .flatMap(e -> Optional.ofNullable(e.getTags()).orElse(Collections.emptyList()).stream().distinct())
+                .collect(Collectors.groupingBy(tagId -> tagId, Collectors.reducing(0L, tagId -> -1L, Long::sum)));
+        inventoryDomainRepository.incrementTagUsage(domainId, tagIncrements);
+        inventoryDomainStatisticsService.markChanged(domainId);
+    }
+
+    /**
+     * Remove the documents that refer to the elements, can be repeated
+     */
+    private void deleteReferences(List<String> ids) {
+        mongoTemplate.remove(new Query(Criteria.where("inventoryElementId").in(ids)), InventoryElementAttributeHistory.class);
+        mongoTemplate.remove(new Query(Criteria.where("inventoryElementId").in(ids)), InventoryMaintenance.class);
+        inventoryElementCapacityService.deleteByElementIds(ids);
+        // the implemented elements outside the batch don't point anymore to the deleted implementations
+        mongoTemplate.updateMulti(
+                new Query(Criteria.where("implementedBy").in(ids)),
+                new Update().unset("implementedBy"),
+                InventoryElement.class
+        );
+    }
+
+    /**
+     * Select all the descendants of an element using the index on the full tree path
+     */
+    private static Criteria descendantsCriteria(InventoryElement root) {
+        return Criteria.where("domainId").is(root.getDomainId())
+                .and("fullTreePath").regex("^%s(/|$)".formatted(childTreePath(root)));
+    }
+}
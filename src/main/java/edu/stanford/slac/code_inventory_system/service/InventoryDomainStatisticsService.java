@@ -0,0 +1,237 @@
+package edu.stanford.slac.code_inventory_system.service;
+
+import edu.stanford.slac.code_inventory_system.api.v1.dto.InventoryDomainStatisticsDTO;
+import edu.stanford.slac.code_inventory_system.api.v1.mapper.InventoryElementMapper;
+import edu.stanford.slac.code_inventory_system.exception.InventoryDomainNotFound;
+import edu.stanford.slac.code_inventory_system.model.InventoryDomainStatistics;
+import edu.stanford.slac.code_inventory_system.model.InventoryElement;
+import edu.stanford.slac.code_inventory_system.repository.InventoryDomainRepository;
+import edu.stanford.slac.code_inventory_system.repository.InventoryDomainStatisticsRepository;
+import edu.stanford.slac.code_inventory_system.service.utility.ServiceOperation;
+import lombok.extern.log4j.Log4j2;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.task.TaskExecutionAutoConfiguration;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+import static edu.stanford.slac.code_inventory_system.exception.Utility.wrapCatch;
+
+/**
+ * Materialized statistics of the elements of the domains.
+ * <p>
+ * The element writes only increment a change counter on the statistics document, the
+ * statistics are recomputed in background by a single aggregation merged into the document
+ * when they are read after a change. The dashboards always read the last computed document
+ * without waiting the aggregation, and the elements are aggregated at most once for each
+ * batch of changes.
+ * <p>
+ * A recomputation is claimed on the statistics document, so only one reader of all the
+ * nodes starts the recomputation for each refresh interval.
+ */
+@Log4j2
+@Service
+public class InventoryDomainStatisticsService {
+    private final MongoTemplate mongoTemplate;
+    private final InventoryElementMapper inventoryElementMapper;
+    private final InventoryDomainRepository inventoryDomainRepository;
+    private final InventoryDomainStatisticsRepository inventoryDomainStatisticsRepository;
+    private final AsyncTaskExecutor refreshExecutor;
+    private final Duration refreshInterval;
+
+    public InventoryDomainStatisticsService(
+            MongoTemplate mongoTemplate,
+            InventoryElementMapper inventoryElementMapper,
+            InventoryDomainRepository inventoryDomainRepository,
+            InventoryDomainStatisticsRepository inventoryDomainStatisticsRepository,
+            @Qualifier(TaskExecutionAutoConfiguration.APPLICATION_TASK_EXECUTOR_BEAN_NAME) AsyncTaskExecutor refreshExecutor,
+            @Value("${cis.statistics.refresh-interval:PT30S}") Duration refreshInterval) {
+        this.mongoTemplate = mongoTemplate;
+        this.inventoryElementMapper = inventoryElementMapper;
+        this.inventoryDomainRepository = inventoryDomainRepository;
+        this.inventoryDomainStatisticsRepository = inventoryDomainStatisticsRepository;
+        this.refreshExecutor = refreshExecutor;
+        this.refreshInterval = refreshInterval;
+    }
+
+    /**
+     * Return the last computed statistics of the domain. When the elements have been changed
+     * after the last computation a recomputation is started in background, at most once for
+     * each refresh interval, and the next reads return the new statistics. The statistics
+     * never computed are returned without the counters and the computed date
+     *
+     * @param domainId the domain id
+     * @return the statistics of the domain
+     */
+    @ServiceOperation("domain.statistics")
+    public InventoryDomainStatisticsDTO getStatistics(String domainId) {
+        Optional<InventoryDomainStatistics> statistics = wrapCatch(
+                () -> inventoryDomainStatisticsRepository.findById(domainId),
+                -1
+        );
+        if (statistics.isEmpty() && !wrapCatch(() -> inventoryDomainRepository.existsById(domainId), -2)) {
+            throw InventoryDomainNotFound.domainNotFoundById()
+                    .errorCode(-3)
+                    .id(domainId)
+                    .build();
+        }
+        if (statistics.map(InventoryDomainStatistics::isStale).orElse(true) && claimRefresh(domainId)) {
+            long changes = statistics.map(InventoryDomainStatistics::getChanges).orElse(0L);
+            refreshExecutor.execute(
+                    () -> {
+                        try {
+                            refresh(domainId, changes);
+                        } catch (Exception e) {
+                            // the statistics are recomputed by a read of the next refresh interval
+                            log.error("Error computing the statistics of the domain '{}'", domainId, e);
+                        }
+                    }
+            );
+        }
+        if (statistics.isEmpty() || statistics.get().getComputedDate() == null) {
+            return InventoryDomainStatisticsDTO.builder().domainId(domainId).build();
+        }
+        return inventoryElementMapper.toDTO(statistics.get());
+    }
+
+    /**
+     * Notify a write on the elements of the domain, the statistics are recomputed
+     * on the next read
+     *
+     * @param domainId the domain id
+     */
+    public void markChanged(String domainId) {
+        wrapCatch(
+                () -> mongoTemplate.upsert(
+                        new Query(Criteria.where("id").is(domainId)),
+                        new Update().inc("changes", 1),
+                        InventoryDomainStatistics.class
+                ),
+                -1
+        );
+    }
+
+    /**
+     * Claim the recomputation of the statistics of the domain, the claim succeeds only if
+     * no other recomputation has been claimed in the refresh interval
+     *
+     * @param domainId the domain id
+     * @return true if the caller has to recompute the statistics
+     */
+    private boolean claimRefresh(String domainId) {
+        LocalDateTime now = LocalDateTime.now();
+        // the document of a domain without writes is created to hold the claim
+        wrapCatch(
+                () -> mongoTemplate.upsert(
+                        new Query(Criteria.where("id").is(domainId)),
+                        new Update().setOnInsert("changes", 0L),
+                        InventoryDomainStatistics.class
+                ),
+                -4
+        );
+        var claim = wrapCatch(
+                () -> mongoTemplate.updateFirst(
+                        new Query(
+                                Criteria.where("id").is(domainId).orOperator(
+                                        Criteria.where("refreshClaimedDate").exists(false),
+                                        Criteria.where("refreshClaimedDate").lte(now.minus(refreshInterval))
+                                )
+                        ),
+                        new Update().set("refreshClaimedDate", now),
+                        InventoryDomainStatistics.class
+                ),
+                -6
+        );
+        return claim.getMatchedCount() == 1;
+    }
+
+    /**
+     * Compute the statistics of the domain and merge them into the statistics document,
+     * the change counter is not touched by the merge
+     *
+     * @param domainId the domain id
+     * @param changes  the change counter read before the computation
+     */
+    private void refresh(String domainId, long changes) {
+        // the depth of an element is the number of the ancestors in the full tree path
+        Document level = new Document(
+                "$cond",
+                List.of(
+                        new Document("$ifNull", List.of("$fullTreePath", false)),
+                        new Document("$subtract", List.of(new Document("$size", new Document("$split", List.of("$fullTreePath", "/"))), 1)),
+                        0
+                )
+        );
+        List<Document> pipeline = List.of(
+                new Document("$match", new Document("domainId", domainId)),
+                new Document(
+                        "$facet",
+                        new Document("total", List.of(new Document("$count", "count")))
+                                .append("byClass", countBy("$classId"))
+                                .append("byTag", List.of(new Document("$unwind", "$tags"), new Document("$group", new Document("_id", "$tags").append("count", new Document("$sum", 1)))))
+                                .append("byLevel", countBy(new Document("$toString", level)))
+                ),
+                new Document(
+                        "$project",
+                        new Document("_id", new Document("$literal", domainId))
+                                .append("totalElements", new Document("$toLong", new Document("$ifNull", List.of(new Document("$arrayElemAt", List.of("$total.count", 0)), 0))))
+                                .append("elementsByClass", toObject("$byClass"))
+                                .append("elementsByTag", toObject("$byTag"))
+                                .append("elementsByLevel", toObject("$byLevel"))
+                                .append("refreshedChanges", new Document("$literal", changes))
+                                .append("computedDate", "$$NOW")
+                ),
+                new Document(
+                        "$merge",
+                        new Document("into", mongoTemplate.getCollectionName(InventoryDomainStatistics.class))
+                                .append("on", "_id")
+                                .append("whenMatched", "merge")
+                                .append("whenNotMatched", "insert")
+                )
+        );
+        wrapCatch(
+                () -> {
+                    mongoTemplate.getCollection(mongoTemplate.getCollectionName(InventoryElement.class))
+                            .aggregate(pipeline)
+                            .toCollection();
+                    return null;
+                },
+                -5
+        );
+        log.debug("Statistics of the domain '{}' computed", domainId);
+    }
+
+    private static List<Document> countBy(Object groupExpression) {
+        return List.of(
+                new Document(
+                        "$group",
+                        new Document("_id", new Document("$ifNull", List.of(groupExpression, "none")))
+                                .append("count", new Document("$sum", 1))
+                )
+        );
+    }
+
+    /**
+     * Convert the array of group results in an object with the group id as key
+     */
+    private static Document toObject(String groupResultField) {
+        return new Document(
+                "$arrayToObject",
+                new Document(
+                        "$map",
+                        new Document("input", groupResultField)
+                                .append("in", new Document("k", new Document("$toString", "$$this._id")).append("v", new Document("$toLong", "$$this.count")))
+                )
+        );
+    }
+}
@@ -0,0 +1,243 @@
+package edu.stanford.slac.code_inventory_system.service;
+
+import edu.stanford.slac.ad.eed.baselib.exception.ControllerLogicException;
+import edu.stanford.slac.code_inventory_system.api.v1.dto.BulkUpdateInventoryElementAttributesDTO;
+import edu.stanford.slac.code_inventory_system.api.v1.dto.InventoryElementAttributeValueDTO;
+import edu.stanford.slac.code_inventory_system.api.v1.mapper.InventoryElementMapper;
+import edu.stanford.slac.code_inventory_system.exception.InventoryDomainNotFound;
+import edu.stanford.slac.code_inventory_system.exception.InventoryElementNotFound;
+import edu.stanford.slac.code_inventory_system.model.InventoryElement;
+import edu.stanford.slac.code_inventory_system.model.InventoryElementAttributeHistory;
+import edu.stanford.slac.code_inventory_system.model.value.AbstractValue;
+import edu.stanford.slac.code_inventory_system.repository.InventoryDomainRepository;
+import edu.stanford.slac.code_inventory_system.repository.RequestIdentityMap;
+import edu.stanford.slac.code_inventory_system.service.utility.ServiceOperation;
+import lombok.AllArgsConstructor;
+import lombok.extern.log4j.Log4j2;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.AggregationUpdate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+
+import static edu.stanford.slac.ad.eed.baselib.exception.Utility.assertion;
+import static edu.stanford.slac.code_inventory_system.exception.Utility.wrapCatch;
+import static edu.stanford.slac.code_inventory_system.service.utility.TreePathUtil.childTreePath;
+
+/**
+ * Update the same attributes on all the elements that match a query.
+ * <p>
+ * The values are checked against the class once, the matched elements are read in pages
+ * of id, attributes and version to find the values that really change. Each element is
+ * updated only if his version has not changed since the read, so the value set meanwhile by
+ * another update is never overwritten without being archived, and the history of each page
+ * is saved with a bulk insert for the updated elements only.
+ */
+@Log4j2
+@Service
+@AllArgsConstructor
+public class InventoryElementBulkUpdateService {
+    /**
+     * The maximum number of elements updated by a single write
+     */
+    static final int BATCH_SIZE = 500;
+    MongoTemplate mongoTemplate;
+    RequestIdentityMap requestIdentityMap;
+    InventoryElementMapper inventoryElementMapper;
+    InventoryDomainRepository inventoryDomainRepository;
+
+    /**
+     * Set the attribute values on all the elements of the class that match the query, the
+     * history of the replaced values is saved as for the single element update
+     *
+     * @param domainId  the domain of the elements
+     * @param updateDTO the query and the values to set
+     * @param updatedBy the user that update the elements
+     * @return the number of the elements changed
+     */
+    @ServiceOperation("element.bulk-update-attributes")
+    public long updateAttributesByQuery(String domainId, BulkUpdateInventoryElementAttributesDTO updateDTO, String updatedBy) {
+        assertion(
+                ControllerLogicException
+                        .builder()
+                        .errorCode(-1)
+                        .errorMessage("The mandatory field are missing")
+                        .errorDomain("InventoryElementBulkUpdateService::updateAttributesByQuery")
+                        .build(),
+                () -> updateDTO != null,
+                () -> updateDTO.classId() != null,
+                () -> updateDTO.attributes() != null,
+                () -> !updateDTO.attributes().isEmpty()
+        );
+        assertion(
+                ControllerLogicException
+                        .builder()
+                        .errorCode(-2)
+                        .errorMessage("Each attribute can be present only once")
+                        .errorDomain("InventoryElementBulkUpdateService::updateAttributesByQuery")
+                        .build(),
+                () -> updateDTO.attributes()
+                        .stream()
+                        .map(InventoryElementAttributeValueDTO::name)
+                        .filter(Objects::nonNull)
+                        .map(n -> n.toLowerCase(Locale.ROOT))
+                        .distinct()
+                        .count() == updateDTO.attributes().size()
+        );
+        if (!wrapCatch(() -> inventoryDomainRepository.existsById(domainId), -3)) {
+            throw InventoryDomainNotFound.domainNotFoundById()
+                    .errorCode(-4)
+                    .id(domainId)
+                    .build();
+        }
+        // the values are checked against the class only once for all the elements
+        List<AbstractValue> newValues = wrapCatch(
+                () -> inventoryElementMapper.toElementAttributeWithClass(updateDTO.classId(), updateDTO.attributes()),
+                -5
+        );
+        List<Document> newValueDocuments = newValues.stream().map(this::toDocument).toList();
+        List<String> newValueNames = newValues.stream().map(v -> v.getName().toLowerCase(Locale.ROOT)).toList();
+
+        Criteria criteria = Criteria.where("domainId").is(domainId).and("classId").is(updateDTO.classId());
+        if (updateDTO.tags() != null && !updateDTO.tags().isEmpty()) {
+            criteria = criteria.and("tags").all(updateDTO.tags());
+        }
+        if (updateDTO.ancestorId() != null) {
+            InventoryElement ancestor = wrapCatch(
+                    () -> Optional.ofNullable(mongoTemplate.findById(updateDTO.ancestorId(), InventoryElement.class)),
+                    -6
+            )
+                    .filter(e -> Objects.equals(e.getDomainId(), domainId))
+                    .orElseThrow(
+                            () -> InventoryElementNotFound.elementNotFoundById()
+                                    .errorCode(-7)
+                                    .id(updateDTO.ancestorId())
+                                    .build()
+                    );
+            criteria = criteria.and("fullTreePath").regex("^%s(/|$)".formatted(childTreePath(ancestor)));
+        }
+
+        // the elements are paged by id, so the updated ones are never read again
+        AggregationUpdate update = setAttributesUpdate(newValueNames, newValueDocuments, updatedBy);
+        long changed = 0;
+        String lastId = null;
+        List<InventoryElement> page;
+        do {
+            Query pageQuery = new Query(
+                    lastId == null ? criteria : new Criteria().andOperator(criteria, Criteria.where("id").gt(new ObjectId(lastId)))
+            )
+                    .with(Sort.by(Sort.Direction.ASC, "id"))
+                    .limit(BATCH_SIZE);
+            pageQuery.fields().include("id", "attributes", "version");
+            page = wrapCatch(() -> mongoTemplate.find(pageQuery, InventoryElement.class), -8);
+            if (page.isEmpty()) break;
+            lastId = page.get(page.size() - 1).getId();
+
+            long skipped = 0;
+            List<InventoryElementAttributeHistory> history = new ArrayList<>();
+            for (InventoryElement element : page) {
+                boolean elementChanged = false;
+                List<InventoryElementAttributeHistory> elementHistory = new ArrayList<>();
+                for (AbstractValue newValue : newValues) {
+                    AbstractValue oldValue = Optional.ofNullable(element.getAttributes())
+                            .orElse(Collections.emptyList())
+                            .stream()
+                            .filter(v -> v.getName() != null && v.getName().equalsIgnoreCase(newValue.getName()))
+                            .findFirst()
+                            .orElse(null);
+                    if (oldValue == null) {
+                        elementChanged = true;
+                    } else if (!sameValue(oldValue, newValue)) {
+                        // the replaced value is archived
+                        elementHistory.add(
+                                InventoryElementAttributeHistory.builder()
+                                        .inventoryDomainId(domainId)
+                                        .inventoryElementId(element.getId())
+                                        .value(oldValue)
+                                        .build()
+                        );
+                        elementChanged = true;
+                    }
+                }
+                if (!elementChanged) continue;
+
+                // an element updated meanwhile is skipped, his current value has not been archived
+                var result = wrapCatch(
+                        () -> mongoTemplate.updateFirst(
+                                new Query(Criteria.where("id").is(element.getId()).and("version").is(element.getVersion())),
+                                update,
+                                InventoryElement.class
+                        ),
+                        -10
+                );
+                requestIdentityMap.evict(InventoryElement.class, element.getId());
+                if (result.getMatchedCount() == 0) {
+                    skipped++;
+                    continue;
+                }
+                history.addAll(elementHistory);
+                changed++;
+            }
+            // only the replaced values of the updated elements are archived
+            if (!history.isEmpty()) {
+                wrapCatch(() -> mongoTemplate.insert(history, InventoryElementAttributeHistory.class), -9);
+            }
+            if (skipped > 0) {
+                log.warn("{} elements of the class '{}' have been updated during the bulk update and have been skipped", skipped, updateDTO.classId());
+            }
+        } while (page.size() == BATCH_SIZE);
+        log.info("User '{}' updated the attributes {} of {} elements of the class '{}'", updatedBy, newValueNames, changed, updateDTO.classId());
+        return changed;
+    }
+
+    /**
+     * Build the update that replaces the attributes with the same name, case-insensitive, and
+     * appends the missing ones, all the other attributes are kept
+     */
+    private static AggregationUpdate setAttributesUpdate(List<String> newValueNames, List<Document> newValueDocuments, String updatedBy) {
+        Document keptAttributes = new Document(
+                "$filter",
+                new Document("input", new Document("$ifNull", List.of("$attributes", List.of())))
+                        .append(
+                                "cond",
+                                new Document(
+                                        "$not",
+                                        List.of(new Document("$in", List.of(new Document("$toLower", "$$this.name"), newValueNames)))
+                                )
+                        )
+        );
+        Document set = new Document(
+                "$set",
+                new Document("attributes", new Document("$concatArrays", List.of(keptAttributes, new Document("$literal", newValueDocuments))))
+                        .append("lastModifiedDate", "$$NOW")
+                        .append("lastModifiedBy", new Document("$literal", updatedBy))
+                        .append("version", new Document("$add", List.of(new Document("$ifNull", List.of("$version", 0L)), 1L)))
+        );
+        return AggregationUpdate.from(List.of(context -> set));
+    }
+
+    /**
+     * Compare the stored value with the new one without the name, that can differ in case
+     */
+    private boolean sameValue(AbstractValue oldValue, AbstractValue newValue) {
+        Document oldDocument = toDocument(oldValue);
+        Document newDocument = toDocument(newValue);
+        oldDocument.remove("name");
+        newDocument.remove("name");
+        return oldDocument.equals(newDocument);
+    }
+
+    /**
+     * Convert a value as it is saved into the element, with the type information
+     */
+    private Document toDocument(AbstractValue value) {
+        Document document = new Document();
+        mongoTemplate.getConverter().write(value, document);
+        return document;
+    }
+}
@@ -0,0 +1,449 @@
+package edu.stanford.slac.code_inventory_system.service;
+
+import edu.stanford.slac.code_inventory_system.api.v1.dto.InventoryElementCapacityDTO;
+import edu.stanford.slac.code_inventory_system.api.v1.mapper.InventoryElementMapper;
+import edu.stanford.slac.code_inventory_system.exception.InventoryElementNotFound;
+import edu.stanford.slac.code_inventory_system.model.*;
+import edu.stanford.slac.code_inventory_system.repository.InventoryElementCapacityRepository;
+import edu.stanford.slac.code_inventory_system.service.utility.ServiceOperation;
+import lombok.AllArgsConstructor;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+
+import static edu.stanford.slac.ad.eed.baselib.exception.Utility.assertion;
+import static edu.stanford.slac.code_inventory_system.exception.Utility.wrapCatch;
+import static edu.stanford.slac.code_inventory_system.service.utility.TreePathUtil.ancestorIds;
+
+/**
+ * Maintain the connector capacity rollup of the inventory elements.
+ * <p>
+ * Every element own the counters for his connectors and the counters of the whole subtree, the
+ * latter are kept aligned incrementally on each element write applying the same delta to all the
+ * ancestors found into the {@link InventoryElement#getFullTreePath() full tree path}.
+ */
+@Log4j2
+@Service
+@AllArgsConstructor
+public class InventoryElementCapacityService {
+    MongoTemplate mongoTemplate;
+    InventoryElementMapper inventoryElementMapper;
+    InventoryElementCapacityRepository inventoryElementCapacityRepository;
+
+    /**
+     * Update the rollup for a newly created element
+     *
+     * @param newElement    the element that has been created
+     * @param parentElement the parent of the element, can be null for the root elements
+     */
+    public void onElementCreated(InventoryElement newElement, InventoryElement parentElement) {
+        List<ConnectorCapacityDelta> deltas = new ArrayList<>();
+        List<String> ancestors = ancestorIds(newElement.getFullTreePath());
+        // the element always get his document also when it has no connector
+        deltas.add(
+                ConnectorCapacityDelta
+                        .builder()
+                        .elementId(newElement.getId())
+                        .own(true)
+                        .build()
+        );
+        // the capacity offered by the new element
+        addTotalDeltas(deltas, newElement.getId(), ancestors, newElement.getConnectorClasses(), 1);
+        // the connector of the parent occupied by the new element
+        addUsedDeltas(deltas, newElement, parentElement, ancestors, 1);
+        wrapCatch(
+                () -> {
+                    inventoryElementCapacityRepository.applyDeltas(newElement.getDomainId(), filterEmpty(deltas));
+                    return null;
+                },
+                -1
+        );
+    }
+
+    /**
+     * Update the rollup when the connector classes of an element are changed
+     *
+     * @param element             the updated element
+     * @param oldConnectorClasses the connector classes before the update
+     */
+    public void onConnectorClassesUpdated(InventoryElement element, List<ConnectorClass> oldConnectorClasses) {
+        List<ConnectorCapacityDelta> deltas = new ArrayList<>();
+        List<String> ancestors = ancestorIds(element.getFullTreePath());
+        addTotalDeltas(deltas, element.getId(), ancestors, oldConnectorClasses, -1);
+        addTotalDeltas(deltas, element.getId(), ancestors, element.getConnectorClasses(), 1);
+        // the connector of the element could now be used by the existing children
+        Set<String> connectorClassIds = new HashSet<>();
+        Optional.ofNullable(oldConnectorClasses).orElse(Collections.emptyList()).forEach(cc -> connectorClassIds.add(cc.getClassID()));
+        Optional.ofNullable(element.getConnectorClasses()).orElse(Collections.emptyList()).forEach(cc -> connectorClassIds.add(cc.getClassID()));
+        for (String connectorClassId : connectorClassIds) {
+            long childCount = countChildrenOfClass(element, connectorClassId);
+            if (childCount == 0) continue;
+            long delta = (connectorCount(element.getConnectorClasses(), connectorClassId) > 0 ? childCount : 0) -
+                    (connectorCount(oldConnectorClasses, connectorClassId) > 0 ? childCount : 0);
+            addUsedDelta(deltas, element.getId(), ancestors, connectorClassId, delta);
+        }
+        wrapCatch(
+                () -> {
+                    inventoryElementCapacityRepository.applyDeltas(element.getDomainId(), filterEmpty(deltas));
+                    return null;
+                },
+                -1
+        );
+    }
+
+    /**
+     * Update the rollup for a subtree that is going to be deleted, the counters of the subtree
+     * are removed from the ancestors of his root. The capacity documents of the subtree are
+     * not touched, they are removed with the elements
+     *
+     * @param root          the root of the deleted subtree
+     * @param parentElement the parent of the root, can be null for the root elements
+     */
+    public void onSubtreeDeleted(InventoryElement root, InventoryElement parentElement) {
+        List<ConnectorCapacityDelta> deltas = new ArrayList<>();
+        List<String> ancestors = ancestorIds(root.getFullTreePath());
+        var rootCapacity = wrapCatch(
+                () -> inventoryElementCapacityRepository.findById(root.getId()),
+                -1
+        );
+        rootCapacity.ifPresent(capacity -> addSubtreeDeltas(deltas, capacity, ancestors, -1));
+        // the connector of the parent released by the root
+        addUsedDeltas(deltas, root, parentElement, ancestors, -1);
+        List<ConnectorCapacityDelta> toApply = filterEmpty(deltas);
+        if (toApply.isEmpty()) return;
+        wrapCatch(
+                () -> {
+                    inventoryElementCapacityRepository.applyDeltas(root.getDomainId(), toApply);
+                    return null;
+                },
+                -2
+        );
+    }
+
+    /**
+     * Create the rollup for a cloned subtree. The clone has the same shape of the source so the
+     * capacity documents of the source are copied with the new ids, then the counters of the
+     * subtree are added to the ancestors of the new root
+     *
+     * @param sourceToCloneIds the id of the clone for each element of the source subtree
+     * @param cloneRoot        the root of the cloned subtree, already saved
+     * @param parentElement    the parent of the new root, can be null for the root elements
+     */
+    public void onSubtreeCloned(Map<String, String> sourceToCloneIds, InventoryElement cloneRoot, InventoryElement parentElement) {
+        Map<String, InventoryElementCapacity> sourceCapacities = new HashMap<>();
+        wrapCatch(
+                () -> mongoTemplate.find(new Query(Criteria.where("id").in(sourceToCloneIds.keySet())), InventoryElementCapacity.class),
+                -1
+        ).forEach(capacity -> sourceCapacities.put(capacity.getId(), capacity));
+        List<InventoryElementCapacity> cloneCapacities = new ArrayList<>();
+        sourceToCloneIds.forEach(
+                (sourceId, cloneId) -> {
+                    var sourceCapacity = sourceCapacities.get(sourceId);
+                    cloneCapacities.add(
+                            InventoryElementCapacity
+                                    .builder()
+                                    .id(cloneId)
+                                    .domainId(cloneRoot.getDomainId())
+                                    .own(sourceCapacity == null ? new HashMap<>() : sourceCapacity.getOwn())
+                                    .subtree(sourceCapacity == null ? new HashMap<>() : sourceCapacity.getSubtree())
+                                    .build()
+                    );
+                }
+        );
+        wrapCatch(
+                () -> mongoTemplate.insert(cloneCapacities, InventoryElementCapacity.class),
+                -2
+        );
+
+        List<ConnectorCapacityDelta> deltas = new ArrayList<>();
+        List<String> ancestors = ancestorIds(cloneRoot.getFullTreePath());
+        cloneCapacities.stream()
+                .filter(capacity -> capacity.getId().equals(cloneRoot.getId()))
+                .findFirst()
+                .ifPresent(capacity -> addSubtreeDeltas(deltas, capacity, ancestors, 1));
+        // the connector of the parent occupied by the new root
+        addUsedDeltas(deltas, cloneRoot, parentElement, ancestors, 1);
+        List<ConnectorCapacityDelta> toApply = filterEmpty(deltas);
+        if (toApply.isEmpty()) return;
+        wrapCatch(
+                () -> {
+                    inventoryElementCapacityRepository.applyDeltas(cloneRoot.getDomainId(), toApply);
+                    return null;
+                },
+                -3
+        );
+    }
+
+    /**
+     * Remove the capacity documents of the deleted elements
+     *
+     * @param elementIds the ids of the deleted elements
+     */
+    public void deleteByElementIds(Collection<String> elementIds) {
+        wrapCatch(
+                () -> mongoTemplate.remove(new Query(Criteria.where("id").in(elementIds)), InventoryElementCapacity.class),
+                -1
+        );
+    }
+
+    /**
+     * Return the precomputed capacity of an element
+     *
+     * @param domainId  the domain id
+     * @param elementId the element id
+     * @return the capacity of the element and of all his subtree
+     */
+    @ServiceOperation("element.capacity")
+    public InventoryElementCapacityDTO findByElementId(String domainId, String elementId) {
+        var capacity = wrapCatch(
+                () -> inventoryElementCapacityRepository.findById(elementId),
+                -1
+        ).orElseThrow(
+                () -> InventoryElementNotFound.elementNotFoundById()
+                        .errorCode(-2)
+                        .id(elementId)
+                        .build()
+        );
+        assertion(
+                InventoryElementNotFound.elementNotFoundById()
+                        .errorCode(-3)
+                        .id(elementId)
+                        .build(),
+                () -> Objects.equals(capacity.getDomainId(), domainId)
+        );
+        return inventoryElementMapper.toDTO(capacity);
+    }
+
+    /**
+     * Rebuild from scratch all the capacity rollup, the previous counters are replaced
+     * so the operation can be executed more than once
+     */
+    public void rebuildAll() {
+        // load the connectors of all the element that expose them
+        Query withConnectorQuery = new Query(Criteria.where("connectorClasses.0").exists(true));
+        withConnectorQuery.fields().include("id", "domainId", "fullTreePath", "connectorClasses");
+        Map<String, InventoryElement> elementsWithConnector = new HashMap<>();
+        try (var elements = mongoTemplate.stream(withConnectorQuery, InventoryElement.class)) {
+            elements.forEach(e -> elementsWithConnector.put(e.getId(), e));
+        }
+
+        Map<String, InventoryElementCapacity> capacities = new HashMap<>();
+        for (InventoryElement element : elementsWithConnector.values()) {
+            List<ConnectorCapacityDelta> deltas = new ArrayList<>();
+            addTotalDeltas(deltas, element.getId(), ancestorIds(element.getFullTreePath()), element.getConnectorClasses(), 1);
+            deltas.forEach(d -> applyInMemory(capacities, element.getDomainId(), d));
+        }
+
+        // all the children of the element with connectors can use them
+        if (!elementsWithConnector.isEmpty()) {
+            Query childQuery = new Query(Criteria.where("parentId").in(elementsWithConnector.keySet()));
+            childQuery.fields().include("id", "domainId", "classId", "parentId", "fullTreePath");
+            try (var children = mongoTemplate.stream(childQuery, InventoryElement.class)) {
+                children.forEach(
+                        child -> {
+                            List<ConnectorCapacityDelta> deltas = new ArrayList<>();
+                            addUsedDeltas(deltas, child, elementsWithConnector.get(child.getParentId()), ancestorIds(child.getFullTreePath()), 1);
+                            deltas.forEach(d -> applyInMemory(capacities, child.getDomainId(), d));
+                        }
+                );
+            }
+        }
+        mongoTemplate.remove(new Query(), InventoryElementCapacity.class);
+        // create the empty document for all the other elements
+        Query allElementQuery = new Query();
+        allElementQuery.fields().include("id", "domainId");
+        List<InventoryElementCapacity> batch = new ArrayList<>();
+        try (var elements = mongoTemplate.stream(allElementQuery, InventoryElement.class)) {
+            elements.forEach(
+                    e -> {
+                        batch.add(
+                                capacities.getOrDefault(
+                                        e.getId(),
+                                        InventoryElementCapacity.builder().id(e.getId()).domainId(e.getDomainId()).build()
+                                )
+                        );
+                        if (batch.size() >= 1000) {
+                            mongoTemplate.insert(batch, InventoryElementCapacity.class);
+                            batch.clear();
+                        }
+                    }
+            );
+        }
+        if (!batch.isEmpty()) {
+            mongoTemplate.insert(batch, InventoryElementCapacity.class);
+        }
+        log.info("Rebuilt the connector capacity of {} elements", capacities.size());
+    }
+
+    /**
+     * Add the delta for the total number of connector of an element to the element and all his ancestors
+     */
+    private void addTotalDeltas(List<ConnectorCapacityDelta> deltas, String elementId, List<String> ancestors, List<ConnectorClass> connectorClasses, int sign) {
+        if (connectorClasses == null) return;
+        for (ConnectorClass connectorClass : connectorClasses) {
+            if (connectorClass.getClassID() == null || connectorClass.getCount() == null) continue;
+            long total = (long) sign * connectorClass.getCount();
+            deltas.add(
+                    ConnectorCapacityDelta
+                            .builder()
+                            .elementId(elementId)
+                            .own(true)
+                            .connectorClassId(connectorClass.getClassID())
+                            .total(total)
+                            .build()
+            );
+            deltas.add(
+                    ConnectorCapacityDelta
+                            .builder()
+                            .elementId(elementId)
+                            .own(false)
+                            .connectorClassId(connectorClass.getClassID())
+                            .total(total)
+                            .build()
+            );
+            ancestors.forEach(
+                    ancestorId -> deltas.add(
+                            ConnectorCapacityDelta
+                                    .builder()
+                                    .elementId(ancestorId)
+                                    .own(false)
+                                    .connectorClassId(connectorClass.getClassID())
+                                    .total(total)
+                                    .build()
+                    )
+            );
+        }
+    }
+
+    /**
+     * Add the counters of the subtree of an element to all the ancestors of the element
+     */
+    private void addSubtreeDeltas(List<ConnectorCapacityDelta> deltas, InventoryElementCapacity capacity, List<String> ancestors, int sign) {
+        capacity.getSubtree().forEach(
+                (connectorClassId, counters) -> ancestors.forEach(
+                        ancestorId -> deltas.add(
+                                ConnectorCapacityDelta
+                                        .builder()
+                                        .elementId(ancestorId)
+                                        .own(false)
+                                        .connectorClassId(connectorClassId)
+                                        .total(sign * Objects.requireNonNullElse(counters.getTotal(), 0L))
+                                        .used(sign * Objects.requireNonNullElse(counters.getUsed(), 0L))
+                                        .build()
+                        )
+                )
+        );
+    }
+
+    /**
+     * Add the delta for the connector of the parent occupied by the element
+     */
+    private void addUsedDeltas(List<ConnectorCapacityDelta> deltas, InventoryElement element, InventoryElement parentElement, List<String> ancestors, int sign) {
+        if (parentElement == null || element.getClassId() == null) return;
+        if (connectorCount(parentElement.getConnectorClasses(), element.getClassId()) == 0) return;
+        // the ancestors of the element start from the root and end with the parent
+        addUsedDelta(deltas, parentElement.getId(), ancestors.subList(0, Math.max(0, ancestors.size() - 1)), element.getClassId(), sign);
+    }
+
+    /**
+     * Add the delta for the used connector of an element to the element and all his ancestors
+     */
+    private void addUsedDelta(List<ConnectorCapacityDelta> deltas, String elementId, List<String> ancestors, String connectorClassId, long used) {
+        if (used == 0) return;
+        deltas.add(
+                ConnectorCapacityDelta
+                        .builder()
+                        .elementId(elementId)
+                        .own(true)
+                        .connectorClassId(connectorClassId)
+                        .used(used)
+                        .build()
+        );
+        deltas.add(
+                ConnectorCapacityDelta
+                        .builder()
+                        .elementId(elementId)
+                        .own(false)
+                        .connectorClassId(connectorClassId)
+                        .used(used)
+                        .build()
+        );
+        ancestors.forEach(
+                ancestorId -> deltas.add(
+                        ConnectorCapacityDelta
+                                .builder()
+                                .elementId(ancestorId)
+                                .own(false)
+                                .connectorClassId(connectorClassId)
+                                .used(used)
+                                .build()
+                )
+        );
+    }
+
+    /**
+     * Return the number of connectors for a specific connector class
+     */
+    private long connectorCount(List<ConnectorClass> connectorClasses, String connectorClassId) {
+        if (connectorClasses == null) return 0;
+        return connectorClasses.stream()
+                .filter(cc -> Objects.equals(cc.getClassID(), connectorClassId) && cc.getCount() != null)
+                .mapToLong(ConnectorClass::getCount)
+                .sum();
+    }
+
+    /**
+     * Count the children of the element that belong to a specific class
+     */
+    private long countChildrenOfClass(InventoryElement element, String classId) {
+        return wrapCatch(
+                () -> mongoTemplate.count(
+                        new Query(
+                                Criteria.where("parentId").is(element.getId())
+                                        .and("classId").is(classId)
+                        ),
+                        InventoryElement.class
+                ),
+                -1
+        );
+    }
+
+    /**
+     * Remove the deltas that doesn't change anything, except the ones used
+     * to create the capacity document
+     */
+    private List<ConnectorCapacityDelta> filterEmpty(List<ConnectorCapacityDelta> deltas) {
+        Set<String> elementWithDelta = new HashSet<>();
+        List<ConnectorCapacityDelta> result = new ArrayList<>();
+        for (ConnectorCapacityDelta delta : deltas) {
+            if (delta.getConnectorClassId() != null && (delta.getTotal() != 0 || delta.getUsed() != 0)) {
+                result.add(delta);
+                elementWithDelta.add(delta.getElementId());
+            }
+        }
+        // keep the placeholder delta only for the element without any counter update
+        deltas.stream()
+                .filter(d -> d.getConnectorClassId() == null && !elementWithDelta.contains(d.getElementId()))
+                .findFirst()
+                .ifPresent(d -> result.add(0, d));
+        return result;
+    }
+
+    /**
+     * Apply a delta to an in memory capacity
+     */
+    private void applyInMemory(Map<String, InventoryElementCapacity> capacities, String domainId, ConnectorCapacityDelta delta) {
+        var capacity = capacities.computeIfAbsent(
+                delta.getElementId(),
+                id -> InventoryElementCapacity.builder().id(id).domainId(domainId).build()
+        );
+        var counters = (delta.isOwn() ? capacity.getOwn() : capacity.getSubtree())
+                .computeIfAbsent(delta.getConnectorClassId(), k -> ConnectorCapacity.builder().build());
+        counters.setTotal(counters.getTotal() + delta.getTotal());
+        counters.setUsed(counters.getUsed() + delta.getUsed());
+    }
+}
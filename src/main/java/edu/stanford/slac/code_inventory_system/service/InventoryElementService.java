@@ -11,6 +11,7 @@
 package edu.stanford.slac.code_inventory_system.service;
 
 import edu.stanford.slac.ad.eed.baselib.api.v1.dto.AuthorizationDTO;
+import edu.stanford.slac.ad.eed.baselib.api.v1.dto.AuthorizationTypeDTO;
 import edu.stanford.slac.ad.eed.baselib.api.v1.dto.NewAuthorizationDTO;
 import edu.stanford.slac.ad.eed.baselib.api.v1.mapper.AuthMapper;
 import edu.stanford.slac.ad.eed.baselib.exception.ControllerLogicException;
@@ -21,24 +22,34 @@ import edu.stanford.slac.code_inventory_system.api.v1.mapper.QueryParameterMappe
 import edu.stanford.slac.code_inventory_system.exception.*;
 import edu.stanford.slac.code_inventory_system.model.*;
 import edu.stanford.slac.code_inventory_system.model.value.AbstractValue;
+import edu.stanford.slac.code_inventory_system.repository.EntityVersion;
 import edu.stanford.slac.code_inventory_system.repository.InventoryDomainRepository;
 import edu.stanford.slac.code_inventory_system.repository.InventoryElementAttributeHistoryRepository;
 import edu.stanford.slac.code_inventory_system.repository.InventoryElementRepository;
+import edu.stanford.slac.code_inventory_system.repository.InventoryElementVersion;
+import edu.stanford.slac.code_inventory_system.repository.InventoryMaintenanceRepository;
+import edu.stanford.slac.code_inventory_system.repository.RequestIdentityMap;
+import edu.stanford.slac.code_inventory_system.service.utility.AuthorizationDecisionCache;
+import edu.stanford.slac.code_inventory_system.service.utility.ConcurrentLookup;
+import edu.stanford.slac.code_inventory_system.service.utility.ServiceOperation;
 import jakarta.validation.Valid;
 import jakarta.validation.constraints.NotNull;
 import lombok.AllArgsConstructor;
 import lombok.extern.log4j.Log4j2;
 import org.junit.jupiter.params.shadow.com.univocity.parsers.annotations.Validate;
+import org.springframework.security.core.Authentication;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.validation.annotation.Validated;
 
 import java.util.*;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 import static edu.stanford.slac.ad.eed.baselib.exception.Utility.any;
 import static edu.stanford.slac.ad.eed.baselib.exception.Utility.assertion;
 import static edu.stanford.slac.ad.eed.baselib.utility.StringUtilities.normalizeStringWithReplace;
+import static edu.stanford.slac.code_inventory_system.config.AppProperties.CIS_DOMAIN_AUTH_FORMAT;
 import static edu.stanford.slac.code_inventory_system.exception.Utility.wrapCatch;
 import static edu.stanford.slac.code_inventory_system.service.utility.IdValueObjectUtil.updateResource;
 
@@ -58,6 +69,12 @@ public class InventoryElementService {
     InventoryDomainRepository inventoryDomainRepository;
     InventoryElementRepository inventoryElementRepository;
     InventoryElementAttributeHistoryRepository inventoryElementAttributeHistoryRepository;
+    InventoryElementCapacityService inventoryElementCapacityService;
+    InventoryMaintenanceRepository inventoryMaintenanceRepository;
+    RequestIdentityMap requestIdentityMap;
+    ConcurrentLookup concurrentLookup;
+    AuthorizationDecisionCache authorizationDecisionCache;
+    InventoryDomainStatisticsService inventoryDomainStatisticsService;
 
     /**
      * Create new inventory domain, after the name normalization
@@ -66,6 +83,7 @@ public class InventoryElementService {
      * @return return the id of the newly create inventory domain
      */
     @Transactional
+    @ServiceOperation("domain.create")
     public String createNew(@Valid NewInventoryDomainDTO newInventoryDomainDTO) {
         String domainNormalizedName = normalizeStringWithReplace(
                 newInventoryDomainDTO.name(),
@@ -123,6 +141,7 @@ public class InventoryElementService {
      * @param updateDomainDTO the domain to update
      */
     @Transactional
+    @ServiceOperation("domain.update")
     public void update(String domainId, @Valid UpdateDomainDTO updateDomainDTO) {
         // get the inventory saved on database for work on tag and lock
         InventoryDomain savedDomain = wrapCatch(
@@ -148,10 +167,10 @@ public class InventoryElementService {
                 savedDomain.getTags(),
                 // these are the stored tags on database
                 storedTags,
-                (tagId) -> inventoryElementRepository.existsByDomainIdIsAndTagsContains(
-                        savedDomain.getId(),
-                        tagId
-                ),
+                // the usage counters answer without reading the elements
+                (tagIds) -> tagIds.stream()
+                        .filter(tagId -> tagUsage(savedDomain).getOrDefault(tagId, 0L) > 0)
+                        .collect(Collectors.toSet()),
                 (notFoundTag) -> TagNotFound.tagNotFound()
                         .errorCode(-3)
                         .tag((Tag) notFoundTag)
@@ -162,6 +181,12 @@ public class InventoryElementService {
                         .build()
         );
 
+        // the counters of the removed tags are dropped
+        if (savedDomain.getTagUsage() != null) {
+            Set<String> tagIds = savedDomain.getTags().stream().map(Tag::getId).collect(Collectors.toSet());
+            savedDomain.getTagUsage().keySet().retainAll(tagIds);
+        }
+
         // update authorization for the domain
         if (updateDomainDTO.authorizations() != null) {
             manageAuthorizationForDomain(savedDomain, updateDomainDTO.authorizations());
@@ -185,55 +210,61 @@ public class InventoryElementService {
     private void manageAuthorizationForDomain(InventoryDomain domain, @Valid List<AuthorizationDTO> authorizations) {
         String domainAuthorizationResource = "/cis/domain/%s".formatted(domain.getId());
         List<AuthorizationDTO> allAuthorizationForDomain = new ArrayList<>(authService.findByResourceIs(domainAuthorizationResource));
-        for (AuthorizationDTO authorization :
-                authorizations) {
-            if (authorization.id() == null) {
-                var newAuth = NewAuthorizationDTO
-                        .builder()
-                        .owner(authorization.owner())
-                        .authorizationType(authorization.authorizationType())
-                        .ownerType(authorization.ownerType())
-                        .resource(domainAuthorizationResource)
-                        .build();
-                String newId = authService.addNewAuthorization(
-                        newAuth
-                );
-                log.info("New authorization id {} created for domain {} with values {}", newId, domain.getName(), newAuth);
-            } else {
-                // remove authorization not more needed
-                boolean removed = allAuthorizationForDomain.removeIf(
-                        auth -> auth.id().compareToIgnoreCase(authorization.id()) == 0
-                );
-                // if the authorization has been removed from the allAuthorizationForDomain list
-                // means that it should not be removed
-                assertion(
-                        AuthorizationNotFound.authorizationNotFound()
-                                .errorCode(-1)
-                                .authId(authorization.id())
-                                .build(),
-                        () -> removed
-                );
+        try {
+            for (AuthorizationDTO authorization :
+                    authorizations) {
+                if (authorization.id() == null) {
+                    var newAuth = NewAuthorizationDTO
+                            .builder()
+                            .owner(authorization.owner())
+                            .authorizationType(authorization.authorizationType())
+                            .ownerType(authorization.ownerType())
+                            .resource(domainAuthorizationResource)
+                            .build();
+                    String newId = authService.addNewAuthorization(
+                            newAuth
+                    );
+                    log.info("New authorization id {} created for domain {} with values {}", newId, domain.getName(), newAuth);
+                } else {
+                    // remove authorization not more needed
+                    boolean removed = allAuthorizationForDomain.removeIf(
+                            auth -> auth.id().compareToIgnoreCase(authorization.id()) == 0
+                    );
+                    // if the authorization has been removed from the allAuthorizationForDomain list
+                    // means that it should not be removed
+                    assertion(
+                            AuthorizationNotFound.authorizationNotFound()
+                                    .errorCode(-1)
+                                    .authId(authorization.id())
+                                    .build(),
+                            () -> removed
+                    );
+                }
             }
-        }
 
-        // all the authorization that are still present on the allAuthorizationForDomain list
-        // needs to be removed
-        allAuthorizationForDomain.forEach(
-                authToRemove -> {
-                    authService.deleteAuthorizationById(authToRemove.id());
-                    log.info("Removed authorization id {} from domain {} with values {}", authToRemove.id(), domain.getName(), authToRemove);
-                }
-        );
+            // all the authorization that are still present on the allAuthorizationForDomain list
+            // needs to be removed
+            allAuthorizationForDomain.forEach(
+                    authToRemove -> {
+                        authService.deleteAuthorizationById(authToRemove.id());
+                        log.info("Removed authorization id {} from domain {} with values {}", authToRemove.id(), domain.getName(), authToRemove);
+                    }
+            );
+        } finally {
+            // the cached decisions on the domain are no more valid, also when only part of the changes are applied
+            authorizationDecisionCache.evictResource(domainAuthorizationResource);
+        }
     }
 
     /**
      * Return the full domain
      */
+    @ServiceOperation("domain.get")
     public InventoryDomainDTO getInventoryDomainById(String domainId) {
         var newlyCreatedDomain = wrapCatch(
-                () -> inventoryDomainRepository.findById(
+                () -> requestIdentityMap.findById(InventoryDomain.class, domainId, () -> inventoryDomainRepository.findById(
                         domainId
-                ),
+                )),
                 -1
         ).orElseThrow(
                 () -> InventoryDomainNotFound
@@ -245,11 +276,34 @@ public class InventoryElementService {
         return inventoryElementMapper.toDTO(newlyCreatedDomain);
     }
 
+    /**
+     * Return the entity tag of the domain, computed from the version only
+     * without loading the full domain
+     *
+     * @param domainId the domain id
+     * @return the entity tag of the domain
+     */
+    @ServiceOperation("domain.etag")
+    public String getInventoryDomainETag(String domainId) {
+        var domainVersion = wrapCatch(
+                () -> inventoryDomainRepository.findVersionById(domainId),
+                -1
+        ).orElseThrow(
+                () -> InventoryDomainNotFound
+                        .domainNotFoundById()
+                        .errorCode(-2)
+                        .id(domainId)
+                        .build()
+        );
+        return "d%d".formatted(domainVersion.versionOrZero());
+    }
+
     /**
      * Return all the domain
      *
      * @return the complete list of the domain
      */
+    @ServiceOperation("domain.find-all")
     public List<InventoryDomainSummaryDTO> findAllDomain() {
         return wrapCatch(
                 () -> inventoryDomainRepository.findAll(),
@@ -267,6 +321,7 @@ public class InventoryElementService {
      *
      * @param newInventoryElementDTO is the new inventory item to create
      */
+    @ServiceOperation("element.create")
     public String createNew(String domainId, @Valid NewInventoryElementDTO newInventoryElementDTO) {
         if (newInventoryElementDTO == null) return null;
 
@@ -285,24 +340,59 @@ public class InventoryElementService {
                 () -> domainId != null,
                 () -> !domainId.isEmpty()
         );
-        // convert element to model
-        var inventoryElementToSave = inventoryElementMapper.toModel(
-                domainId,
-                newInventoryElementDTO.toBuilder()
-                        .name(
-                                normalizeStringWithReplace(
-                                        newInventoryElementDTO.name(),
-                                        " ",
-                                        "-"
-                                )
+        // all the documents needed by the validation that don't depend on each other
+        // are fetched together
+        Supplier<InventoryElement> elementLookup;
+        Supplier<Optional<InventoryDomain>> domainLookup;
+        Supplier<Boolean> classExistsLookup;
+        Supplier<Boolean> tagsExistLookup = () -> true;
+        Supplier<Optional<InventoryElement>> parentLookup = Optional::empty;
+        try (var lookupScope = concurrentLookup.open()) {
+            // convert element to model
+            elementLookup = lookupScope.fork(
+                    () -> inventoryElementMapper.toModel(
+                            domainId,
+                            newInventoryElementDTO.toBuilder()
+                                    .name(
+                                            normalizeStringWithReplace(
+                                                    newInventoryElementDTO.name(),
+                                                    " ",
+                                                    "-"
+                                            )
+                                    )
+                                    .build()
+                    )
+            );
+            domainLookup = lookupScope.fork(
+                    () -> wrapCatch(
+                            () -> requestIdentityMap.findById(InventoryDomain.class, domainId, () -> inventoryDomainRepository.findById(domainId)),
+                            -1
+                    )
+            );
+            classExistsLookup = lookupScope.fork(
+                    () -> inventoryClassService.existsById(newInventoryElementDTO.classId())
+            );
+            if (newInventoryElementDTO.tags() != null && !newInventoryElementDTO.tags().isEmpty()) {
+                tagsExistLookup = lookupScope.fork(
+                        () -> wrapCatch(
+                                () -> inventoryDomainRepository.existsByIdAndAllTags(domainId, newInventoryElementDTO.tags()),
+                                -4
                         )
-                        .build()
-        );
+                );
+            }
+            if (newInventoryElementDTO.parentId() != null) {
+                parentLookup = lookupScope.fork(
+                        () -> wrapCatch(
+                                () -> requestIdentityMap.findById(InventoryElement.class, newInventoryElementDTO.parentId(), () -> inventoryElementRepository.findById(newInventoryElementDTO.parentId())),
+                                -5
+                        )
+                );
+            }
+            lookupScope.join();
+        }
+        var inventoryElementToSave = elementLookup.get();
 
-        var inventoryDomainFound = wrapCatch(
-                () -> inventoryDomainRepository.findById(domainId),
-                -1
-        ).orElseThrow(
+        var inventoryDomainFound = domainLookup.get().orElseThrow(
                 () -> InventoryElementNotFound
                         .elementNotFoundById()
                         .errorCode(-2)
@@ -317,7 +407,7 @@ public class InventoryElementService {
                         .errorCode(-3)
                         .id(inventoryElementToSave.getDomainId())
                         .build(),
-                () -> inventoryClassService.existsById(inventoryElementToSave.getClassId())
+                classExistsLookup::get
         );
 
         // checks for tag id existence
@@ -326,19 +416,14 @@ public class InventoryElementService {
                     TagNotFound.tagNotFoundAny()
                             .errorCode(-4)
                             .build(),
-                    () -> inventoryDomainRepository.existsByIdAndAllTags(
-                            inventoryElementToSave.getDomainId(),
-                            inventoryElementToSave.getTags()
-                    )
+                    tagsExistLookup::get
             );
         }
 
+        InventoryElement parentElement = null;
         if (inventoryElementToSave.getParentId() != null) {
             // check if parent exists and belong to the same domain
-            InventoryElement parentElement = wrapCatch(
-                    () -> inventoryElementRepository.findById(inventoryElementToSave.getParentId()),
-                    -5
-            ).orElseThrow(
+            parentElement = parentLookup.get().orElseThrow(
                     () -> InventoryElementNotFound
                             .elementNotFoundById()
                             .errorCode(-5)
@@ -353,7 +438,7 @@ public class InventoryElementService {
                             .parentElement(parentElement.getFullTreePath())
                             .actualDomain(inventoryElementToSave.getDomainId())
                             .build(),
-                    () -> inventoryElementRepository.existsById(inventoryElementToSave.getParentId())
+                    () -> requestIdentityMap.existsById(InventoryElement.class, inventoryElementToSave.getParentId(), () -> inventoryElementRepository.existsById(inventoryElementToSave.getParentId()))
             );
 
             // check if this element can be a child for the parent
@@ -402,6 +487,10 @@ public class InventoryElementService {
                 ),
                 -7
         );
+        updateTagUsage(domainId, Collections.emptyList(), newlyCreatedElement.getTags());
+        inventoryDomainStatisticsService.markChanged(domainId);
+        // update the connector capacity of the element and of his ancestors
+        inventoryElementCapacityService.onElementCreated(newlyCreatedElement, parentElement);
         log.info("User '{}' created new inventory element '{}[{}]' ", newlyCreatedElement.getCreatedBy(), newlyCreatedElement.getName(), inventoryDomainFound.getName());
         return newlyCreatedElement.getId();
     }
@@ -417,6 +506,7 @@ public class InventoryElementService {
      * @throws ControllerLogicException If the new implementation element does not belong to an authorized implementable class for the inventory element
      */
     @Transactional
+    @ServiceOperation("element.create-implementation")
     public String createNewImplementation(@NotNull String domainId, @NotNull String elementId, @NotNull NewInventoryElementDTO newImplementationElement) {
         // fetch the elements to implements
         var inventoryElementToImplements = wrapCatch(
@@ -489,10 +579,11 @@ public class InventoryElementService {
      * @param elementId the ID of the inventory element
      * @return a list of InventoryElementSummaryDTO objects representing the implementation history
      */
+    @ServiceOperation("element.implementation-history")
     public List<InventoryElementSummaryDTO> findAllImplementationForDomainAndElementIds(String domainId, String elementId) {
         // fetch the class for all implementation kind
         var foundElement = wrapCatch(
-                () -> inventoryElementRepository.findById(elementId),
+                () -> requestIdentityMap.findById(InventoryElement.class, elementId, () -> inventoryElementRepository.findById(elementId)),
                 1
         ).orElseThrow(
                 () -> InventoryElementNotFound.elementNotFoundById()
@@ -528,11 +619,12 @@ public class InventoryElementService {
      * @param updateInventoryElementDTO the information updatable
      */
     @Transactional
+    @ServiceOperation("element.update")
     public void update(String domainId, String elementId, @Valid UpdateInventoryElementDTO updateInventoryElementDTO) {
         if (updateInventoryElementDTO == null) return;
 
         var inventoryDomainFound = wrapCatch(
-                () -> inventoryDomainRepository.findById(domainId),
+                () -> requestIdentityMap.findById(InventoryDomain.class, domainId, () -> inventoryDomainRepository.findById(domainId)),
                 -1
         ).orElseThrow(
                 () -> InventoryElementNotFound
@@ -566,6 +658,10 @@ public class InventoryElementService {
         // keep away this for check what are the modified attribute to
         // update the history
         List<AbstractValue> oldAttribute = inventoryElementToUpdate.getAttributes();
+        List<ConnectorClass> oldConnectorClasses = inventoryElementToUpdate.getConnectorClasses() == null ?
+                Collections.emptyList() :
+                new ArrayList<>(inventoryElementToUpdate.getConnectorClasses());
+        List<String> oldTags = new ArrayList<>(inventoryElementToUpdate.getTags());
 
         // update the model
         inventoryElementMapper.updateModel(
@@ -594,9 +690,46 @@ public class InventoryElementService {
                 () -> inventoryElementRepository.save(inventoryElementToUpdate),
                 -5
         );
+        updateTagUsage(domainId, oldTags, updatedInventoryElement.getTags());
+        inventoryDomainStatisticsService.markChanged(domainId);
+        // realign the connector capacity only when the connectors are changed
+        if (!Objects.equals(oldConnectorClasses, updatedInventoryElement.getConnectorClasses())) {
+            inventoryElementCapacityService.onConnectorClassesUpdated(updatedInventoryElement, oldConnectorClasses);
+        }
         log.info("User '{}' updated the inventory element '{}[{}]' ", updatedInventoryElement.getCreatedBy(), updatedInventoryElement.getName(), inventoryDomainFound.getName());
     }
 
+    /**
+     * Update the tag usage counters of the domain for an element that change its tags
+     *
+     * @param domainId the domain of the element
+     * @param oldTags  the tags before the change, empty for a new element
+     * @param newTags  the tags after the change, empty for a deleted element
+     */
+    void updateTagUsage(String domainId, Collection<String> oldTags, Collection<String> newTags) {
+        Set<String> oldTagSet = oldTags == null ? Collections.emptySet() : new HashSet<>(oldTags);
+        Set<String> newTagSet = newTags == null ? Collections.emptySet() : new HashSet<>(newTags);
+        Map<String, Long> increments = new HashMap<>();
+        oldTagSet.stream().filter(t -> !newTagSet.contains(t)).forEach(t -> increments.put(t, -1L));
+        newTagSet.stream().filter(t -> !oldTagSet.contains(t)).forEach(t -> increments.put(t, 1L));
+        if (increments.isEmpty()) return;
+        wrapCatch(
+                () -> {
+                    inventoryDomainRepository.incrementTagUsage(domainId, increments);
+                    return null;
+                },
+                -10
+        );
+    }
+
+    /**
+     * Return the tag usage counters of a domain, the domains saved before the counters
+     * have none
+     */
+    private static Map<String, Long> tagUsage(InventoryDomain domain) {
+        return Objects.requireNonNullElse(domain.getTagUsage(), Collections.emptyMap());
+    }
+
     /**
      * Updates the attribute history of a specified element in a specific domain.
      *
@@ -638,23 +771,126 @@ public class InventoryElementService {
      * @param elementId the element id
      * @return the full inventory element
      */
+    @ServiceOperation("element.get")
     public InventoryElementDTO getInventoryElementByDomainIdAndElementId(String domainId, String elementId) {
-        // check if domain exists
-        assertion(
-                InventoryDomainNotFound.domainNotFoundById()
+        // the mapper reuse the domain loaded here for the tags and the domain summary
+        return requestIdentityMap.runInScope(
+                () -> {
+                    Supplier<Optional<InventoryDomain>> domainLookup;
+                    Supplier<Optional<InventoryElement>> elementLookup;
+                    try (var lookupScope = concurrentLookup.open()) {
+                        domainLookup = lookupScope.fork(
+                                () -> requestIdentityMap.findById(InventoryDomain.class, domainId, () -> inventoryDomainRepository.findById(domainId))
+                        );
+                        elementLookup = lookupScope.fork(
+                                () -> requestIdentityMap.findById(InventoryElement.class, elementId, () -> inventoryElementRepository.findById(elementId))
+                        );
+                        lookupScope.join();
+                    }
+                    // check if domain exists
+                    assertion(
+                            InventoryDomainNotFound.domainNotFoundById()
+                                    .errorCode(-1)
+                                    .id(domainId)
+                                    .build(),
+                            () -> domainLookup.get().isPresent()
+                    );
+                    // an element of another domain is not found
+                    return elementLookup.get().filter(e -> Objects.equals(e.getDomainId(), domainId)).map(
+                            inventoryElementMapper::toDTO
+                    ).orElseThrow(
+                            () -> InventoryElementNotFound.elementNotFoundById()
+                                    .errorCode(-2)
+                                    .id(elementId)
+                                    .build()
+                    );
+                }
+        );
+    }
+
+    /**
+     * Return the full inventory element with the requested related data embedded.
+     * All the parts are loaded in the same scope, so the domain, the element and his class
+     * are loaded only once, and the parts are loaded concurrently
+     *
+     * @param domainId      the domain id
+     * @param elementId     the element id
+     * @param expand        the related data to embed
+     * @param threePathType the type of the path to embed
+     * @return the full inventory element with the expanded parts
+     */
+    @ServiceOperation("element.get-expanded")
+    public InventoryElementDTO getInventoryElementByDomainIdAndElementId(String domainId, String elementId, Set<InventoryElementExpandDTO> expand, ThreePathType threePathType) {
+        if (expand == null || expand.isEmpty()) return getInventoryElementByDomainIdAndElementId(domainId, elementId);
+        return requestIdentityMap.runInScope(
+                () -> {
+                    // check the domain and the element, and cache them for all the parts
+                    InventoryElementDTO element = getInventoryElementByDomainIdAndElementId(domainId, elementId);
+                    Supplier<List<InventoryElementSummaryDTO>> childrenLookup = () -> null;
+                    Supplier<List<InventoryElementSummaryDTO>> pathLookup = () -> null;
+                    Supplier<List<InventoryElementAttributeHistoryDTO>> historyLookup = () -> null;
+                    Supplier<List<InventoryElementSummaryDTO>> implementationsLookup = () -> null;
+                    try (var lookupScope = concurrentLookup.open()) {
+                        if (expand.contains(InventoryElementExpandDTO.Children)) {
+                            childrenLookup = lookupScope.fork(() -> findAllChildrenByDomainIdAndElementId(domainId, elementId));
+                        }
+                        if (expand.contains(InventoryElementExpandDTO.Path)) {
+                            pathLookup = lookupScope.fork(() -> findThreePath(domainId, elementId, threePathType));
+                        }
+                        if (expand.contains(InventoryElementExpandDTO.History)) {
+                            historyLookup = lookupScope.fork(() -> findAllAttributeHistory(domainId, elementId));
+                        }
+                        if (expand.contains(InventoryElementExpandDTO.Implementations)) {
+                            implementationsLookup = lookupScope.fork(() -> findAllImplementationForDomainAndElementIds(domainId, elementId));
+                        }
+                        lookupScope.join();
+                    }
+                    return element.toBuilder()
+                            .children(childrenLookup.get())
+                            .path(pathLookup.get())
+                            .attributeHistory(historyLookup.get())
+                            .implementations(implementationsLookup.get())
+                            .build();
+                }
+        );
+    }
+
+    /**
+     * Return the entity tag of the element, computed without loading the full element.
+     * The element representation contains the domain tags and the class summary so the
+     * tag is composed by the version of the element, of his domain and of his class
+     *
+     * @param domainId  the domain id
+     * @param elementId the element id
+     * @return the entity tag of the element
+     */
+    @ServiceOperation("element.etag")
+    public String getInventoryElementETag(String domainId, String elementId) {
+        Supplier<Optional<EntityVersion>> domainLookup;
+        Supplier<Optional<InventoryElementVersion>> elementLookup;
+        try (var lookupScope = concurrentLookup.open()) {
+            domainLookup = lookupScope.fork(() -> inventoryDomainRepository.findVersionById(domainId));
+            elementLookup = lookupScope.fork(() -> inventoryElementRepository.findVersionById(elementId));
+            lookupScope.join();
+        }
+        var domainVersion = domainLookup.get().orElseThrow(
+                () -> InventoryDomainNotFound.domainNotFoundById()
                         .errorCode(-1)
                         .id(domainId)
-                        .build(),
-                () -> inventoryDomainRepository.existsById(domainId)
+                        .build()
         );
-        return inventoryElementRepository.findById(elementId).map(
-                inventoryElementMapper::toDTO
-        ).orElseThrow(
+        // an element of another domain is not found, as for the get of the element
+        var elementVersion = elementLookup.get().filter(v -> Objects.equals(v.getDomainId(), domainId)).orElseThrow(
                 () -> InventoryElementNotFound.elementNotFoundById()
                         .errorCode(-2)
                         .id(elementId)
                         .build()
         );
+        return "d%d-e%d-%s".formatted(
+                domainVersion.versionOrZero(),
+                elementVersion.versionOrZero(),
+                elementVersion.getClassId() == null ? "c0" : inventoryClassService.getETag(elementVersion.getClassId())
+        );
     }
 
     /**
@@ -664,6 +900,7 @@ public class InventoryElementService {
      * @param elementId the element id root for the child
      * @return the list of the summary of all the children
      */
+    @ServiceOperation("element.children")
     public List<InventoryElementSummaryDTO> findAllChildrenByDomainIdAndElementId(String domainId, String elementId) {
         // check if domain exists
         assertion(
@@ -671,7 +908,7 @@ public class InventoryElementService {
                         .errorCode(-1)
                         .id(domainId)
                         .build(),
-                () -> inventoryDomainRepository.existsById(domainId)
+                () -> requestIdentityMap.existsById(InventoryDomain.class, domainId, () -> inventoryDomainRepository.existsById(domainId))
         );
         return inventoryElementRepository.findAllByDomainIdIsAndParentIdIs(
                         domainId,
@@ -688,6 +925,7 @@ public class InventoryElementService {
      * @param domainId  the domain id
      * @return the list of the summary of all the root
      */
+    @ServiceOperation("element.roots")
     public List<InventoryElementSummaryDTO> findAllRootByDomainId(String domainId) {
         // check if domain exists
         assertion(
@@ -695,7 +933,7 @@ public class InventoryElementService {
                         .errorCode(-1)
                         .id(domainId)
                         .build(),
-                () -> inventoryDomainRepository.existsById(domainId)
+                () -> requestIdentityMap.existsById(InventoryDomain.class, domainId, () -> inventoryDomainRepository.existsById(domainId))
         );
         return inventoryElementRepository.findAllByDomainIdIsAndParentIdIsNull(
                         domainId)
@@ -711,6 +949,7 @@ public class InventoryElementService {
      * @param queryParameterDTO the query information
      * @return the list of found element
      */
+    @ServiceOperation("element.search")
     public List<InventoryElementSummaryDTO> findAllElements(@Valid QueryParameterDTO queryParameterDTO) {
         List<InventoryElement> found = wrapCatch(
                 () -> inventoryElementRepository.searchAll(
@@ -723,6 +962,148 @@ public class InventoryElementService {
         return found.stream().map(inventoryElementMapper::toSummaryDTO).toList();
     }
 
+    /**
+     * Perform the search operation on the elements of all the domains readable by the user,
+     * the readable domains are resolved once and applied as a single filter of the query
+     *
+     * @param authentication    the user that perform the search
+     * @param queryParameterDTO the query information, the domain ids restrict the search to these domains
+     * @return the list of found element
+     */
+    @ServiceOperation("element.search.readable")
+    public List<InventoryElementSummaryDTO> findAllElementsInReadableDomains(Authentication authentication, @Valid QueryParameterDTO queryParameterDTO) {
+        List<String> requestedDomainIds = Objects.requireNonNullElse(queryParameterDTO.domainId(), Collections.emptyList());
+        List<String> domainIds;
+        if (authorizationDecisionCache.checkForRoot(authentication)) {
+            // root can read all the domains, an empty list disable the domain filter
+            domainIds = requestedDomainIds;
+        } else {
+            Set<String> readableDomainIds = findReadableDomainIds(authentication);
+            domainIds = requestedDomainIds.isEmpty() ?
+                    List.copyOf(readableDomainIds) :
+                    requestedDomainIds.stream().filter(readableDomainIds::contains).toList();
+            if (domainIds.isEmpty()) return Collections.emptyList();
+        }
+        return findAllElements(queryParameterDTO.toBuilder().domainId(domainIds).build());
+    }
+
+    /**
+     * Return the ids of the domains that the user can read, the set is cached with
+     * the authorization decisions of the user. The read authorizations of the user
+     * on all the domains are fetched with a single query and the domain ids are taken
+     * from their resources
+     *
+     * @param authentication the user
+     * @return the ids of the readable domains
+     */
+    public Set<String> findReadableDomainIds(Authentication authentication) {
+        return authorizationDecisionCache.getForPrincipal(
+                "readable-domains",
+                authentication,
+                () -> {
+                    Set<String> domainIds = wrapCatch(
+                            () -> inventoryDomainRepository.findAllIdOnly(),
+                            -1
+                    )
+                            .stream()
+                            .map(InventoryDomain::getId)
+                            .collect(Collectors.toSet());
+                    if (authorizationDecisionCache.checkForRoot(authentication)) {
+                        return Collections.unmodifiableSet(domainIds);
+                    }
+                    String domainResourcePrefix = CIS_DOMAIN_AUTH_FORMAT.formatted("");
+                    return wrapCatch(
+                            () -> authService.getAllAuthorizationForOwnerAndAndAuthTypeAndResourcePrefix(
+                                    authentication.getCredentials().toString(),
+                                    AuthorizationTypeDTO.Read,
+                                    domainResourcePrefix
+                            ),
+                            -2
+                    )
+                            .stream()
+                            .map(AuthorizationDTO::resource)
+                            .map(resource -> resource.substring(domainResourcePrefix.length()))
+                            // the authorizations of the resources nested into a domain are of that domain
+                            .map(resource -> resource.contains("/") ? resource.substring(0, resource.indexOf('/')) : resource)
+                            .filter(domainIds::contains)
+                            .collect(Collectors.toUnmodifiableSet());
+                }
+        );
+    }
+
+    /**
+     * Append a new maintenance record to an element, the element document is not touched
+     *
+     * @param domainId                   the ID of the inventory domain
+     * @param elementId                  the ID of the inventory element
+     * @param newInventoryMaintenanceDTO the record to append
+     * @return the id of the new record
+     */
+    @ServiceOperation("element.maintenance.create")
+    public String appendMaintenance(String domainId, String elementId, @Valid NewInventoryMaintenanceDTO newInventoryMaintenanceDTO) {
+        assertElementInDomain(domainId, elementId);
+        var newRecord = wrapCatch(
+                () -> inventoryMaintenanceRepository.insert(
+                        inventoryElementMapper.toModel(domainId, elementId, newInventoryMaintenanceDTO)
+                ),
+                -3
+        );
+        log.info("User '{}' added maintenance record '{}' to the element '{}'", newRecord.getCreatedBy(), newRecord.getAction(), elementId);
+        return newRecord.getId();
+    }
+
+    /**
+     * Return a page of the maintenance records of an element, from the most recent one
+     *
+     * @param domainId  the ID of the inventory domain
+     * @param elementId the ID of the inventory element
+     * @param anchorId  the id of the last record of the previous page, null for the first page
+     * @param limit     the maximum number of record to return
+     * @return the list of the records
+     */
+    @ServiceOperation("element.maintenance.history")
+    public List<InventoryMaintenanceDTO> findAllMaintenance(String domainId, String elementId, String anchorId, Integer limit) {
+        assertElementInDomain(domainId, elementId);
+        var foundMaintenance = wrapCatch(
+                () -> inventoryMaintenanceRepository.findPageByElement(
+                        domainId,
+                        elementId,
+                        anchorId,
+                        limit == null || limit <= 0 ? 20 : limit
+                ),
+                -3
+        );
+        return foundMaintenance
+                .stream()
+                .map(inventoryElementMapper::toDTO)
+                .toList();
+    }
+
+    /**
+     * Check that the element exists and belong to the domain
+     *
+     * @param domainId  the ID of the inventory domain
+     * @param elementId the ID of the inventory element
+     */
+    private void assertElementInDomain(String domainId, String elementId) {
+        var foundElement = wrapCatch(
+                () -> requestIdentityMap.findById(InventoryElement.class, elementId, () -> inventoryElementRepository.findById(elementId)),
+                -1
+        ).orElseThrow(
+                () -> InventoryElementNotFound.elementNotFoundById()
+                        .errorCode(-1)
+                        .id(elementId)
+                        .build()
+        );
+        assertion(
+                ControllerLogicException.builder()
+                        .errorCode(-2)
+                        .errorMessage("Domain mismatch for this element")
+                        .build(),
+                () -> Objects.equals(foundElement.getDomainId(), domainId)
+        );
+    }
+
     /**
      * Finds the history of a specific attribute for a given domain, element, and attribute name.
      *
@@ -730,6 +1111,7 @@ public class InventoryElementService {
      * @param elementId the ID of the inventory element
      * @return a list of InventoryElementAttributeHistory objects representing the attribute history
      */
+    @ServiceOperation("element.attribute.history")
     public List<InventoryElementAttributeHistoryDTO> findAllAttributeHistory(
             String domainId,
             String elementId
@@ -752,6 +1134,7 @@ public class InventoryElementService {
      * @param elementId the ID of the element
      * @param threePathType    specify the type of path to return
      */
+    @ServiceOperation("element.path")
     public List<InventoryElementSummaryDTO> findThreePath(String domainId, String elementId, ThreePathType threePathType) {
         List<InventoryElement> inventoryElements = new ArrayList<>();
         assertion(
@@ -759,11 +1142,11 @@ public class InventoryElementService {
                         .errorCode(-1)
                         .id(domainId)
                         .build(),
-                () -> inventoryDomainRepository.existsById(domainId)
+                () -> requestIdentityMap.existsById(InventoryDomain.class, domainId, () -> inventoryDomainRepository.existsById(domainId))
         );
 
         InventoryElement targetElement = wrapCatch(
-                        () -> inventoryElementRepository.findById(elementId),
+                        () -> requestIdentityMap.findById(InventoryElement.class, elementId, () -> inventoryElementRepository.findById(elementId)),
                         -2
                 ).orElseThrow(
                         () -> InventoryElementNotFound
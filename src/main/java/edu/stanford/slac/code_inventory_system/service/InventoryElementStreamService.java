@@ -0,0 +1,243 @@
+package edu.stanford.slac.code_inventory_system.service;
+
+import edu.stanford.slac.ad.eed.baselib.exception.ControllerLogicException;
+import edu.stanford.slac.code_inventory_system.api.v1.dto.InventoryClassSummaryDTO;
+import edu.stanford.slac.code_inventory_system.api.v1.dto.InventoryElementAttributeHistoryDTO;
+import edu.stanford.slac.code_inventory_system.api.v1.dto.InventoryElementDTO;
+import edu.stanford.slac.code_inventory_system.api.v1.dto.InventoryElementSummaryDTO;
+import edu.stanford.slac.code_inventory_system.api.v1.mapper.InventoryClassMapper;
+import edu.stanford.slac.code_inventory_system.api.v1.mapper.InventoryElementMapper;
+import edu.stanford.slac.code_inventory_system.exception.InventoryDomainNotFound;
+import edu.stanford.slac.code_inventory_system.exception.InventoryElementNotFound;
+import edu.stanford.slac.code_inventory_system.model.InventoryClass;
+import edu.stanford.slac.code_inventory_system.model.InventoryDomain;
+import edu.stanford.slac.code_inventory_system.model.InventoryElement;
+import edu.stanford.slac.code_inventory_system.model.QueryParameter;
+import edu.stanford.slac.code_inventory_system.repository.InventoryElementRepositoryImpl;
+import edu.stanford.slac.code_inventory_system.repository.reactive.ReactiveInventoryElementAttributeHistoryRepository;
+import edu.stanford.slac.code_inventory_system.repository.reactive.ReactiveInventoryElementRepository;
+import lombok.AllArgsConstructor;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+import static edu.stanford.slac.code_inventory_system.service.utility.TreePathUtil.childTreePath;
+
+/**
+ * Streaming read api over the reactive mongodb driver.
+ * <p>
+ * The elements are emitted as soon as they are read from the cursor and the cursor is
+ * advanced only on the demand of the subscriber, so large result set are never
+ * materialized in memory. The domain and the classes needed by the conversion are loaded
+ * once for each stream and the pipeline never execute blocking calls.
+ */
+@Log4j2
+@Service
+@AllArgsConstructor
+public class InventoryElementStreamService {
+    ReactiveMongoTemplate reactiveMongoTemplate;
+    InventoryClassMapper inventoryClassMapper;
+    InventoryElementMapper inventoryElementMapper;
+    ReactiveInventoryElementRepository reactiveInventoryElementRepository;
+    ReactiveInventoryElementAttributeHistoryRepository reactiveInventoryElementAttributeHistoryRepository;
+
+    /**
+     * Stream all the elements that match the query parameter ordered by name,
+     * the pagination fields of the parameter are ignored
+     *
+     * @param queryParameter the search parameter
+     * @return the found elements
+     */
+    public Flux<InventoryElementSummaryDTO> searchAll(QueryParameter queryParameter) {
+        var query = InventoryElementRepositoryImpl
+                .getFilterQuery(queryParameter)
+                .with(Sort.by(Sort.Direction.ASC, "name"));
+        return toSummaryDTO(
+                reactiveMongoTemplate.find(query, InventoryElement.class),
+                new ConcurrentHashMap<>(),
+                new ConcurrentHashMap<>()
+        );
+    }
+
+    /**
+     * Stream all the descendant of an element ordered by tree path and name, so each
+     * element is emitted after his parent and the siblings are sorted by name
+     *
+     * @param domainId  the domain of the element
+     * @param elementId the root of the subtree
+     * @return the descendant of the element
+     */
+    public Flux<InventoryElementSummaryDTO> findSubtree(String domainId, String elementId) {
+        return findElementInDomain(domainId, elementId)
+                .flatMapMany(
+                        element -> reactiveInventoryElementRepository.findAllByDomainIdAndFullTreePathMatches(
+                                domainId,
+                                // the path is composed only by ids, so it can be used as anchored prefix that can use the index
+                                "^%s(/|$)".formatted(childTreePath(element)),
+                                Sort.by(Sort.Direction.ASC, "fullTreePath", "name")
+                        )
+                )
+                .transform(
+                        elements -> toSummaryDTO(elements, new ConcurrentHashMap<>(), new ConcurrentHashMap<>())
+                );
+    }
+
+    /**
+     * Stream all the attribute history of an element from the older one
+     *
+     * @param domainId  the domain of the element
+     * @param elementId the element id
+     * @return the attribute history
+     */
+    public Flux<InventoryElementAttributeHistoryDTO> findAllAttributeHistory(String domainId, String elementId) {
+        return reactiveInventoryElementAttributeHistoryRepository
+                .findAllByInventoryDomainIdIsAndInventoryElementIdIs(
+                        domainId,
+                        elementId,
+                        Sort.by(Sort.Direction.ASC, "createdDate", "id")
+                )
+                .map(inventoryElementMapper::toDTO);
+    }
+
+    /**
+     * Stream all the elements of a domain, the parent are always emitted before their children
+     *
+     * @param domainId the domain to export
+     * @return all the elements of the domain
+     */
+    public Flux<InventoryElementDTO> exportDomain(String domainId) {
+        return findDomain(domainId)
+                .flatMapMany(
+                        domain -> mapWithClass(
+                                reactiveInventoryElementRepository.findAllByDomainIdIs(
+                                        domainId,
+                                        Sort.by(Sort.Direction.ASC, "fullTreePath", "name")
+                                ),
+                                element -> Mono.just(domain),
+                                new ConcurrentHashMap<>(),
+                                inventoryElementMapper::toDTO
+                        )
+                );
+    }
+
+    /**
+     * Convert a single element to his summary, the domain and the class are read
+     * from the database so the result reflect their current state
+     *
+     * @param element the element to convert
+     * @return the summary of the element
+     */
+    public Mono<InventoryElementSummaryDTO> toSummaryDTO(InventoryElement element) {
+        return toSummaryDTO(
+                Flux.just(element),
+                new ConcurrentHashMap<>(),
+                new ConcurrentHashMap<>()
+        ).next();
+    }
+
+    /**
+     * Return the element checking that it belongs to the domain
+     */
+    private Mono<InventoryElement> findElementInDomain(String domainId, String elementId) {
+        return reactiveInventoryElementRepository.findById(elementId)
+                .switchIfEmpty(
+                        Mono.error(
+                                () -> InventoryElementNotFound.elementNotFoundById()
+                                        .errorCode(-1)
+                                        .id(elementId)
+                                        .build()
+                        )
+                )
+                .flatMap(
+                        element -> Objects.equals(element.getDomainId(), domainId) ?
+                                Mono.just(element) :
+                                Mono.error(
+                                        ControllerLogicException.builder()
+                                                .errorCode(-2)
+                                                .errorMessage("Domain mismatch for this element")
+                                                .errorDomain("InventoryElementStreamService::findElementInDomain")
+                                                .build()
+                                )
+                );
+    }
+
+    /**
+     * Return the domain or an error if it doesn't exist
+     */
+    private Mono<InventoryDomain> findDomain(String domainId) {
+        return reactiveMongoTemplate.findById(domainId, InventoryDomain.class)
+                .switchIfEmpty(
+                        Mono.error(
+                                () -> InventoryDomainNotFound.domainNotFoundById()
+                                        .errorCode(-1)
+                                        .id(domainId)
+                                        .build()
+                        )
+                );
+    }
+
+    /**
+     * Convert the elements to their summary, the elements can belong to different domains
+     */
+    private Flux<InventoryElementSummaryDTO> toSummaryDTO(
+            Flux<InventoryElement> elements,
+            Map<String, Mono<InventoryDomain>> domainCache,
+            Map<String, Mono<InventoryClassSummaryDTO>> classCache
+    ) {
+        return mapWithClass(
+                elements,
+                element -> domainCache.computeIfAbsent(element.getDomainId(), id -> findDomain(id).cache()),
+                classCache,
+                inventoryElementMapper::toSummaryDTO
+        );
+    }
+
+    /**
+     * Convert each element with his domain and class, every domain and class is read only once
+     * for each stream and the order of the elements is preserved
+     */
+    private <T> Flux<T> mapWithClass(
+            Flux<InventoryElement> elements,
+            Function<InventoryElement, Mono<InventoryDomain>> domainSupplier,
+            Map<String, Mono<InventoryClassSummaryDTO>> classCache,
+            ElementConverter<T> converter
+    ) {
+        return elements.concatMap(
+                element -> domainSupplier.apply(element)
+                        .flatMap(
+                                domain -> findClassSummary(element.getClassId(), classCache)
+                                        .map(classSummary -> converter.apply(element, domain, classSummary))
+                                        .switchIfEmpty(Mono.fromSupplier(() -> converter.apply(element, domain, null)))
+                        )
+        );
+    }
+
+    /**
+     * Return the summary of the class using the per-stream cache
+     */
+    private Mono<InventoryClassSummaryDTO> findClassSummary(String classId, Map<String, Mono<InventoryClassSummaryDTO>> classCache) {
+        if (classId == null) return Mono.empty();
+        return classCache.computeIfAbsent(
+                classId,
+                id -> reactiveMongoTemplate.findById(id, InventoryClass.class)
+                        .map(inventoryClassMapper::toSummaryDTO)
+                        .cache()
+        );
+    }
+
+    /**
+     * Convert an element with his already loaded domain and class
+     */
+    @FunctionalInterface
+    private interface ElementConverter<T> {
+        T apply(InventoryElement element, InventoryDomain domain, InventoryClassSummaryDTO classSummary);
+    }
+}
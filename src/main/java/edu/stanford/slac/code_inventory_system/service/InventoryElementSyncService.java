@@ -0,0 +1,262 @@
+package edu.stanford.slac.code_inventory_system.service;
+
+import edu.stanford.slac.ad.eed.baselib.exception.ControllerLogicException;
+import edu.stanford.slac.code_inventory_system.api.v1.dto.InventoryChangeOperationDTO;
+import edu.stanford.slac.code_inventory_system.api.v1.dto.InventoryClassSummaryDTO;
+import edu.stanford.slac.code_inventory_system.api.v1.dto.InventoryElementSyncEntryDTO;
+import edu.stanford.slac.code_inventory_system.api.v1.dto.InventoryElementSyncPageDTO;
+import edu.stanford.slac.code_inventory_system.api.v1.mapper.InventoryClassMapper;
+import edu.stanford.slac.code_inventory_system.api.v1.mapper.InventoryElementMapper;
+import edu.stanford.slac.code_inventory_system.exception.InventoryDomainNotFound;
+import edu.stanford.slac.code_inventory_system.model.InventoryClass;
+import edu.stanford.slac.code_inventory_system.model.InventoryDomain;
+import edu.stanford.slac.code_inventory_system.model.InventoryElement;
+import edu.stanford.slac.code_inventory_system.model.InventoryElementTombstone;
+import edu.stanford.slac.code_inventory_system.repository.InventoryClassRepository;
+import edu.stanford.slac.code_inventory_system.repository.InventoryDomainRepository;
+import edu.stanford.slac.code_inventory_system.repository.InventoryElementTombstoneRepository;
+import edu.stanford.slac.code_inventory_system.service.utility.ServiceOperation;
+import lombok.AllArgsConstructor;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.*;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static edu.stanford.slac.code_inventory_system.exception.Utility.wrapCatch;
+
+/**
+ * Incremental synchronization of the elements of a domain.
+ * <p>
+ * The elements modified and the tombstones of the deleted ones are returned in a single
+ * sequence ordered by date and id, the position in the sequence is the watermark that the
+ * client send back for the next page. The most recent changes are held back for a small
+ * window, so the changes saved concurrently with a page, that could get an older
+ * modification date, are not skipped.
+ */
+@Log4j2
+@Service
+@AllArgsConstructor
+public class InventoryElementSyncService {
+    /**
+     * The changes newer than this window are not returned
+     */
+    static final Duration SETTLE_WINDOW = Duration.ofSeconds(2);
+    MongoTemplate mongoTemplate;
+    InventoryClassMapper inventoryClassMapper;
+    InventoryElementMapper inventoryElementMapper;
+    InventoryClassRepository inventoryClassRepository;
+    InventoryDomainRepository inventoryDomainRepository;
+    InventoryElementTombstoneRepository inventoryElementTombstoneRepository;
+
+    /**
+     * The position in the sequence of changes, without id all the changes at the date are included
+     */
+    private record Watermark(LocalDateTime date, String id) {
+    }
+
+    /**
+     * A change read from the elements or from the tombstones
+     */
+    private record SyncEntry(LocalDateTime date, String id, InventoryElement element) {
+    }
+
+    /**
+     * Return the changes of the domain after the watermark
+     *
+     * @param domainId  the domain id
+     * @param watermark the watermark returned by the previous page
+     * @param since     used when the watermark is missing, return the changes from this date
+     * @param limit     the maximum number of changes
+     * @return the page of changes with the watermark for the next one
+     */
+    @ServiceOperation("element.sync")
+    public InventoryElementSyncPageDTO findChanges(String domainId, Optional<String> watermark, Optional<LocalDateTime> since, int limit) {
+        InventoryDomain domain = wrapCatch(
+                () -> inventoryDomainRepository.findById(domainId),
+                -1
+        ).orElseThrow(
+                () -> InventoryDomainNotFound.domainNotFoundById()
+                        .errorCode(-2)
+                        .id(domainId)
+                        .build()
+        );
+        Watermark start = watermark
+                .map(InventoryElementSyncService::decodeWatermark)
+                .orElse(since.map(date -> new Watermark(date, null)).orElse(null));
+        LocalDateTime until = LocalDateTime.now().minus(SETTLE_WINDOW);
+
+        // read one more change from each source to know if there are other pages
+        var elements = wrapCatch(
+                () -> mongoTemplate.find(
+                        changesQuery(domainId, "lastModifiedDate", start, until, limit + 1),
+                        InventoryElement.class
+                ),
+                -3
+        );
+        var tombstones = wrapCatch(
+                () -> mongoTemplate.find(
+                        changesQuery(domainId, "deletedDate", start, until, limit + 1),
+                        InventoryElementTombstone.class
+                ),
+                -4
+        );
+        List<SyncEntry> merged = Stream.concat(
+                        elements.stream().map(e -> new SyncEntry(e.getLastModifiedDate(), e.getId(), e)),
+                        tombstones.stream().map(t -> new SyncEntry(t.getDeletedDate(), t.getId(), null))
+                )
+                .sorted(Comparator.comparing(SyncEntry::date).thenComparing(SyncEntry::id))
+                .toList();
+        boolean hasMore = merged.size() > limit;
+        List<SyncEntry> page = hasMore ? merged.subList(0, limit) : merged;
+
+        // the classes of the page are read with a single query
+        Map<String, InventoryClassSummaryDTO> classSummaries = wrapCatch(
+                () -> inventoryClassRepository.findAllById(
+                        page.stream()
+                                .map(SyncEntry::element)
+                                .filter(Objects::nonNull)
+                                .map(InventoryElement::getClassId)
+                                .filter(Objects::nonNull)
+                                .collect(Collectors.toSet())
+                ),
+                -5
+        ).stream().collect(Collectors.toMap(InventoryClass::getId, inventoryClassMapper::toSummaryDTO));
+
+        String nextWatermark = page.isEmpty() ?
+                watermark.orElse(start != null ? encodeWatermark(start) : null) :
+                encodeWatermark(new Watermark(page.get(page.size() - 1).date(), page.get(page.size() - 1).id()));
+        return InventoryElementSyncPageDTO.builder()
+                .changes(
+                        page.stream()
+                                .map(entry -> toDTO(entry, start, domain, classSummaries::get))
+                                .toList()
+                )
+                .watermark(nextWatermark)
+                .hasMore(hasMore)
+                .build();
+    }
+
+    /**
+     * Record the deletion of an element, must be called for each deleted element
+     *
+     * @param element   the deleted element
+     * @param deletedBy the user that has deleted the element
+     */
+    public void recordDeletion(InventoryElement element, String deletedBy) {
+        recordDeletions(element.getDomainId(), List.of(element.getId()), deletedBy);
+    }
+
+    /**
+     * Record the deletion of a batch of elements of a domain with a single bulk write
+     *
+     * @param domainId   the domain of the deleted elements
+     * @param elementIds the ids of the deleted elements
+     * @param deletedBy  the user that has deleted the elements
+     */
+    public void recordDeletions(String domainId, Collection<String> elementIds, String deletedBy) {
+        if (elementIds.isEmpty()) return;
+        LocalDateTime deletedDate = LocalDateTime.now();
+        BulkOperations bulkOperations = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, InventoryElementTombstone.class);
+        elementIds.forEach(
+                elementId -> bulkOperations.upsert(
+                        new Query(Criteria.where("id").is(elementId)),
+                        new Update()
+                                .set("domainId", domainId)
+                                .set("deletedDate", deletedDate)
+                                .set("deletedBy", deletedBy)
+                )
+        );
+        wrapCatch(
+                bulkOperations::execute,
+                -1
+        );
+    }
+
+    /**
+     * Return the query for the changes after the watermark, ordered by date and id
+     */
+    private static Query changesQuery(String domainId, String dateField, Watermark start, LocalDateTime until, int limit) {
+        Criteria criteria = Criteria.where("domainId").is(domainId);
+        if (start != null && start.id() == null) {
+            criteria = criteria.and(dateField).gte(start.date()).lt(until);
+        } else if (start != null) {
+            criteria = criteria.orOperator(
+                    Criteria.where(dateField).gt(start.date()).lt(until),
+                    // the id is compared as is, the ids of the same date are ordered by the index
+                    Criteria.where(dateField).is(start.date()).and("id").gt(start.id())
+            );
+        } else {
+            criteria = criteria.and(dateField).lt(until);
+        }
+        return new Query(criteria)
+                .with(Sort.by(Sort.Direction.ASC, dateField, "id"))
+                .limit(limit);
+    }
+
+    private InventoryElementSyncEntryDTO toDTO(
+            SyncEntry entry,
+            Watermark start,
+            InventoryDomain domain,
+            Function<String, InventoryClassSummaryDTO> classSummary
+    ) {
+        if (entry.element() == null) {
+            return InventoryElementSyncEntryDTO.builder()
+                    .operation(InventoryChangeOperationDTO.Delete)
+                    .id(entry.id())
+                    .timestamp(entry.date())
+                    .build();
+        }
+        InventoryElement element = entry.element();
+        boolean created = start == null || element.getCreatedDate() == null || element.getCreatedDate().isAfter(start.date());
+        return InventoryElementSyncEntryDTO.builder()
+                .operation(created ? InventoryChangeOperationDTO.Create : InventoryChangeOperationDTO.Update)
+                .id(entry.id())
+                .timestamp(entry.date())
+                .element(
+                        inventoryElementMapper.toDTO(
+                                element,
+                                domain,
+                                element.getClassId() != null ? classSummary.apply(element.getClassId()) : null
+                        )
+                )
+                .build();
+    }
+
+    private static String encodeWatermark(Watermark watermark) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(
+                "%s|%s".formatted(watermark.date(), Objects.toString(watermark.id(), "")).getBytes(StandardCharsets.UTF_8)
+        );
+    }
+
+    private static Watermark decodeWatermark(String watermark) {
+        try {
+            String decoded = new String(Base64.getUrlDecoder().decode(watermark), StandardCharsets.UTF_8);
+            int separator = decoded.indexOf('|');
+            if (separator < 0) throw new IllegalArgumentException("Missing separator");
+            String id = decoded.substring(separator + 1);
+            return new Watermark(
+                    LocalDateTime.parse(decoded.substring(0, separator)),
+                    id.isEmpty() ? null : id
+            );
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            throw ControllerLogicException.builder()
+                    .errorCode(-1)
+                    .errorMessage("The watermark is not valid")
+                    .errorDomain("InventoryElementSyncService::decodeWatermark")
+                    .build();
+        }
+    }
+}
@@ -0,0 +1,325 @@
+package edu.stanford.slac.code_inventory_system.service;
+
+import edu.stanford.slac.ad.eed.baselib.exception.ControllerLogicException;
+import edu.stanford.slac.code_inventory_system.api.v1.dto.InventoryJobDTO;
+import edu.stanford.slac.code_inventory_system.api.v1.mapper.InventoryElementMapper;
+import edu.stanford.slac.code_inventory_system.model.InventoryJob;
+import edu.stanford.slac.code_inventory_system.model.InventoryJobState;
+import edu.stanford.slac.code_inventory_system.service.utility.InventoryJobContext;
+import edu.stanford.slac.code_inventory_system.service.utility.InventoryJobHandler;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+import java.net.InetAddress;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.*;
+
+import static edu.stanford.slac.code_inventory_system.exception.Utility.wrapCatch;
+
+/**
+ * Persistent execution of the background jobs.
+ * <p>
+ * The jobs are saved in mongodb and are taken by the nodes with the same lease pattern used
+ * by the Mongock lock: a node atomically set itself as owner of a pending job, or of a job
+ * whose lease is expired, and renews the lease until the job ends. So a job is executed by a
+ * single node, and the jobs of a stopped node are resumed by the others from their last
+ * checkpoint. Each node executes at most a fixed number of jobs at the same time.
+ */
+@Log4j2
+@Service
+public class InventoryJobService {
+    /**
+     * A job taken more than this number of times is considered failed
+     */
+    static final int MAX_ATTEMPTS = 3;
+    /**
+     * The maximum number of issues kept in the report of a job
+     */
+    static final int MAX_ISSUES = 1000;
+    private final MongoTemplate mongoTemplate;
+    private final InventoryElementMapper inventoryElementMapper;
+    private final ObjectProvider<InventoryJobHandler> jobHandlers;
+    private final boolean enabled;
+    private final int workers;
+    private final Duration lease;
+    private final Duration pollInterval;
+    private final String nodeId;
+    private final Semaphore freeWorkers;
+    private final Set<String> localJobs = ConcurrentHashMap.newKeySet();
+    private ScheduledExecutorService scheduler;
+    private ExecutorService workerExecutor;
+    /**
+     * Set when the node is stopping, the jobs interrupted by the stop are released and not failed
+     */
+    private volatile boolean stopping;
+
+    public InventoryJobService(
+            MongoTemplate mongoTemplate,
+            InventoryElementMapper inventoryElementMapper,
+            ObjectProvider<InventoryJobHandler> jobHandlers,
+            @Value("${cis.job.enabled:true}") boolean enabled,
+            @Value("${cis.job.workers:2}") int workers,
+            @Value("${cis.job.lease:PT1M}") Duration lease,
+            @Value("${cis.job.poll-interval:PT5S}") Duration pollInterval) {
+        this.mongoTemplate = mongoTemplate;
+        this.inventoryElementMapper = inventoryElementMapper;
+        this.jobHandlers = jobHandlers;
+        this.enabled = enabled;
+        this.workers = workers;
+        this.lease = lease;
+        this.pollInterval = pollInterval;
+        this.nodeId = "%s-%s".formatted(hostName(), UUID.randomUUID());
+        this.freeWorkers = new Semaphore(workers);
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            log.info("The execution of the background jobs is disabled on this node");
+            return;
+        }
+        stopping = false;
+        workerExecutor = Executors.newFixedThreadPool(workers, Thread.ofVirtual().name("cis-job-", 0).factory());
+        scheduler = Executors.newSingleThreadScheduledExecutor(Thread.ofPlatform().name("cis-job-scheduler").daemon().factory());
+        scheduler.scheduleWithFixedDelay(this::poll, 0, pollInterval.toMillis(), TimeUnit.MILLISECONDS);
+        log.info("Node '{}' executes up to {} background jobs", nodeId, workers);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (scheduler == null) return;
+        stopping = true;
+        scheduler.shutdownNow();
+        workerExecutor.shutdownNow();
+        try {
+            // give the interrupted jobs the time to exit before releasing them
+            if (!workerExecutor.awaitTermination(5, TimeUnit.SECONDS)) {
+                log.warn("Some background jobs of node '{}' have not been stopped", nodeId);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        // the jobs of this node are released so they can be resumed immediately by the other nodes
+        if (!localJobs.isEmpty()) {
+            mongoTemplate.updateMulti(
+                    new Query(Criteria.where("id").in(localJobs).and("owner").is(nodeId).and("state").is(InventoryJobState.Running)),
+                    new Update().set("state", InventoryJobState.Pending).unset("owner").unset("leaseUntil"),
+                    InventoryJob.class
+            );
+        }
+    }
+
+    /**
+     * Save a new job, it is executed in background by the first node with a free worker
+     *
+     * @param job the job to execute
+     * @return the id of the job
+     */
+    public String submit(InventoryJob job) {
+        var savedJob = wrapCatch(
+                () -> mongoTemplate.insert(
+                        job.toBuilder()
+                                .id(null)
+                                .state(InventoryJobState.Pending)
+                                .processed(0L)
+                                .attempts(0)
+                                .createdDate(LocalDateTime.now())
+                                .build()
+                ),
+                -1
+        );
+        log.info("User '{}' submitted the job '{}' {}", savedJob.getCreatedBy(), savedJob.getId(), savedJob.getType());
+        // don't wait the next poll to start the job
+        if (scheduler != null && !scheduler.isShutdown()) {
+            scheduler.execute(this::poll);
+        }
+        return savedJob.getId();
+    }
+
+    /**
+     * Return the state and the progress of a job
+     *
+     * @param jobId the job id
+     * @return the job
+     */
+    public InventoryJobDTO findById(String jobId) {
+        InventoryJob job = wrapCatch(
+                () -> mongoTemplate.findById(jobId, InventoryJob.class),
+                -1
+        );
+        if (job == null) {
+            throw ControllerLogicException.builder()
+                    .errorCode(-2)
+                    .errorMessage("The job '%s' has not been found".formatted(jobId))
+                    .errorDomain("InventoryJobService::findById")
+                    .build();
+        }
+        return inventoryElementMapper.toDTO(job);
+    }
+
+    /**
+     * Renew the lease of the local jobs and start new jobs while there are free workers
+     */
+    void poll() {
+        try {
+            if (!localJobs.isEmpty()) {
+                mongoTemplate.updateMulti(
+                        new Query(Criteria.where("id").in(localJobs).and("owner").is(nodeId)),
+                        new Update().set("leaseUntil", LocalDateTime.now().plus(lease)),
+                        InventoryJob.class
+                );
+            }
+            while (freeWorkers.tryAcquire()) {
+                InventoryJob job = claim();
+                if (job == null) {
+                    freeWorkers.release();
+                    break;
+                }
+                localJobs.add(job.getId());
+                workerExecutor.submit(() -> run(job));
+            }
+        } catch (Throwable e) {
+            // the scheduler stops on the first exception
+            log.error("Error polling the background jobs", e);
+        }
+    }
+
+    /**
+     * Take the oldest pending job, or a job abandoned by his node
+     */
+    private InventoryJob claim() {
+        LocalDateTime now = LocalDateTime.now();
+        while (true) {
+            InventoryJob job = mongoTemplate.findAndModify(
+                    new Query(
+                            new Criteria().orOperator(
+                                    Criteria.where("state").is(InventoryJobState.Pending),
+                                    Criteria.where("state").is(InventoryJobState.Running).and("leaseUntil").lt(now)
+                            )
+                    ).with(Sort.by(Sort.Direction.ASC, "createdDate")),
+                    new Update()
+                            .set("state", InventoryJobState.Running)
+                            .set("owner", nodeId)
+                            .set("leaseUntil", now.plus(lease))
+                            .set("startedDate", now)
+                            .inc("attempts", 1),
+                    FindAndModifyOptions.options().returnNew(true),
+                    InventoryJob.class
+            );
+            if (job == null || job.getAttempts() <= MAX_ATTEMPTS) return job;
+            finish(job, InventoryJobState.Failed, "The job has been abandoned %d times".formatted(MAX_ATTEMPTS));
+        }
+    }
+
+    private void run(InventoryJob job) {
+        try {
+            InventoryJobHandler handler = jobHandlers.orderedStream()
+                    .filter(h -> h.handledTypes().contains(job.getType()))
+                    .findFirst()
+                    .orElseThrow(() -> new IllegalStateException("No handler for the job type %s".formatted(job.getType())));
+            log.info("Job '{}' {} started, attempt {}", job.getId(), job.getType(), job.getAttempts());
+            handler.execute(job, new LeasedJobContext(job.getId()));
+            finish(job, InventoryJobState.Completed, null);
+        } catch (Throwable e) {
+            if (stopping) {
+                // the job is released by the stop, or resumed by another node when the lease expires
+                log.info("Job '{}' {} interrupted by the stop of the node", job.getId(), job.getType());
+                return;
+            }
+            log.error("Job '{}' {} failed", job.getId(), job.getType(), e);
+            finish(job, InventoryJobState.Failed, e.getMessage());
+        } finally {
+            localJobs.remove(job.getId());
+            freeWorkers.release();
+        }
+    }
+
+    /**
+     * Terminate the job, only if it is still owned by this node
+     */
+    private void finish(InventoryJob job, InventoryJobState state, String errorMessage) {
+        var result = mongoTemplate.updateFirst(
+                new Query(Criteria.where("id").is(job.getId()).and("owner").is(nodeId)),
+                new Update()
+                        .set("state", state)
+                        .set("errorMessage", errorMessage)
+                        .set("completedDate", LocalDateTime.now())
+                        .unset("leaseUntil"),
+                InventoryJob.class
+        );
+        if (result.getMatchedCount() == 0) {
+            log.warn("Job '{}' {} has been taken by another node", job.getId(), job.getType());
+            return;
+        }
+        log.info("Job '{}' {} {}", job.getId(), job.getType(), state);
+    }
+
+    /**
+     * Save the progress of a job owned by this node renewing the lease
+     */
+    private class LeasedJobContext implements InventoryJobContext {
+        private final String jobId;
+
+        private LeasedJobContext(String jobId) {
+            this.jobId = jobId;
+        }
+
+        @Override
+        public void progress(long processed) {
+            save(new Update().inc("processed", processed));
+        }
+
+        @Override
+        public void checkpoint(String checkpoint, long processed) {
+            save(new Update().inc("processed", processed).set("checkpoint", checkpoint));
+        }
+
+        @Override
+        public void checkpoint(String checkpoint, long processed, Map<String, Long> counters, List<String> issues) {
+            Update update = new Update().inc("processed", processed).set("checkpoint", checkpoint);
+            counters.forEach((name, increment) -> update.inc("counters.%s".formatted(name), increment));
+            if (!issues.isEmpty()) {
+                update.push("issues").slice(MAX_ISSUES).each(issues.toArray());
+            }
+            save(update);
+        }
+
+        private void save(Update update) {
+            var result = mongoTemplate.updateFirst(
+                    new Query(Criteria.where("id").is(jobId).and("owner").is(nodeId).and("state").is(InventoryJobState.Running)),
+                    update.set("leaseUntil", LocalDateTime.now().plus(lease)),
+                    InventoryJob.class
+            );
+            if (result.getMatchedCount() == 0) {
+                throw ControllerLogicException.builder()
+                        .errorCode(-1)
+                        .errorMessage("The lease of the job '%s' has been lost".formatted(jobId))
+                        .errorDomain("InventoryJobService::checkpoint")
+                        .build();
+            }
+        }
+    }
+
+    private static String hostName() {
+        try {
+            return InetAddress.getLocalHost().getHostName();
+        } catch (Exception e) {
+            return "unknown";
+        }
+    }
+}
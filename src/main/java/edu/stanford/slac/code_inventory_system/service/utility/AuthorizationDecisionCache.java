@@ -0,0 +1,142 @@
+package edu.stanford.slac.code_inventory_system.service.utility;
+
+import edu.stanford.slac.ad.eed.baselib.api.v1.dto.AuthorizationDTO;
+import edu.stanford.slac.ad.eed.baselib.api.v1.dto.AuthorizationTypeDTO;
+import edu.stanford.slac.ad.eed.baselib.service.AuthService;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.Authentication;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Short lived cache of the authorization decisions of the {@link AuthService}.
+ * <p>
+ * The root and the resource checks are cached for each principal, the authorizations of a
+ * resource are cached for all the principals. The entries of a resource are evicted when its
+ * authorizations are changed by this instance, the changes made by other instances or by the
+ * group membership are seen after the time to live. A zero time to live disables the cache.
+ */
+@Log4j2
+@Component
+public class AuthorizationDecisionCache {
+    private static final String ALL_RESOURCES = "*";
+    private final AuthService authService;
+    private final long ttlNanos;
+    private final int maxSize;
+    private final Map<Key, Entry> entries = new ConcurrentHashMap<>();
+
+    /**
+     * The key of a decision, the principal is null for the resource authorizations
+     */
+    private record Key(String kind, String principal, String resource, AuthorizationTypeDTO type) {
+    }
+
+    private record Entry(Object value, long expireAt) {
+    }
+
+    public AuthorizationDecisionCache(
+            AuthService authService,
+            @Value("${cis.auth.decision-cache.ttl:PT30S}") Duration ttl,
+            @Value("${cis.auth.decision-cache.max-size:10000}") int maxSize) {
+        this.authService = authService;
+        this.ttlNanos = ttl.toNanos();
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * Cached version of {@link AuthService#checkForRoot(Authentication)}
+     */
+    public boolean checkForRoot(Authentication authentication) {
+        if (authentication == null) return authService.checkForRoot(authentication);
+        return get(
+                new Key("root", authentication.getName(), null, null),
+                () -> authService.checkForRoot(authentication)
+        );
+    }
+
+    /**
+     * Cached version of {@link AuthService#checkAuthorizationForOwnerAuthTypeAndResourcePrefix(Authentication, AuthorizationTypeDTO, String)}
+     */
+    public boolean checkAuthorizationForOwnerAuthTypeAndResourcePrefix(
+            Authentication authentication,
+            AuthorizationTypeDTO authorizationType,
+            String resourcePrefix) {
+        if (authentication == null) {
+            return authService.checkAuthorizationForOwnerAuthTypeAndResourcePrefix(authentication, authorizationType, resourcePrefix);
+        }
+        return get(
+                new Key("resource", authentication.getName(), resourcePrefix, authorizationType),
+                () -> authService.checkAuthorizationForOwnerAuthTypeAndResourcePrefix(authentication, authorizationType, resourcePrefix)
+        );
+    }
+
+    /**
+     * Cached version of {@link AuthService#findByResourceIs(String)}
+     */
+    public List<AuthorizationDTO> findByResourceIs(String resource) {
+        return get(
+                new Key("authorizations", null, resource, null),
+                () -> authService.findByResourceIs(resource)
+        );
+    }
+
+    /**
+     * Cache a value computed from the authorizations of the principal on all the resources,
+     * for example the list of the readable domains. The value is evicted when the
+     * authorizations of any resource are changed
+     *
+     * @param kind           the name of the value
+     * @param authentication the principal
+     * @param loader         compute the value when it is not cached
+     * @return the cached value
+     */
+    public <T> T getForPrincipal(String kind, Authentication authentication, Supplier<T> loader) {
+        if (authentication == null) return loader.get();
+        return get(new Key(kind, authentication.getName(), ALL_RESOURCES, null), loader);
+    }
+
+    /**
+     * Evict all the entries of a resource, to call when the authorizations of the
+     * resource are changed
+     *
+     * @param resource the resource
+     */
+    public void evictResource(String resource) {
+        entries.keySet().removeIf(
+                key -> Objects.equals(key.resource(), resource) || Objects.equals(key.resource(), ALL_RESOURCES)
+        );
+    }
+
+    /**
+     * Evict all the entries
+     */
+    public void evictAll() {
+        entries.clear();
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> T get(Key key, Supplier<T> loader) {
+        if (ttlNanos <= 0) return loader.get();
+        long now = System.nanoTime();
+        Entry entry = entries.get(key);
+        if (entry != null && entry.expireAt() - now > 0) return (T) entry.value();
+        T value = loader.get();
+        if (entries.size() >= maxSize) {
+            // drop the expired entries, if there is no space yet the cache is restarted
+            entries.values().removeIf(e -> e.expireAt() - now <= 0);
+            if (entries.size() >= maxSize) {
+                log.debug("Authorization decision cache full, {} entries evicted", entries.size());
+                entries.clear();
+            }
+        }
+        entries.put(key, new Entry(value, now + ttlNanos));
+        return value;
+    }
+}
@@ -1,6 +1,15 @@
 package edu.stanford.slac.code_inventory_system.service.utility;
 
+import java.util.Collection;
+import java.util.Set;
+
 @FunctionalInterface
 public interface CheckIdInUse {
-    boolean inUse(String tagId);
+    /**
+     * Return which of the ids are in use, all the ids are checked at once
+     *
+     * @param ids the ids to check
+     * @return the ids in use
+     */
+    Set<String> findInUse(Collection<String> ids);
 }
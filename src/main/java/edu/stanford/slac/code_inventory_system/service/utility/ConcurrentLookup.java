@@ -0,0 +1,57 @@
+package edu.stanford.slac.code_inventory_system.service.utility;
+
+import edu.stanford.slac.code_inventory_system.config.MongoCommandCounter;
+import edu.stanford.slac.code_inventory_system.repository.RequestIdentityMap;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executors;
+
+/**
+ * Create the {@link LookupScope} used to run the independent mongodb lookups.
+ * <p>
+ * When enabled each lookup is executed on its own virtual thread, so the latency of a
+ * group of lookups is the one of the slowest instead of the sum of all.
+ * The request identity map, the mongodb command counter and the security context of
+ * the caller are propagated to the forked lookups.
+ */
+@Component
+public class ConcurrentLookup {
+    private final boolean enabled;
+    private final RequestIdentityMap requestIdentityMap;
+    private final MongoCommandCounter mongoCommandCounter;
+
+    public ConcurrentLookup(
+            @Value("${cis.lookup.concurrent:true}") boolean enabled,
+            RequestIdentityMap requestIdentityMap,
+            MongoCommandCounter mongoCommandCounter) {
+        this.enabled = enabled;
+        this.requestIdentityMap = requestIdentityMap;
+        this.mongoCommandCounter = mongoCommandCounter;
+    }
+
+    /**
+     * Open a new scope
+     *
+     * @return the scope to use in a try-with-resources
+     */
+    public LookupScope open() {
+        if (!enabled) return new LookupScope(null, task -> task);
+        return new LookupScope(Executors.newVirtualThreadPerTaskExecutor(), this::propagateContext);
+    }
+
+    private Callable<?> propagateContext(Callable<?> task) {
+        var securityContext = SecurityContextHolder.getContext();
+        Callable<?> withRequestScope = mongoCommandCounter.propagate(requestIdentityMap.propagate(task));
+        return () -> {
+            SecurityContextHolder.setContext(securityContext);
+            try {
+                return withRequestScope.call();
+            } finally {
+                SecurityContextHolder.clearContext();
+            }
+        };
+    }
+}
@@ -1,7 +1,6 @@
 package edu.stanford.slac.code_inventory_system.service.utility;
 
-import java.util.List;
-import java.util.UUID;
+import java.util.*;
 
 import static edu.stanford.slac.ad.eed.baselib.exception.Utility.assertion;
 import static edu.stanford.slac.ad.eed.baselib.utility.StringUtilities.normalizeStringWithReplace;
@@ -32,6 +31,10 @@ public class IdValueObjectUtil {
                 )
         );
 
+        // index the actual resources by id, so the lists are compared in linear time
+        Map<String, IdNameInterface> actualById = new HashMap<>();
+        actualList.forEach(a -> actualById.put(a.getId(), a));
+        Set<String> updatedIds = new HashSet<>();
         for (IdNameInterface updateTag :
                 updatedList) {
             if (updateTag.getId() == null) {
@@ -41,27 +44,29 @@ public class IdValueObjectUtil {
             }
             // if we have an id it should be found or is a wrong id
             assertion(
-                    () -> actualList.stream().anyMatch(
-                            s -> s.getId().compareTo(
-                                    updateTag.getId()
-                            ) == 0
-                    ),
+                    () -> actualById.containsKey(updateTag.getId()),
                     exceptionForNotFoundResource.getException(updateTag)
             );
+            updatedIds.add(updateTag.getId());
         }
 
-        // check which tag should be removed
-        for (IdNameInterface storedTag :
-                actualList) {
-            boolean willBeUpdated = updatedList.stream().anyMatch(
-                    ut -> ut.getId() != null && ut.getId().compareTo(storedTag.getId()) == 0
-            );
-            if (willBeUpdated) continue;
-
-            assertion(
-                    () -> !checkIdInUse.inUse(storedTag.getId()),
-                    exceptionForResourceInUse.getException(storedTag)
+        // the removed resources are checked for usage all together
+        List<IdNameInterface> removed = actualList.stream()
+                .filter(storedTag -> !updatedIds.contains(storedTag.getId()))
+                .map(IdNameInterface.class::cast)
+                .toList();
+        if (!removed.isEmpty()) {
+            Set<String> inUse = checkIdInUse.findInUse(
+                    removed.stream().map(IdNameInterface::getId).toList()
             );
+            removed.stream()
+                    .filter(storedTag -> inUse.contains(storedTag.getId()))
+                    .findFirst()
+                    .ifPresent(
+                            storedTag -> {
+                                throw exceptionForResourceInUse.getException(storedTag);
+                            }
+                    );
         }
 
         // return the all managed resoruces
@@ -0,0 +1,37 @@
+package edu.stanford.slac.code_inventory_system.service.utility;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Give to a running job the way to save his progress. Each call renews the lease of the
+ * job, and throws when the lease has been lost so the job stops.
+ */
+public interface InventoryJobContext {
+    /**
+     * Add the processed items to the progress of the job
+     *
+     * @param processed the number of items processed since the last call
+     */
+    void progress(long processed);
+
+    /**
+     * Add the processed items to the progress of the job and save the position from
+     * which the job is resumed
+     *
+     * @param checkpoint the position reached by the job
+     * @param processed  the number of items processed since the last call
+     */
+    void checkpoint(String checkpoint, long processed);
+
+    /**
+     * Same as {@link #checkpoint(String, long)}, also adds the counters and the issues
+     * found since the last call to the report of the job
+     *
+     * @param checkpoint the position reached by the job
+     * @param processed  the number of items processed since the last call
+     * @param counters   the increment of the counters of the job
+     * @param issues     the new issues found by the job
+     */
+    void checkpoint(String checkpoint, long processed, Map<String, Long> counters, List<String> issues);
+}
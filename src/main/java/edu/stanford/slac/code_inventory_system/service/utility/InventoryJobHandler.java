@@ -0,0 +1,30 @@
+package edu.stanford.slac.code_inventory_system.service.utility;
+
+import edu.stanford.slac.code_inventory_system.model.InventoryJob;
+import edu.stanford.slac.code_inventory_system.model.InventoryJobType;
+
+import java.util.Set;
+
+/**
+ * Execute the background jobs of some types, the handlers are the spring beans that
+ * implement this interface.
+ * <p>
+ * A job can be executed more than once, when the node that was running it stops before the
+ * end, so the handler need to resume from the {@link InventoryJob#getCheckpoint() checkpoint}
+ * or to be written so that the work already done is skipped.
+ */
+public interface InventoryJobHandler {
+    /**
+     * @return the types of the jobs executed by the handler
+     */
+    Set<InventoryJobType> handledTypes();
+
+    /**
+     * Execute the job, the job is completed when the method returns and is failed when
+     * the method throws
+     *
+     * @param job     the job to execute
+     * @param context used to notify the progress and to save the checkpoints
+     */
+    void execute(InventoryJob job, InventoryJobContext context);
+}
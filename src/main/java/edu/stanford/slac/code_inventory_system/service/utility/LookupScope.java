@@ -0,0 +1,103 @@
+package edu.stanford.slac.code_inventory_system.service.utility;
+
+import edu.stanford.slac.ad.eed.baselib.exception.ControllerLogicException;
+
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Run a group of independent lookups and wait for all of them.
+ * <p>
+ * It follows the shutdown-on-failure policy of the structured concurrency: the first
+ * failed lookup cancels all the others and is rethrown by {@link #join()}. Without an
+ * executor the lookups are executed inline, one after the other, with the same semantic.
+ * The scope need to be used by the thread that created it within a try-with-resources.
+ */
+public class LookupScope implements AutoCloseable {
+    private final ExecutorService executorService;
+    private final Function<Callable<?>, Callable<?>> contextPropagator;
+    private final List<Future<?>> forkedLookups = new CopyOnWriteArrayList<>();
+    private final AtomicReference<Throwable> firstFailure = new AtomicReference<>();
+
+    LookupScope(ExecutorService executorService, Function<Callable<?>, Callable<?>> contextPropagator) {
+        this.executorService = executorService;
+        this.contextPropagator = contextPropagator;
+    }
+
+    /**
+     * Start a lookup
+     *
+     * @param lookup the lookup to execute
+     * @return the supplier of the result, usable only after {@link #join()}
+     */
+    @SuppressWarnings("unchecked")
+    public <T> Supplier<T> fork(Callable<T> lookup) {
+        if (firstFailure.get() != null) return () -> null;
+        if (executorService == null) {
+            try {
+                T result = lookup.call();
+                return () -> result;
+            } catch (Throwable e) {
+                firstFailure.compareAndSet(null, e);
+                return () -> null;
+            }
+        }
+        Callable<T> propagated = (Callable<T>) contextPropagator.apply(lookup);
+        Future<T> future = executorService.submit(
+                () -> {
+                    try {
+                        return propagated.call();
+                    } catch (Throwable e) {
+                        if (firstFailure.compareAndSet(null, e)) {
+                            // shutdown on failure
+                            forkedLookups.forEach(f -> f.cancel(true));
+                        }
+                        throw e;
+                    }
+                }
+        );
+        forkedLookups.add(future);
+        return () -> future.state() == Future.State.SUCCESS ? future.resultNow() : null;
+    }
+
+    /**
+     * Wait for all the lookups and rethrow the first failure
+     */
+    public void join() {
+        for (Future<?> future : forkedLookups) {
+            try {
+                future.get();
+            } catch (CancellationException | ExecutionException e) {
+                // the failure is managed below
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                forkedLookups.forEach(f -> f.cancel(true));
+                throw ControllerLogicException.builder()
+                        .errorCode(-1)
+                        .errorMessage("Lookup interrupted")
+                        .errorDomain("LookupScope::join")
+                        .build();
+            }
+        }
+        Throwable failure = firstFailure.get();
+        if (failure == null) return;
+        if (failure instanceof RuntimeException runtimeException) throw runtimeException;
+        if (failure instanceof Error error) throw error;
+        throw ControllerLogicException.builder()
+                .errorCode(-1)
+                .errorMessage(failure.getMessage())
+                .errorDomain("LookupScope::join")
+                .build();
+    }
+
+    @Override
+    public void close() {
+        if (executorService == null) return;
+        // nothing can survive the scope
+        forkedLookups.forEach(f -> f.cancel(true));
+        executorService.shutdownNow();
+    }
+}
@@ -0,0 +1,19 @@
+package edu.stanford.slac.code_inventory_system.service.utility;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Mark a service method as an operation measured by the
+ * {@link edu.stanford.slac.code_inventory_system.config.ServiceMetricsAspect}
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface ServiceOperation {
+    /**
+     * @return the name of the operation used as tag of the metrics, for example element.create
+     */
+    String value();
+}
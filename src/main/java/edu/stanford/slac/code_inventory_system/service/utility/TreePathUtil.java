@@ -0,0 +1,39 @@
+package edu.stanford.slac.code_inventory_system.service.utility;
+
+import edu.stanford.slac.code_inventory_system.model.InventoryElement;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static java.util.Collections.emptyList;
+
+/**
+ * Helper for the management of the {@link InventoryElement#getFullTreePath() full tree path}
+ */
+public class TreePathUtil {
+    /**
+     * Return the ids of all the ancestors of an element, from the root to the parent
+     *
+     * @param fullTreePath the full tree path of the element
+     * @return the ordered list of the ancestor ids
+     */
+    static public List<String> ancestorIds(String fullTreePath) {
+        if (fullTreePath == null || fullTreePath.isEmpty()) return emptyList();
+        return Arrays.stream(fullTreePath.split("/"))
+                .filter(id -> !id.isEmpty())
+                .toList();
+    }
+
+    /**
+     * Return the full tree path that the children of an element will have
+     *
+     * @param parent the parent element
+     * @return the full tree path for the children of the parent
+     */
+    static public String childTreePath(InventoryElement parent) {
+        if (parent.getFullTreePath() != null) {
+            return "%s/%s".formatted(parent.getFullTreePath(), parent.getId());
+        }
+        return "/%s".formatted(parent.getId());
+    }
+}
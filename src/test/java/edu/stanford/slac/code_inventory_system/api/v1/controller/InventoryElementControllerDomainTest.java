@@ -6,7 +6,10 @@ import edu.stanford.slac.ad.eed.baselib.exception.NotAuthorized;
 import edu.stanford.slac.ad.eed.baselib.model.AuthenticationToken;
 import edu.stanford.slac.ad.eed.baselib.model.Authorization;
 import edu.stanford.slac.ad.eed.baselib.service.AuthService;
+import edu.stanford.slac.code_inventory_system.api.v1.dto.InventoryElementSummaryDTO;
+import edu.stanford.slac.code_inventory_system.api.v1.dto.NewInventoryClassDTO;
 import edu.stanford.slac.code_inventory_system.api.v1.dto.NewInventoryDomainDTO;
+import edu.stanford.slac.code_inventory_system.api.v1.dto.NewInventoryElementDTO;
 import edu.stanford.slac.code_inventory_system.api.v1.dto.TagDTO;
 import edu.stanford.slac.code_inventory_system.api.v1.dto.UpdateDomainDTO;
 import edu.stanford.slac.code_inventory_system.model.InventoryClass;
@@ -23,6 +26,7 @@ import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMock
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.data.mongodb.core.MongoTemplate;
 import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.http.HttpHeaders;
 import org.springframework.test.annotation.DirtiesContext;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.web.servlet.MockMvc;
@@ -32,6 +36,7 @@ import java.util.List;
 import java.util.Optional;
 
 import static edu.stanford.slac.ad.eed.baselib.api.v1.dto.AuthorizationOwnerTypeDTO.User;
+import static edu.stanford.slac.ad.eed.baselib.api.v1.dto.AuthorizationTypeDTO.Read;
 import static edu.stanford.slac.ad.eed.baselib.api.v1.dto.AuthorizationTypeDTO.Write;
 import static java.util.Collections.emptyList;
 import static org.assertj.core.api.AssertionsForInterfaceTypes.assertThat;
@@ -203,6 +208,271 @@ public class InventoryElementControllerDomainTest {
         assertThat(fullDomain.getPayload().authorizations()).hasSize(1);
     }
 
+    @Test
+    public void findDomainWithETag() {
+        var createDomainByRootResult = assertDoesNotThrow(
+                ()->testControllerHelperService.inventoryElementControllerCreateNewDomain(
+                        mockMvc,
+                        status().isCreated(),
+                        Optional.of("user1@slac.stanford.edu"),
+                        NewInventoryDomainDTO
+                                .builder()
+                                .name("lcls-inventory")
+                                .description("Inventory for the LCLS")
+                                .tags(emptyList())
+                                .authorizations(emptyList())
+                                .authenticationTokens(emptyList())
+                                .build()
+                )
+        );
+        String domainId = createDomainByRootResult.getPayload();
+        var firstRead = assertDoesNotThrow(
+                ()->testControllerHelperService.executeConditionalGet(
+                        mockMvc,
+                        status().isOk(),
+                        Optional.of("user1@slac.stanford.edu"),
+                        Optional.empty(),
+                        "/v1/inventory/domain/{domainId}",
+                        domainId
+                )
+        );
+        String eTag = firstRead.getResponse().getHeader(HttpHeaders.ETAG);
+        assertThat(eTag).isNotNull();
+
+        // same version return not modified without body
+        var notModified = assertDoesNotThrow(
+                ()->testControllerHelperService.executeConditionalGet(
+                        mockMvc,
+                        status().isNotModified(),
+                        Optional.of("user1@slac.stanford.edu"),
+                        Optional.of(eTag),
+                        "/v1/inventory/domain/{domainId}",
+                        domainId
+                )
+        );
+        assertThat(notModified.getResponse().getContentAsString()).isEmpty();
+
+        // the update change the version and so the tag
+        assertDoesNotThrow(
+                ()->testControllerHelperService.inventoryElementControllerUpdateDomain(
+                        mockMvc,
+                        status().isOk(),
+                        Optional.of("user1@slac.stanford.edu"),
+                        domainId,
+                        UpdateDomainDTO
+                                .builder()
+                                .name("lcls-inventory")
+                                .description("Inventory for the LCLS updated")
+                                .tags(emptyList())
+                                .authorizations(emptyList())
+                                .authenticationTokens(emptyList())
+                                .build()
+                )
+        );
+        var modified = assertDoesNotThrow(
+                ()->testControllerHelperService.executeConditionalGet(
+                        mockMvc,
+                        status().isOk(),
+                        Optional.of("user1@slac.stanford.edu"),
+                        Optional.of(eTag),
+                        "/v1/inventory/domain/{domainId}",
+                        domainId
+                )
+        );
+        assertThat(modified.getResponse().getHeader(HttpHeaders.ETAG)).isNotEqualTo(eTag);
+        assertThat(modified.getResponse().getContentAsString()).contains("Inventory for the LCLS updated");
+    }
+
+    @Test
+    public void searchElementsInReadableDomains() {
+        var classId = assertDoesNotThrow(
+                ()->testControllerHelperService.inventoryClassControllerCreateNew(
+                        mockMvc,
+                        status().isCreated(),
+                        Optional.of("user1@slac.stanford.edu"),
+                        NewInventoryClassDTO
+                                .builder()
+                                .name("building")
+                                .attributes(emptyList())
+                                .build()
+                )
+        ).getPayload();
+        String readableDomainId = createDomainWithAuthorizations(
+                "readable-domain",
+                List.of(
+                        AuthorizationDTO
+                                .builder()
+                                .authorizationType(Read)
+                                .owner("user2@slac.stanford.edu")
+                                .ownerType(User)
+                                .build()
+                )
+        );
+        String otherDomainId = createDomainWithAuthorizations("other-domain", emptyList());
+        String readableElementId = createElement(readableDomainId, classId, "readable building");
+        String otherElementId = createElement(otherDomainId, classId, "other building");
+
+        // user2 finds only the elements of the domain that can read
+        var userSearch = assertDoesNotThrow(
+                ()->testControllerHelperService.inventoryElementControllerFindAllElementsInReadableDomains(
+                        mockMvc,
+                        status().isOk(),
+                        Optional.of("user2@slac.stanford.edu"),
+                        Optional.empty(),
+                        Optional.empty(),
+                        Optional.of(10)
+                )
+        );
+        assertThat(userSearch.getPayload())
+                .extracting(InventoryElementSummaryDTO::id)
+                .containsExactly(readableElementId);
+
+        // the requested domains are restricted to the readable ones
+        var restrictedSearch = assertDoesNotThrow(
+                ()->testControllerHelperService.inventoryElementControllerFindAllElementsInReadableDomains(
+                        mockMvc,
+                        status().isOk(),
+                        Optional.of("user2@slac.stanford.edu"),
+                        Optional.of(List.of(otherDomainId)),
+                        Optional.empty(),
+                        Optional.of(10)
+                )
+        );
+        assertThat(restrictedSearch.getPayload()).isEmpty();
+
+        // root finds the elements of all the domains, without a limit the default page is returned
+        var rootSearch = assertDoesNotThrow(
+                ()->testControllerHelperService.inventoryElementControllerFindAllElementsInReadableDomains(
+                        mockMvc,
+                        status().isOk(),
+                        Optional.of("user1@slac.stanford.edu"),
+                        Optional.empty(),
+                        Optional.empty(),
+                        Optional.empty()
+                )
+        );
+        assertThat(rootSearch.getPayload())
+                .extracting(InventoryElementSummaryDTO::id)
+                .containsExactlyInAnyOrder(readableElementId, otherElementId);
+
+        // the same without a limit for a user that is not root
+        var userSearchWithoutLimit = assertDoesNotThrow(
+                ()->testControllerHelperService.inventoryElementControllerFindAllElementsInReadableDomains(
+                        mockMvc,
+                        status().isOk(),
+                        Optional.of("user2@slac.stanford.edu"),
+                        Optional.empty(),
+                        Optional.empty(),
+                        Optional.empty()
+                )
+        );
+        assertThat(userSearchWithoutLimit.getPayload())
+                .extracting(InventoryElementSummaryDTO::id)
+                .containsExactly(readableElementId);
+    }
+
+    @Test
+    public void expandImplementationsRequireWriter() {
+        var classId = assertDoesNotThrow(
+                ()->testControllerHelperService.inventoryClassControllerCreateNew(
+                        mockMvc,
+                        status().isCreated(),
+                        Optional.of("user1@slac.stanford.edu"),
+                        NewInventoryClassDTO
+                                .builder()
+                                .name("building")
+                                .attributes(emptyList())
+                                .build()
+                )
+        ).getPayload();
+        String domainId = createDomainWithAuthorizations(
+                "readable-domain",
+                List.of(
+                        AuthorizationDTO
+                                .builder()
+                                .authorizationType(Read)
+                                .owner("user2@slac.stanford.edu")
+                                .ownerType(User)
+                                .build()
+                )
+        );
+        String elementId = createElement(domainId, classId, "building");
+
+        // a reader can expand the other parts
+        var readerElement = assertDoesNotThrow(
+                ()->testControllerHelperService.inventoryElementControllerFindElementById(
+                        mockMvc,
+                        status().isOk(),
+                        Optional.of("user2@slac.stanford.edu"),
+                        domainId,
+                        elementId,
+                        Optional.of(List.of("children"))
+                )
+        );
+        assertThat(readerElement.getPayload().id()).isEqualTo(elementId);
+
+        // but not the implementation history
+        assertThrows(
+                NotAuthorized.class,
+                ()->testControllerHelperService.inventoryElementControllerFindElementById(
+                        mockMvc,
+                        status().isUnauthorized(),
+                        Optional.of("user2@slac.stanford.edu"),
+                        domainId,
+                        elementId,
+                        Optional.of(List.of("implementations"))
+                )
+        );
+
+        // root can expand it
+        var rootElement = assertDoesNotThrow(
+                ()->testControllerHelperService.inventoryElementControllerFindElementById(
+                        mockMvc,
+                        status().isOk(),
+                        Optional.of("user1@slac.stanford.edu"),
+                        domainId,
+                        elementId,
+                        Optional.of(List.of("implementations"))
+                )
+        );
+        assertThat(rootElement.getPayload().implementations()).isNotNull();
+    }
+
+    private String createDomainWithAuthorizations(String name, List<AuthorizationDTO> authorizations) {
+        return assertDoesNotThrow(
+                ()->testControllerHelperService.inventoryElementControllerCreateNewDomain(
+                        mockMvc,
+                        status().isCreated(),
+                        Optional.of("user1@slac.stanford.edu"),
+                        NewInventoryDomainDTO
+                                .builder()
+                                .name(name)
+                                .description("Inventory for %s".formatted(name))
+                                .tags(emptyList())
+                                .authorizations(authorizations)
+                                .authenticationTokens(emptyList())
+                                .build()
+                )
+        ).getPayload();
+    }
+
+    private String createElement(String domainId, String classId, String name) {
+        return assertDoesNotThrow(
+                ()->testControllerHelperService.inventoryElementControllerCreateNewElement(
+                        mockMvc,
+                        status().isCreated(),
+                        Optional.of("user1@slac.stanford.edu"),
+                        domainId,
+                        NewInventoryElementDTO
+                                .builder()
+                                .name(name)
+                                .description("description for %s".formatted(name))
+                                .classId(classId)
+                                .build()
+                )
+        ).getPayload();
+    }
+
     @Test
     public void findAllDomain() {
         for (int idx = 0; idx <= 99; idx++) {
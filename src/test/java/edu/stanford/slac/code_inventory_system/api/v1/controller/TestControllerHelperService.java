@@ -8,6 +8,7 @@ import edu.stanford.slac.ad.eed.baselib.auth.JWTHelper;
 import edu.stanford.slac.ad.eed.baselib.config.AppProperties;
 import edu.stanford.slac.ad.eed.baselib.exception.ControllerLogicException;
 import edu.stanford.slac.code_inventory_system.api.v1.dto.*;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.stereotype.Service;
 import org.springframework.test.web.servlet.MockMvc;
@@ -307,8 +308,19 @@ public class TestControllerHelperService {
             Optional<String> userInfo,
             String domainId,
             String elementId) throws Exception {
+        return inventoryElementControllerFindElementById(mockMvc, resultMatcher, userInfo, domainId, elementId, Optional.empty());
+    }
+
+    public ApiResultResponse<InventoryElementDTO> inventoryElementControllerFindElementById(
+            MockMvc mockMvc,
+            ResultMatcher resultMatcher,
+            Optional<String> userInfo,
+            String domainId,
+            String elementId,
+            Optional<List<String>> expand) throws Exception {
         var requestBuilder = get("/v1/inventory/domain/{domainId}/element/{elementId}",domainId, elementId)
                 .accept(MediaType.APPLICATION_JSON);
+        expand.ifPresent(parts -> requestBuilder.param("expand", parts.toArray(new String[0])));
         return executeHttpRequest(
                 new TypeReference<>() {
                 },
@@ -396,6 +408,29 @@ public class TestControllerHelperService {
         );
     }
 
+    public ApiResultResponse<List<InventoryElementSummaryDTO>> inventoryElementControllerFindAllElementsInReadableDomains(
+            MockMvc mockMvc,
+            ResultMatcher resultMatcher,
+            Optional<String> userInfo,
+            Optional<List<String>> domainIds,
+            Optional<String> search,
+            Optional<Integer> limit
+    ) throws Exception {
+        var requestBuilder = get("/v1/inventory/element")
+                .accept(MediaType.APPLICATION_JSON);
+        domainIds.ifPresent(ids -> requestBuilder.param("domainId", ids.toArray(new String[0])));
+        search.ifPresent(s -> requestBuilder.param("search", s));
+        limit.ifPresent(l -> requestBuilder.param("limit", String.valueOf(l)));
+        return executeHttpRequest(
+                new TypeReference<>() {
+                },
+                mockMvc,
+                resultMatcher,
+                userInfo,
+                requestBuilder
+        );
+    }
+
     public ApiResultResponse<List<InventoryElementSummaryDTO>> inventoryElementControllerFindPathFromElementId(
             MockMvc mockMvc,
             ResultMatcher resultMatcher,
@@ -417,6 +452,26 @@ public class TestControllerHelperService {
         );
     }
 
+    /**
+     * Execute a get request with the optional If-None-Match header
+     * @return the raw result, for inspecting the status and the entity tag
+     */
+    public MvcResult executeConditionalGet(
+            MockMvc mockMvc,
+            ResultMatcher resultMatcher,
+            Optional<String> userInfo,
+            Optional<String> ifNoneMatch,
+            String uriTemplate,
+            Object... uriVariables) throws Exception {
+        var requestBuilder = get(uriTemplate, uriVariables)
+                .accept(MediaType.APPLICATION_JSON);
+        userInfo.ifPresent(login -> requestBuilder.header(appProperties.getUserHeaderName(), jwtHelper.generateJwt(login)));
+        ifNoneMatch.ifPresent(eTag -> requestBuilder.header(HttpHeaders.IF_NONE_MATCH, eTag));
+        return mockMvc.perform(requestBuilder)
+                .andExpect(resultMatcher)
+                .andReturn();
+    }
+
     public <T> ApiResultResponse<T> executeHttpRequest(
             TypeReference<ApiResultResponse<T>> typeRef,
             MockMvc mockMvc,
@@ -0,0 +1,73 @@
+package edu.stanford.slac.code_inventory_system.config;
+
+import edu.stanford.slac.code_inventory_system.model.InventoryClass;
+import edu.stanford.slac.code_inventory_system.repository.InventoryClassRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.concurrent.Executors;
+
+import static java.util.Collections.emptyList;
+import static org.assertj.core.api.AssertionsForInterfaceTypes.assertThat;
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+
+@AutoConfigureMockMvc
+@SpringBootTest()
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+@ExtendWith(MockitoExtension.class)
+@ActiveProfiles({"test"})
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_CLASS)
+public class MongoCommandCounterTest {
+    @Autowired
+    private MongoTemplate mongoTemplate;
+    @Autowired
+    private MongoCommandCounter mongoCommandCounter;
+    @Autowired
+    private InventoryClassRepository inventoryClassRepository;
+
+    @BeforeEach
+    public void cleanCollection() {
+        mongoTemplate.remove(new Query(), InventoryClass.class);
+    }
+
+    @Test
+    public void commandsAreCountedByCollection() {
+        var savedClass = inventoryClassRepository.save(
+                InventoryClass.builder().name("class a").attributes(emptyList()).build()
+        );
+        var scope = mongoCommandCounter.open();
+        assertThat(scope).isNotNull();
+        try {
+            for (int idx = 0; idx < 3; idx++) {
+                inventoryClassRepository.findById(savedClass.getId());
+            }
+            // the commands sent by a forked task are counted in the same scope
+            try (var executor = Executors.newVirtualThreadPerTaskExecutor()) {
+                assertDoesNotThrow(
+                        () -> executor.submit(
+                                mongoCommandCounter.propagate(() -> inventoryClassRepository.findById(savedClass.getId()))
+                        ).get()
+                );
+            }
+        } finally {
+            mongoCommandCounter.close();
+        }
+        assertThat(scope.total()).isEqualTo(4);
+        assertThat(scope.top(1))
+                .containsEntry("find %s".formatted(mongoTemplate.getCollectionName(InventoryClass.class)), 4);
+
+        // without scope nothing is counted
+        inventoryClassRepository.findById(savedClass.getId());
+        assertThat(scope.total()).isEqualTo(4);
+    }
+}
@@ -0,0 +1,84 @@
+package edu.stanford.slac.code_inventory_system.config;
+
+import edu.stanford.slac.code_inventory_system.api.v1.dto.NewInventoryClassDTO;
+import edu.stanford.slac.code_inventory_system.exception.InventoryClassNotFound;
+import edu.stanford.slac.code_inventory_system.model.InventoryClass;
+import edu.stanford.slac.code_inventory_system.service.InventoryClassService;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.Optional;
+
+import static java.util.Collections.emptyList;
+import static org.assertj.core.api.AssertionsForInterfaceTypes.assertThat;
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@AutoConfigureMockMvc
+@SpringBootTest()
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+@ExtendWith(MockitoExtension.class)
+@ActiveProfiles({"test"})
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_CLASS)
+public class ServiceMetricsAspectTest {
+    @Autowired
+    private MongoTemplate mongoTemplate;
+    @Autowired
+    private MeterRegistry meterRegistry;
+    @Autowired
+    private InventoryClassService inventoryClassService;
+
+    @BeforeEach
+    public void cleanCollection() {
+        mongoTemplate.remove(new Query(), InventoryClass.class);
+        meterRegistry.clear();
+    }
+
+    @Test
+    public void operationsAreTimedWithOutcome() {
+        assertDoesNotThrow(
+                () -> inventoryClassService.createNew(
+                        NewInventoryClassDTO.builder().name("class a").attributes(emptyList()).build()
+                )
+        );
+        var foundClasses = assertDoesNotThrow(
+                () -> inventoryClassService.findAll(Optional.empty())
+        );
+        assertThrows(
+                InventoryClassNotFound.class,
+                () -> inventoryClassService.findById("bad-id", false)
+        );
+
+        var createTimer = meterRegistry.find("cis.service.operation")
+                .tag("operation", "class.create")
+                .tag("outcome", "success")
+                .timer();
+        assertThat(createTimer).isNotNull();
+        assertThat(createTimer.count()).isEqualTo(1);
+
+        var failedFindTimer = meterRegistry.find("cis.service.operation")
+                .tag("operation", "class.get")
+                .tag("outcome", "failure")
+                .tag("exception", "InventoryClassNotFound")
+                .timer();
+        assertThat(failedFindTimer).isNotNull();
+        assertThat(failedFindTimer.count()).isEqualTo(1);
+
+        var resultSize = meterRegistry.find("cis.service.result.size")
+                .tag("operation", "class.find-all")
+                .summary();
+        assertThat(resultSize).isNotNull();
+        assertThat(resultSize.totalAmount()).isEqualTo(foundClasses.size());
+    }
+}
@@ -0,0 +1,104 @@
+package edu.stanford.slac.code_inventory_system.repository;
+
+import edu.stanford.slac.code_inventory_system.model.InventoryClass;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static java.util.Collections.emptyList;
+import static org.assertj.core.api.AssertionsForInterfaceTypes.assertThat;
+
+@AutoConfigureMockMvc
+@SpringBootTest()
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+@ExtendWith(MockitoExtension.class)
+@ActiveProfiles({"test"})
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_CLASS)
+public class RequestIdentityMapTest {
+    @Autowired
+    private InventoryClassRepository inventoryClassRepository;
+    @Autowired
+    private RequestIdentityMap requestIdentityMap;
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @BeforeEach
+    public void cleanCollection() {
+        mongoTemplate.remove(new Query(), InventoryClass.class);
+    }
+
+    @Test
+    public void entityIsLoadedOnceForScope() {
+        var savedClass = inventoryClassRepository.save(
+                InventoryClass.builder().name("class a").attributes(emptyList()).build()
+        );
+        AtomicInteger loadCount = new AtomicInteger();
+        requestIdentityMap.runInScope(
+                () -> {
+                    for (int idx = 0; idx < 3; idx++) {
+                        var found = requestIdentityMap.findById(
+                                InventoryClass.class,
+                                savedClass.getId(),
+                                () -> {
+                                    loadCount.incrementAndGet();
+                                    return inventoryClassRepository.findById(savedClass.getId());
+                                }
+                        );
+                        assertThat(found).isPresent();
+                    }
+                    return null;
+                }
+        );
+        assertThat(loadCount.get()).isEqualTo(1);
+    }
+
+    @Test
+    public void saveReplaceTheCachedEntity() {
+        var savedClass = inventoryClassRepository.save(
+                InventoryClass.builder().name("class a").attributes(emptyList()).build()
+        );
+        requestIdentityMap.runInScope(
+                () -> {
+                    var cached = requestIdentityMap.findById(
+                            InventoryClass.class,
+                            savedClass.getId(),
+                            () -> inventoryClassRepository.findById(savedClass.getId())
+                    ).orElseThrow();
+
+                    // update the class from another instance
+                    var toUpdate = inventoryClassRepository.findById(savedClass.getId()).orElseThrow();
+                    toUpdate.setName("class b");
+                    var updated = inventoryClassRepository.save(toUpdate);
+
+                    var found = requestIdentityMap.findById(
+                            InventoryClass.class,
+                            savedClass.getId(),
+                            () -> inventoryClassRepository.findById(savedClass.getId())
+                    ).orElseThrow();
+                    assertThat(found.getName()).isEqualTo("class b");
+                    assertThat(found.getVersion()).isEqualTo(updated.getVersion());
+
+                    // an older version doesn't replace the cached one
+                    requestIdentityMap.onSaved(cached);
+                    found = requestIdentityMap.findById(
+                            InventoryClass.class,
+                            savedClass.getId(),
+                            () -> inventoryClassRepository.findById(savedClass.getId())
+                    ).orElseThrow();
+                    assertThat(found.getName()).isEqualTo("class b");
+                    return null;
+                }
+        );
+    }
+}
@@ -0,0 +1,100 @@
+package edu.stanford.slac.code_inventory_system.service;
+
+import edu.stanford.slac.ad.eed.baselib.exception.ControllerLogicException;
+import edu.stanford.slac.code_inventory_system.api.v1.dto.CloneInventoryElementDTO;
+import edu.stanford.slac.code_inventory_system.model.IdempotencyKey;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.AssertionsForInterfaceTypes.assertThat;
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@AutoConfigureMockMvc
+@SpringBootTest()
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+@ExtendWith(MockitoExtension.class)
+@ActiveProfiles({"test"})
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_CLASS)
+public class IdempotencyKeyServiceTest {
+    @Autowired
+    MongoTemplate mongoTemplate;
+    @Autowired
+    IdempotencyKeyService idempotencyKeyService;
+
+    @BeforeEach
+    public void cleanCollection() {
+        mongoTemplate.remove(new Query(), IdempotencyKey.class);
+    }
+
+    @Test
+    public void retryReturnTheFirstResult() {
+        AtomicInteger executions = new AtomicInteger();
+        var request = CloneInventoryElementDTO.builder().name("rack-02").build();
+        String first = assertDoesNotThrow(
+                () -> idempotencyKeyService.execute("user1@slac.stanford.edu", "POST /test", "key-1", request, () -> "result-%d".formatted(executions.incrementAndGet()))
+        );
+        String retry = assertDoesNotThrow(
+                () -> idempotencyKeyService.execute("user1@slac.stanford.edu", "POST /test", "key-1", request, () -> "result-%d".formatted(executions.incrementAndGet()))
+        );
+        assertThat(retry).isEqualTo(first);
+        assertThat(executions.get()).isEqualTo(1);
+
+        // the same key of another user is a different request
+        String otherUser = assertDoesNotThrow(
+                () -> idempotencyKeyService.execute("user2@slac.stanford.edu", "POST /test", "key-1", request, () -> "result-%d".formatted(executions.incrementAndGet()))
+        );
+        assertThat(otherUser).isEqualTo("result-2");
+
+        // without key the operation is always executed
+        assertDoesNotThrow(
+                () -> idempotencyKeyService.execute("user1@slac.stanford.edu", "POST /test", null, request, () -> "result-%d".formatted(executions.incrementAndGet()))
+        );
+        assertThat(executions.get()).isEqualTo(3);
+    }
+
+    @Test
+    public void keyCannotBeReusedForDifferentRequest() {
+        assertDoesNotThrow(
+                () -> idempotencyKeyService.execute("user1@slac.stanford.edu", "POST /test", "key-1", CloneInventoryElementDTO.builder().name("rack-02").build(), () -> "result")
+        );
+        var differentRequest = assertThrows(
+                ControllerLogicException.class,
+                () -> idempotencyKeyService.execute("user1@slac.stanford.edu", "POST /test", "key-1", CloneInventoryElementDTO.builder().name("rack-03").build(), () -> "result")
+        );
+        assertThat(differentRequest.getErrorCode()).isEqualTo(-3);
+    }
+
+    @Test
+    public void failedRequestReleaseTheKey() {
+        var request = CloneInventoryElementDTO.builder().name("rack-02").build();
+        assertThrows(
+                ControllerLogicException.class,
+                () -> idempotencyKeyService.execute(
+                        "user1@slac.stanford.edu",
+                        "POST /test",
+                        "key-1",
+                        request,
+                        () -> {
+                            throw ControllerLogicException.builder().errorCode(-1).build();
+                        }
+                )
+        );
+        String retry = assertDoesNotThrow(
+                () -> idempotencyKeyService.execute("user1@slac.stanford.edu", "POST /test", "key-1", request, () -> "result")
+        );
+        assertThat(retry).isEqualTo("result");
+    }
+}
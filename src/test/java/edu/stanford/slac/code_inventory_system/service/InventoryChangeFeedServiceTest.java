@@ -0,0 +1,135 @@
+package edu.stanford.slac.code_inventory_system.service;
+
+import edu.stanford.slac.ad.eed.baselib.model.AuthenticationToken;
+import edu.stanford.slac.ad.eed.baselib.model.Authorization;
+import edu.stanford.slac.code_inventory_system.api.v1.dto.*;
+import edu.stanford.slac.code_inventory_system.model.*;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.AssertionsForInterfaceTypes.assertThat;
+import static org.awaitility.Awaitility.await;
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+
+/**
+ * The change stream needs a replica set, the mongodb of the docker compose run as
+ * single node replica set
+ */
+@AutoConfigureMockMvc
+@SpringBootTest()
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+@ExtendWith(MockitoExtension.class)
+@ActiveProfiles({"test"})
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_CLASS)
+public class InventoryChangeFeedServiceTest {
+    @Autowired
+    MongoTemplate mongoTemplate;
+    @Autowired
+    TestUtilityService testUtilityService;
+    @Autowired
+    InventoryElementService inventoryElementService;
+    @Autowired
+    InventoryChangeFeedService inventoryChangeFeedService;
+
+    @BeforeEach
+    public void cleanCollection() {
+        mongoTemplate.remove(new Query(), Authorization.class);
+        mongoTemplate.remove(new Query(), AuthenticationToken.class);
+        mongoTemplate.remove(new Query(), InventoryClass.class);
+        mongoTemplate.remove(new Query(), InventoryDomain.class);
+        mongoTemplate.remove(new Query(), InventoryElement.class);
+        mongoTemplate.remove(new Query(), InventoryElementAttributeHistory.class);
+        mongoTemplate.remove(new Query(), InventoryElementCapacity.class);
+    }
+
+    @Test
+    public void watchDomainAndResume() {
+        String classId = testUtilityService.createClass("building class");
+        String domainId = testUtilityService.createDomain("new-domain");
+        String otherDomainId = testUtilityService.createDomain("other-domain");
+        String buildingId = testUtilityService.createElement(domainId, "building", classId, null);
+
+        List<InventoryChangeFeedService.Change> changes = new CopyOnWriteArrayList<>();
+        var subscription = inventoryChangeFeedService.watchDomain(domainId, Optional.empty()).subscribe(changes::add);
+        try {
+            // the stream is opened asynchronously, update the element until the first change arrives
+            AtomicInteger probe = new AtomicInteger();
+            await()
+                    .atMost(Duration.ofSeconds(30))
+                    .pollInterval(Duration.ofMillis(200))
+                    .until(
+                            () -> {
+                                updateElementDescription(domainId, buildingId, "probe %d".formatted(probe.incrementAndGet()));
+                                return !changes.isEmpty();
+                            }
+                    );
+            var firstChange = changes.get(0);
+            assertThat(firstChange.resumeToken()).isNotNull();
+            assertThat(firstChange.event().entityType()).isEqualTo(InventoryChangeEntityTypeDTO.Element);
+            assertThat(firstChange.event().operation()).isEqualTo(InventoryChangeOperationDTO.Update);
+            assertThat(firstChange.event().id()).isEqualTo(buildingId);
+            assertThat(firstChange.event().element()).isNotNull();
+            assertThat(firstChange.event().element().classDTO().id()).isEqualTo(classId);
+
+            // the changes of the other domain are not sent
+            testUtilityService.createElement(otherDomainId, "other building", classId, null);
+            String floorId = testUtilityService.createElement(domainId, "floor", classId, buildingId);
+            await()
+                    .atMost(Duration.ofSeconds(30))
+                    .until(() -> changes.stream().anyMatch(c -> floorId.equals(c.event().id())));
+            assertThat(changes)
+                    .extracting(c -> c.event().domainId())
+                    .containsOnly(domainId);
+            var floorCreated = changes.stream().filter(c -> floorId.equals(c.event().id())).findFirst().orElseThrow();
+            assertThat(floorCreated.event().operation()).isEqualTo(InventoryChangeOperationDTO.Create);
+            assertThat(floorCreated.event().element().parentId()).isEqualTo(buildingId);
+
+            // resuming after the first change send again the following ones
+            List<InventoryChangeFeedService.Change> resumed = new CopyOnWriteArrayList<>();
+            var resumedSubscription = inventoryChangeFeedService
+                    .watchDomain(domainId, Optional.of(firstChange.resumeToken()))
+                    .subscribe(resumed::add);
+            try {
+                await()
+                        .atMost(Duration.ofSeconds(30))
+                        .until(() -> resumed.stream().anyMatch(c -> floorId.equals(c.event().id())));
+                assertThat(resumed)
+                        .extracting(InventoryChangeFeedService.Change::resumeToken)
+                        .doesNotContain(firstChange.resumeToken());
+            } finally {
+                resumedSubscription.dispose();
+            }
+        } finally {
+            subscription.dispose();
+        }
+    }
+
+    private void updateElementDescription(String domainId, String elementId, String description) {
+        assertDoesNotThrow(
+                () -> inventoryElementService.update(
+                        domainId,
+                        elementId,
+                        UpdateInventoryElementDTO
+                                .builder()
+                                .description(description)
+                                .build()
+                )
+        );
+    }
+}
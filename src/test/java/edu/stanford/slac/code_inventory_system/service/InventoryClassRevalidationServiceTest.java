@@ -0,0 +1,206 @@
+package edu.stanford.slac.code_inventory_system.service;
+
+import edu.stanford.slac.ad.eed.baselib.model.AuthenticationToken;
+import edu.stanford.slac.ad.eed.baselib.model.Authorization;
+import edu.stanford.slac.code_inventory_system.api.v1.dto.*;
+import edu.stanford.slac.code_inventory_system.model.*;
+import edu.stanford.slac.code_inventory_system.model.value.NumberValue;
+import edu.stanford.slac.code_inventory_system.model.value.StringValue;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+import static java.util.Collections.emptyList;
+import static org.assertj.core.api.AssertionsForInterfaceTypes.assertThat;
+import static org.awaitility.Awaitility.await;
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+
+@AutoConfigureMockMvc
+@SpringBootTest()
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+@ExtendWith(MockitoExtension.class)
+@ActiveProfiles({"test"})
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_CLASS)
+public class InventoryClassRevalidationServiceTest {
+    @Autowired
+    MongoTemplate mongoTemplate;
+    @Autowired
+    TestUtilityService testUtilityService;
+    @Autowired
+    InventoryClassService inventoryClassService;
+    @Autowired
+    InventoryElementService inventoryElementService;
+    @Autowired
+    InventoryJobService inventoryJobService;
+
+    @BeforeEach
+    public void cleanCollection() {
+        mongoTemplate.remove(new Query(), Authorization.class);
+        mongoTemplate.remove(new Query(), AuthenticationToken.class);
+        mongoTemplate.remove(new Query(), InventoryClass.class);
+        mongoTemplate.remove(new Query(), InventoryDomain.class);
+        mongoTemplate.remove(new Query(), InventoryElement.class);
+        mongoTemplate.remove(new Query(), InventoryElementAttributeHistory.class);
+        mongoTemplate.remove(new Query(), InventoryJob.class);
+    }
+
+    @Test
+    public void elementsAreMigratedWhenTheClassChanges() {
+        String serverClassId = testUtilityService.createClass(
+                "server class",
+                List.of(
+                        InventoryClassAttributeDTO.builder().name("Cores").type(InventoryClassAttributeTypeDTO.String).build(),
+                        InventoryClassAttributeDTO.builder().name("Rack-Unit").type(InventoryClassAttributeTypeDTO.String).build()
+                )
+        );
+        String gpuServerClassId = assertDoesNotThrow(
+                () -> inventoryClassService.createNew(
+                        NewInventoryClassDTO
+                                .builder()
+                                .name("gpu server class")
+                                .extendsClass(List.of(serverClassId))
+                                .attributes(List.of(InventoryClassAttributeDTO.builder().name("Gpus").type(InventoryClassAttributeTypeDTO.Number).build()))
+                                .build()
+                )
+        );
+        String domainId = testUtilityService.createDomain("new-domain");
+        String server1Id = testUtilityService.createElement(
+                domainId,
+                testUtilityService.newElement("server-1", serverClassId, null)
+                        .attributes(
+                                List.of(
+                                        InventoryElementAttributeValueDTO.builder().name("Cores").value("8").build(),
+                                        InventoryElementAttributeValueDTO.builder().name("Rack-Unit").value("2").build()
+                                )
+                        )
+                        .build()
+        );
+        String server2Id = testUtilityService.createElement(
+                domainId,
+                testUtilityService.newElement("server-2", serverClassId, null)
+                        .attributes(List.of(InventoryElementAttributeValueDTO.builder().name("Cores").value("many").build()))
+                        .build()
+        );
+        // an element of the subclass with an inherited attribute
+        String gpuServerId = mongoTemplate.insert(
+                InventoryElement.builder()
+                        .domainId(domainId)
+                        .name("gpu-server-1")
+                        .classId(gpuServerClassId)
+                        .attributes(
+                                List.of(
+                                        StringValue.builder().name("Cores").value("16").build(),
+                                        NumberValue.builder().name("Gpus").value(4L).build()
+                                )
+                        )
+                        .build()
+        ).getId();
+
+        // cores become a number, rack unit is renamed and a mandatory serial is added
+        assertDoesNotThrow(
+                () -> inventoryClassService.update(
+                        serverClassId,
+                        UpdateInventoryClassDTO
+                                .builder()
+                                .name("server class")
+                                .extendsClass(emptyList())
+                                .permittedChildClass(emptyList())
+                                .attributes(
+                                        List.of(
+                                                InventoryClassAttributeDTO.builder().name("Cores").type(InventoryClassAttributeTypeDTO.Number).build(),
+                                                InventoryClassAttributeDTO.builder().name("Height").type(InventoryClassAttributeTypeDTO.String).build(),
+                                                InventoryClassAttributeDTO.builder().name("Serial").mandatory(true).type(InventoryClassAttributeTypeDTO.String).build()
+                                        )
+                                )
+                                .renamedAttributes(Map.of("Rack-Unit", "Height"))
+                                .build()
+                )
+        );
+
+        var job = waitForRevalidation();
+        assertThat(job.state()).isEqualTo(InventoryJobStateDTO.Completed);
+        assertThat(job.processed()).isEqualTo(3L);
+        assertThat(job.counters())
+                .containsEntry("converted", 2L)
+                .containsEntry("renamed", 1L)
+                .containsEntry("invalid", 1L)
+                .containsEntry("missingMandatory", 3L);
+        assertThat(job.issues()).hasSize(4);
+
+        var server1 = mongoTemplate.findById(server1Id, InventoryElement.class);
+        assertThat(server1.getAttributes())
+                .containsExactly(
+                        NumberValue.builder().name("Cores").value(8L).build(),
+                        StringValue.builder().name("Height").value("2").build()
+                );
+        assertThat(assertDoesNotThrow(() -> inventoryElementService.findAllAttributeHistory(domainId, server1Id))).hasSize(2);
+
+        // the value that cannot be converted is left untouched
+        var server2 = mongoTemplate.findById(server2Id, InventoryElement.class);
+        assertThat(server2.getAttributes()).containsExactly(StringValue.builder().name("Cores").value("many").build());
+        assertThat(job.issues()).anyMatch(issue -> issue.contains(server2Id) && issue.contains("many"));
+
+        var gpuServer = mongoTemplate.findById(gpuServerId, InventoryElement.class);
+        assertThat(gpuServer.getAttributes())
+                .containsExactly(
+                        NumberValue.builder().name("Cores").value(16L).build(),
+                        NumberValue.builder().name("Gpus").value(4L).build()
+                );
+        // only the values replaced on the updated elements are archived
+        assertThat(mongoTemplate.count(new Query(), InventoryElementAttributeHistory.class)).isEqualTo(3L);
+    }
+
+    @Test
+    public void newOptionalAttributeDoesNotRevalidate() {
+        String serverClassId = testUtilityService.createClass(
+                "server class",
+                List.of(InventoryClassAttributeDTO.builder().name("Cores").type(InventoryClassAttributeTypeDTO.Number).build())
+        );
+        assertDoesNotThrow(
+                () -> inventoryClassService.update(
+                        serverClassId,
+                        UpdateInventoryClassDTO
+                                .builder()
+                                .name("server class")
+                                .extendsClass(emptyList())
+                                .permittedChildClass(emptyList())
+                                .attributes(
+                                        List.of(
+                                                InventoryClassAttributeDTO.builder().name("Cores").type(InventoryClassAttributeTypeDTO.Number).build(),
+                                                InventoryClassAttributeDTO.builder().name("Vendor").type(InventoryClassAttributeTypeDTO.String).build()
+                                        )
+                                )
+                                .build()
+                )
+        );
+        assertThat(mongoTemplate.count(new Query(), InventoryJob.class)).isEqualTo(0L);
+    }
+
+    private InventoryJobDTO waitForRevalidation() {
+        Query revalidationQuery = new Query(Criteria.where("type").is(InventoryJobType.RevalidateClass));
+        await()
+                .atMost(Duration.ofSeconds(30))
+                .pollInterval(Duration.ofMillis(200))
+                .until(
+                        () -> {
+                            var job = mongoTemplate.findOne(revalidationQuery, InventoryJob.class);
+                            return job != null && (job.getState() == InventoryJobState.Completed || job.getState() == InventoryJobState.Failed);
+                        }
+                );
+        return inventoryJobService.findById(mongoTemplate.findOne(revalidationQuery, InventoryJob.class).getId());
+    }
+}
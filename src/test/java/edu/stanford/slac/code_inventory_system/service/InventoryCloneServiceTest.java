@@ -0,0 +1,159 @@
+package edu.stanford.slac.code_inventory_system.service;
+
+import edu.stanford.slac.ad.eed.baselib.exception.ControllerLogicException;
+import edu.stanford.slac.ad.eed.baselib.model.AuthenticationToken;
+import edu.stanford.slac.ad.eed.baselib.model.Authorization;
+import edu.stanford.slac.code_inventory_system.api.v1.dto.*;
+import edu.stanford.slac.code_inventory_system.model.*;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.List;
+
+import static java.util.Collections.emptyList;
+import static org.assertj.core.api.AssertionsForInterfaceTypes.assertThat;
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@AutoConfigureMockMvc
+@SpringBootTest()
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+@ExtendWith(MockitoExtension.class)
+@ActiveProfiles({"test"})
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_CLASS)
+public class InventoryCloneServiceTest {
+    @Autowired
+    MongoTemplate mongoTemplate;
+    @Autowired
+    TestUtilityService testUtilityService;
+    @Autowired
+    InventoryElementService inventoryElementService;
+    @Autowired
+    InventoryElementCapacityService inventoryElementCapacityService;
+    @Autowired
+    InventoryCloneService inventoryCloneService;
+
+    @BeforeEach
+    public void cleanCollection() {
+        mongoTemplate.remove(new Query(), Authorization.class);
+        mongoTemplate.remove(new Query(), AuthenticationToken.class);
+        mongoTemplate.remove(new Query(), InventoryClass.class);
+        mongoTemplate.remove(new Query(), InventoryDomain.class);
+        mongoTemplate.remove(new Query(), InventoryDomainStatistics.class);
+        mongoTemplate.remove(new Query(), InventoryElement.class);
+        mongoTemplate.remove(new Query(), InventoryElementAttributeHistory.class);
+        mongoTemplate.remove(new Query(), InventoryElementCapacity.class);
+    }
+
+    @Test
+    public void cloneRackWithAllContents() {
+        String buildingClassId = testUtilityService.createClass("building class");
+        String rackClassId = testUtilityService.createClass("rack class");
+        String serverClassId = testUtilityService.createClass("server class");
+        String domainId = assertDoesNotThrow(
+                () -> inventoryElementService.createNew(
+                        NewInventoryDomainDTO
+                                .builder()
+                                .name("new-domain")
+                                .description("This is the description for the new domain")
+                                .tags(List.of(TagDTO.builder().name("tag a").build()))
+                                .authenticationTokens(emptyList())
+                                .authorizations(emptyList())
+                                .build()
+                )
+        );
+        String tagId = assertDoesNotThrow(() -> inventoryElementService.getInventoryDomainById(domainId)).tags().get(0).id();
+        String buildingId = testUtilityService.createElement(domainId, "building", buildingClassId, null);
+        String rackId = testUtilityService.createElement(
+                domainId,
+                testUtilityService.newElement("rack-01", rackClassId, buildingId)
+                        .connectorClasses(List.of(ConnectorClassDTO.builder().classId(serverClassId).count(2).build()))
+                        .tags(List.of(tagId))
+                        .build()
+        );
+        testUtilityService.createElement(
+                domainId,
+                testUtilityService.newElement("server-1", serverClassId, rackId).tags(List.of(tagId)).build()
+        );
+        testUtilityService.createElement(domainId, "server-2", serverClassId, rackId);
+
+        String cloneId = assertDoesNotThrow(
+                () -> inventoryCloneService.cloneSubtree(
+                        domainId,
+                        rackId,
+                        CloneInventoryElementDTO
+                                .builder()
+                                .name("rack-02")
+                                .parentId(buildingId)
+                                .build()
+                )
+        );
+        var clone = mongoTemplate.findById(cloneId, InventoryElement.class);
+        assertThat(clone).isNotNull();
+        assertThat(clone.getName()).isEqualTo("rack-02");
+        assertThat(clone.getParentId()).isEqualTo(buildingId);
+        assertThat(clone.getFullTreePath()).isEqualTo("/%s".formatted(buildingId));
+        assertThat(clone.getTags()).containsExactly(tagId);
+        assertThat(clone.getConnectorClasses()).hasSize(1);
+
+        var clonedServers = mongoTemplate.find(new Query(Criteria.where("parentId").is(cloneId)), InventoryElement.class);
+        assertThat(clonedServers)
+                .extracting(InventoryElement::getName)
+                .containsExactlyInAnyOrder("server-1-rack-02", "server-2-rack-02");
+        assertThat(clonedServers)
+                .extracting(InventoryElement::getFullTreePath)
+                .containsOnly("/%s/%s".formatted(buildingId, cloneId));
+        // the source is untouched
+        assertThat(mongoTemplate.count(new Query(Criteria.where("parentId").is(rackId)), InventoryElement.class)).isEqualTo(2);
+
+        // the copy has his own capacity and it is added to the building
+        var cloneCapacity = assertDoesNotThrow(() -> inventoryElementCapacityService.findByElementId(domainId, cloneId));
+        assertThat(cloneCapacity.own())
+                .containsExactly(
+                        ConnectorCapacityDTO.builder().classId(serverClassId).total(2L).used(2L).free(0L).build()
+                );
+        var buildingCapacity = assertDoesNotThrow(() -> inventoryElementCapacityService.findByElementId(domainId, buildingId));
+        assertThat(buildingCapacity.subtree())
+                .containsExactly(
+                        ConnectorCapacityDTO.builder().classId(serverClassId).total(4L).used(4L).free(0L).build()
+                );
+
+        // the copied elements use the tags
+        var domain = assertDoesNotThrow(() -> inventoryElementService.getInventoryDomainById(domainId));
+        assertThat(domain.tagUsage()).containsEntry(tagId, 4L);
+    }
+
+    @Test
+    public void cloneFailsOnNameAlreadyUsed() {
+        String classId = testUtilityService.createClass("rack class");
+        String domainId = testUtilityService.createDomain("new-domain");
+        String rackId = testUtilityService.createElement(domainId, "rack-01", classId, null);
+        testUtilityService.createElement(domainId, "shelf", classId, rackId);
+        testUtilityService.createElement(domainId, "shelf-rack-02", classId, null);
+
+        var conflict = assertThrows(
+                ControllerLogicException.class,
+                () -> inventoryCloneService.cloneSubtree(
+                        domainId,
+                        rackId,
+                        CloneInventoryElementDTO
+                                .builder()
+                                .name("rack-02")
+                                .build()
+                )
+        );
+        assertThat(conflict.getErrorCode()).isEqualTo(-8);
+        assertThat(mongoTemplate.count(new Query(), InventoryElement.class)).isEqualTo(3);
+    }
+}
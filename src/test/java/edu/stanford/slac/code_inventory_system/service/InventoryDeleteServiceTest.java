@@ -0,0 +1,248 @@
+package edu.stanford.slac.code_inventory_system.service;
+
+import edu.stanford.slac.ad.eed.baselib.model.AuthenticationToken;
+import edu.stanford.slac.ad.eed.baselib.model.Authorization;
+import edu.stanford.slac.code_inventory_system.api.v1.dto.*;
+import edu.stanford.slac.code_inventory_system.exception.InventoryElementNotFound;
+import edu.stanford.slac.code_inventory_system.model.*;
+import edu.stanford.slac.code_inventory_system.service.utility.InventoryJobContext;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+import static java.util.Collections.emptyList;
+import static org.assertj.core.api.AssertionsForInterfaceTypes.assertThat;
+import static org.awaitility.Awaitility.await;
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@AutoConfigureMockMvc
+@SpringBootTest()
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+@ExtendWith(MockitoExtension.class)
+@ActiveProfiles({"test"})
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_CLASS)
+public class InventoryDeleteServiceTest {
+    @Autowired
+    MongoTemplate mongoTemplate;
+    @Autowired
+    TestUtilityService testUtilityService;
+    @Autowired
+    InventoryElementService inventoryElementService;
+    @Autowired
+    InventoryDeleteService inventoryDeleteService;
+    @Autowired
+    InventoryJobService inventoryJobService;
+    @Autowired
+    InventoryElementCapacityService inventoryElementCapacityService;
+
+    @BeforeEach
+    public void cleanCollection() {
+        mongoTemplate.remove(new Query(), Authorization.class);
+        mongoTemplate.remove(new Query(), AuthenticationToken.class);
+        mongoTemplate.remove(new Query(), InventoryClass.class);
+        mongoTemplate.remove(new Query(), InventoryDomain.class);
+        mongoTemplate.remove(new Query(), InventoryDomainStatistics.class);
+        mongoTemplate.remove(new Query(), InventoryElement.class);
+        mongoTemplate.remove(new Query(), InventoryElementTombstone.class);
+        mongoTemplate.remove(new Query(), InventoryElementAttributeHistory.class);
+        mongoTemplate.remove(new Query(), InventoryElementCapacity.class);
+        mongoTemplate.remove(new Query(), InventoryMaintenance.class);
+        mongoTemplate.remove(new Query(), InventoryJob.class);
+    }
+
+    @Test
+    public void deleteSubtreeAndDomain() {
+        String classId = testUtilityService.createClass("building class");
+        String domainId = assertDoesNotThrow(
+                () -> inventoryElementService.createNew(
+                        NewInventoryDomainDTO
+                                .builder()
+                                .name("new-domain")
+                                .description("This is the description for the new domain")
+                                .tags(List.of(TagDTO.builder().name("tag a").build()))
+                                .authenticationTokens(emptyList())
+                                .authorizations(emptyList())
+                                .build()
+                )
+        );
+        String tagId = assertDoesNotThrow(() -> inventoryElementService.getInventoryDomainById(domainId)).tags().get(0).id();
+        String buildingId = testUtilityService.createElement(domainId, "building", classId, null);
+        String floorId = testUtilityService.createElement(
+                domainId,
+                testUtilityService.newElement("floor", classId, buildingId).tags(List.of(tagId)).build()
+        );
+        String roomId = testUtilityService.createElement(
+                domainId,
+                testUtilityService.newElement("room", classId, floorId).tags(List.of(tagId)).build()
+        );
+        String otherBuildingId = testUtilityService.createElement(domainId, "other building", classId, null);
+        assertDoesNotThrow(
+                () -> inventoryElementService.appendMaintenance(
+                        domainId,
+                        roomId,
+                        NewInventoryMaintenanceDTO
+                                .builder()
+                                .timestamp(LocalDateTime.now())
+                                .type(InventoryMaintenanceTypeDTO.Local)
+                                .action("inspection")
+                                .description("room inspection")
+                                .build()
+                )
+        );
+
+        // delete the floor with the room
+        String deleteElementJobId = assertDoesNotThrow(
+                () -> inventoryDeleteService.deleteElement(domainId, floorId, "user1@slac.stanford.edu")
+        );
+        var deleteElementJob = waitForJob(deleteElementJobId);
+        assertThat(deleteElementJob.state()).isEqualTo(InventoryJobStateDTO.Completed);
+        assertThat(deleteElementJob.total()).isEqualTo(2L);
+        assertThat(deleteElementJob.processed()).isEqualTo(2L);
+        assertThat(mongoTemplate.findAll(InventoryElement.class))
+                .extracting(InventoryElement::getId)
+                .containsExactlyInAnyOrder(buildingId, otherBuildingId);
+        assertThat(mongoTemplate.findAll(InventoryElementTombstone.class))
+                .extracting(InventoryElementTombstone::getId)
+                .containsExactlyInAnyOrder(floorId, roomId);
+        assertThat(mongoTemplate.count(new Query(Criteria.where("inventoryElementId").is(roomId)), InventoryMaintenance.class)).isZero();
+        assertThat(mongoTemplate.count(new Query(Criteria.where("id").in(floorId, roomId)), InventoryElementCapacity.class)).isZero();
+        var domain = assertDoesNotThrow(() -> inventoryElementService.getInventoryDomainById(domainId));
+        assertThat(domain.tagUsage()).containsEntry(tagId, 0L);
+
+        // delete the whole domain
+        String deleteDomainJobId = assertDoesNotThrow(
+                () -> inventoryDeleteService.deleteDomain(domainId, "user1@slac.stanford.edu")
+        );
+        var deleteDomainJob = waitForJob(deleteDomainJobId);
+        assertThat(deleteDomainJob.state()).isEqualTo(InventoryJobStateDTO.Completed);
+        assertThat(deleteDomainJob.processed()).isEqualTo(2L);
+        assertThat(mongoTemplate.findAll(InventoryElement.class)).isEmpty();
+        assertThat(mongoTemplate.findAll(InventoryElementTombstone.class)).isEmpty();
+        assertThat(mongoTemplate.findById(domainId, InventoryDomain.class)).isNull();
+    }
+
+    @Test
+    public void resumedDeleteUpdatesTheCountersOnce() {
+        String buildingClassId = testUtilityService.createClass("building class");
+        String rackClassId = testUtilityService.createClass("rack class");
+        String serverClassId = testUtilityService.createClass("server class");
+        String domainId = assertDoesNotThrow(
+                () -> inventoryElementService.createNew(
+                        NewInventoryDomainDTO
+                                .builder()
+                                .name("new-domain")
+                                .description("This is the description for the new domain")
+                                .tags(List.of(TagDTO.builder().name("tag a").build()))
+                                .authenticationTokens(emptyList())
+                                .authorizations(emptyList())
+                                .build()
+                )
+        );
+        String tagId = assertDoesNotThrow(() -> inventoryElementService.getInventoryDomainById(domainId)).tags().get(0).id();
+        String buildingId = testUtilityService.createElement(domainId, "building", buildingClassId, null);
+        String rackId = testUtilityService.createElement(
+                domainId,
+                testUtilityService.newElement("rack-01", rackClassId, buildingId)
+                        .connectorClasses(List.of(ConnectorClassDTO.builder().classId(serverClassId).count(2).build()))
+                        .tags(List.of(tagId))
+                        .build()
+        );
+        String server1Id = testUtilityService.createElement(
+                domainId,
+                testUtilityService.newElement("server-1", serverClassId, rackId).tags(List.of(tagId)).build()
+        );
+        String server2Id = testUtilityService.createElement(domainId, "server-2", serverClassId, rackId);
+        assertThat(assertDoesNotThrow(() -> inventoryElementCapacityService.findByElementId(domainId, buildingId)).subtree())
+                .containsExactly(
+                        ConnectorCapacityDTO.builder().classId(serverClassId).total(2L).used(2L).free(0L).build()
+                );
+
+        InventoryJob job = InventoryJob.builder()
+                .type(InventoryJobType.DeleteElement)
+                .domainId(domainId)
+                .elementId(rackId)
+                .createdBy("user1@slac.stanford.edu")
+                .build();
+        // the first run stops after the servers, the second one after the rack
+        assertThrows(IllegalStateException.class, () -> inventoryDeleteService.execute(job, failingContext()));
+        assertThat(mongoTemplate.findById(rackId, InventoryElement.class)).isNotNull();
+        assertThat(mongoTemplate.count(new Query(Criteria.where("parentId").is(rackId)), InventoryElement.class)).isZero();
+        assertThrows(IllegalStateException.class, () -> inventoryDeleteService.execute(job, failingContext()));
+        assertThat(mongoTemplate.findById(rackId, InventoryElement.class)).isNull();
+        // the resumed job finds nothing left to delete
+        assertDoesNotThrow(() -> inventoryDeleteService.execute(job, failingContext()));
+
+        assertThat(mongoTemplate.findAll(InventoryElement.class))
+                .extracting(InventoryElement::getId)
+                .containsExactly(buildingId);
+        assertThat(mongoTemplate.findAll(InventoryElementTombstone.class))
+                .extracting(InventoryElementTombstone::getId)
+                .containsExactlyInAnyOrder(rackId, server1Id, server2Id);
+        assertThat(mongoTemplate.count(new Query(Criteria.where("id").in(rackId, server1Id, server2Id)), InventoryElementCapacity.class)).isZero();
+        var domain = assertDoesNotThrow(() -> inventoryElementService.getInventoryDomainById(domainId));
+        assertThat(domain.tagUsage()).containsEntry(tagId, 0L);
+        assertThat(assertDoesNotThrow(() -> inventoryElementCapacityService.findByElementId(domainId, buildingId)).subtree())
+                .allMatch(capacity -> capacity.total() == 0L && capacity.used() == 0L);
+    }
+
+    @Test
+    public void deleteFailsOnElementOfOtherDomain() {
+        String classId = testUtilityService.createClass("building class");
+        String domainId = testUtilityService.createDomain("new-domain");
+        String otherDomainId = testUtilityService.createDomain("other-domain");
+        String buildingId = testUtilityService.createElement(domainId, "building", classId, null);
+        assertThrows(
+                InventoryElementNotFound.class,
+                () -> inventoryDeleteService.deleteElement(otherDomainId, buildingId, "user1@slac.stanford.edu")
+        );
+    }
+
+    /**
+     * Return a context that stops the job at the first saved progress, as a lost lease
+     */
+    private InventoryJobContext failingContext() {
+        return new InventoryJobContext() {
+            @Override
+            public void progress(long processed) {
+                throw new IllegalStateException("lease lost");
+            }
+
+            @Override
+            public void checkpoint(String checkpoint, long processed) {
+                throw new IllegalStateException("lease lost");
+            }
+
+            @Override
+            public void checkpoint(String checkpoint, long processed, Map<String, Long> counters, List<String> issues) {
+                throw new IllegalStateException("lease lost");
+            }
+        };
+    }
+
+    private InventoryJobDTO waitForJob(String jobId) {
+        await()
+                .atMost(Duration.ofSeconds(30))
+                .pollInterval(Duration.ofMillis(200))
+                .until(
+                        () -> inventoryJobService.findById(jobId).state() == InventoryJobStateDTO.Completed ||
+                                inventoryJobService.findById(jobId).state() == InventoryJobStateDTO.Failed
+                );
+        return inventoryJobService.findById(jobId);
+    }
+}
@@ -0,0 +1,171 @@
+package edu.stanford.slac.code_inventory_system.service;
+
+import edu.stanford.slac.ad.eed.baselib.model.AuthenticationToken;
+import edu.stanford.slac.ad.eed.baselib.model.Authorization;
+import edu.stanford.slac.code_inventory_system.api.v1.dto.*;
+import edu.stanford.slac.code_inventory_system.api.v1.mapper.InventoryElementMapper;
+import edu.stanford.slac.code_inventory_system.exception.InventoryDomainNotFound;
+import edu.stanford.slac.code_inventory_system.model.*;
+import edu.stanford.slac.code_inventory_system.repository.InventoryDomainRepository;
+import edu.stanford.slac.code_inventory_system.repository.InventoryDomainStatisticsRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.function.Predicate;
+
+import static java.util.Collections.emptyList;
+import static org.assertj.core.api.AssertionsForInterfaceTypes.assertThat;
+import static org.awaitility.Awaitility.await;
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@AutoConfigureMockMvc
+@SpringBootTest()
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+@ExtendWith(MockitoExtension.class)
+@ActiveProfiles({"test"})
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_CLASS)
+public class InventoryDomainStatisticsServiceTest {
+    @Autowired
+    MongoTemplate mongoTemplate;
+    @Autowired
+    TestUtilityService testUtilityService;
+    @Autowired
+    InventoryElementService inventoryElementService;
+    @Autowired
+    InventoryElementMapper inventoryElementMapper;
+    @Autowired
+    InventoryDomainRepository inventoryDomainRepository;
+    @Autowired
+    InventoryDomainStatisticsRepository inventoryDomainStatisticsRepository;
+    @Autowired
+    InventoryDomainStatisticsService inventoryDomainStatisticsService;
+    @Autowired
+    AsyncTaskExecutor applicationTaskExecutor;
+
+    @BeforeEach
+    public void cleanCollection() {
+        mongoTemplate.remove(new Query(), Authorization.class);
+        mongoTemplate.remove(new Query(), AuthenticationToken.class);
+        mongoTemplate.remove(new Query(), InventoryClass.class);
+        mongoTemplate.remove(new Query(), InventoryDomain.class);
+        mongoTemplate.remove(new Query(), InventoryDomainStatistics.class);
+        mongoTemplate.remove(new Query(), InventoryElement.class);
+        mongoTemplate.remove(new Query(), InventoryElementAttributeHistory.class);
+        mongoTemplate.remove(new Query(), InventoryElementCapacity.class);
+    }
+
+    @Test
+    public void statisticsAreRecomputedAfterTheChanges() {
+        String buildingClassId = testUtilityService.createClass("building class");
+        String roomClassId = testUtilityService.createClass("room class");
+        String domainId = assertDoesNotThrow(
+                () -> inventoryElementService.createNew(
+                        NewInventoryDomainDTO
+                                .builder()
+                                .name("new-domain")
+                                .description("This is the description for the new domain")
+                                .tags(List.of(TagDTO.builder().name("tag a").build()))
+                                .authenticationTokens(emptyList())
+                                .authorizations(emptyList())
+                                .build()
+                )
+        );
+        String tagId = assertDoesNotThrow(() -> inventoryElementService.getInventoryDomainById(domainId)).tags().get(0).id();
+        String buildingId = testUtilityService.createElement(domainId, "building", buildingClassId, null);
+        String floorId = testUtilityService.createElement(
+                domainId,
+                testUtilityService.newElement("floor", buildingClassId, buildingId).tags(List.of(tagId)).build()
+        );
+        testUtilityService.createElement(
+                domainId,
+                testUtilityService.newElement("room", roomClassId, floorId).tags(List.of(tagId)).build()
+        );
+
+        // the first read starts the computation
+        var notComputed = assertDoesNotThrow(() -> inventoryDomainStatisticsService.getStatistics(domainId));
+        assertThat(notComputed.domainId()).isEqualTo(domainId);
+        assertThat(notComputed.computedDate()).isNull();
+        assertThat(notComputed.totalElements()).isNull();
+
+        var statistics = waitStatistics(inventoryDomainStatisticsService, domainId, s -> s.computedDate() != null);
+        assertThat(statistics.domainId()).isEqualTo(domainId);
+        assertThat(statistics.totalElements()).isEqualTo(3L);
+        assertThat(statistics.elementsByClass()).containsEntry(buildingClassId, 2L).containsEntry(roomClassId, 1L);
+        assertThat(statistics.elementsByTag()).containsEntry(tagId, 2L);
+        assertThat(statistics.elementsByLevel()).containsEntry("0", 1L).containsEntry("1", 1L).containsEntry("2", 1L);
+        assertThat(statistics.computedDate()).isNotNull();
+
+        // without changes the same document is returned
+        var sameStatistics = assertDoesNotThrow(() -> inventoryDomainStatisticsService.getStatistics(domainId));
+        assertThat(sameStatistics.computedDate()).isEqualTo(statistics.computedDate());
+
+        // a new element make the statistics stale
+        testUtilityService.createElement(domainId, "other room", roomClassId, floorId);
+        var updatedStatistics = waitStatistics(inventoryDomainStatisticsService, domainId, s -> s.totalElements() == 4L);
+        assertThat(updatedStatistics.elementsByClass()).containsEntry(roomClassId, 2L);
+        assertThat(updatedStatistics.elementsByLevel()).containsEntry("2", 2L);
+    }
+
+    @Test
+    public void staleStatisticsAreRecomputedOncePerInterval() {
+        var throttledService = new InventoryDomainStatisticsService(
+                mongoTemplate,
+                inventoryElementMapper,
+                inventoryDomainRepository,
+                inventoryDomainStatisticsRepository,
+                applicationTaskExecutor,
+                Duration.ofHours(1)
+        );
+        String classId = testUtilityService.createClass("building class");
+        String domainId = testUtilityService.createDomain("new-domain");
+        testUtilityService.createElement(domainId, "building 1", classId, null);
+        waitStatistics(throttledService, domainId, s -> s.totalElements() != null && s.totalElements() == 1L);
+
+        // in the same interval the last computed statistics are returned
+        testUtilityService.createElement(domainId, "building 2", classId, null);
+        assertThat(assertDoesNotThrow(() -> throttledService.getStatistics(domainId)).totalElements()).isEqualTo(1L);
+        assertThat(mongoTemplate.findById(domainId, InventoryDomainStatistics.class).isStale()).isTrue();
+
+        // after the interval the statistics are recomputed
+        mongoTemplate.updateFirst(
+                new Query(Criteria.where("id").is(domainId)),
+                new Update().set("refreshClaimedDate", LocalDateTime.now().minusHours(2)),
+                InventoryDomainStatistics.class
+        );
+        waitStatistics(throttledService, domainId, s -> s.totalElements() == 2L);
+    }
+
+    @Test
+    public void statisticsFailsOnMissingDomain() {
+        var notFound = assertThrows(
+                InventoryDomainNotFound.class,
+                () -> inventoryDomainStatisticsService.getStatistics("bad-domain-id")
+        );
+        assertThat(notFound.getErrorCode()).isEqualTo(-3);
+    }
+
+    private InventoryDomainStatisticsDTO waitStatistics(InventoryDomainStatisticsService service, String domainId, Predicate<InventoryDomainStatisticsDTO> condition) {
+        await()
+                .atMost(Duration.ofSeconds(30))
+                .pollInterval(Duration.ofMillis(200))
+                .until(() -> condition.test(service.getStatistics(domainId)));
+        return service.getStatistics(domainId);
+    }
+}
@@ -0,0 +1,172 @@
+package edu.stanford.slac.code_inventory_system.service;
+
+import edu.stanford.slac.ad.eed.baselib.exception.ControllerLogicException;
+import edu.stanford.slac.ad.eed.baselib.model.AuthenticationToken;
+import edu.stanford.slac.ad.eed.baselib.model.Authorization;
+import edu.stanford.slac.code_inventory_system.api.v1.dto.*;
+import edu.stanford.slac.code_inventory_system.exception.InventoryElementAttributeNotForClass;
+import edu.stanford.slac.code_inventory_system.model.*;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.List;
+
+import static org.assertj.core.api.AssertionsForInterfaceTypes.assertThat;
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@AutoConfigureMockMvc
+@SpringBootTest()
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+@ExtendWith(MockitoExtension.class)
+@ActiveProfiles({"test"})
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_CLASS)
+public class InventoryElementBulkUpdateServiceTest {
+    @Autowired
+    MongoTemplate mongoTemplate;
+    @Autowired
+    TestUtilityService testUtilityService;
+    @Autowired
+    InventoryElementService inventoryElementService;
+    @Autowired
+    InventoryElementBulkUpdateService inventoryElementBulkUpdateService;
+
+    @BeforeEach
+    public void cleanCollection() {
+        mongoTemplate.remove(new Query(), Authorization.class);
+        mongoTemplate.remove(new Query(), AuthenticationToken.class);
+        mongoTemplate.remove(new Query(), InventoryClass.class);
+        mongoTemplate.remove(new Query(), InventoryDomain.class);
+        mongoTemplate.remove(new Query(), InventoryElement.class);
+        mongoTemplate.remove(new Query(), InventoryElementAttributeHistory.class);
+        mongoTemplate.remove(new Query(), InventoryElementCapacity.class);
+    }
+
+    @Test
+    public void setFirmwareVersionOnAllServers() {
+        String rackClassId = testUtilityService.createClass("rack class");
+        String serverClassId = testUtilityService.createClass(
+                "server class",
+                List.of(
+                        InventoryClassAttributeDTO.builder().name("Firmware-Version").type(InventoryClassAttributeTypeDTO.String).build(),
+                        InventoryClassAttributeDTO.builder().name("Cores").type(InventoryClassAttributeTypeDTO.Number).build()
+                )
+        );
+        String domainId = testUtilityService.createDomain("new-domain");
+        String rack1Id = testUtilityService.createElement(domainId, "rack-1", rackClassId, null);
+        String rack2Id = testUtilityService.createElement(domainId, "rack-2", rackClassId, null);
+        String server1Id = testUtilityService.createElement(
+                domainId,
+                testUtilityService.newElement("server-1", serverClassId, rack1Id)
+                        .attributes(
+                                List.of(
+                                        InventoryElementAttributeValueDTO.builder().name("Firmware-Version").value("1.0").build(),
+                                        InventoryElementAttributeValueDTO.builder().name("Cores").value("8").build()
+                                )
+                        )
+                        .build()
+        );
+        String server2Id = testUtilityService.createElement(domainId, "server-2", serverClassId, rack1Id);
+        String server3Id = testUtilityService.createElement(
+                domainId,
+                testUtilityService.newElement("server-3", serverClassId, rack2Id)
+                        .attributes(List.of(InventoryElementAttributeValueDTO.builder().name("Firmware-Version").value("2.0").build()))
+                        .build()
+        );
+
+        // only the servers of the first rack
+        Long changed = assertDoesNotThrow(
+                () -> inventoryElementBulkUpdateService.updateAttributesByQuery(
+                        domainId,
+                        BulkUpdateInventoryElementAttributesDTO
+                                .builder()
+                                .classId(serverClassId)
+                                .ancestorId(rack1Id)
+                                .attributes(List.of(InventoryElementAttributeValueDTO.builder().name("Firmware-Version").value("2.0").build()))
+                                .build(),
+                        "user1@slac.stanford.edu"
+                )
+        );
+        assertThat(changed).isEqualTo(2L);
+
+        var server1 = assertDoesNotThrow(() -> inventoryElementService.getInventoryElementByDomainIdAndElementId(domainId, server1Id));
+        assertThat(server1.attributes())
+                .containsExactlyInAnyOrder(
+                        InventoryElementAttributeValueDTO.builder().name("Cores").value("8").build(),
+                        InventoryElementAttributeValueDTO.builder().name("Firmware-Version").value("2.0").build()
+                );
+        var server2 = assertDoesNotThrow(() -> inventoryElementService.getInventoryElementByDomainIdAndElementId(domainId, server2Id));
+        assertThat(server2.attributes())
+                .containsExactly(InventoryElementAttributeValueDTO.builder().name("Firmware-Version").value("2.0").build());
+
+        // the replaced value is in the history of the first server only
+        var server1History = assertDoesNotThrow(() -> inventoryElementService.findAllAttributeHistory(domainId, server1Id));
+        assertThat(server1History).hasSize(1);
+        assertThat(server1History.get(0).getValue().value()).isEqualTo("1.0");
+        assertThat(assertDoesNotThrow(() -> inventoryElementService.findAllAttributeHistory(domainId, server2Id))).isEmpty();
+
+        // on all the servers only the ones with a different value are changed
+        Long changedAgain = assertDoesNotThrow(
+                () -> inventoryElementBulkUpdateService.updateAttributesByQuery(
+                        domainId,
+                        BulkUpdateInventoryElementAttributesDTO
+                                .builder()
+                                .classId(serverClassId)
+                                .attributes(List.of(InventoryElementAttributeValueDTO.builder().name("firmware-version").value("2.0").build()))
+                                .build(),
+                        "user1@slac.stanford.edu"
+                )
+        );
+        assertThat(changedAgain).isEqualTo(0L);
+        assertThat(assertDoesNotThrow(() -> inventoryElementService.findAllAttributeHistory(domainId, server3Id))).isEmpty();
+    }
+
+    @Test
+    public void bulkUpdateFailsOnAttributeNotOfTheClass() {
+        String serverClassId = testUtilityService.createClass(
+                "server class",
+                List.of(InventoryClassAttributeDTO.builder().name("Firmware-Version").type(InventoryClassAttributeTypeDTO.String).build())
+        );
+        String domainId = testUtilityService.createDomain("new-domain");
+        assertThrows(
+                InventoryElementAttributeNotForClass.class,
+                () -> inventoryElementBulkUpdateService.updateAttributesByQuery(
+                        domainId,
+                        BulkUpdateInventoryElementAttributesDTO
+                                .builder()
+                                .classId(serverClassId)
+                                .attributes(List.of(InventoryElementAttributeValueDTO.builder().name("Rack-Unit").value("4").build()))
+                                .build(),
+                        "user1@slac.stanford.edu"
+                )
+        );
+        var duplicated = assertThrows(
+                ControllerLogicException.class,
+                () -> inventoryElementBulkUpdateService.updateAttributesByQuery(
+                        domainId,
+                        BulkUpdateInventoryElementAttributesDTO
+                                .builder()
+                                .classId(serverClassId)
+                                .attributes(
+                                        List.of(
+                                                InventoryElementAttributeValueDTO.builder().name("Firmware-Version").value("1.0").build(),
+                                                InventoryElementAttributeValueDTO.builder().name("firmware-version").value("2.0").build()
+                                        )
+                                )
+                                .build(),
+                        "user1@slac.stanford.edu"
+                )
+        );
+        assertThat(duplicated.getErrorCode()).isEqualTo(-2);
+    }
+}
@@ -0,0 +1,114 @@
+package edu.stanford.slac.code_inventory_system.service;
+
+import edu.stanford.slac.ad.eed.baselib.model.AuthenticationToken;
+import edu.stanford.slac.ad.eed.baselib.model.Authorization;
+import edu.stanford.slac.code_inventory_system.api.v1.dto.*;
+import edu.stanford.slac.code_inventory_system.model.*;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.List;
+
+import static org.assertj.core.api.AssertionsForInterfaceTypes.assertThat;
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+
+@AutoConfigureMockMvc
+@SpringBootTest()
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+@ExtendWith(MockitoExtension.class)
+@ActiveProfiles({"test"})
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_CLASS)
+public class InventoryElementCapacityServiceTest {
+    @Autowired
+    MongoTemplate mongoTemplate;
+    @Autowired
+    TestUtilityService testUtilityService;
+    @Autowired
+    InventoryElementService inventoryElementService;
+    @Autowired
+    InventoryElementCapacityService inventoryElementCapacityService;
+
+    @BeforeEach
+    public void cleanCollection() {
+        mongoTemplate.remove(new Query(), Authorization.class);
+        mongoTemplate.remove(new Query(), AuthenticationToken.class);
+        mongoTemplate.remove(new Query(), InventoryClass.class);
+        mongoTemplate.remove(new Query(), InventoryDomain.class);
+        mongoTemplate.remove(new Query(), InventoryElement.class);
+        mongoTemplate.remove(new Query(), InventoryElementAttributeHistory.class);
+        mongoTemplate.remove(new Query(), InventoryElementCapacity.class);
+    }
+
+    @Test
+    public void capacityIsUpdatedOnCreateAndUpdate() {
+        String newBuildingClassID = testUtilityService.createClass("building class");
+        String newRackClassID = testUtilityService.createClass("rack class");
+        String newServerClassID = testUtilityService.createClass("server class");
+        String newDomainId = testUtilityService.createDomain("New Domain");
+        // the building has no connector
+        String buildingId = testUtilityService.createElement(newDomainId, "building", newBuildingClassID, null);
+        // the rack can host two server
+        String rackId = testUtilityService.createElement(
+                newDomainId,
+                testUtilityService.newElement("rack", newRackClassID, buildingId)
+                        .connectorClasses(List.of(ConnectorClassDTO.builder().classId(newServerClassID).count(2).build()))
+                        .build()
+        );
+        testUtilityService.createElement(newDomainId, "server-1", newServerClassID, rackId);
+
+        var rackCapacity = assertDoesNotThrow(
+                () -> inventoryElementCapacityService.findByElementId(newDomainId, rackId)
+        );
+        assertThat(rackCapacity.own())
+                .hasSize(1)
+                .containsExactly(
+                        ConnectorCapacityDTO.builder().classId(newServerClassID).total(2L).used(1L).free(1L).build()
+                );
+        var buildingCapacity = assertDoesNotThrow(
+                () -> inventoryElementCapacityService.findByElementId(newDomainId, buildingId)
+        );
+        assertThat(buildingCapacity.own()).isEmpty();
+        assertThat(buildingCapacity.subtree())
+                .containsExactly(
+                        ConnectorCapacityDTO.builder().classId(newServerClassID).total(2L).used(1L).free(1L).build()
+                );
+
+        // add connectors to the rack
+        assertDoesNotThrow(
+                () -> inventoryElementService.update(
+                        newDomainId,
+                        rackId,
+                        UpdateInventoryElementDTO
+                                .builder()
+                                .connectorClasses(
+                                        List.of(ConnectorClassDTO.builder().classId(newServerClassID).count(4).build())
+                                )
+                                .build()
+                )
+        );
+        buildingCapacity = assertDoesNotThrow(
+                () -> inventoryElementCapacityService.findByElementId(newDomainId, buildingId)
+        );
+        assertThat(buildingCapacity.subtree())
+                .containsExactly(
+                        ConnectorCapacityDTO.builder().classId(newServerClassID).total(4L).used(1L).free(3L).build()
+                );
+
+        // the rebuild need to produce the same result of the incremental update
+        assertDoesNotThrow(() -> inventoryElementCapacityService.rebuildAll());
+        var rebuiltBuildingCapacity = assertDoesNotThrow(
+                () -> inventoryElementCapacityService.findByElementId(newDomainId, buildingId)
+        );
+        assertThat(rebuiltBuildingCapacity).isEqualTo(buildingCapacity);
+    }
+}
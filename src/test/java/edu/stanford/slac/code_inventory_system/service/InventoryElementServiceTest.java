@@ -13,6 +13,7 @@ import edu.stanford.slac.code_inventory_system.model.InventoryClass;
 import edu.stanford.slac.code_inventory_system.model.InventoryDomain;
 import edu.stanford.slac.code_inventory_system.model.InventoryElement;
 import edu.stanford.slac.code_inventory_system.model.InventoryElementAttributeHistory;
+import edu.stanford.slac.code_inventory_system.model.InventoryMaintenance;
 import edu.stanford.slac.code_inventory_system.repository.InventoryElementRepository;
 import jakarta.validation.ConstraintViolationException;
 import org.junit.jupiter.api.BeforeEach;
@@ -30,6 +31,8 @@ import org.springframework.data.mongodb.core.query.Query;
 import org.springframework.test.annotation.DirtiesContext;
 import org.springframework.test.context.ActiveProfiles;
 
+import java.time.LocalDateTime;
+import java.util.EnumSet;
 import java.util.List;
 
 import static edu.stanford.slac.ad.eed.baselib.api.v1.dto.AuthorizationOwnerTypeDTO.User;
@@ -70,6 +73,7 @@ public class InventoryElementServiceTest {
         mongoTemplate.remove(new Query(), InventoryDomain.class);
         mongoTemplate.remove(new Query(), InventoryElement.class);
         mongoTemplate.remove(new Query(), InventoryElementAttributeHistory.class);
+        mongoTemplate.remove(new Query(), InventoryMaintenance.class);
     }
 
     @Test
@@ -267,6 +271,82 @@ public class InventoryElementServiceTest {
                 .hasSize(0);
     }
 
+    @Test
+    public void tagUsageIsMaintainedByTheElements() {
+        String classId = assertDoesNotThrow(
+                () -> inventoryClassService.createNew(
+                        NewInventoryClassDTO
+                                .builder()
+                                .name("building class")
+                                .attributes(emptyList())
+                                .build()
+                )
+        );
+        String domainId = assertDoesNotThrow(
+                () -> inventoryElementService.createNew(
+                        NewInventoryDomainDTO
+                                .builder()
+                                .name("New Domain")
+                                .description("This is the description for the new domain")
+                                .tags(
+                                        List.of(
+                                                TagDTO.builder().name("tag a").build(),
+                                                TagDTO.builder().name("tag b").build()
+                                        )
+                                )
+                                .authenticationTokens(emptyList())
+                                .authorizations(emptyList())
+                                .build()
+                )
+        );
+        var domain = assertDoesNotThrow(() -> inventoryElementService.getInventoryDomainById(domainId));
+        String tagA = domain.tags().stream().filter(t -> t.name().equals("tag-a")).findFirst().orElseThrow().id();
+        String tagB = domain.tags().stream().filter(t -> t.name().equals("tag-b")).findFirst().orElseThrow().id();
+
+        String firstElementId = assertDoesNotThrow(
+                () -> inventoryElementService.createNew(
+                        domainId,
+                        NewInventoryElementDTO.builder().name("first").description("first element").classId(classId).tags(List.of(tagA)).build()
+                )
+        );
+        assertDoesNotThrow(
+                () -> inventoryElementService.createNew(
+                        domainId,
+                        NewInventoryElementDTO.builder().name("second").description("second element").classId(classId).tags(List.of(tagA, tagB)).build()
+                )
+        );
+        domain = assertDoesNotThrow(() -> inventoryElementService.getInventoryDomainById(domainId));
+        assertThat(domain.tagUsage()).containsEntry(tagA, 2L).containsEntry(tagB, 1L);
+
+        // move the first element from tag a to tag b
+        assertDoesNotThrow(
+                () -> inventoryElementService.update(
+                        domainId,
+                        firstElementId,
+                        UpdateInventoryElementDTO.builder().tags(List.of(tagB)).build()
+                )
+        );
+        domain = assertDoesNotThrow(() -> inventoryElementService.getInventoryDomainById(domainId));
+        assertThat(domain.tagUsage()).containsEntry(tagA, 1L).containsEntry(tagB, 2L);
+
+        // a tag in use cannot be removed from the domain
+        var finalDomain = domain;
+        assertThrows(
+                ControllerLogicException.class,
+                () -> inventoryElementService.update(
+                        domainId,
+                        UpdateDomainDTO
+                                .builder()
+                                .name("new-domain")
+                                .description("Update the description")
+                                .tags(finalDomain.tags().stream().filter(t -> t.id().equals(tagB)).toList())
+                                .authenticationTokens(emptyList())
+                                .authorizations(emptyList())
+                                .build()
+                )
+        );
+    }
+
     @Test
     public void updateDomainWithAuthorization() {
         String newDomainId = assertDoesNotThrow(
@@ -1325,4 +1405,274 @@ public class InventoryElementServiceTest {
                 .extracting(InventoryElementAttributeValueDTO::value)
                 .contains("34");
     }
+
+    @Test
+    public void getElementWithExpandedParts() {
+        String serverClassId = assertDoesNotThrow(
+                () -> inventoryClassService.createNew(
+                        NewInventoryClassDTO
+                                .builder()
+                                .name("server class")
+                                .attributes(emptyList())
+                                .build()
+                )
+        );
+        String rackClassId = assertDoesNotThrow(
+                () -> inventoryClassService.createNew(
+                        NewInventoryClassDTO
+                                .builder()
+                                .name("rack class")
+                                .permittedChildClass(List.of(serverClassId))
+                                .attributes(
+                                        List.of(
+                                                InventoryClassAttributeDTO
+                                                        .builder()
+                                                        .name("Height")
+                                                        .type(InventoryClassAttributeTypeDTO.String)
+                                                        .build()
+                                        )
+                                )
+                                .build()
+                )
+        );
+        String domainId = assertDoesNotThrow(
+                () -> inventoryElementService.createNew(
+                        NewInventoryDomainDTO
+                                .builder()
+                                .name("New Domain")
+                                .description("This is the description for the new domain")
+                                .tags(emptyList())
+                                .authenticationTokens(emptyList())
+                                .authorizations(emptyList())
+                                .build()
+                )
+        );
+        String rackId = assertDoesNotThrow(
+                () -> inventoryElementService.createNew(
+                        domainId,
+                        NewInventoryElementDTO
+                                .builder()
+                                .name("rack-1")
+                                .description("the first rack")
+                                .classId(rackClassId)
+                                .attributes(List.of(InventoryElementAttributeValueDTO.builder().name("Height").value("42").build()))
+                                .build()
+                )
+        );
+        String serverId = assertDoesNotThrow(
+                () -> inventoryElementService.createNew(
+                        domainId,
+                        NewInventoryElementDTO
+                                .builder()
+                                .name("server-1")
+                                .description("the first server")
+                                .classId(serverClassId)
+                                .parentId(rackId)
+                                .attributes(emptyList())
+                                .build()
+                )
+        );
+        assertDoesNotThrow(
+                () -> inventoryElementService.update(
+                        domainId,
+                        rackId,
+                        UpdateInventoryElementDTO
+                                .builder()
+                                .description("the first rack")
+                                .attributes(List.of(InventoryElementAttributeValueDTO.builder().name("Height").value("48").build()))
+                                .build()
+                )
+        );
+
+        var expandedRack = assertDoesNotThrow(
+                () -> inventoryElementService.getInventoryElementByDomainIdAndElementId(
+                        domainId,
+                        rackId,
+                        EnumSet.allOf(InventoryElementExpandDTO.class),
+                        ThreePathType.Full
+                )
+        );
+        assertThat(expandedRack.id()).isEqualTo(rackId);
+        assertThat(expandedRack.children()).extracting(InventoryElementSummaryDTO::id).containsExactly(serverId);
+        assertThat(expandedRack.path()).extracting(InventoryElementSummaryDTO::id).containsExactly(rackId, serverId);
+        assertThat(expandedRack.attributeHistory())
+                .hasSize(1)
+                .extracting(InventoryElementAttributeHistoryDTO::getValue)
+                .extracting(InventoryElementAttributeValueDTO::value)
+                .contains("42");
+        assertThat(expandedRack.implementations()).isEmpty();
+
+        // only the requested parts are embedded
+        var serverWithPath = assertDoesNotThrow(
+                () -> inventoryElementService.getInventoryElementByDomainIdAndElementId(
+                        domainId,
+                        serverId,
+                        EnumSet.of(InventoryElementExpandDTO.Path),
+                        ThreePathType.Upward
+                )
+        );
+        assertThat(serverWithPath.path()).extracting(InventoryElementSummaryDTO::id).containsExactly(serverId, rackId);
+        assertThat(serverWithPath.children()).isNull();
+        assertThat(serverWithPath.attributeHistory()).isNull();
+        assertThat(serverWithPath.implementations()).isNull();
+
+        // the expansion is checked like the element
+        assertThrows(
+                InventoryElementNotFound.class,
+                () -> inventoryElementService.getInventoryElementByDomainIdAndElementId(
+                        domainId,
+                        "bad-id",
+                        EnumSet.of(InventoryElementExpandDTO.Children),
+                        ThreePathType.Full
+                )
+        );
+    }
+
+    @Test
+    public void elementOfAnotherDomainIsNotFound() {
+        String classId = assertDoesNotThrow(
+                () -> inventoryClassService.createNew(
+                        NewInventoryClassDTO
+                                .builder()
+                                .name("rack class")
+                                .attributes(emptyList())
+                                .build()
+                )
+        );
+        String domainAId = assertDoesNotThrow(
+                () -> inventoryElementService.createNew(
+                        NewInventoryDomainDTO
+                                .builder()
+                                .name("domain a")
+                                .description("This is the description for the new domain")
+                                .tags(emptyList())
+                                .authenticationTokens(emptyList())
+                                .authorizations(emptyList())
+                                .build()
+                )
+        );
+        String domainBId = assertDoesNotThrow(
+                () -> inventoryElementService.createNew(
+                        NewInventoryDomainDTO
+                                .builder()
+                                .name("domain b")
+                                .description("This is the description for the new domain")
+                                .tags(emptyList())
+                                .authenticationTokens(emptyList())
+                                .authorizations(emptyList())
+                                .build()
+                )
+        );
+        String elementOfBId = assertDoesNotThrow(
+                () -> inventoryElementService.createNew(
+                        domainBId,
+                        NewInventoryElementDTO
+                                .builder()
+                                .name("rack-1")
+                                .description("rack of the domain b")
+                                .classId(classId)
+                                .attributes(emptyList())
+                                .build()
+                )
+        );
+        assertDoesNotThrow(() -> inventoryElementService.getInventoryElementETag(domainBId, elementOfBId));
+        // the entity tag and the get behave the same way
+        assertThrows(
+                InventoryElementNotFound.class,
+                () -> inventoryElementService.getInventoryElementETag(domainAId, elementOfBId)
+        );
+        assertThrows(
+                InventoryElementNotFound.class,
+                () -> inventoryElementService.getInventoryElementByDomainIdAndElementId(domainAId, elementOfBId)
+        );
+    }
+
+    @Test
+    public void appendAndPaginateMaintenanceOK() {
+        String newClassID = assertDoesNotThrow(
+                () -> inventoryClassService.createNew(
+                        NewInventoryClassDTO
+                                .builder()
+                                .name("class a")
+                                .attributes(emptyList())
+                                .build()
+                )
+        );
+
+        String newDomainId = assertDoesNotThrow(
+                () -> inventoryElementService.createNew(
+                        NewInventoryDomainDTO
+                                .builder()
+                                .name("New Domain")
+                                .description("This is the description for the new domain")
+                                .tags(emptyList())
+                                .authenticationTokens(emptyList())
+                                .authorizations(emptyList())
+                                .build()
+                )
+        );
+
+        String newElementId = assertDoesNotThrow(
+                () -> inventoryElementService.createNew(
+                        newDomainId,
+                        NewInventoryElementDTO
+                                .builder()
+                                .name("Building Control")
+                                .description("Main control system building")
+                                .classId(newClassID)
+                                .build()
+                )
+        );
+
+        LocalDateTime now = LocalDateTime.now();
+        for (int idx = 0; idx < 3; idx++) {
+            int finalIdx = idx;
+            assertDoesNotThrow(
+                    () -> inventoryElementService.appendMaintenance(
+                            newDomainId,
+                            newElementId,
+                            NewInventoryMaintenanceDTO
+                                    .builder()
+                                    .timestamp(now.plusMinutes(finalIdx))
+                                    .type(InventoryMaintenanceTypeDTO.Local)
+                                    .action("action-%d".formatted(finalIdx))
+                                    .description("description %d".formatted(finalIdx))
+                                    .build()
+                    )
+            );
+        }
+
+        // the first page contains the most recent records
+        var firstPage = assertDoesNotThrow(
+                () -> inventoryElementService.findAllMaintenance(newDomainId, newElementId, null, 2)
+        );
+        assertThat(firstPage)
+                .hasSize(2)
+                .extracting(InventoryMaintenanceDTO::action)
+                .containsExactly("action-2", "action-1");
+
+        var secondPage = assertDoesNotThrow(
+                () -> inventoryElementService.findAllMaintenance(newDomainId, newElementId, firstPage.get(1).id(), 2)
+        );
+        assertThat(secondPage)
+                .hasSize(1)
+                .extracting(InventoryMaintenanceDTO::action)
+                .containsExactly("action-0");
+
+        // the record cannot be appended to an element of another domain
+        ControllerLogicException wrongDomainException = assertThrows(
+                ControllerLogicException.class,
+                () -> inventoryElementService.appendMaintenance(
+                        "wrong-domain",
+                        newElementId,
+                        NewInventoryMaintenanceDTO
+                                .builder()
+                                .timestamp(now)
+                                .type(InventoryMaintenanceTypeDTO.Local)
+                                .action("action")
+                                .build()
+                )
+        );
+        assertThat(wrongDomainException.getErrorCode()).isEqualTo(-2);
+    }
 }
@@ -0,0 +1,112 @@
+package edu.stanford.slac.code_inventory_system.service;
+
+import edu.stanford.slac.ad.eed.baselib.exception.ControllerLogicException;
+import edu.stanford.slac.ad.eed.baselib.model.AuthenticationToken;
+import edu.stanford.slac.ad.eed.baselib.model.Authorization;
+import edu.stanford.slac.code_inventory_system.api.v1.dto.*;
+import edu.stanford.slac.code_inventory_system.exception.InventoryDomainNotFound;
+import edu.stanford.slac.code_inventory_system.model.*;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.List;
+
+import static org.assertj.core.api.AssertionsForInterfaceTypes.assertThat;
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@AutoConfigureMockMvc
+@SpringBootTest()
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+@ExtendWith(MockitoExtension.class)
+@ActiveProfiles({"test"})
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_CLASS)
+public class InventoryElementStreamServiceTest {
+    @Autowired
+    MongoTemplate mongoTemplate;
+    @Autowired
+    TestUtilityService testUtilityService;
+    @Autowired
+    InventoryElementStreamService inventoryElementStreamService;
+
+    @BeforeEach
+    public void cleanCollection() {
+        mongoTemplate.remove(new Query(), Authorization.class);
+        mongoTemplate.remove(new Query(), AuthenticationToken.class);
+        mongoTemplate.remove(new Query(), InventoryClass.class);
+        mongoTemplate.remove(new Query(), InventoryDomain.class);
+        mongoTemplate.remove(new Query(), InventoryElement.class);
+        mongoTemplate.remove(new Query(), InventoryElementAttributeHistory.class);
+        mongoTemplate.remove(new Query(), InventoryElementCapacity.class);
+    }
+
+    @Test
+    public void streamSubtreeAndExport() {
+        String classId = testUtilityService.createClass("building class");
+        String domainId = testUtilityService.createDomain("New Domain");
+        String buildingId = testUtilityService.createElement(domainId, "building", classId, null);
+        String floorId = testUtilityService.createElement(domainId, "floor", classId, buildingId);
+        String roomId = testUtilityService.createElement(domainId, "room", classId, floorId);
+        String otherBuildingId = testUtilityService.createElement(domainId, "other building", classId, null);
+
+        var subtree = assertDoesNotThrow(
+                () -> inventoryElementStreamService.findSubtree(domainId, buildingId).collectList().block()
+        );
+        assertThat(subtree)
+                .extracting(InventoryElementSummaryDTO::id)
+                .containsExactly(floorId, roomId);
+        assertThat(subtree.get(0).classDTO().id()).isEqualTo(classId);
+        assertThat(subtree.get(0).domainDTO().id()).isEqualTo(domainId);
+
+        // the export emit the parent before the children
+        var exported = assertDoesNotThrow(
+                () -> inventoryElementStreamService.exportDomain(domainId).collectList().block()
+        );
+        assertThat(exported)
+                .extracting(InventoryElementDTO::id)
+                .containsExactlyInAnyOrder(buildingId, floorId, roomId, otherBuildingId);
+        assertThat(exported.indexOf(exported.stream().filter(e -> e.id().equals(buildingId)).findFirst().orElseThrow()))
+                .isLessThan(exported.indexOf(exported.stream().filter(e -> e.id().equals(floorId)).findFirst().orElseThrow()));
+        assertThat(exported.indexOf(exported.stream().filter(e -> e.id().equals(floorId)).findFirst().orElseThrow()))
+                .isLessThan(exported.indexOf(exported.stream().filter(e -> e.id().equals(roomId)).findFirst().orElseThrow()));
+
+        // search by domain return all the element ordered by name
+        var found = assertDoesNotThrow(
+                () -> inventoryElementStreamService.searchAll(
+                        QueryParameter.builder().domainId(List.of(domainId)).build()
+                ).collectList().block()
+        );
+        assertThat(found)
+                .extracting(InventoryElementSummaryDTO::name)
+                .containsExactly("building", "floor", "other building", "room");
+    }
+
+    @Test
+    public void streamFailsOnWrongDomain() {
+        String classId = testUtilityService.createClass("building class");
+        String domainId = testUtilityService.createDomain("New Domain");
+        String otherDomainId = testUtilityService.createDomain("Other Domain");
+        String buildingId = testUtilityService.createElement(domainId, "building", classId, null);
+
+        var domainMismatch = assertThrows(
+                ControllerLogicException.class,
+                () -> inventoryElementStreamService.findSubtree(otherDomainId, buildingId).collectList().block()
+        );
+        assertThat(domainMismatch.getErrorCode()).isEqualTo(-2);
+
+        assertThrows(
+                InventoryDomainNotFound.class,
+                () -> inventoryElementStreamService.exportDomain("bad-id").collectList().block()
+        );
+    }
+}
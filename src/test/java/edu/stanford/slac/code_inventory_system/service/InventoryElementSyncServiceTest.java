@@ -0,0 +1,144 @@
+package edu.stanford.slac.code_inventory_system.service;
+
+import edu.stanford.slac.ad.eed.baselib.exception.ControllerLogicException;
+import edu.stanford.slac.ad.eed.baselib.model.AuthenticationToken;
+import edu.stanford.slac.ad.eed.baselib.model.Authorization;
+import edu.stanford.slac.code_inventory_system.api.v1.dto.*;
+import edu.stanford.slac.code_inventory_system.model.*;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.AssertionsForInterfaceTypes.assertThat;
+import static org.awaitility.Awaitility.await;
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@AutoConfigureMockMvc
+@SpringBootTest()
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+@ExtendWith(MockitoExtension.class)
+@ActiveProfiles({"test"})
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_CLASS)
+public class InventoryElementSyncServiceTest {
+    @Autowired
+    MongoTemplate mongoTemplate;
+    @Autowired
+    TestUtilityService testUtilityService;
+    @Autowired
+    InventoryElementService inventoryElementService;
+    @Autowired
+    InventoryElementSyncService inventoryElementSyncService;
+
+    @BeforeEach
+    public void cleanCollection() {
+        mongoTemplate.remove(new Query(), Authorization.class);
+        mongoTemplate.remove(new Query(), AuthenticationToken.class);
+        mongoTemplate.remove(new Query(), InventoryClass.class);
+        mongoTemplate.remove(new Query(), InventoryDomain.class);
+        mongoTemplate.remove(new Query(), InventoryElement.class);
+        mongoTemplate.remove(new Query(), InventoryElementTombstone.class);
+        mongoTemplate.remove(new Query(), InventoryElementAttributeHistory.class);
+        mongoTemplate.remove(new Query(), InventoryElementCapacity.class);
+    }
+
+    @Test
+    public void syncPagesUpdatesAndDeletions() {
+        String classId = testUtilityService.createClass("building class");
+        String domainId = testUtilityService.createDomain("new-domain");
+        String otherDomainId = testUtilityService.createDomain("other-domain");
+        String buildingId = testUtilityService.createElement(domainId, "building", classId, null);
+        String floorId = testUtilityService.createElement(domainId, "floor", classId, buildingId);
+        String roomId = testUtilityService.createElement(domainId, "room", classId, floorId);
+        testUtilityService.createElement(otherDomainId, "other building", classId, null);
+
+        // the changes are returned after the settle window
+        AtomicReference<InventoryElementSyncPageDTO> firstPage = new AtomicReference<>();
+        await()
+                .atMost(Duration.ofSeconds(10))
+                .pollInterval(Duration.ofMillis(500))
+                .until(
+                        () -> {
+                            firstPage.set(inventoryElementSyncService.findChanges(domainId, Optional.empty(), Optional.empty(), 2));
+                            return firstPage.get().changes().size() == 2;
+                        }
+                );
+        assertThat(firstPage.get().hasMore()).isTrue();
+        assertThat(firstPage.get().changes())
+                .extracting(InventoryElementSyncEntryDTO::operation)
+                .containsOnly(InventoryChangeOperationDTO.Create);
+        assertThat(firstPage.get().changes().get(0).element().classDTO().id()).isEqualTo(classId);
+
+        var secondPage = assertDoesNotThrow(
+                () -> inventoryElementSyncService.findChanges(domainId, Optional.of(firstPage.get().watermark()), Optional.empty(), 2)
+        );
+        assertThat(secondPage.hasMore()).isFalse();
+        assertThat(secondPage.changes()).hasSize(1);
+        assertThat(
+                Stream.concat(firstPage.get().changes().stream(), secondPage.changes().stream())
+                        .map(InventoryElementSyncEntryDTO::id)
+        ).containsExactlyInAnyOrder(buildingId, floorId, roomId);
+
+        // update an element and delete another
+        assertDoesNotThrow(
+                () -> inventoryElementService.update(
+                        domainId,
+                        floorId,
+                        UpdateInventoryElementDTO.builder().description("updated floor").build()
+                )
+        );
+        var room = mongoTemplate.findById(roomId, InventoryElement.class);
+        mongoTemplate.remove(room);
+        inventoryElementSyncService.recordDeletion(room, "user1@slac.stanford.edu");
+
+        AtomicReference<InventoryElementSyncPageDTO> thirdPage = new AtomicReference<>();
+        await()
+                .atMost(Duration.ofSeconds(10))
+                .pollInterval(Duration.ofMillis(500))
+                .until(
+                        () -> {
+                            thirdPage.set(inventoryElementSyncService.findChanges(domainId, Optional.of(secondPage.watermark()), Optional.empty(), 10));
+                            return thirdPage.get().changes().size() == 2;
+                        }
+                );
+        var updated = thirdPage.get().changes().get(0);
+        assertThat(updated.id()).isEqualTo(floorId);
+        assertThat(updated.operation()).isEqualTo(InventoryChangeOperationDTO.Update);
+        assertThat(updated.element().description()).isEqualTo("updated floor");
+        var deleted = thirdPage.get().changes().get(1);
+        assertThat(deleted.id()).isEqualTo(roomId);
+        assertThat(deleted.operation()).isEqualTo(InventoryChangeOperationDTO.Delete);
+        assertThat(deleted.element()).isNull();
+
+        // nothing new after the last watermark
+        var emptyPage = assertDoesNotThrow(
+                () -> inventoryElementSyncService.findChanges(domainId, Optional.of(thirdPage.get().watermark()), Optional.empty(), 10)
+        );
+        assertThat(emptyPage.changes()).isEmpty();
+        assertThat(emptyPage.watermark()).isEqualTo(thirdPage.get().watermark());
+    }
+
+    @Test
+    public void syncFailsOnBadWatermark() {
+        String domainId = testUtilityService.createDomain("new-domain");
+        var badWatermark = assertThrows(
+                ControllerLogicException.class,
+                () -> inventoryElementSyncService.findChanges(domainId, Optional.of("not a watermark"), Optional.empty(), 10)
+        );
+        assertThat(badWatermark.getErrorCode()).isEqualTo(-1);
+    }
+}
@@ -0,0 +1,209 @@
+package edu.stanford.slac.code_inventory_system.service;
+
+import edu.stanford.slac.ad.eed.baselib.exception.ControllerLogicException;
+import edu.stanford.slac.ad.eed.baselib.model.AuthenticationToken;
+import edu.stanford.slac.ad.eed.baselib.model.Authorization;
+import edu.stanford.slac.code_inventory_system.api.v1.dto.InventoryJobDTO;
+import edu.stanford.slac.code_inventory_system.api.v1.dto.InventoryJobStateDTO;
+import edu.stanford.slac.code_inventory_system.api.v1.mapper.InventoryElementMapper;
+import edu.stanford.slac.code_inventory_system.model.*;
+import edu.stanford.slac.code_inventory_system.service.utility.InventoryJobContext;
+import edu.stanford.slac.code_inventory_system.service.utility.InventoryJobHandler;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.AssertionsForInterfaceTypes.assertThat;
+import static org.awaitility.Awaitility.await;
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@AutoConfigureMockMvc
+@SpringBootTest()
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+@ExtendWith(MockitoExtension.class)
+@ActiveProfiles({"test"})
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_CLASS)
+public class InventoryJobServiceTest {
+    @Autowired
+    MongoTemplate mongoTemplate;
+    @Autowired
+    TestUtilityService testUtilityService;
+    @Autowired
+    InventoryJobService inventoryJobService;
+    @Autowired
+    InventoryElementMapper inventoryElementMapper;
+
+    @BeforeEach
+    public void cleanCollection() {
+        mongoTemplate.remove(new Query(), Authorization.class);
+        mongoTemplate.remove(new Query(), AuthenticationToken.class);
+        mongoTemplate.remove(new Query(), InventoryDomain.class);
+        mongoTemplate.remove(new Query(), InventoryElement.class);
+        mongoTemplate.remove(new Query(), InventoryJob.class);
+    }
+
+    @Test
+    public void jobOfStoppedNodeIsResumed() {
+        String domainId = testUtilityService.createDomain("new-domain");
+        // a job left running by a node that has been stopped
+        var abandonedJob = mongoTemplate.insert(
+                InventoryJob.builder()
+                        .type(InventoryJobType.DeleteDomain)
+                        .state(InventoryJobState.Running)
+                        .domainId(domainId)
+                        .total(0L)
+                        .attempts(1)
+                        .owner("stopped-node")
+                        .leaseUntil(LocalDateTime.now().minusMinutes(1))
+                        .createdBy("user1@slac.stanford.edu")
+                        .createdDate(LocalDateTime.now().minusMinutes(5))
+                        .build()
+        );
+
+        var job = waitForJob(abandonedJob.getId());
+        assertThat(job.state()).isEqualTo(InventoryJobStateDTO.Completed);
+        assertThat(mongoTemplate.findById(domainId, InventoryDomain.class)).isNull();
+        assertThat(mongoTemplate.findById(abandonedJob.getId(), InventoryJob.class).getAttempts()).isEqualTo(2);
+    }
+
+    @Test
+    public void jobAbandonedTooManyTimesFails() {
+        String domainId = testUtilityService.createDomain("new-domain");
+        var abandonedJob = mongoTemplate.insert(
+                InventoryJob.builder()
+                        .type(InventoryJobType.DeleteDomain)
+                        .state(InventoryJobState.Running)
+                        .domainId(domainId)
+                        .total(0L)
+                        .attempts(InventoryJobService.MAX_ATTEMPTS)
+                        .owner("stopped-node")
+                        .leaseUntil(LocalDateTime.now().minusMinutes(1))
+                        .createdBy("user1@slac.stanford.edu")
+                        .createdDate(LocalDateTime.now().minusMinutes(5))
+                        .build()
+        );
+
+        var job = waitForJob(abandonedJob.getId());
+        assertThat(job.state()).isEqualTo(InventoryJobStateDTO.Failed);
+        // the job has not been executed
+        assertThat(mongoTemplate.findById(domainId, InventoryDomain.class)).isNotNull();
+    }
+
+    @Test
+    public void jobWithValidLeaseIsNotTaken() {
+        String domainId = testUtilityService.createDomain("new-domain");
+        var runningJob = mongoTemplate.insert(
+                InventoryJob.builder()
+                        .type(InventoryJobType.DeleteDomain)
+                        .state(InventoryJobState.Running)
+                        .domainId(domainId)
+                        .total(0L)
+                        .attempts(1)
+                        .owner("other-node")
+                        .leaseUntil(LocalDateTime.now().plusMinutes(10))
+                        .createdBy("user1@slac.stanford.edu")
+                        .createdDate(LocalDateTime.now())
+                        .build()
+        );
+        inventoryJobService.poll();
+        var job = assertDoesNotThrow(() -> inventoryJobService.findById(runningJob.getId()));
+        assertThat(job.state()).isEqualTo(InventoryJobStateDTO.Running);
+        assertThat(mongoTemplate.findById(runningJob.getId(), InventoryJob.class).getOwner()).isEqualTo("other-node");
+    }
+
+    @Test
+    public void jobRunningOnStopIsReleased() throws InterruptedException {
+        CountDownLatch started = new CountDownLatch(1);
+        InventoryJobHandler blockingHandler = new InventoryJobHandler() {
+            @Override
+            public Set<InventoryJobType> handledTypes() {
+                return Set.of(InventoryJobType.DeleteDomain);
+            }
+
+            @Override
+            public void execute(InventoryJob job, InventoryJobContext context) {
+                started.countDown();
+                try {
+                    Thread.sleep(Duration.ofMinutes(10));
+                } catch (InterruptedException e) {
+                    // as a mongodb operation interrupted by the stop
+                    throw new IllegalStateException("Interrupted", e);
+                }
+            }
+        };
+        // the node of the test context is stopped so the job is taken only by the stopping node
+        inventoryJobService.stop();
+        InventoryJobService stoppingNode = new InventoryJobService(
+                mongoTemplate,
+                inventoryElementMapper,
+                new StaticListableBeanFactory(Map.of("blockingHandler", blockingHandler)).getBeanProvider(InventoryJobHandler.class),
+                true,
+                1,
+                Duration.ofMinutes(1),
+                Duration.ofMillis(100)
+        );
+        try {
+            stoppingNode.start();
+            String jobId = stoppingNode.submit(
+                    InventoryJob.builder()
+                            .type(InventoryJobType.DeleteDomain)
+                            .domainId("domain-id")
+                            .total(0L)
+                            .createdBy("user1@slac.stanford.edu")
+                            .build()
+            );
+            assertThat(started.await(30, TimeUnit.SECONDS)).isTrue();
+
+            stoppingNode.stop();
+
+            // the job is pending again and not failed
+            var job = mongoTemplate.findById(jobId, InventoryJob.class);
+            assertThat(job.getState()).isEqualTo(InventoryJobState.Pending);
+            assertThat(job.getOwner()).isNull();
+            assertThat(job.getErrorMessage()).isNull();
+            assertThat(job.getCompletedDate()).isNull();
+        } finally {
+            stoppingNode.stop();
+            mongoTemplate.remove(new Query(), InventoryJob.class);
+            inventoryJobService.start();
+        }
+    }
+
+    @Test
+    public void findFailsOnMissingJob() {
+        var notFound = assertThrows(
+                ControllerLogicException.class,
+                () -> inventoryJobService.findById("bad-job-id")
+        );
+        assertThat(notFound.getErrorCode()).isEqualTo(-2);
+    }
+
+    private InventoryJobDTO waitForJob(String jobId) {
+        await()
+                .atMost(Duration.ofSeconds(30))
+                .pollInterval(Duration.ofMillis(200))
+                .until(
+                        () -> inventoryJobService.findById(jobId).state() == InventoryJobStateDTO.Completed ||
+                                inventoryJobService.findById(jobId).state() == InventoryJobStateDTO.Failed
+                );
+        return inventoryJobService.findById(jobId);
+    }
+}
@@ -1,11 +1,114 @@
 package edu.stanford.slac.code_inventory_system.service;
 
+import edu.stanford.slac.code_inventory_system.api.v1.dto.InventoryClassAttributeDTO;
+import edu.stanford.slac.code_inventory_system.api.v1.dto.NewInventoryClassDTO;
+import edu.stanford.slac.code_inventory_system.api.v1.dto.NewInventoryDomainDTO;
+import edu.stanford.slac.code_inventory_system.api.v1.dto.NewInventoryElementDTO;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
+import java.util.List;
+
+import static java.util.Collections.emptyList;
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+
 @Service
 public class TestUtilityService {
     @Autowired
     InventoryClassService inventoryClassService;
+    @Autowired
+    InventoryElementService inventoryElementService;
+
+    /**
+     * Create a domain without tags and authorizations
+     *
+     * @param name the name of the domain
+     * @return the id of the domain
+     */
+    public String createDomain(String name) {
+        return assertDoesNotThrow(
+                () -> inventoryElementService.createNew(
+                        NewInventoryDomainDTO
+                                .builder()
+                                .name(name)
+                                .description("This is the description for the new domain")
+                                .tags(emptyList())
+                                .authenticationTokens(emptyList())
+                                .authorizations(emptyList())
+                                .build()
+                )
+        );
+    }
+
+    /**
+     * Create a class without attributes
+     *
+     * @param name the name of the class
+     * @return the id of the class
+     */
+    public String createClass(String name) {
+        return createClass(name, emptyList());
+    }
+
+    /**
+     * Create a class with the given attributes
+     *
+     * @param name       the name of the class
+     * @param attributes the attributes of the class
+     * @return the id of the class
+     */
+    public String createClass(String name, List<InventoryClassAttributeDTO> attributes) {
+        return assertDoesNotThrow(
+                () -> inventoryClassService.createNew(
+                        NewInventoryClassDTO
+                                .builder()
+                                .name(name)
+                                .attributes(attributes)
+                                .build()
+                )
+        );
+    }
+
+    /**
+     * Return the builder of a new element with the mandatory fields filled
+     *
+     * @param name     the name of the element
+     * @param classId  the class of the element
+     * @param parentId the parent of the element, null for a root
+     * @return the builder of the element
+     */
+    public NewInventoryElementDTO.NewInventoryElementDTOBuilder newElement(String name, String classId, String parentId) {
+        return NewInventoryElementDTO
+                .builder()
+                .name(name)
+                .description("description for %s".formatted(name))
+                .classId(classId)
+                .parentId(parentId);
+    }
+
+    /**
+     * Create an element with only the mandatory fields
+     *
+     * @param domainId the domain of the element
+     * @param name     the name of the element
+     * @param classId  the class of the element
+     * @param parentId the parent of the element, null for a root
+     * @return the id of the element
+     */
+    public String createElement(String domainId, String name, String classId, String parentId) {
+        return createElement(domainId, newElement(name, classId, parentId).build());
+    }
 
+    /**
+     * Create an element
+     *
+     * @param domainId   the domain of the element
+     * @param newElement the element to create
+     * @return the id of the element
+     */
+    public String createElement(String domainId, NewInventoryElementDTO newElement) {
+        return assertDoesNotThrow(
+                () -> inventoryElementService.createNew(domainId, newElement)
+        );
+    }
 }
@@ -0,0 +1,96 @@
+package edu.stanford.slac.code_inventory_system.service.utility;
+
+import edu.stanford.slac.ad.eed.baselib.api.v1.dto.AuthorizationTypeDTO;
+import edu.stanford.slac.ad.eed.baselib.service.AuthService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.AssertionsForInterfaceTypes.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@AutoConfigureMockMvc
+@SpringBootTest()
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+@ActiveProfiles({"test"})
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_CLASS)
+public class AuthorizationDecisionCacheTest {
+    private static final String DOMAIN_RESOURCE = "/cis/domain/domain-id";
+    @Mock
+    AuthService authService;
+
+    @BeforeEach
+    public void resetMock() {
+        Mockito.reset(authService);
+        when(authService.checkForRoot(any(Authentication.class))).thenReturn(false);
+        when(authService.checkAuthorizationForOwnerAuthTypeAndResourcePrefix(any(Authentication.class), any(AuthorizationTypeDTO.class), any(String.class))).thenReturn(true);
+    }
+
+    @Test
+    public void decisionsAreCachedForEachPrincipal() {
+        var cache = new AuthorizationDecisionCache(authService, Duration.ofMinutes(1), 100);
+        var user1 = new UsernamePasswordAuthenticationToken("user1@slac.stanford.edu", null);
+        var user2 = new UsernamePasswordAuthenticationToken("user2@slac.stanford.edu", null);
+        for (int i = 0; i < 3; i++) {
+            assertThat(cache.checkForRoot(user1)).isFalse();
+            assertThat(cache.checkAuthorizationForOwnerAuthTypeAndResourcePrefix(user1, AuthorizationTypeDTO.Read, DOMAIN_RESOURCE)).isTrue();
+        }
+        cache.checkAuthorizationForOwnerAuthTypeAndResourcePrefix(user2, AuthorizationTypeDTO.Read, DOMAIN_RESOURCE);
+        cache.checkAuthorizationForOwnerAuthTypeAndResourcePrefix(user1, AuthorizationTypeDTO.Write, DOMAIN_RESOURCE);
+
+        verify(authService, times(1)).checkForRoot(user1);
+        verify(authService, times(1)).checkAuthorizationForOwnerAuthTypeAndResourcePrefix(user1, AuthorizationTypeDTO.Read, DOMAIN_RESOURCE);
+        verify(authService, times(1)).checkAuthorizationForOwnerAuthTypeAndResourcePrefix(user2, AuthorizationTypeDTO.Read, DOMAIN_RESOURCE);
+        verify(authService, times(1)).checkAuthorizationForOwnerAuthTypeAndResourcePrefix(user1, AuthorizationTypeDTO.Write, DOMAIN_RESOURCE);
+    }
+
+    @Test
+    public void evictResourceReloadTheDecisions() {
+        var cache = new AuthorizationDecisionCache(authService, Duration.ofMinutes(1), 100);
+        var user1 = new UsernamePasswordAuthenticationToken("user1@slac.stanford.edu", null);
+        cache.checkForRoot(user1);
+        cache.checkAuthorizationForOwnerAuthTypeAndResourcePrefix(user1, AuthorizationTypeDTO.Read, DOMAIN_RESOURCE);
+        cache.findByResourceIs(DOMAIN_RESOURCE);
+
+        // the authorizations of the domain has been changed
+        when(authService.checkAuthorizationForOwnerAuthTypeAndResourcePrefix(any(Authentication.class), any(AuthorizationTypeDTO.class), any(String.class))).thenReturn(false);
+        cache.evictResource(DOMAIN_RESOURCE);
+
+        assertThat(cache.checkAuthorizationForOwnerAuthTypeAndResourcePrefix(user1, AuthorizationTypeDTO.Read, DOMAIN_RESOURCE)).isFalse();
+        cache.findByResourceIs(DOMAIN_RESOURCE);
+        cache.checkForRoot(user1);
+        verify(authService, times(2)).checkAuthorizationForOwnerAuthTypeAndResourcePrefix(user1, AuthorizationTypeDTO.Read, DOMAIN_RESOURCE);
+        verify(authService, times(2)).findByResourceIs(DOMAIN_RESOURCE);
+        // the root decision doesn't depend on the domain
+        verify(authService, times(1)).checkForRoot(user1);
+    }
+
+    @Test
+    public void zeroTtlDisableTheCache() {
+        var cache = new AuthorizationDecisionCache(authService, Duration.ZERO, 100);
+        var user1 = new UsernamePasswordAuthenticationToken("user1@slac.stanford.edu", null);
+        cache.checkAuthorizationForOwnerAuthTypeAndResourcePrefix(user1, AuthorizationTypeDTO.Read, DOMAIN_RESOURCE);
+        cache.checkAuthorizationForOwnerAuthTypeAndResourcePrefix(user1, AuthorizationTypeDTO.Read, DOMAIN_RESOURCE);
+        verify(authService, times(2)).checkAuthorizationForOwnerAuthTypeAndResourcePrefix(eq(user1), eq(AuthorizationTypeDTO.Read), eq(DOMAIN_RESOURCE));
+    }
+}
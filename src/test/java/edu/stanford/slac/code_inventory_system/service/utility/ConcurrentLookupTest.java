@@ -0,0 +1,84 @@
+package edu.stanford.slac.code_inventory_system.service.utility;
+
+import edu.stanford.slac.ad.eed.baselib.exception.ControllerLogicException;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.AssertionsForInterfaceTypes.assertThat;
+import static org.awaitility.Awaitility.await;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@AutoConfigureMockMvc
+@SpringBootTest()
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+@ExtendWith(MockitoExtension.class)
+@ActiveProfiles({"test"})
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_CLASS)
+public class ConcurrentLookupTest {
+    @Autowired
+    ConcurrentLookup concurrentLookup;
+
+    @Test
+    public void lookupsRunConcurrently() {
+        // both lookups wait for the other so they complete only if executed together
+        CountDownLatch latch = new CountDownLatch(2);
+        try (var scope = concurrentLookup.open()) {
+            var first = scope.fork(() -> {
+                latch.countDown();
+                return latch.await(5, TimeUnit.SECONDS);
+            });
+            var second = scope.fork(() -> {
+                latch.countDown();
+                return latch.await(5, TimeUnit.SECONDS);
+            });
+            scope.join();
+            assertThat(first.get()).isTrue();
+            assertThat(second.get()).isTrue();
+        }
+    }
+
+    @Test
+    public void failureCancelTheOtherLookups() {
+        AtomicBoolean interrupted = new AtomicBoolean(false);
+        CountDownLatch started = new CountDownLatch(1);
+        ControllerLogicException failure = assertThrows(
+                ControllerLogicException.class,
+                () -> {
+                    try (var scope = concurrentLookup.open()) {
+                        scope.fork(() -> {
+                            started.countDown();
+                            try {
+                                Thread.sleep(10000);
+                            } catch (InterruptedException e) {
+                                interrupted.set(true);
+                                throw e;
+                            }
+                            return true;
+                        });
+                        scope.fork(() -> {
+                            started.await();
+                            throw ControllerLogicException.builder()
+                                    .errorCode(-10)
+                                    .errorMessage("lookup failed")
+                                    .build();
+                        });
+                        scope.join();
+                    }
+                }
+        );
+        assertThat(failure.getErrorCode()).isEqualTo(-10);
+        // the pending lookup has been cancelled
+        await().atMost(5, TimeUnit.SECONDS).untilTrue(interrupted);
+    }
+}
@@ -0,0 +1,38 @@
+#!/bin/sh
+# Generate a synthetic facility and run the mixed read and write workload on it.
+#
+# The application is started in demo mode with docker compose, the data is written directly
+# into the mongodb exposed by the compose file and the results are appended to the csv report.
+#
+# usage: tools/benchmark/facility-scale-benchmark.sh [buildings] [concurrency] [duration-seconds] [write-ratio]
+set -e
+
+BUILDINGS=${1:-2}
+CONCURRENCY=${2:-100}
+DURATION=${3:-60}
+WRITE_RATIO=${4:-0.1}
+REPORT=${BENCHMARK_REPORT:-build/benchmark/facility-scale.csv}
+COMPOSE="docker compose -f docker-compose.yml -f docker-compose-app.yml -f tools/benchmark/docker-compose-benchmark.yml"
+
+cd "$(dirname "$0")/../.."
+$COMPOSE up -d --build backend
+echo "waiting for the backend"
+until curl -sf http://localhost:8080/actuator/health > /dev/null; do sleep 2; done
+
+mkdir -p build
+DOMAIN_NAME="synthetic-facility-$BUILDINGS-$(date +%s)"
+./gradlew generateFacilityData -Dgenerator.buildings="$BUILDINGS" -Dgenerator.domain-name="$DOMAIN_NAME" | tee build/facility-generator.log
+DOMAIN_ID=$(sed -n 's/^Generated domain \([0-9a-f]*\) .*/\1/p' build/facility-generator.log)
+
+./gradlew mixedWorkloadBenchmark \
+  -Dbenchmark.mode="buildings-$BUILDINGS" \
+  -Dbenchmark.domain-id="$DOMAIN_ID" \
+  -Dbenchmark.concurrency="$CONCURRENCY" \
+  -Dbenchmark.duration-seconds="$DURATION" \
+  -Dbenchmark.write-ratio="$WRITE_RATIO" \
+  -Dbenchmark.report="$REPORT" \
+  ${CIS_BENCHMARK_TOKEN:+-Dbenchmark.token=$CIS_BENCHMARK_TOKEN}
+$COMPOSE down
+
+echo
+column -s, -t < "$REPORT"
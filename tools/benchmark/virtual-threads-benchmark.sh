@@ -0,0 +1,35 @@
+#!/bin/sh
+# Compare throughput and latency of the tree and search endpoints with the http requests
+# served by the tomcat platform thread pool and by virtual threads.
+#
+# The application is started in demo mode with docker compose, once for each mode, and the
+# endpoint load benchmark is run against it. The results are appended to the csv report.
+#
+# usage: tools/benchmark/virtual-threads-benchmark.sh [concurrency] [duration-seconds]
+set -e
+
+CONCURRENCY=${1:-200}
+DURATION=${2:-60}
+REPORT=${BENCHMARK_REPORT:-build/benchmark/virtual-threads.csv}
+COMPOSE="docker compose -f docker-compose.yml -f docker-compose-app.yml -f tools/benchmark/docker-compose-benchmark.yml"
+
+cd "$(dirname "$0")/../.."
+./gradlew bootJar
+rm -f "$REPORT"
+
+for MODE in platform virtual; do
+  if [ "$MODE" = "virtual" ]; then VIRTUAL=true; else VIRTUAL=false; fi
+  CIS_VIRTUAL_THREADS=$VIRTUAL $COMPOSE up -d --build backend
+  echo "waiting for the backend in $MODE mode"
+  until curl -sf http://localhost:8080/actuator/health > /dev/null; do sleep 2; done
+  ./gradlew endpointLoadBenchmark \
+    -Dbenchmark.mode=$MODE \
+    -Dbenchmark.concurrency="$CONCURRENCY" \
+    -Dbenchmark.duration-seconds="$DURATION" \
+    -Dbenchmark.report="$REPORT" \
+    ${CIS_BENCHMARK_TOKEN:+-Dbenchmark.token=$CIS_BENCHMARK_TOKEN}
+  $COMPOSE down
+done
+
+echo
+column -s, -t < "$REPORT"